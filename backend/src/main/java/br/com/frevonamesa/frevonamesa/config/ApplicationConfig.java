@@ -4,6 +4,8 @@ import br.com.frevonamesa.frevonamesa.model.Restaurante;
 import br.com.frevonamesa.frevonamesa.model.Usuario;
 import br.com.frevonamesa.frevonamesa.repository.RestauranteRepository;
 import br.com.frevonamesa.frevonamesa.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -14,7 +16,6 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.List;
@@ -54,10 +55,10 @@ public class ApplicationConfig {
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -66,8 +67,13 @@ public class ApplicationConfig {
         return config.getAuthenticationManager();
     }
 
+    // BCrypt em pool próprio com fila limitada (429 quando cheia) e força calibrada na subida
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${app.senha.threads:0}") int threads,
+                                           @Value("${app.senha.fila:50}") int capacidadeFila,
+                                           @Value("${app.senha.tempo-alvo-ms:100}") long tempoAlvoMs) {
+        int threadsEfetivas = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BCryptLimitadoPasswordEncoder(threadsEfetivas, capacidadeFila, tempoAlvoMs, meterRegistry);
     }
 }
\ No newline at end of file
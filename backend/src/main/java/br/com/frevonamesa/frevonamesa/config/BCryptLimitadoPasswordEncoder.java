@@ -0,0 +1,123 @@
+package br.com.frevonamesa.frevonamesa.config;
+
+import br.com.frevonamesa.frevonamesa.exception.LimiteRequisicoesException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt fora das threads do Tomcat: encode/matches rodam num pool próprio e pequeno, com fila
+ * limitada. Com a fila cheia (pico de logins, ataque de senhas) a requisição recebe 429 na hora, sem
+ * disputar CPU com o recebimento de pedidos. A thread da requisição só aguarda o resultado.
+ */
+public class BCryptLimitadoPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BCryptLimitadoPasswordEncoder.class);
+    private static final int FORCA_MINIMA = 10; // Padrão do BCryptPasswordEncoder: nunca abaixo disso
+    private static final int FORCA_MAXIMA = 14;
+    private static final long TIMEOUT_MS = 10_000;
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final ThreadPoolExecutor executor;
+    private final Timer tempoEncode;
+    private final Timer tempoMatches;
+    private final Counter rejeicoes;
+
+    public BCryptLimitadoPasswordEncoder(int threads, int capacidadeFila, long tempoAlvoMs, MeterRegistry registry) {
+        int forca = calibrarForca(tempoAlvoMs);
+        this.bcrypt = new BCryptPasswordEncoder(forca);
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila), tarefa -> {
+                    Thread thread = new Thread(tarefa, "bcrypt-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.tempoEncode = Timer.builder("senha.hash").tag("operacao", "encode")
+                .description("Tempo de BCrypt (sem a espera na fila)").register(registry);
+        this.tempoMatches = Timer.builder("senha.hash").tag("operacao", "matches")
+                .description("Tempo de BCrypt (sem a espera na fila)").register(registry);
+        this.rejeicoes = Counter.builder("senha.rejeicoes")
+                .description("Operações de senha recusadas com a fila cheia (429)").register(registry);
+        Gauge.builder("senha.fila", executor, e -> e.getQueue().size())
+                .description("Operações de senha aguardando na fila").register(registry);
+        Gauge.builder("senha.ativas", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Operações de senha em execução").register(registry);
+
+        logger.info("BCrypt com força {} (alvo de {} ms por hash), {} thread(s) e fila de {}.",
+                forca, tempoAlvoMs, threads, capacidadeFila);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executar(() -> tempoEncode.record(() -> bcrypt.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        // A força vem do próprio hash: senhas gravadas com outra força continuam válidas
+        return executar(() -> tempoMatches.record(() -> bcrypt.matches(rawPassword, encodedPassword)));
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    private <T> T executar(Callable<T> operacao) {
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(operacao);
+        } catch (RejectedExecutionException e) {
+            rejeicoes.increment();
+            throw new LimiteRequisicoesException("Muitas tentativas de login no momento. Tente novamente em instantes.");
+        }
+        try {
+            return futuro.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            rejeicoes.increment();
+            throw new LimiteRequisicoesException("Muitas tentativas de login no momento. Tente novamente em instantes.");
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando o hash da senha.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Maior força cujo hash leva até tempoAlvoMs nesta máquina (cada ponto de força dobra o custo),
+     * entre FORCA_MINIMA e FORCA_MAXIMA.
+     */
+    private static int calibrarForca(long tempoAlvoMs) {
+        BCryptPasswordEncoder referencia = new BCryptPasswordEncoder(FORCA_MINIMA);
+        String hash = referencia.encode("calibracao"); // Aquecimento
+        long melhorNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long inicio = System.nanoTime();
+            referencia.matches("calibracao", hash);
+            melhorNanos = Math.min(melhorNanos, System.nanoTime() - inicio);
+        }
+        double tempoMs = melhorNanos / 1_000_000.0;
+        int forca = FORCA_MINIMA;
+        while (forca < FORCA_MAXIMA && tempoMs * 2 <= tempoAlvoMs) {
+            tempoMs *= 2;
+            forca++;
+        }
+        return forca;
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.frevonamesa.frevonamesa.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+/**
+ * A cota mensal ficava na coluna pedidos_mes_atual da tabela restaurante e passou para
+ * contador_restaurante. Na subida (depois do ddl-auto criar a tabela), os restaurantes que ainda não têm
+ * linha recebem a cota da coluna antiga; as versões começam em zero. Bancos criados depois da mudança não
+ * têm a coluna e não há o que migrar. Se a cópia falhar, a subida é interrompida: seguir em frente
+ * zeraria a cota de todos os restaurantes.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ContadoresRestauranteInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContadoresRestauranteInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrarColunaAntiga() {
+        if (!temColunaPedidosMesAtual()) {
+            return;
+        }
+        try {
+            int migrados = jdbcTemplate.update("INSERT INTO contador_restaurante (restaurante_id, pedidos_mes_atual, versao_cardapio, versao_tabela_frete) " +
+                    "SELECT r.id, COALESCE(r.pedidos_mes_atual, 0), 0, 0 FROM restaurante r " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM contador_restaurante c WHERE c.restaurante_id = r.id)");
+            if (migrados > 0) {
+                logger.info("Cota mensal de {} restaurante(s) migrada da tabela restaurante.", migrados);
+            }
+        } catch (DataAccessException e) {
+            logger.error("Falha ao migrar a cota mensal da tabela restaurante para contador_restaurante: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    // O nome da coluna vem em maiúsculas no H2 e em minúsculas no PostgreSQL e no SQLite
+    private boolean temColunaPedidosMesAtual() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) conexao -> {
+            DatabaseMetaData metaData = conexao.getMetaData();
+            for (String[] nomes : new String[][]{{"restaurante", "pedidos_mes_atual"}, {"RESTAURANTE", "PEDIDOS_MES_ATUAL"}}) {
+                try (ResultSet colunas = metaData.getColumns(null, null, nomes[0], nomes[1])) {
+                    if (colunas.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+}
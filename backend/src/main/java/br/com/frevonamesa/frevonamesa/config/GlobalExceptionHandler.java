@@ -1,5 +1,6 @@
 package br.com.frevonamesa.frevonamesa.config;
 
+import br.com.frevonamesa.frevonamesa.exception.LimiteRequisicoesException;
 import br.com.frevonamesa.frevonamesa.exception.PedidoLimitException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -37,4 +38,13 @@ public class GlobalExceptionHandler {
 
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(LimiteRequisicoesException.class)
+    public ResponseEntity<Object> handleLimiteRequisicoesException(LimiteRequisicoesException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", System.currentTimeMillis());
+        body.put("message", ex.getMessage());
+
+        return new ResponseEntity<>(body, HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
@@ -0,0 +1,199 @@
+package br.com.frevonamesa.frevonamesa.config;
+
+import br.com.frevonamesa.frevonamesa.model.NotificacaoOutbox;
+import br.com.frevonamesa.frevonamesa.model.StatusNotificacao;
+import br.com.frevonamesa.frevonamesa.repository.NotificacaoOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drena a outbox de notificações do n8n em segundo plano.
+ * Busca lotes de notificações vencidas e envia em paralelo entre pedidos (pool limitado de threads, já
+ * que o projeto roda em Java 17, sem virtual threads), reaproveitando as conexões de um único HttpClient
+ * com timeouts. As notificações de um mesmo pedido saem em sequência, na ordem em que foram gravadas;
+ * se uma falha, as seguintes do pedido esperam a nova tentativa dela.
+ * Falhas são reagendadas com backoff exponencial até MAX_TENTATIVAS; depois ficam como FALHA.
+ */
+@Component
+public class NotificacaoOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificacaoOutboxDispatcher.class);
+
+    private static final int MAX_TENTATIVAS = 8;
+    private static final int PARALELISMO = 8;
+    private static final int TAMANHO_LOTE = 50;
+    private static final Duration BACKOFF_INICIAL = Duration.ofSeconds(5);
+    private static final Duration BACKOFF_MAXIMO = Duration.ofMinutes(10);
+    private static final int CICLOS_ENTRE_METRICAS = 30; // Atualiza as métricas a cada ~30s quando ocioso
+
+    @Autowired
+    private NotificacaoOutboxRepository notificacaoOutboxRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${n8n.webhook.url}")
+    private String n8nWebhookUrl;
+
+    private RestClient restClient;
+    private ExecutorService executor;
+
+    private final AtomicLong pendentes = new AtomicLong();
+    private final AtomicLong atrasoSegundos = new AtomicLong();
+    private int ciclosSemMetricas = CICLOS_ENTRE_METRICAS;
+    private Timer lagEntrega;
+    private Counter enviosSucesso;
+    private Counter enviosErro;
+    private Counter enviosFalhaDefinitiva;
+
+    @PostConstruct
+    public void init() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofSeconds(5));
+        restClient = RestClient.builder().requestFactory(requestFactory).build();
+
+        AtomicInteger contador = new AtomicInteger();
+        executor = new ThreadPoolExecutor(PARALELISMO, PARALELISMO, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "n8n-outbox-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("frevonamesa.notificacoes.pendentes", pendentes, AtomicLong::get)
+                .description("Notificações do n8n aguardando envio")
+                .register(meterRegistry);
+        Gauge.builder("frevonamesa.notificacoes.atraso", atrasoSegundos, AtomicLong::get)
+                .description("Idade (segundos) da notificação pendente mais antiga")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        lagEntrega = Timer.builder("frevonamesa.notificacoes.lag")
+                .description("Tempo entre a mudança de status e a entrega ao n8n")
+                .register(meterRegistry);
+        enviosSucesso = Counter.builder("frevonamesa.notificacoes.envios").tag("resultado", "sucesso").register(meterRegistry);
+        enviosErro = Counter.builder("frevonamesa.notificacoes.envios").tag("resultado", "erro").register(meterRegistry);
+        enviosFalhaDefinitiva = Counter.builder("frevonamesa.notificacoes.envios").tag("resultado", "falha").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void drenar() {
+        if (n8nWebhookUrl == null || n8nWebhookUrl.isBlank()) {
+            return;
+        }
+
+        boolean processouAlgo = false;
+        List<NotificacaoOutbox> lote;
+        do {
+            lote = notificacaoOutboxRepository.findProntasParaEnvio(
+                    StatusNotificacao.PENDENTE, LocalDateTime.now(), PageRequest.of(0, TAMANHO_LOTE));
+            if (lote.isEmpty()) break;
+
+            Map<Long, List<NotificacaoOutbox>> porPedido = new LinkedHashMap<>();
+            for (NotificacaoOutbox notificacao : lote) {
+                // Sem pedido: não há ordem a manter, cada uma forma o seu grupo
+                Long chave = notificacao.getPedidoId() != null ? notificacao.getPedidoId() : -notificacao.getId();
+                porPedido.computeIfAbsent(chave, pedido -> new ArrayList<>()).add(notificacao);
+            }
+            List<CompletableFuture<Void>> envios = porPedido.values().stream()
+                    .map(notificacoes -> CompletableFuture.runAsync(() -> enviarEmOrdem(notificacoes), executor))
+                    .toList();
+            CompletableFuture.allOf(envios.toArray(new CompletableFuture[0])).join();
+
+            notificacaoOutboxRepository.saveAll(lote);
+            processouAlgo = true;
+        } while (lote.size() == TAMANHO_LOTE);
+
+        if (processouAlgo || ++ciclosSemMetricas >= CICLOS_ENTRE_METRICAS) {
+            atualizarMetricas();
+        }
+    }
+
+    private void enviarEmOrdem(List<NotificacaoOutbox> notificacoes) {
+        for (NotificacaoOutbox notificacao : notificacoes) {
+            enviar(notificacao);
+            if (notificacao.getStatus() == StatusNotificacao.PENDENTE) {
+                break; // Falhou: as seguintes do pedido ficam para depois da nova tentativa
+            }
+        }
+    }
+
+    private void enviar(NotificacaoOutbox notificacao) {
+        try {
+            restClient.post()
+                    .uri(n8nWebhookUrl)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(notificacao.getPayload())
+                    .retrieve()
+                    .toBodilessEntity();
+
+            LocalDateTime agora = LocalDateTime.now();
+            notificacao.setStatus(StatusNotificacao.ENVIADA);
+            notificacao.setEnviadoEm(agora);
+            notificacao.setUltimoErro(null);
+            lagEntrega.record(Duration.between(notificacao.getCriadoEm(), agora));
+            enviosSucesso.increment();
+            logger.info("Webhook do n8n notificado para o pedido #{}", notificacao.getPedidoId());
+        } catch (Exception e) {
+            int tentativas = notificacao.getTentativas() + 1;
+            notificacao.setTentativas(tentativas);
+            String erro = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            notificacao.setUltimoErro(erro.length() > 1000 ? erro.substring(0, 1000) : erro);
+
+            if (tentativas >= MAX_TENTATIVAS) {
+                notificacao.setStatus(StatusNotificacao.FALHA);
+                enviosFalhaDefinitiva.increment();
+                logger.error("Notificação do n8n para pedido #{} descartada após {} tentativas: {}", notificacao.getPedidoId(), tentativas, erro);
+            } else {
+                notificacao.setProximaTentativa(LocalDateTime.now().plus(calcularBackoff(tentativas)));
+                enviosErro.increment();
+                logger.warn("Falha ao notificar webhook do n8n para pedido #{} (tentativa {}): {}", notificacao.getPedidoId(), tentativas, erro);
+            }
+        }
+    }
+
+    private Duration calcularBackoff(int tentativas) {
+        Duration espera = BACKOFF_INICIAL.multipliedBy(1L << Math.min(tentativas - 1, 20));
+        return espera.compareTo(BACKOFF_MAXIMO) > 0 ? BACKOFF_MAXIMO : espera;
+    }
+
+    private void atualizarMetricas() {
+        ciclosSemMetricas = 0;
+        pendentes.set(notificacaoOutboxRepository.countByStatus(StatusNotificacao.PENDENTE));
+        atrasoSegundos.set(notificacaoOutboxRepository.findCriadoEmMaisAntigo(StatusNotificacao.PENDENTE)
+                .map(criadoEm -> Math.max(0, Duration.between(criadoEm, LocalDateTime.now()).getSeconds()))
+                .orElse(0L));
+    }
+}
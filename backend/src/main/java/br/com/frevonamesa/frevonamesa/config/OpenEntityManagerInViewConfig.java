@@ -0,0 +1,34 @@
+package br.com.frevonamesa.frevonamesa.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Open-in-view só nas requisições comuns (o do Spring Boot fica desligado em spring.jpa.open-in-view).
+ * Numa resposta assíncrona o EntityManager da requisição só fecha quando o stream termina, segurando uma
+ * conexão do pool enquanto o painel SSE, o long-poll do rastreio ou a cotação em lote ficam abertos.
+ * Essas rotas fazem as consultas em transações próprias.
+ */
+@Configuration
+public class OpenEntityManagerInViewConfig implements WebMvcConfigurer {
+
+    private static final String[] ROTAS_LONGA_DURACAO = {
+            "/api/pedidos/delivery/stream",
+            "/api/publico/pedido/*/rastrear/aguardar",
+            "/api/areas-entrega/cotacao-lote"
+    };
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor).excludePathPatterns(ROTAS_LONGA_DURACAO);
+    }
+}
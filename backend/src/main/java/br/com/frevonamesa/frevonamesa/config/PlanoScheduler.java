@@ -2,7 +2,10 @@ package br.com.frevonamesa.frevonamesa.config;
 
 import br.com.frevonamesa.frevonamesa.model.Restaurante;
 import br.com.frevonamesa.frevonamesa.repository.RestauranteRepository;
+import br.com.frevonamesa.frevonamesa.service.CotaDeliveryService;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -13,9 +16,14 @@ import java.util.List;
 @Component
 public class PlanoScheduler {
 
+    private static final Logger logger = LoggerFactory.getLogger(PlanoScheduler.class);
+
     @Autowired
     private RestauranteRepository restauranteRepository;
 
+    @Autowired
+    private CotaDeliveryService cotaDeliveryService;
+
     /**
      * Verifica diariamente se os planos PRO/PREMIUM expiraram, aplicando 5 dias de carência.
      * Roda às 3:00 da manhã (horário do servidor) via expressão cron.
@@ -34,7 +42,7 @@ public class PlanoScheduler {
             if (restaurante.getDataExpiracaoPlano() != null &&
                     restaurante.getDataExpiracaoPlano().isBefore(dataCorte)) {
 
-                System.out.println("ALERTA CHURN: Restaurante " + restaurante.getNome() + " expirou em " + restaurante.getDataExpiracaoPlano() + ". Rebaixando para GRATUITO.");
+                logger.warn("ALERTA CHURN: Restaurante {} expirou em {}. Rebaixando para GRATUITO.", restaurante.getNome(), restaurante.getDataExpiracaoPlano());
 
                 // 2. Rebaixa o plano e remove a data de expiração
                 restaurante.setPlano("GRATUITO");
@@ -45,6 +53,16 @@ public class PlanoScheduler {
                 restauranteRepository.save(restaurante);
             }
         }
-        System.out.println("Scheduler de verificação de planos concluído.");
+        logger.info("Scheduler de verificação de planos concluído.");
+    }
+
+    /**
+     * Zera a cota mensal de pedidos delivery de todos os restaurantes (um único UPDATE).
+     * Roda à meia-noite do primeiro dia de cada mês.
+     */
+    @Scheduled(cron = "0 0 0 1 * *")
+    public void zerarCotasMensais() {
+        int restaurantes = cotaDeliveryService.zerarTodos();
+        logger.info("Cota mensal de pedidos delivery zerada para {} restaurante(s).", restaurantes);
     }
-}
\ No newline at end of file
+}
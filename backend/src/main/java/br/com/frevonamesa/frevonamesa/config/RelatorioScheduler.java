@@ -0,0 +1,23 @@
+package br.com.frevonamesa.frevonamesa.config;
+
+import br.com.frevonamesa.frevonamesa.service.ConsolidacaoDiariaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RelatorioScheduler {
+
+    @Autowired
+    private ConsolidacaoDiariaService consolidacaoDiariaService;
+
+    /**
+     * Fecha os dias encerrados nos resumos diários usados pelos relatórios por período.
+     * Roda de hora em hora: normalmente fecha um dia por madrugada; no primeiro deploy faz o
+     * backfill do histórico em lotes.
+     */
+    @Scheduled(cron = "0 15 * * * *")
+    public void consolidarDiasFechados() {
+        consolidacaoDiariaService.consolidarPendentes();
+    }
+}
@@ -17,6 +17,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.beans.factory.annotation.Autowired; // Necessário
+import jakarta.servlet.DispatcherType;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
@@ -57,7 +58,10 @@ public class SecurityConfig {
                         // Rotas ABERTAS / PÚBLICAS (MOVEMOS DE VOLTA AQUI para forçar o filtro CORS)
                         // OPTIONS é o preflight do CORS
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // Despacho assíncrono do stream SSE (a requisição original já foi autorizada)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**", "/api/publico/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
 
                         // Rotas Autenticadas Gerais
                         .requestMatchers("/api/restaurante/meu-perfil").authenticated()
@@ -72,6 +76,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/caixa/fechar").hasRole("ADMIN")
                         .requestMatchers("/api/relatorios/**").hasRole("ADMIN")
                         .requestMatchers("/api/areas-entrega/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                         // Rotas Financeiras - ADMIN tem acesso a tudo
                         .requestMatchers("/api/financeiro/status-plano").hasRole("ADMIN")
@@ -117,6 +122,7 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(origins);
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList("ETag")); // Rastreio público lê o ETag para o If-None-Match
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,52 @@
+package br.com.frevonamesa.frevonamesa.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * As tabelas do pedido já existiam com ids IDENTITY quando passaram a usar sequence. Na subida (depois
+ * do ddl-auto criar as sequences e antes de aceitar requisições), cada sequence que ainda estiver atrás
+ * do maior id da tabela é avançada, para que os novos ids não colidam com os antigos. Só PostgreSQL:
+ * o H2 dos testes nasce vazio e o SQLite do desktop continua com IDENTITY.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SequenciasIdsInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenciasIdsInitializer.class);
+
+    // sequence -> tabela
+    private static final Map<String, String> SEQUENCIAS = Map.of(
+            "pedido_seq", "pedido",
+            "item_pedido_seq", "item_pedido",
+            "item_pedido_adicional_seq", "item_pedido_adicional",
+            "resumo_produto_diario_seq", "resumo_produto_diario");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void ajustarSequencias() {
+        String banco = jdbcTemplate.execute((ConnectionCallback<String>) conexao -> conexao.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(banco)) {
+            return;
+        }
+        SEQUENCIAS.forEach((sequencia, tabela) -> {
+            Long maiorId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabela, Long.class);
+            Long ultimoValor = jdbcTemplate.queryForObject("SELECT last_value FROM " + sequencia, Long.class);
+            if (maiorId != null && ultimoValor != null && ultimoValor <= maiorId) {
+                // O próximo bloco do otimizador pooled começa depois do maior id existente
+                jdbcTemplate.queryForObject("SELECT setval(?, ?)", Long.class, sequencia, maiorId);
+                logger.info("Sequence {} avançada para {} (maior id de {}).", sequencia, maiorId, tabela);
+            }
+        });
+    }
+}
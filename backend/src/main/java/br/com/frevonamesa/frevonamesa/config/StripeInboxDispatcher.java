@@ -0,0 +1,277 @@
+package br.com.frevonamesa.frevonamesa.config;
+
+import br.com.frevonamesa.frevonamesa.model.StatusEventoStripe;
+import br.com.frevonamesa.frevonamesa.model.StripeEventoInbox;
+import br.com.frevonamesa.frevonamesa.repository.StripeEventoInboxRepository;
+import br.com.frevonamesa.frevonamesa.service.StripeEventoRecebidoEvent;
+import br.com.frevonamesa.frevonamesa.service.StripeInboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Processa a inbox de webhooks do Stripe em segundo plano.
+ * Cada lote traz só eventos vencidos e pula os clientes que têm um evento anterior aguardando nova
+ * tentativa, para um evento mais novo nunca ser aplicado antes de um mais antigo do mesmo cliente sem
+ * que os eventos em backoff ocupem o lote dos demais. Cada evento é reservado com um UPDATE condicional
+ * antes de ser processado, para que duas instâncias no mesmo banco não o apliquem duas vezes. Os eventos são agrupados pela chave de ordenação
+ * (cliente ou conta Connect): cada grupo roda em uma thread do pool, em ordem de criação no Stripe, e
+ * para na primeira falha. Grupos diferentes rodam em paralelo. Falhas são reagendadas com backoff
+ * exponencial até MAX_TENTATIVAS; depois o evento fica como FALHA e deixa de bloquear os seguintes.
+ * Ocioso, não consulta o banco: acorda com um evento novo (StripeEventoRecebidoEvent) ou quando vence
+ * a próxima tentativa agendada.
+ */
+@Component
+public class StripeInboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripeInboxDispatcher.class);
+
+    private static final int MAX_TENTATIVAS = 10;
+    private static final int PARALELISMO = 4;
+    private static final int TAMANHO_LOTE = 200;
+    private static final Duration BACKOFF_INICIAL = Duration.ofSeconds(5);
+    private static final Duration BACKOFF_MAXIMO = Duration.ofMinutes(30);
+    private static final Duration RESERVA = Duration.ofMinutes(5); // Se a instância cair no meio, outra retoma o evento depois disso
+    private static final Duration RETENCAO_PROCESSADOS = Duration.ofDays(30); // O Stripe reenvia por até 3 dias
+
+    @Autowired
+    private StripeEventoInboxRepository stripeEventoInboxRepository;
+
+    @Autowired
+    private StripeInboxService stripeInboxService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+
+    private final AtomicLong pendentes = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong atrasoSegundos = new AtomicLong();
+    private final AtomicBoolean novosEventos = new AtomicBoolean();
+    private final AtomicBoolean drenando = new AtomicBoolean();
+    private volatile LocalDateTime proximaVarredura; // null: nenhuma tentativa agendada
+    private Timer lagProcessamento;
+    private Counter eventosSucesso;
+    private Counter eventosErro;
+    private Counter eventosFalhaDefinitiva;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger contador = new AtomicInteger();
+        executor = new ThreadPoolExecutor(PARALELISMO, PARALELISMO, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "stripe-inbox-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("frevonamesa.stripe.eventos.pendentes", pendentes, AtomicLong::get)
+                .description("Eventos do Stripe aguardando processamento")
+                .register(meterRegistry);
+        Gauge.builder("frevonamesa.stripe.eventos.falhas", falhas, AtomicLong::get)
+                .description("Eventos do Stripe que esgotaram as tentativas")
+                .register(meterRegistry);
+        Gauge.builder("frevonamesa.stripe.eventos.atraso", atrasoSegundos, AtomicLong::get)
+                .description("Idade (segundos) do evento pendente mais antigo")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        lagProcessamento = Timer.builder("frevonamesa.stripe.eventos.lag")
+                .description("Tempo entre o recebimento do webhook e o processamento do evento")
+                .register(meterRegistry);
+        eventosSucesso = Counter.builder("frevonamesa.stripe.eventos.processamentos").tag("resultado", "sucesso").register(meterRegistry);
+        eventosErro = Counter.builder("frevonamesa.stripe.eventos.processamentos").tag("resultado", "erro").register(meterRegistry);
+        eventosFalhaDefinitiva = Counter.builder("frevonamesa.stripe.eventos.processamentos").tag("resultado", "falha").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    // Eventos que ficaram pendentes antes de reiniciar
+    @EventListener(ApplicationReadyEvent.class)
+    public void verificarPendentes() {
+        proximaVarredura = stripeEventoInboxRepository.findProximaTentativaMaisCedo(StatusEventoStripe.PENDENTE).orElse(null);
+        atualizarMetricas();
+    }
+
+    @EventListener
+    public void eventoRecebido(StripeEventoRecebidoEvent evento) {
+        novosEventos.set(true);
+    }
+
+    // Só dispara a drenagem: os lotes rodam nas threads do pool, sem prender o agendador (compartilhado
+    // com heartbeat do SSE, relatórios e planos)
+    @Scheduled(fixedDelay = 1000)
+    public void drenar() {
+        LocalDateTime varredura = proximaVarredura;
+        if (!novosEventos.get() && (varredura == null || varredura.isAfter(LocalDateTime.now()))) {
+            return;
+        }
+        if (!drenando.compareAndSet(false, true)) {
+            return; // Drenagem anterior em andamento; um evento novo continua sinalizado para a próxima
+        }
+        novosEventos.set(false);
+        try {
+            executor.execute(this::drenarLote);
+        } catch (RejectedExecutionException e) {
+            drenando.set(false); // Aplicação encerrando
+        }
+    }
+
+    // Busca um lote e distribui os grupos no pool; o lote seguinte é buscado quando todos terminam
+    private void drenarLote() {
+        try {
+            List<StripeEventoInbox> lote = stripeEventoInboxRepository.findProntosParaProcessar(
+                    StatusEventoStripe.PENDENTE, LocalDateTime.now(), PageRequest.of(0, TAMANHO_LOTE));
+            if (lote.isEmpty()) {
+                concluirDrenagem(false, null);
+                return;
+            }
+
+            Map<String, List<StripeEventoInbox>> porChave = new LinkedHashMap<>();
+            for (StripeEventoInbox evento : lote) {
+                porChave.computeIfAbsent(evento.getChaveOrdenacao(), chave -> new ArrayList<>()).add(evento);
+            }
+            List<CompletableFuture<Grupo>> grupos = porChave.values().stream()
+                    .map(eventos -> CompletableFuture.supplyAsync(() -> processarEmOrdem(eventos), executor))
+                    .toList();
+            CompletableFuture.allOf(grupos.toArray(new CompletableFuture[0])).whenCompleteAsync((ignorado, erro) -> {
+                try {
+                    Grupo resultado = grupos.stream().map(CompletableFuture::join).reduce(new Grupo(0, null), Grupo::somar);
+                    boolean cheio = lote.size() == TAMANHO_LOTE;
+                    if (cheio && resultado.concluidos() > 0) {
+                        drenarLote();
+                    } else {
+                        concluirDrenagem(cheio, resultado.proximaTentativa()); // Lote cheio só de falhas: o próximo ciclo continua
+                    }
+                } catch (RuntimeException e) {
+                    falhaNaDrenagem(e);
+                }
+            }, executor);
+        } catch (RuntimeException e) {
+            falhaNaDrenagem(e);
+        }
+    }
+
+    private void concluirDrenagem(boolean restamEventos, LocalDateTime proximaTentativa) {
+        LocalDateTime agora = LocalDateTime.now();
+        proximaVarredura = restamEventos ? agora : maisCedo(proximaTentativa,
+                stripeEventoInboxRepository.findProximaTentativaDepoisDe(StatusEventoStripe.PENDENTE, agora).orElse(null));
+        atualizarMetricas();
+        drenando.set(false);
+    }
+
+    private void falhaNaDrenagem(RuntimeException e) {
+        logger.error("Falha ao drenar a inbox do Stripe: {}", e.getMessage(), e);
+        proximaVarredura = LocalDateTime.now().plus(BACKOFF_INICIAL);
+        drenando.set(false);
+    }
+
+    // Eventos de um grupo que saíram de PENDENTE e a nova tentativa que interrompeu o grupo (null se nenhuma)
+    private record Grupo(int concluidos, LocalDateTime proximaTentativa) {
+        Grupo somar(Grupo outro) {
+            return new Grupo(concluidos + outro.concluidos, maisCedo(proximaTentativa, outro.proximaTentativa));
+        }
+    }
+
+    private static LocalDateTime maisCedo(LocalDateTime a, LocalDateTime b) {
+        return a == null || (b != null && b.isBefore(a)) ? b : a;
+    }
+
+    private Grupo processarEmOrdem(List<StripeEventoInbox> eventos) {
+        int concluidos = 0;
+        for (StripeEventoInbox evento : eventos) {
+            LocalDateTime agora = LocalDateTime.now();
+            if (stripeEventoInboxRepository.reservar(evento.getId(), StatusEventoStripe.PENDENTE, agora, agora.plus(RESERVA)) == 0) {
+                return new Grupo(concluidos, null); // Outra instância está com o cliente: ela segue com os seguintes
+            }
+            try {
+                stripeInboxService.processar(evento);
+                lagProcessamento.record(Duration.between(evento.getRecebidoEm(), LocalDateTime.now()));
+                eventosSucesso.increment();
+                concluidos++;
+            } catch (Exception e) {
+                if (!registrarFalha(evento, e)) {
+                    return new Grupo(concluidos, evento.getProximaTentativa()); // Os seguintes do mesmo cliente esperam
+                }
+                concluidos++;
+            }
+        }
+        return new Grupo(concluidos, null);
+    }
+
+    // Retorna true se o evento esgotou as tentativas (e não bloqueia mais os seguintes)
+    private boolean registrarFalha(StripeEventoInbox evento, Exception e) {
+        int tentativas = evento.getTentativas() + 1;
+        evento.setTentativas(tentativas);
+        evento.setProcessadoEm(null);
+        String erro = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        evento.setUltimoErro(erro.length() > 1000 ? erro.substring(0, 1000) : erro);
+
+        boolean definitiva = tentativas >= MAX_TENTATIVAS;
+        if (definitiva) {
+            evento.setStatus(StatusEventoStripe.FALHA);
+            eventosFalhaDefinitiva.increment();
+            logger.error("Evento Stripe {} ({}) movido para FALHA após {} tentativas: {}", evento.getId(), evento.getTipo(), tentativas, erro, e);
+        } else {
+            evento.setStatus(StatusEventoStripe.PENDENTE);
+            evento.setProximaTentativa(LocalDateTime.now().plus(calcularBackoff(tentativas)));
+            eventosErro.increment();
+            logger.warn("Falha ao processar evento Stripe {} ({}) (tentativa {}): {}", evento.getId(), evento.getTipo(), tentativas, erro);
+        }
+        try {
+            stripeEventoInboxRepository.save(evento);
+        } catch (RuntimeException falhaAoGravar) {
+            logger.error("Não foi possível registrar a falha do evento Stripe {}: {}", evento.getId(), falhaAoGravar.getMessage());
+            evento.setProximaTentativa(LocalDateTime.now().plus(BACKOFF_INICIAL));
+            return false; // Continua PENDENTE no banco
+        }
+        return definitiva;
+    }
+
+    private Duration calcularBackoff(int tentativas) {
+        Duration espera = BACKOFF_INICIAL.multipliedBy(1L << Math.min(tentativas - 1, 20));
+        return espera.compareTo(BACKOFF_MAXIMO) > 0 ? BACKOFF_MAXIMO : espera;
+    }
+
+    // Eventos processados só servem para descartar reenvios; depois da janela de reenvio do Stripe saem da tabela
+    @Scheduled(cron = "0 30 4 * * *")
+    public void limparProcessados() {
+        int removidos = stripeEventoInboxRepository.deleteByStatusAndProcessadoEmBefore(
+                StatusEventoStripe.PROCESSADO, LocalDateTime.now().minus(RETENCAO_PROCESSADOS));
+        if (removidos > 0) {
+            logger.info("{} eventos do Stripe processados removidos da inbox.", removidos);
+        }
+    }
+
+    private void atualizarMetricas() {
+        pendentes.set(stripeEventoInboxRepository.countByStatus(StatusEventoStripe.PENDENTE));
+        falhas.set(stripeEventoInboxRepository.countByStatus(StatusEventoStripe.FALHA));
+        atrasoSegundos.set(stripeEventoInboxRepository.findRecebidoEmMaisAntigo(StatusEventoStripe.PENDENTE)
+                .map(recebidoEm -> Math.max(0, Duration.between(recebidoEm, LocalDateTime.now()).getSeconds()))
+                .orElse(0L));
+    }
+}
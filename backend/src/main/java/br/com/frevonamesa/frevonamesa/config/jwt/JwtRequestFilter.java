@@ -1,12 +1,17 @@
 package br.com.frevonamesa.frevonamesa.config.jwt;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,16 +20,22 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
 
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtRequestFilter.class);
+
     @Autowired
     private UserDetailsService userDetailsService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     /**
      * Define quais caminhos de requisição não devem ser filtrados pelo JWT.
      * Isso é essencial para rotas públicas (como webhooks e a raiz da aplicação).
@@ -46,28 +57,44 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         String username = null;
         String jwt = null;
+        Claims claims = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
+                claims = jwtUtil.verificar(jwt); // Um único parse/HMAC por requisição (ou nenhum, se já verificado)
+                username = claims.getSubject();
             } catch (IllegalArgumentException e) {
-                System.out.println("Unable to get JWT Token");
+                logger.debug("Não foi possível ler o token JWT");
             } catch (ExpiredJwtException e) {
-                System.out.println("JWT Token has expired");
+                logger.debug("Token JWT expirado");
+            } catch (JwtException e) {
+                logger.debug("Token JWT inválido: {}", e.getMessage());
             }
         }
 
-        if (username != null) {
+        if (username != null && claims.get(JwtUtil.CLAIM_USUARIO_ID) != null) {
+            // Token com as claims do usuário: confere no cache de principais, sem carregar o UserDetails
+            TenantContext contexto = principalCache.buscar(claims.get(JwtUtil.CLAIM_USUARIO_ID, Long.class), username,
+                    claims.get(JwtUtil.CLAIM_RESTAURANTE_ID, Long.class), claims.get(JwtUtil.CLAIM_ROLE, String.class));
+            if (contexto != null) {
+                autenticar(request, contexto, contexto.authorities());
+            }
+        } else if (username != null) {
+            // Tokens antigos e login direto do restaurante (sem claims): caminho completo
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                usernamePasswordAuthenticationToken
-                        .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+            if (username.equals(userDetails.getUsername())) { // Assinatura e expiração já verificadas acima
+                autenticar(request, userDetails, userDetails.getAuthorities());
             }
         }
         chain.doFilter(request, response);
     }
+
+    private void autenticar(HttpServletRequest request, Object principal, Collection<? extends GrantedAuthority> authorities) {
+        UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
+                principal, null, authorities);
+        usernamePasswordAuthenticationToken
+                .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package br.com.frevonamesa.frevonamesa.config.jwt;
 
+import br.com.frevonamesa.frevonamesa.model.Usuario;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -9,25 +11,71 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
+    // Claims do usuário (tokens de Usuario): o filtro monta o TenantContext sem consultar o banco
+    public static final String CLAIM_USUARIO_ID = "uid";
+    public static final String CLAIM_RESTAURANTE_ID = "rid";
+    public static final String CLAIM_ROLE = "role";
+
+    // Tokens já verificados (por hash do token), até a expiração de cada um
+    private static final int MAX_TOKENS_VERIFICADOS = 10_000;
+
     @Value("${jwt.secret}")
     private String secretString;
 
     private Key key;
+    private JwtParser parser; // Imutável e thread-safe: montado uma vez e compartilhado
+
+    private record TokenVerificado(Claims claims, long expiraEm) {}
+
+    private final Map<String, TokenVerificado> verificados = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void init() {
         byte[] keyBytes = Base64.getDecoder().decode(secretString);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+    }
+
+    /**
+     * Verifica assinatura e expiração uma única vez e devolve as claims (não devem ser alteradas).
+     * Um token já verificado é atendido do cache até expirar, sem novo parse nem HMAC.
+     * Lança ExpiredJwtException, JwtException ou IllegalArgumentException para tokens inválidos.
+     */
+    public Claims verificar(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("Token JWT vazio.");
+        }
+        String chave = hash(token);
+        TokenVerificado verificado = verificados.get(chave);
+        if (verificado != null) {
+            if (System.currentTimeMillis() < verificado.expiraEm()) {
+                return verificado.claims();
+            }
+            verificados.remove(chave);
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) { // Sem expiração não entra no cache
+            if (verificados.size() >= MAX_TOKENS_VERIFICADOS) {
+                liberarEspaco();
+            }
+            verificados.put(chave, new TokenVerificado(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
     }
 
     public String extractUsername(String token) {
@@ -39,20 +87,17 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = verificar(token);
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof Usuario usuario) {
+            claims.put(CLAIM_USUARIO_ID, usuario.getId());
+            claims.put(CLAIM_RESTAURANTE_ID, usuario.getRestaurante().getId());
+            claims.put(CLAIM_ROLE, usuario.getRole().name());
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -67,7 +112,25 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        // verificar já recusa token expirado ou com assinatura inválida
+        final Claims claims = verificar(token);
+        return claims.getSubject().equals(userDetails.getUsername());
+    }
+
+    private void liberarEspaco() {
+        long agora = System.currentTimeMillis();
+        verificados.values().removeIf(verificado -> verificado.expiraEm() <= agora);
+        if (verificados.size() >= MAX_TOKENS_VERIFICADOS) {
+            verificados.clear(); // Ainda cheio só de tokens válidos: recomeça (é só um cache)
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
-}
\ No newline at end of file
+}
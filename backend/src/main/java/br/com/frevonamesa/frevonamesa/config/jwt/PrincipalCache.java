@@ -0,0 +1,83 @@
+package br.com.frevonamesa.frevonamesa.config.jwt;
+
+import br.com.frevonamesa.frevonamesa.model.Usuario;
+import br.com.frevonamesa.frevonamesa.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache curto dos usuários autenticados por token, para que as requisições não consultem o banco só
+ * para autenticar. Cada entrada vale TTL_MS; uma mudança no usuário (exclusão, troca de função ou de
+ * restaurante) vale no máximo após esse prazo, ou na hora para quem chama revogar.
+ */
+@Component
+public class PrincipalCache {
+
+    private static final long TTL_MS = 60_000;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private record Entrada(TenantContext contexto, long expiraEm) {} // contexto null: usuário não existe mais
+
+    private final Map<Long, Entrada> entradas = new ConcurrentHashMap<>();
+
+    /**
+     * Usuário do token, conferido com o estado atual (cache ou banco). null se o usuário foi removido
+     * ou se o restaurante/função do token não conferem mais (token revogado: novo login necessário).
+     */
+    public TenantContext buscar(Long usuarioId, String email, Long restauranteId, String role) {
+        long agora = System.currentTimeMillis();
+        Entrada entrada = entradas.get(usuarioId);
+        if (entrada == null || entrada.expiraEm() < agora) {
+            entrada = new Entrada(carregar(usuarioId), agora + TTL_MS);
+            entradas.put(usuarioId, entrada);
+        }
+        TenantContext contexto = entrada.contexto();
+        if (contexto == null || !contexto.email().equals(email) || !contexto.restauranteId().equals(restauranteId)
+                || !Objects.equals(contexto.role().name(), role)) {
+            return null;
+        }
+        return contexto;
+    }
+
+    /**
+     * Descarta o usuário do cache. Dentro de uma transação, descarta de novo após o commit (uma
+     * requisição concorrente pode ter relido o estado anterior nesse meio tempo).
+     */
+    public void revogar(Long usuarioId) {
+        entradas.remove(usuarioId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entradas.remove(usuarioId);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedRate = 600_000)
+    public void limparExpirados() {
+        long agora = System.currentTimeMillis();
+        entradas.values().removeIf(entrada -> entrada.expiraEm() < agora);
+    }
+
+    private TenantContext carregar(Long usuarioId) {
+        return usuarioRepository.findById(usuarioId)
+                .map(PrincipalCache::contexto)
+                .orElse(null);
+    }
+
+    private static TenantContext contexto(Usuario usuario) {
+        // getRestaurante().getId() não inicializa o proxy do restaurante
+        return new TenantContext(usuario.getId(), usuario.getRestaurante().getId(), usuario.getEmail(), usuario.getRole());
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.frevonamesa.frevonamesa.config.jwt;
+
+import br.com.frevonamesa.frevonamesa.model.Role;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Usuário autenticado da requisição (usuário, restaurante e função), montado pelo JwtRequestFilter a
+ * partir das claims do token. Fica no SecurityContext, que vale só para a requisição atual.
+ */
+public record TenantContext(Long usuarioId, Long restauranteId, String email, Role role) implements Principal {
+
+    /**
+     * Vazio fora de uma requisição autenticada ou para tokens antigos, sem as claims do restaurante.
+     */
+    public static Optional<TenantContext> atual() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacao != null && autenticacao.getPrincipal() instanceof TenantContext contexto) {
+            return Optional.of(contexto);
+        }
+        return Optional.empty();
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -3,11 +3,14 @@ package br.com.frevonamesa.frevonamesa.controller;
 import br.com.frevonamesa.frevonamesa.dto.AreaEntregaDTO;
 import br.com.frevonamesa.frevonamesa.model.AreaEntrega;
 import br.com.frevonamesa.frevonamesa.service.AreaEntregaService;
+import br.com.frevonamesa.frevonamesa.service.CotacaoFreteLoteService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -18,6 +21,9 @@ public class AreaEntregaController {
     @Autowired
     private AreaEntregaService areaEntregaService;
 
+    @Autowired
+    private CotacaoFreteLoteService cotacaoFreteLoteService;
+
     @GetMapping
     public List<AreaEntrega> listarAreas() {
         return areaEntregaService.listarTodas();
@@ -50,4 +56,16 @@ public class AreaEntregaController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Cotação de frete de uma lista de CEPs (até CotacaoFreteLoteService.MAX_CEPS) com as faixas atuais.
+     * Resposta em NDJSON, uma linha por CEP distinto, escrita à medida que cada CEP é resolvido.
+     */
+    @PostMapping("/cotacao-lote")
+    public void cotarLote(@RequestBody List<String> ceps, HttpServletResponse response) throws IOException {
+        CotacaoFreteLoteService.LoteCotacao lote = cotacaoFreteLoteService.preparar(ceps);
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        cotacaoFreteLoteService.cotar(lote, response.getOutputStream());
+    }
+}
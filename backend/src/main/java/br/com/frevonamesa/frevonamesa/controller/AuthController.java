@@ -4,6 +4,7 @@ import br.com.frevonamesa.frevonamesa.config.jwt.JwtUtil;
 import br.com.frevonamesa.frevonamesa.dto.AuthRequest;
 import br.com.frevonamesa.frevonamesa.dto.AuthResponse;
 import br.com.frevonamesa.frevonamesa.dto.RestauranteDTO;
+import br.com.frevonamesa.frevonamesa.exception.LimiteRequisicoesException;
 import br.com.frevonamesa.frevonamesa.service.RestauranteService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -37,6 +38,8 @@ public class AuthController {
         try {
             restauranteService.cadastrar(restauranteDTO);
             return ResponseEntity.ok("Restaurante registrado com SUCESSO - VERSAO 2!");
+        } catch (LimiteRequisicoesException e) {
+            throw e; // 429: fila do BCrypt cheia
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -48,6 +51,8 @@ public class AuthController {
             authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(authRequest.getEmail(), authRequest.getSenha())
             );
+        } catch (LimiteRequisicoesException e) {
+            throw e; // 429: fila do BCrypt cheia
         } catch (Exception e) {
             return ResponseEntity.status(401).body("Email ou senha inválidos");
         }
@@ -5,8 +5,11 @@ package br.com.frevonamesa.frevonamesa.controller;
 import br.com.frevonamesa.frevonamesa.model.Restaurante;
 import br.com.frevonamesa.frevonamesa.service.FinanceiroService;
 import br.com.frevonamesa.frevonamesa.service.RestauranteService;
+import br.com.frevonamesa.frevonamesa.service.StripeInboxService;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException; // Import necessário
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize; // Garantir que está importado
@@ -17,9 +20,14 @@ import java.util.Map; // Garantir que está importado
 @RequestMapping("/api/financeiro")
 public class FinanceiroController {
 
+    private static final Logger logger = LoggerFactory.getLogger(FinanceiroController.class);
+
     @Autowired
     private FinanceiroService financeiroService;
 
+    @Autowired
+    private StripeInboxService stripeInboxService;
+
     @Autowired
     private RestauranteService restauranteService;
 
@@ -99,36 +107,28 @@ public class FinanceiroController {
         }
     }
 
-    // Endpoint Webhook Stripe (sem alterações)
+    // Webhook do Stripe: só verifica a assinatura e grava o evento na inbox; o processamento é assíncrono
+    // (StripeInboxDispatcher). Eventos repetidos também recebem 200, para o Stripe parar de reenviar.
     @PostMapping("/webhook/stripe")
-    public ResponseEntity<String> receberNotificacaoStripe(@RequestBody(required = false) String payload, // Torna opcional para logar mesmo se vazio
-                                                           @RequestHeader(value = "Stripe-Signature", required = false) String sigHeader) { // Torna opcional para logar
+    public ResponseEntity<String> receberNotificacaoStripe(@RequestBody(required = false) String payload,
+                                                           @RequestHeader(value = "Stripe-Signature", required = false) String sigHeader) {
         if (payload == null || payload.isEmpty()) {
-            System.err.println("WARN WEBHOOK: Payload vazio recebido.");
             return ResponseEntity.badRequest().body("Webhook Error: Payload vazio.");
         }
         if (sigHeader == null || sigHeader.isEmpty()) {
-            System.err.println("WARN WEBHOOK: Cabeçalho Stripe-Signature ausente.");
-            // Em produção, você DEVE retornar erro aqui. Em testes, pode ser mais permissivo.
-            // return ResponseEntity.badRequest().body("Webhook Error: Assinatura ausente.");
+            return ResponseEntity.badRequest().body("Webhook Error: Assinatura ausente.");
         }
         try {
-            financeiroService.processarWebhookStripe(payload, sigHeader);
-            return ResponseEntity.ok().body("Success"); // Retorna 200 OK para o Stripe
+            stripeInboxService.registrar(payload, sigHeader);
+            return ResponseEntity.ok().body("Success");
         } catch (SignatureVerificationException e) {
-            System.err.println("ERRO STRIPE na assinatura do Webhook: " + e.getMessage());
+            logger.warn("Webhook do Stripe com assinatura inválida: {}", e.getMessage());
             return ResponseEntity.status(400).body("Webhook Error: Assinatura inválida.");
-        } catch (StripeException e) {
-            System.err.println("ERRO STRIPE no processamento do Webhook: " + e.getMessage());
-            return ResponseEntity.status(500).body("Erro ao processar webhook Stripe: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Webhook Error: " + e.getMessage());
         } catch (RuntimeException e) {
-            System.err.println("ERRO INTERNO no Webhook: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(500).body("Erro interno ao processar webhook: " + e.getMessage());
-        } catch (Exception e) {
-            System.err.println("ERRO INESPERADO no Webhook: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(500).body("Erro inesperado no servidor.");
+            logger.error("Erro ao gravar webhook do Stripe na inbox", e);
+            return ResponseEntity.status(500).body("Erro ao registrar webhook."); // O Stripe reenvia
         }
     }
 
@@ -7,8 +7,10 @@ import br.com.frevonamesa.frevonamesa.model.Pedido;
 import br.com.frevonamesa.frevonamesa.model.StatusPedido;
 import br.com.frevonamesa.frevonamesa.service.PedidoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -62,6 +64,12 @@ public class PedidoController {
         return ResponseEntity.ok(pedidos);
     }
 
+    // Stream SSE do painel de delivery (snapshot inicial + eventos incrementais)
+    @GetMapping(path = "/delivery/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPedidosDelivery(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return pedidoService.abrirStreamDelivery(lastEventId);
+    }
+
     @PatchMapping("/delivery/{id}/status")
     public ResponseEntity<Pedido> atualizarStatusPedidoDelivery(@PathVariable Long id, @RequestBody Map<String, String> body) {
         try {
@@ -2,26 +2,35 @@
 
 package br.com.frevonamesa.frevonamesa.controller;
 
-import br.com.frevonamesa.frevonamesa.dto.CardapioPublicoDTO;
 import br.com.frevonamesa.frevonamesa.dto.PedidoClienteDTO;
 import br.com.frevonamesa.frevonamesa.dto.PedidoDeliveryClienteDTO;
+import br.com.frevonamesa.frevonamesa.dto.RastreioPedidoDTO;
 import br.com.frevonamesa.frevonamesa.exception.PedidoLimitException; // Importar exceção
 import br.com.frevonamesa.frevonamesa.model.Pedido;
 import br.com.frevonamesa.frevonamesa.model.Restaurante; // Importar Restaurante
 import br.com.frevonamesa.frevonamesa.model.TipoPagamento;
 import br.com.frevonamesa.frevonamesa.service.AreaEntregaService;
+import br.com.frevonamesa.frevonamesa.service.CardapioPublicoService;
+import br.com.frevonamesa.frevonamesa.service.CotacaoFreteService;
 import br.com.frevonamesa.frevonamesa.service.PedidoService;
-import br.com.frevonamesa.frevonamesa.service.RestauranteService;
+import br.com.frevonamesa.frevonamesa.service.RastreioPedidoService;
 import br.com.frevonamesa.frevonamesa.repository.RestauranteRepository; // Importar repositório
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus; // Importar HttpStatus
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.slf4j.Logger; // Importar Logger
 import org.slf4j.LoggerFactory; // Importar LoggerFactory
 
 
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional; // Importar Optional
 import java.util.UUID;
@@ -33,36 +42,67 @@ public class PublicController {
     private static final Logger logger = LoggerFactory.getLogger(PublicController.class); // Adiciona logger
 
     @Autowired
-    private RestauranteService restauranteService; // Usado para getCardapioPublico
+    private CardapioPublicoService cardapioPublicoService; // Cardápio do QR code, servido da memória
 
     @Autowired
     private PedidoService pedidoService;
 
+    @Autowired
+    private RastreioPedidoService rastreioPedidoService;
+
     @Autowired
     private AreaEntregaService areaEntregaService; // Para calcular taxa
 
+    @Autowired
+    private CotacaoFreteService cotacaoFreteService; // Cotação de frete assinada, reaproveitada no pedido
+
     @Autowired
     private RestauranteRepository restauranteRepository; // Para buscar o restaurante
 
+    // Cardápio do QR code: bytes já serializados (e compactados) em memória, com ETag e 304
     @GetMapping("/cardapio/{restauranteId}")
-    public ResponseEntity<CardapioPublicoDTO> getCardapioPublico(@PathVariable Long restauranteId) {
+    public ResponseEntity<byte[]> getCardapioPublico(@PathVariable Long restauranteId,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                     WebRequest request, HttpServletResponse response) {
+        CardapioPublicoService.CardapioPublicado cardapio;
         try {
-            CardapioPublicoDTO cardapio = restauranteService.getCardapioPublico(restauranteId);
-            return ResponseEntity.ok(cardapio);
+            cardapio = cardapioPublicoService.getCardapio(restauranteId);
         } catch (RuntimeException e) {
             logger.error("Erro ao buscar cardápio público para restaurante ID {}: {}", restauranteId, e.getMessage());
             return ResponseEntity.notFound().build();
         }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? cardapio.etagGzip() : cardapio.etag();
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue()); // Sempre revalida pelo ETag
+        if (request.checkNotModified(etag)) {
+            return null; // 304 Not Modified (cardápio inalterado)
+        }
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(etag);
+        if (gzip) {
+            return resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cardapio.gzip());
+        }
+        return resposta.body(cardapio.json());
     }
 
     @GetMapping("/pedido/{uuid}/rastrear")
-    public ResponseEntity<Pedido> rastrearPedido(@PathVariable UUID uuid) {
-        Pedido pedido = pedidoService.rastrearPedidoPorUuid(uuid);
-        if (pedido != null) {
-            return ResponseEntity.ok(pedido);
+    public ResponseEntity<RastreioPedidoDTO> rastrearPedido(@PathVariable UUID uuid, WebRequest request) {
+        RastreioPedidoDTO rastreio = rastreioPedidoService.buscar(uuid);
+        if (rastreio == null) {
+            logger.warn("Tentativa de rastrear pedido com UUID não encontrado: {}", uuid);
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(rastreioPedidoService.etag(rastreio))) {
+            return null; // 304 Not Modified (status inalterado)
         }
-        logger.warn("Tentativa de rastrear pedido com UUID não encontrado: {}", uuid);
-        return ResponseEntity.notFound().build();
+        return rastreioPedidoService.resposta(rastreio);
+    }
+
+    // Long-poll do rastreio: segura a requisição até o status mudar em relação ao If-None-Match (ou 304 no timeout)
+    @GetMapping("/pedido/{uuid}/rastrear/aguardar")
+    public DeferredResult<ResponseEntity<RastreioPedidoDTO>> aguardarRastreio(@PathVariable UUID uuid,
+                                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return rastreioPedidoService.aguardar(uuid, ifNoneMatch);
     }
 
     @PostMapping("/pedido/mesa")
@@ -98,26 +138,11 @@ public class PublicController {
             Restaurante restaurante = restauranteRepository.findById(pedidoDTO.getRestauranteId())
                     .orElseThrow(() -> new RuntimeException("Restaurante não encontrado."));
 
-            // 3. Calcula a taxa de entrega ANTES de salvar
-            BigDecimal taxaEntregaCalculada;
-            if (restaurante.isCalculoHaversineAtivo()) {
-                if (pedidoDTO.getCepCliente() == null || pedidoDTO.getCepCliente().isBlank()) {
-                    throw new RuntimeException("CEP do cliente é obrigatório para cálculo de frete por distância.");
-                }
-                logger.debug("Calculando taxa Haversine para CEP {}", pedidoDTO.getCepCliente());
-                taxaEntregaCalculada = areaEntregaService.calcularTaxa(restaurante.getId(), pedidoDTO.getCepCliente());
-                // Validação da taxa calculada (lança exceção se inválida/fora de área)
-                if (taxaEntregaCalculada.compareTo(BigDecimal.ZERO) < 0) {
-                    throw new RuntimeException("Não foi possível calcular a taxa de entrega para o CEP informado ou está fora da área de cobertura.");
-                }
-                logger.debug("Taxa Haversine calculada: {}", taxaEntregaCalculada);
-            } else {
-                taxaEntregaCalculada = restaurante.getTaxaEntrega() != null ? restaurante.getTaxaEntrega() : BigDecimal.ZERO;
-                logger.debug("Usando taxa fixa: {}", taxaEntregaCalculada);
-            }
+            // 3. Calcula a taxa de entrega (e o pedido mínimo da zona) ANTES de salvar
+            AreaEntregaService.Frete frete = freteDoPedido(restaurante, pedidoDTO);
 
-            // 4. Chama o serviço para SALVAR o pedido offline, passando a taxa
-            Pedido novoPedido = pedidoService.salvarPedidoDeliveryCliente(pedidoDTO, tipoPgto, taxaEntregaCalculada);
+            // 4. Chama o serviço para SALVAR o pedido offline, passando o frete
+            Pedido novoPedido = pedidoService.salvarPedidoDeliveryCliente(pedidoDTO, tipoPgto, frete);
             logger.info("Pedido offline criado com sucesso. Pedido ID: {}", novoPedido.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(novoPedido);
 
@@ -151,26 +176,11 @@ public class PublicController {
                 throw new RuntimeException("Pagamento online indisponível para este restaurante no momento.");
             }
 
-            // 2. Calcula a taxa de entrega ANTES de gerar a URL de pagamento
-            BigDecimal taxaEntregaCalculada;
-            if (restaurante.isCalculoHaversineAtivo()) {
-                if (pedidoDTO.getCepCliente() == null || pedidoDTO.getCepCliente().isBlank()) {
-                    throw new RuntimeException("CEP do cliente é obrigatório para cálculo de frete por distância.");
-                }
-                logger.debug("Calculando taxa Haversine para CEP {}", pedidoDTO.getCepCliente());
-                taxaEntregaCalculada = areaEntregaService.calcularTaxa(restaurante.getId(), pedidoDTO.getCepCliente());
-                // Validação crucial antes de ir pro Stripe
-                if (taxaEntregaCalculada.compareTo(BigDecimal.ZERO) < 0) {
-                    throw new RuntimeException("Não foi possível calcular a taxa de entrega para o CEP informado ou está fora da área de cobertura.");
-                }
-                logger.debug("Taxa Haversine calculada: {}", taxaEntregaCalculada);
-            } else {
-                taxaEntregaCalculada = restaurante.getTaxaEntrega() != null ? restaurante.getTaxaEntrega() : BigDecimal.ZERO;
-                logger.debug("Usando taxa fixa: {}", taxaEntregaCalculada);
-            }
+            // 2. Calcula a taxa de entrega (e o pedido mínimo da zona) ANTES de gerar a URL de pagamento
+            AreaEntregaService.Frete frete = freteDoPedido(restaurante, pedidoDTO);
 
-            // 3. Chama o serviço para CRIAR o pedido (status AGUARDANDO...) e GERAR a URL do Stripe, passando a taxa
-            String paymentUrl = pedidoService.iniciarPagamentoDeliveryCliente(pedidoDTO, taxaEntregaCalculada);
+            // 3. Chama o serviço para CRIAR o pedido (status AGUARDANDO...) e GERAR a URL do Stripe, passando o frete
+            String paymentUrl = pedidoService.iniciarPagamentoDeliveryCliente(pedidoDTO, frete);
             logger.info("URL de pagamento Stripe Connect gerada com sucesso para Restaurante ID {}", restaurante.getId());
 
             // Retorna a URL para o frontend redirecionar o cliente
@@ -186,19 +196,51 @@ public class PublicController {
         }
     }
 
-    // --- Endpoint para Calcular Frete (Existente - sem alterações) ---
+    // Frete do pedido: o da cotação assinada, se ainda válida; senão recalcula (lança exceção se inválida/fora de área)
+    private AreaEntregaService.Frete freteDoPedido(Restaurante restaurante, PedidoDeliveryClienteDTO pedidoDTO) {
+        if (!restaurante.isCalculoHaversineAtivo()) {
+            BigDecimal taxaFixa = restaurante.getTaxaEntrega() != null ? restaurante.getTaxaEntrega() : BigDecimal.ZERO;
+            logger.debug("Usando taxa fixa: {}", taxaFixa);
+            return new AreaEntregaService.Frete(taxaFixa, null);
+        }
+        if (pedidoDTO.getCepCliente() == null || pedidoDTO.getCepCliente().isBlank()) {
+            throw new RuntimeException("CEP do cliente é obrigatório para cálculo de frete por distância.");
+        }
+        AreaEntregaService.Frete freteCotado = cotacaoFreteService.freteCotado(pedidoDTO.getCotacaoFrete(), restaurante.getId(), pedidoDTO.getCepCliente());
+        if (freteCotado != null) {
+            logger.debug("Usando taxa da cotação assinada: {}", freteCotado.taxa());
+            return freteCotado;
+        }
+        logger.debug("Cotação de frete ausente ou vencida; calculando taxa Haversine para CEP {}", pedidoDTO.getCepCliente());
+        AreaEntregaService.Frete frete = areaEntregaService.calcularFrete(restaurante.getId(), pedidoDTO.getCepCliente());
+        if (frete.taxa().compareTo(BigDecimal.ZERO) < 0) {
+            throw new RuntimeException("Não foi possível calcular a taxa de entrega para o CEP informado ou está fora da área de cobertura.");
+        }
+        logger.debug("Taxa Haversine calculada: {}", frete.taxa());
+        return frete;
+    }
+
+    // --- Endpoint para Calcular Frete (cotação assinada) ---
     @GetMapping("/frete/{restauranteId}/{cep}")
     public ResponseEntity<Map<String, Object>> calcularFrete(
             @PathVariable Long restauranteId,
             @PathVariable String cep) {
         logger.debug("Calculando frete para Restaurante ID {} e CEP {}", restauranteId, cep);
         try {
-            BigDecimal taxa = areaEntregaService.calcularTaxa(restauranteId, cep);
-            logger.info("Taxa de entrega calculada para Restaurante ID {} e CEP {}: {}", restauranteId, cep, taxa);
+            CotacaoFreteService.Cotacao cotacao = cotacaoFreteService.cotar(restauranteId, cep);
+            logger.info("Taxa de entrega calculada para Restaurante ID {} e CEP {}: {}", restauranteId, cep, cotacao.taxa());
 
-            // Retorna a taxa de entrega (pode ser 0 ou o valor calculado/fixo)
+            // Retorna a taxa de entrega (pode ser 0 ou o valor calculado/fixo) e a cotação assinada,
+            // que o pedido reenvia para não recalcular o frete
             // A lógica de erro (-1, -2) foi movida para o service para lançamento de exceções
-            return ResponseEntity.ok(Map.of("taxaEntrega", taxa));
+            Map<String, Object> resposta = new LinkedHashMap<>();
+            resposta.put("taxaEntrega", cotacao.taxa());
+            if (cotacao.valorMinimoPedido() != null) {
+                resposta.put("valorMinimoPedido", cotacao.valorMinimoPedido()); // Pedido mínimo da zona de entrega
+            }
+            resposta.put("cotacaoFrete", cotacao.token());
+            resposta.put("cotacaoExpiraEm", cotacao.expiraEm());
+            return ResponseEntity.ok(resposta);
 
         } catch (RuntimeException e) {
             logger.warn("Erro ao calcular frete para Restaurante ID {} e CEP {}: {}", restauranteId, cep, e.getMessage());
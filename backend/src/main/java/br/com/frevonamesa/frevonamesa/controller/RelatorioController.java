@@ -1,13 +1,25 @@
 package br.com.frevonamesa.frevonamesa.controller;
 
 import br.com.frevonamesa.frevonamesa.dto.RelatorioDiarioDTO;
+import br.com.frevonamesa.frevonamesa.dto.RelatorioPeriodoDTO;
+import br.com.frevonamesa.frevonamesa.service.ExportacaoPedidosService;
 import br.com.frevonamesa.frevonamesa.service.RelatorioService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
 @RestController
 @RequestMapping("/api/relatorios")
 @CrossOrigin(origins = "http://localhost:5173")
@@ -16,8 +28,67 @@ public class RelatorioController {
     @Autowired
     private RelatorioService relatorioService;
 
+    @Autowired
+    private ExportacaoPedidosService exportacaoPedidosService;
+
     @GetMapping("/hoje")
     public RelatorioDiarioDTO getRelatorioDiario() {
         return relatorioService.gerarRelatorioDoDia();
     }
+
+    // Intervalo livre (datas ISO, ex.: ?inicio=2025-01-01&fim=2025-01-31), até 366 dias
+    @GetMapping("/periodo")
+    public RelatorioPeriodoDTO getRelatorioPeriodo(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        return relatorioService.gerarRelatorioPeriodo(inicio, fim);
+    }
+
+    // Últimos 7 dias, incluindo hoje
+    @GetMapping("/semana")
+    public RelatorioPeriodoDTO getRelatorioSemana() {
+        LocalDate hoje = LocalDate.now();
+        return relatorioService.gerarRelatorioPeriodo(hoje.minusDays(6), hoje);
+    }
+
+    // Mês corrente até hoje
+    @GetMapping("/mes")
+    public RelatorioPeriodoDTO getRelatorioMes() {
+        LocalDate hoje = LocalDate.now();
+        return relatorioService.gerarRelatorioPeriodo(hoje.withDayOfMonth(1), hoje);
+    }
+
+    /**
+     * Exportação bruta dos pedidos do período (todos os status), escrita direto na resposta.
+     * gzip=true baixa o arquivo compactado (.gz); sem ele, a resposta é compactada na hora quando o
+     * cliente aceita gzip (Accept-Encoding).
+     */
+    @GetMapping("/exportacao")
+    public void exportarPedidos(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+                                @RequestParam(defaultValue = "csv") String formato,
+                                @RequestParam(defaultValue = "false") boolean gzip,
+                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                HttpServletResponse response) throws IOException {
+        ExportacaoPedidosService.Formato formatoExportacao = ExportacaoPedidosService.Formato.de(formato);
+        exportacaoPedidosService.validarPeriodo(inicio, fim);
+
+        String arquivo = "pedidos_" + inicio + "_" + fim + "." + formatoExportacao.getExtensao();
+        boolean compactar = gzip || (acceptEncoding != null && acceptEncoding.contains("gzip"));
+        if (gzip) {
+            response.setContentType("application/gzip");
+            arquivo += ".gz";
+        } else {
+            response.setContentType(formatoExportacao.getContentType());
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (compactar) response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + arquivo + "\"");
+
+        OutputStream saida = compactar
+                ? new GZIPOutputStream(response.getOutputStream(), 64 * 1024)
+                : response.getOutputStream();
+        exportacaoPedidosService.exportar(inicio, fim, formatoExportacao, saida);
+        if (saida instanceof GZIPOutputStream gzipSaida) gzipSaida.finish();
+        saida.flush();
+    }
 }
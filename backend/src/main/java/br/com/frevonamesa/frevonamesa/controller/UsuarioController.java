@@ -1,6 +1,7 @@
 package br.com.frevonamesa.frevonamesa.controller;
 
 import br.com.frevonamesa.frevonamesa.dto.UsuarioDTO;
+import br.com.frevonamesa.frevonamesa.exception.LimiteRequisicoesException;
 import br.com.frevonamesa.frevonamesa.model.Usuario;
 import br.com.frevonamesa.frevonamesa.service.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,6 +30,8 @@ public class UsuarioController {
         try {
             Usuario novoUsuario = usuarioService.criarUsuario(dto);
             return ResponseEntity.status(HttpStatus.CREATED).body(novoUsuario);
+        } catch (LimiteRequisicoesException e) {
+            throw e; // 429: fila do BCrypt cheia
         } catch (RuntimeException e) {
             // Retorna 400 Bad Request com a mensagem de erro (ex: Limite de usuários atingido!)
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -0,0 +1,43 @@
+package br.com.frevonamesa.frevonamesa.controller;
+
+import br.com.frevonamesa.frevonamesa.dto.ZonaEntregaDTO;
+import br.com.frevonamesa.frevonamesa.model.ZonaEntrega;
+import br.com.frevonamesa.frevonamesa.service.ZonaEntregaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Zonas de entrega por polígono; convivem com as faixas de distância de /api/areas-entrega
+@RestController
+@RequestMapping("/api/zonas-entrega")
+@PreAuthorize("hasRole('ADMIN')")
+public class ZonaEntregaController {
+
+    @Autowired
+    private ZonaEntregaService zonaEntregaService;
+
+    @GetMapping
+    public List<ZonaEntrega> listarZonas() {
+        return zonaEntregaService.listarTodas();
+    }
+
+    @PostMapping
+    public ResponseEntity<ZonaEntrega> criarZona(@RequestBody ZonaEntregaDTO dto) {
+        ZonaEntrega novaZona = zonaEntregaService.criar(dto);
+        return ResponseEntity.status(201).body(novaZona);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<ZonaEntrega> atualizarZona(@PathVariable Long id, @RequestBody ZonaEntregaDTO dto) {
+        return ResponseEntity.ok(zonaEntregaService.atualizar(id, dto));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deletarZona(@PathVariable Long id) {
+        zonaEntregaService.deletar(id);
+        return ResponseEntity.noContent().build();
+    }
+}
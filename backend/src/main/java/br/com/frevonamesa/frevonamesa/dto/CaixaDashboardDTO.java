@@ -1,6 +1,7 @@
 package br.com.frevonamesa.frevonamesa.dto;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
 // Usamos @Data do Lombok para gerar Getters e Setters
 import lombok.Data;
@@ -10,5 +11,7 @@ public class CaixaDashboardDTO {
     private long mesasAbertas;
     private BigDecimal totalEmAberto;
     private long mesasPagas; // Mesas com status PAGA
-    private BigDecimal totalDoDia; // Simplificação: por enquanto, será o mesmo que o total em aberto
+    private BigDecimal totalDoDia; // Faturamento das mesas no dia (mesmo critério do relatório diário)
+    private Map<String, BigDecimal> faturamentoPorTipoPagamento; // Mesas, por forma de pagamento
+    private BigDecimal totalDeliveryDoDia;
 }
@@ -0,0 +1,20 @@
+package br.com.frevonamesa.frevonamesa.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// Uma linha da cotação de frete em lote: coordenadas, distância e taxa, ou o erro daquele CEP
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CotacaoFreteCepDTO {
+    private String cep;
+    private Double latitude;
+    private Double longitude;
+    private String zona; // Zona de entrega que contém o CEP, se houver
+    private Double distanciaKm;
+    private BigDecimal taxaEntrega;
+    private BigDecimal valorMinimoPedido; // Pedido mínimo da zona, se houver
+    private String erro;
+}
@@ -11,5 +11,6 @@ public class PedidoDeliveryClienteDTO {
     private String enderecoCliente;
     private String pontoReferencia;
     private String cepCliente;
+    private String cotacaoFrete; // Token devolvido por GET /api/publico/frete (opcional)
     private List<ItemPedidoRequestDTO> itens;
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package br.com.frevonamesa.frevonamesa.dto;
+
+import br.com.frevonamesa.frevonamesa.model.StatusPedido;
+import br.com.frevonamesa.frevonamesa.model.TipoPagamento;
+import br.com.frevonamesa.frevonamesa.model.TipoPedido;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Um pedido na exportação (uma linha NDJSON, ou uma linha CSV por item).
+ * Montado a partir das linhas da projeção e descartado assim que escrito.
+ */
+@Data
+public class PedidoExportacaoDTO {
+    private Long id;
+    private UUID uuid;
+    private LocalDateTime dataHora;
+    private TipoPedido tipo;
+    private StatusPedido status;
+    private TipoPagamento tipoPagamento;
+    private BigDecimal total;
+    private Integer numeroMesa;
+    private String nomeCliente;
+    private String telefoneCliente;
+    private String enderecoCliente;
+    private List<Item> itens = new ArrayList<>();
+
+    @Data
+    public static class Item {
+        private Long id;
+        private Long produtoId;
+        private String nomeProduto;
+        private Integer quantidade;
+        private BigDecimal precoUnitario;
+        private String observacao;
+        private List<Adicional> adicionais = new ArrayList<>();
+    }
+
+    @Data
+    public static class Adicional {
+        private String nome;
+        private BigDecimal preco;
+    }
+}
@@ -0,0 +1,32 @@
+package br.com.frevonamesa.frevonamesa.dto;
+
+import br.com.frevonamesa.frevonamesa.model.StatusPedido;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Projeção pública do rastreio de um pedido delivery: só o que a página de rastreio exibe
+ * (sem dados de contato/endereço do cliente e sem o grafo de produtos/adicionais).
+ */
+@Data
+public class RastreioPedidoDTO {
+    private Long id;
+    private UUID uuid;
+    private StatusPedido status;
+    private BigDecimal total;
+    private LocalDateTime dataHora;          // Criação do pedido
+    private LocalDateTime dataHoraStatus;    // Última mudança de status
+    private LocalDateTime previsaoEntrega;   // Null quando já finalizado
+    private List<Item> itens;
+
+    @Data
+    public static class Item {
+        private Integer quantidade;
+        private String nome;
+        private String observacao;
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.frevonamesa.frevonamesa.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class RelatorioPeriodoDTO {
+    private LocalDate inicio;
+    private LocalDate fim;
+    private BigDecimal faturamentoTotal;
+    private Map<String, BigDecimal> faturamentoPorTipoPagamento;
+    private Map<String, BigDecimal> faturamentoPorTipoPedido;
+    private Map<String, Long> pedidosPorTipo; // Pedidos pagos por TipoPedido (MESA/DELIVERY)
+    private long quantidadePedidos;
+    private BigDecimal ticketMedio;
+    private List<RelatorioProdutoDTO> topProdutos;
+}
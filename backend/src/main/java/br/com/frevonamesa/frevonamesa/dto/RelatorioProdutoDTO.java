@@ -0,0 +1,13 @@
+package br.com.frevonamesa.frevonamesa.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class RelatorioProdutoDTO {
+    private Long produtoId;
+    private String nomeProduto;
+    private long quantidade;
+    private BigDecimal valorTotal;
+}
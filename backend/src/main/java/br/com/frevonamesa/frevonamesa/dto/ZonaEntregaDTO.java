@@ -0,0 +1,15 @@
+package br.com.frevonamesa.frevonamesa.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class ZonaEntregaDTO {
+    private Long id;
+    private String nome;
+    private List<double[]> poligono; // [[latitude, longitude], ...]
+    private BigDecimal valorEntrega;
+    private BigDecimal valorMinimoPedido;
+}
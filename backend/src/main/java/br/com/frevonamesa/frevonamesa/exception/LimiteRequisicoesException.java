@@ -0,0 +1,12 @@
+package br.com.frevonamesa.frevonamesa.exception;
+
+/**
+ * Lançada quando um limite de capacidade é atingido (ex.: conexões simultâneas por restaurante).
+ * Tratada no GlobalExceptionHandler como 429 Too Many Requests.
+ */
+public class LimiteRequisicoesException extends RuntimeException {
+
+    public LimiteRequisicoesException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,37 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Coordenadas de um CEP já consultado na API externa (cache persistente do CepGeocodingService).
+ * encontrado=false guarda um CEP que a API não reconheceu, para não consultá-lo de novo por um tempo.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class CepCoordenada {
+
+    @Id
+    private Integer cep; // 8 dígitos, sem zeros à esquerda
+
+    private Double latitude;
+
+    private Double longitude;
+
+    private boolean encontrado;
+
+    private LocalDateTime consultadoEm;
+
+    public CepCoordenada(Integer cep, Double latitude, Double longitude, boolean encontrado, LocalDateTime consultadoEm) {
+        this.cep = cep;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.encontrado = encontrado;
+        this.consultadoEm = consultadoEm;
+    }
+}
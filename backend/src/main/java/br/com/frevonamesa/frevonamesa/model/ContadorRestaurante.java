@@ -0,0 +1,34 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contadores do restaurante que mudam a cada pedido ou alteração do cardápio e da área de entrega. Ficam fora da entidade
+ * Restaurante, que está no cache de segundo nível: os UPDATEs atômicos nesta tabela não invalidam o
+ * cache dos restaurantes. Só é alterada por ContadorRestauranteRepository; a linha é criada na primeira
+ * escrita de cada restaurante.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class ContadorRestaurante {
+
+    @Id
+    private Long restauranteId;
+
+    // Cota mensal de pedidos delivery (plano GRATUITO)
+    @Column(nullable = false)
+    private int pedidosMesAtual;
+
+    // Versão do cardápio (preços), gravada em cada pedido
+    @Column(nullable = false)
+    private long versaoCardapio;
+
+    // Versão da tabela de frete (faixas, zonas e dados do restaurante), assinada nas cotações de frete
+    @Column(nullable = false)
+    private long versaoTabelaFrete;
+}
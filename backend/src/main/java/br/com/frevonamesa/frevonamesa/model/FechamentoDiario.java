@@ -0,0 +1,29 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Marca um dia como consolidado: os resumos diários (caixa e produtos) desse dia foram recalculados
+ * a partir dos pedidos e os relatórios por período passam a ler só os resumos.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class FechamentoDiario {
+
+    @Id
+    private LocalDate data;
+
+    private LocalDateTime fechadoEm;
+
+    public FechamentoDiario(LocalDate data, LocalDateTime fechadoEm) {
+        this.data = data;
+        this.fechadoEm = fechadoEm;
+    }
+}
@@ -13,7 +13,8 @@ import java.math.BigDecimal;
 public class ItemPedidoAdicional {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_pedido_adicional_seq")
+    @SequenceGenerator(name = "item_pedido_adicional_seq", sequenceName = "item_pedido_adicional_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
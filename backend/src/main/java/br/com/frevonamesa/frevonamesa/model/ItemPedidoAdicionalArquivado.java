@@ -0,0 +1,26 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Adicional de um ItemPedidoArquivado.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(indexes = @Index(name = "idx_adicional_arquivado_item", columnList = "itemPedidoId"))
+public class ItemPedidoAdicionalArquivado {
+
+    @Id
+    private Long id; // Mesmo id do ItemPedidoAdicional
+
+    @Column(nullable = false)
+    private Long itemPedidoId;
+
+    private String nomeAdicional;
+    private BigDecimal precoAdicional;
+}
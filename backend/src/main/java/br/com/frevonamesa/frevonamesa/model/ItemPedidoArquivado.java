@@ -0,0 +1,31 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Item de um PedidoArquivado. O nome do produto é copiado no arquivamento: o produto pode ser
+ * renomeado ou removido do cardápio depois.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(indexes = @Index(name = "idx_item_arquivado_pedido", columnList = "pedidoId"))
+public class ItemPedidoArquivado {
+
+    @Id
+    private Long id; // Mesmo id do ItemPedido
+
+    @Column(nullable = false)
+    private Long pedidoId;
+
+    private Long produtoId;
+    private String nomeProduto;
+
+    private int quantidade;
+    private BigDecimal precoUnitario;
+    private String observacao;
+}
@@ -8,9 +8,11 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Data
+@DynamicUpdate // UPDATE só das colunas alteradas: não sobrescreve o valorTotal somado atomicamente
 public class Mesa {
 
     @Id // Marca o campo como a chave primária (identificador único)
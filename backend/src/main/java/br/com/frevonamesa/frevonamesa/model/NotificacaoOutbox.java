@@ -0,0 +1,48 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notificação (webhook do n8n) gravada na mesma transação da mudança de status do pedido
+ * e enviada depois, em segundo plano, pelo NotificacaoOutboxDispatcher.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_notificacao_outbox_fila", columnList = "status, proximaTentativa"),
+        @Index(name = "idx_notificacao_outbox_pedido", columnList = "pedidoId, status")
+})
+public class NotificacaoOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long pedidoId;
+    private Long restauranteId;
+
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusNotificacao status = StatusNotificacao.PENDENTE;
+
+    private int tentativas = 0;
+
+    @Column(nullable = false)
+    private LocalDateTime criadoEm;
+
+    @Column(nullable = false)
+    private LocalDateTime proximaTentativa;
+
+    private LocalDateTime enviadoEm;
+
+    @Column(length = 1000)
+    private String ultimoErro;
+}
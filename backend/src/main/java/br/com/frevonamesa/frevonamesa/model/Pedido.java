@@ -14,8 +14,11 @@ import java.util.UUID;
 @Data
 public class Pedido {
 
+    // Sequence com otimizador pooled (50 ids por ida ao banco): permite inserir pedido, itens e
+    // adicionais em lote (hibernate.jdbc.batch_size). No desktop (SQLite) o orm-desktop.xml volta para IDENTITY.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedido_seq")
+    @SequenceGenerator(name = "pedido_seq", sequenceName = "pedido_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true)
@@ -53,8 +56,12 @@ public class Pedido {
 
     private BigDecimal total;
     private LocalDateTime dataHora;
+    private LocalDateTime dataHoraStatus; // Última mudança de status (rastreio público)
     private String nomeClienteDelivery;
     private String telefoneClienteDelivery;
     private String enderecoClienteDelivery;
     private String pontoReferencia;
+
+    // Versão do cardápio usada para precificar o pedido (auditoria)
+    private Long versaoCardapio;
 }
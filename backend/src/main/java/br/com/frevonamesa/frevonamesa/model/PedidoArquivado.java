@@ -0,0 +1,57 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Pedido de mesa movido para o arquivo no fechamento de caixa (cópia em massa via INSERT ... SELECT).
+ * Mantém o mesmo id do pedido original e guarda os dados da mesa no momento do fechamento, para que
+ * relatórios e exportações continuem enxergando o histórico depois que as tabelas quentes são limpas.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(indexes = @Index(name = "idx_pedido_arquivado_restaurante_data", columnList = "restauranteId, dataHora"))
+public class PedidoArquivado {
+
+    @Id
+    private Long id; // Mesmo id do Pedido
+
+    private UUID uuid;
+
+    @Column(nullable = false)
+    private Long restauranteId;
+
+    private Long mesaId;
+    private Integer numeroMesa;
+    private String nomeClienteMesa;
+
+    @Enumerated(EnumType.STRING)
+    private TipoPagamento tipoPagamento;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusPedido status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoPedido tipo;
+
+    private boolean impresso;
+    private BigDecimal total;
+    private LocalDateTime dataHora;
+    private LocalDateTime dataHoraStatus;
+    private String nomeClienteDelivery;
+    private String telefoneClienteDelivery;
+    private String enderecoClienteDelivery;
+    private String pontoReferencia;
+    private Long versaoCardapio;
+
+    @Column(nullable = false)
+    private LocalDateTime arquivadoEm;
+}
@@ -0,0 +1,44 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Vértices de um polígono ([latitude, longitude] em graus) gravados como JSON numa coluna de texto,
+ * o mesmo formato em PostgreSQL, H2 e SQLite.
+ */
+@Converter
+public class PoligonoConverter implements AttributeConverter<List<double[]>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    public String convertToDatabaseColumn(List<double[]> vertices) {
+        if (vertices == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(vertices);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Polígono inválido", e);
+        }
+    }
+
+    @Override
+    public List<double[]> convertToEntityAttribute(String json) {
+        if (json == null || json.isBlank()) {
+            return new ArrayList<>();
+        }
+        try {
+            return new ArrayList<>(Arrays.asList(MAPPER.readValue(json, double[][].class)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Polígono gravado em formato inválido", e);
+        }
+    }
+}
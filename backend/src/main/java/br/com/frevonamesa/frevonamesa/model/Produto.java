@@ -1,15 +1,21 @@
 package br.com.frevonamesa.frevonamesa.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 
 @NoArgsConstructor
 @Entity
 @Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "produto")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // Itens do pedido referenciam o produto por proxy
 public class Produto {
 
     @Id
@@ -4,6 +4,9 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*; // Certifique-se que usa jakarta.persistence
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,6 +16,9 @@ import java.util.List;
 @Entity
 @Data
 @NoArgsConstructor
+@DynamicUpdate // UPDATE só das colunas alteradas
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "restaurante")
 public class Restaurante {
 
     @Id
@@ -26,6 +32,9 @@ public class Restaurante {
     private String senha;
     private String endereco;
     private String cepRestaurante;
+    // Coordenadas do cepRestaurante, gravadas ao salvar o perfil (frete por distância sem geocodificar a cada cotação)
+    private Double latitude;
+    private Double longitude;
     private String logoUrl;
 
     @OneToMany(mappedBy = "restaurante", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -63,7 +72,6 @@ public class Restaurante {
 
     private Integer limiteMesas = 10;
     private Integer limiteUsuarios = 4;
-    private Integer pedidosMesAtual = 0;
 
     private String whatsappNumber;
     private BigDecimal taxaEntrega = BigDecimal.ZERO;
@@ -0,0 +1,44 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Faturamento acumulado do dia por restaurante, tipo de pedido e forma de pagamento.
+ * Incrementado (UPDATE atômico) a cada pedido pago, para o dashboard do caixa não precisar
+ * varrer os pedidos do dia.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_resumo_caixa_diario",
+        columnNames = {"restauranteId", "data", "tipoPedido", "tipoPagamento"}))
+public class ResumoCaixaDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long restauranteId;
+
+    @Column(nullable = false)
+    private LocalDate data; // Dia do pedido (mesmo critério do relatório diário)
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoPedido tipoPedido;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoPagamento tipoPagamento;
+
+    @Column(nullable = false)
+    private BigDecimal valorTotal = BigDecimal.ZERO;
+
+    private long quantidadePedidos = 0;
+}
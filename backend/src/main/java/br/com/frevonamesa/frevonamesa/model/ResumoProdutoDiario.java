@@ -0,0 +1,42 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Vendas consolidadas de um produto em um dia já fechado (ver FechamentoDiario).
+ * Alimenta o ranking de produtos dos relatórios por período sem ler ItemPedido.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(indexes = @Index(name = "idx_resumo_produto_restaurante_data", columnList = "restauranteId, data"))
+public class ResumoProdutoDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resumo_produto_diario_seq")
+    @SequenceGenerator(name = "resumo_produto_diario_seq", sequenceName = "resumo_produto_diario_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long restauranteId;
+
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoPedido tipoPedido;
+
+    private Long produtoId; // Null se o produto foi removido do cardápio
+    private String nomeProduto;
+
+    private long quantidade;
+
+    @Column(nullable = false)
+    private BigDecimal valorTotal = BigDecimal.ZERO;
+}
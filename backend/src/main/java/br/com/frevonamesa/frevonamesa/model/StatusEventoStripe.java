@@ -0,0 +1,7 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+public enum StatusEventoStripe {
+    PENDENTE,    // Aguardando processamento (ou nova tentativa)
+    PROCESSADO,
+    FALHA        // Esgotou as tentativas (dead letter)
+}
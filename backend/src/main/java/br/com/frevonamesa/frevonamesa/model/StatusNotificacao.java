@@ -0,0 +1,7 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+public enum StatusNotificacao {
+    PENDENTE,  // Aguardando envio (ou nova tentativa)
+    ENVIADA,
+    FALHA      // Esgotou as tentativas
+}
@@ -0,0 +1,58 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de webhook do Stripe gravado como chegou (payload bruto), com a assinatura já verificada.
+ * A chave primária é o id do evento: reenvios do Stripe caem na mesma linha e não são processados
+ * de novo. O StripeInboxDispatcher processa as linhas em segundo plano.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_stripe_evento_fila", columnList = "status, criadoStripe"),
+        @Index(name = "idx_stripe_evento_chave", columnList = "chaveOrdenacao, status")
+})
+public class StripeEventoInbox {
+
+    @Id
+    private String id; // event.getId()
+
+    @Column(nullable = false)
+    private String tipo;
+
+    // Cliente (ou conta Connect) do evento: eventos com a mesma chave são processados em ordem
+    @Column(nullable = false)
+    private String chaveOrdenacao;
+
+    private long criadoStripe; // event.getCreated(), em segundos
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusEventoStripe status = StatusEventoStripe.PENDENTE;
+
+    private int tentativas = 0;
+
+    @Column(nullable = false)
+    private LocalDateTime recebidoEm;
+
+    @Column(nullable = false)
+    private LocalDateTime proximaTentativa; // Enquanto processado, fim da reserva (ver StripeEventoInboxRepository.reservar)
+
+    private LocalDateTime processadoEm;
+
+    @Column(length = 1000)
+    private String ultimoErro;
+
+    // Uma instância com a linha desatualizada (reserva vencida e retomada por outra) não grava por cima
+    @Version
+    private long versao;
+}
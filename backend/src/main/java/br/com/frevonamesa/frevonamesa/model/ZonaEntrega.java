@@ -0,0 +1,38 @@
+package br.com.frevonamesa.frevonamesa.model;
+
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// Zona de entrega desenhada no mapa (bairros, margens de rio...), convive com as faixas de distância
+@Entity
+@Data
+@NoArgsConstructor
+public class ZonaEntrega {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "restaurante_id", nullable = false)
+    @JsonBackReference
+    private Restaurante restaurante;
+
+    private String nome;
+
+    // Vértices [latitude, longitude] em ordem (o último liga no primeiro)
+    @Convert(converter = PoligonoConverter.class)
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private List<double[]> poligono = new ArrayList<>();
+
+    @Column(nullable = false)
+    private BigDecimal valorEntrega;
+
+    private BigDecimal valorMinimoPedido;
+}
@@ -1,10 +1,23 @@
 package br.com.frevonamesa.frevonamesa.repository;
 
 import br.com.frevonamesa.frevonamesa.model.Adicional;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface AdicionalRepository extends JpaRepository<Adicional, Long> {
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "consultas-restaurante")
+    })
     List<Adicional> findByRestauranteId(Long restauranteId);
+
+    // Somente os dados de preço (id, nome, preco), usados no snapshot do cardápio
+    @Query("SELECT a.id, a.nome, a.preco FROM Adicional a WHERE a.restaurante.id = :restauranteId")
+    List<Object[]> findPrecosByRestauranteId(@Param("restauranteId") Long restauranteId);
 }
\ No newline at end of file
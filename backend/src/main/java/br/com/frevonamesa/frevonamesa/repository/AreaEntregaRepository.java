@@ -1,9 +1,16 @@
 package br.com.frevonamesa.frevonamesa.repository;
 
 import br.com.frevonamesa.frevonamesa.model.AreaEntrega;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.util.List;
 
 public interface AreaEntregaRepository extends JpaRepository<AreaEntrega, Long> {
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "consultas-restaurante")
+    })
     List<AreaEntrega> findByRestauranteId(Long restauranteId);
 }
\ No newline at end of file
@@ -1,9 +1,17 @@
 package br.com.frevonamesa.frevonamesa.repository;
 
 import br.com.frevonamesa.frevonamesa.model.Categoria;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.util.List;
 
 public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
+    // Resultado no cache de consultas (ids); invalidado pelo Hibernate a cada escrita na tabela
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "consultas-restaurante")
+    })
     List<Categoria> findByRestauranteId(Long restauranteId);
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package br.com.frevonamesa.frevonamesa.repository;
+
+import br.com.frevonamesa.frevonamesa.model.CepCoordenada;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CepCoordenadaRepository extends JpaRepository<CepCoordenada, Integer> {
+}
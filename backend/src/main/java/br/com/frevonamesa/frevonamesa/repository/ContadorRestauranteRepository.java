@@ -0,0 +1,117 @@
+package br.com.frevonamesa.frevonamesa.repository;
+
+import br.com.frevonamesa.frevonamesa.model.ContadorRestaurante;
+import br.com.frevonamesa.frevonamesa.model.Restaurante;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Contadores do restaurante: sempre via UPDATE atômico, nunca salvando a entidade. Restaurante sem linha
+ * conta como zero; os incrementos criam a linha quando ela ainda não existe.
+ */
+public interface ContadorRestauranteRepository extends JpaRepository<ContadorRestaurante, Long> {
+
+    @Query("SELECT c.versaoCardapio FROM ContadorRestaurante c WHERE c.restauranteId = :restauranteId")
+    Optional<Long> findVersaoCardapio(@Param("restauranteId") Long restauranteId);
+
+    @Query("SELECT c.versaoTabelaFrete FROM ContadorRestaurante c WHERE c.restauranteId = :restauranteId")
+    Optional<Long> findVersaoTabelaFrete(@Param("restauranteId") Long restauranteId);
+
+    @Query("SELECT c.pedidosMesAtual FROM ContadorRestaurante c WHERE c.restauranteId = :restauranteId")
+    Optional<Integer> findPedidosMesAtual(@Param("restauranteId") Long restauranteId);
+
+    /**
+     * Cria a linha do restaurante, se ausente, com o lock da linha do restaurante: primeiras escritas
+     * simultâneas esperam umas pelas outras em vez de tentarem inserir a mesma chave. Depois desta chamada
+     * os UPDATEs encontram a linha (criada aqui ou por quem teve o lock antes).
+     */
+    default void criarComLockSeAusente(Long restauranteId) {
+        travarRestaurante(restauranteId);
+        criarSeAusente(restauranteId);
+    }
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Restaurante r WHERE r.id = :restauranteId")
+    Optional<Restaurante> travarRestaurante(@Param("restauranteId") Long restauranteId);
+
+    // Retorna 0 se a linha já existia (ou o restaurante não existe). Sem o lock do restaurante não é atômico:
+    // use criarComLockSeAusente
+    @Modifying
+    @Query("INSERT INTO ContadorRestaurante (restauranteId, pedidosMesAtual, versaoCardapio, versaoTabelaFrete) " +
+            "SELECT r.id, 0, 0, 0 FROM Restaurante r WHERE r.id = :restauranteId " +
+            "AND NOT EXISTS (SELECT c.restauranteId FROM ContadorRestaurante c WHERE c.restauranteId = :restauranteId)")
+    int criarSeAusente(@Param("restauranteId") Long restauranteId);
+
+    // --- Cota de pedidos delivery (plano GRATUITO) ---
+
+    // Consome uma unidade da cota somente se ainda houver saldo (retorna 0 se o limite foi atingido)
+    default int consumirCotaDelivery(Long restauranteId, int limiteTotal) {
+        int consumidos = incrementarPedidosMesAtualAbaixoDe(restauranteId, limiteTotal);
+        if (consumidos == 0) {
+            // Sem linha ainda (primeiro pedido) ou criada por outra transação depois do UPDATE: tenta de novo.
+            // Com o limite atingido a linha existe e o lock do restaurante não é tomado
+            if (findPedidosMesAtual(restauranteId).isEmpty()) {
+                criarComLockSeAusente(restauranteId);
+            }
+            consumidos = incrementarPedidosMesAtualAbaixoDe(restauranteId, limiteTotal);
+        }
+        return consumidos;
+    }
+
+    default void incrementarPedidosMesAtual(Long restauranteId) {
+        if (incrementarPedidosMesAtualAbaixoDe(restauranteId, Integer.MAX_VALUE) == 0) {
+            criarComLockSeAusente(restauranteId);
+            incrementarPedidosMesAtualAbaixoDe(restauranteId, Integer.MAX_VALUE);
+        }
+    }
+
+    @Modifying
+    @Query("UPDATE ContadorRestaurante c SET c.pedidosMesAtual = c.pedidosMesAtual + 1 " +
+            "WHERE c.restauranteId = :restauranteId AND c.pedidosMesAtual < :limite")
+    int incrementarPedidosMesAtualAbaixoDe(@Param("restauranteId") Long restauranteId, @Param("limite") int limite);
+
+    @Modifying
+    @Query("UPDATE ContadorRestaurante c SET c.pedidosMesAtual = CASE WHEN c.pedidosMesAtual > :quantidade " +
+            "THEN c.pedidosMesAtual - :quantidade ELSE 0 END WHERE c.restauranteId = :restauranteId")
+    int compensarPedidosMesAtual(@Param("restauranteId") Long restauranteId, @Param("quantidade") int quantidade);
+
+    @Modifying
+    @Query("UPDATE ContadorRestaurante c SET c.pedidosMesAtual = 0 WHERE c.restauranteId = :restauranteId")
+    int zerarPedidosMesAtual(@Param("restauranteId") Long restauranteId);
+
+    @Modifying
+    @Query("UPDATE ContadorRestaurante c SET c.pedidosMesAtual = 0 WHERE c.pedidosMesAtual <> 0")
+    int zerarPedidosMesAtualDeTodos();
+
+    // --- Versão do cardápio ---
+
+    default void incrementarVersaoCardapio(Long restauranteId) {
+        if (incrementarVersaoCardapioExistente(restauranteId) == 0) {
+            criarComLockSeAusente(restauranteId);
+            incrementarVersaoCardapioExistente(restauranteId);
+        }
+    }
+
+    @Modifying
+    @Query("UPDATE ContadorRestaurante c SET c.versaoCardapio = c.versaoCardapio + 1 WHERE c.restauranteId = :restauranteId")
+    int incrementarVersaoCardapioExistente(@Param("restauranteId") Long restauranteId);
+
+    // --- Versão da tabela de frete ---
+
+    default void incrementarVersaoTabelaFrete(Long restauranteId) {
+        if (incrementarVersaoTabelaFreteExistente(restauranteId) == 0) {
+            criarComLockSeAusente(restauranteId);
+            incrementarVersaoTabelaFreteExistente(restauranteId);
+        }
+    }
+
+    @Modifying
+    @Query("UPDATE ContadorRestaurante c SET c.versaoTabelaFrete = c.versaoTabelaFrete + 1 WHERE c.restauranteId = :restauranteId")
+    int incrementarVersaoTabelaFreteExistente(@Param("restauranteId") Long restauranteId);
+}
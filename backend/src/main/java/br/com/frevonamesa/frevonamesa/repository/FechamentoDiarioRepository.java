@@ -0,0 +1,15 @@
+package br.com.frevonamesa.frevonamesa.repository;
+
+import br.com.frevonamesa.frevonamesa.model.FechamentoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface FechamentoDiarioRepository extends JpaRepository<FechamentoDiario, LocalDate> {
+
+    // Os dias são fechados em sequência: o último fechado delimita o que já está consolidado
+    @Query("SELECT MAX(f.data) FROM FechamentoDiario f")
+    Optional<LocalDate> findUltimaData();
+}
@@ -3,8 +3,13 @@ package br.com.frevonamesa.frevonamesa.repository;
 import br.com.frevonamesa.frevonamesa.model.Mesa;
 import br.com.frevonamesa.frevonamesa.model.StatusMesa;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,4 +31,36 @@ public interface MesaRepository extends JpaRepository<Mesa, Long> {
     boolean existsByNumeroAndRestauranteId(int numero, Long restauranteId);
 
     Optional<Mesa> findByNumeroAndRestauranteId(int numero, Long restauranteId);
-}
\ No newline at end of file
+
+    // Dashboard do caixa: [status, quantidade, soma do valorTotal] por status, numa única consulta
+    @Query("SELECT m.status, COUNT(m), COALESCE(SUM(m.valorTotal), 0) FROM Mesa m " +
+            "WHERE m.restaurante.id = :restauranteId GROUP BY m.status")
+    List<Object[]> resumirPorStatus(@Param("restauranteId") Long restauranteId);
+
+    /**
+     * Soma o valor de um novo pedido ao total da mesa de forma atômica no banco (sem ler-somar-gravar em Java).
+     * Se a mesa estiver LIVRE, abre a mesa (OCUPADA + hora de abertura). O nome do cliente só é trocado se informado.
+     */
+    @Modifying
+    @Query("UPDATE Mesa m SET " +
+            "m.valorTotal = COALESCE(m.valorTotal, 0) + :valor, " +
+            "m.horaAbertura = CASE WHEN m.status = :livre THEN :agora ELSE m.horaAbertura END, " +
+            "m.status = CASE WHEN m.status = :livre THEN :ocupada ELSE m.status END, " +
+            "m.nomeCliente = COALESCE(:nomeCliente, m.nomeCliente) " +
+            "WHERE m.id = :mesaId")
+    int adicionarPedidoAoTotal(@Param("mesaId") Long mesaId,
+                               @Param("valor") BigDecimal valor,
+                               @Param("nomeCliente") String nomeCliente,
+                               @Param("agora") LocalTime agora,
+                               @Param("livre") StatusMesa livre,
+                               @Param("ocupada") StatusMesa ocupada);
+
+    /**
+     * Fechamento de caixa: libera de uma vez as mesas do restaurante que não têm mais pedidos
+     * (uma mesa que recebeu pedido durante o fechamento continua aberta).
+     */
+    @Modifying
+    @Query("UPDATE Mesa m SET m.status = :livre, m.valorTotal = 0, m.nomeCliente = NULL, m.horaAbertura = NULL " +
+            "WHERE m.restaurante.id = :restauranteId AND NOT EXISTS (SELECT p.id FROM Pedido p WHERE p.mesa = m)")
+    int liberarMesasSemPedidos(@Param("restauranteId") Long restauranteId, @Param("livre") StatusMesa livre);
+}
@@ -0,0 +1,28 @@
+package br.com.frevonamesa.frevonamesa.repository;
+
+import br.com.frevonamesa.frevonamesa.model.NotificacaoOutbox;
+import br.com.frevonamesa.frevonamesa.model.StatusNotificacao;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface NotificacaoOutboxRepository extends JpaRepository<NotificacaoOutbox, Long> {
+
+    // Próximo lote a enviar (mais antigas primeiro), sem as notificações de pedidos que têm uma anterior
+    // ainda aguardando nova tentativa: o cliente não pode receber PRONTO antes de EM_PREPARO
+    @Query("SELECT n FROM NotificacaoOutbox n WHERE n.status = :status AND n.proximaTentativa <= :agora"
+            + " AND NOT EXISTS (SELECT a.id FROM NotificacaoOutbox a WHERE a.pedidoId = n.pedidoId"
+            + " AND a.status = :status AND a.id < n.id AND a.proximaTentativa > :agora)"
+            + " ORDER BY n.id")
+    List<NotificacaoOutbox> findProntasParaEnvio(@Param("status") StatusNotificacao status, @Param("agora") LocalDateTime agora, Pageable pagina);
+
+    long countByStatus(StatusNotificacao status);
+
+    @Query("SELECT MIN(n.criadoEm) FROM NotificacaoOutbox n WHERE n.status = :status")
+    Optional<LocalDateTime> findCriadoEmMaisAntigo(@Param("status") StatusNotificacao status);
+}
@@ -0,0 +1,45 @@
+package br.com.frevonamesa.frevonamesa.repository;
+
+import br.com.frevonamesa.frevonamesa.model.PedidoArquivado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Cópia em massa dos pedidos de mesa para o arquivo (fechamento de caixa). Cada método é um único
+ * INSERT ... SELECT; a faixa de ids restringe a cópia aos pedidos que existiam no início do fechamento.
+ * Itens e adicionais são copiados a partir dos pedidos já arquivados, nunca de uma nova leitura de Pedido.
+ */
+public interface PedidoArquivadoRepository extends JpaRepository<PedidoArquivado, Long> {
+
+    // Subconsultas sobre o que de fato foi arquivado; também usadas pelas remoções do PedidoRepository
+    String PEDIDOS_ARQUIVADOS = "SELECT pa.id FROM PedidoArquivado pa " +
+            "WHERE pa.restauranteId = :restauranteId AND pa.id BETWEEN :inicio AND :limite";
+    String ITENS_ARQUIVADOS = "SELECT ia.id FROM ItemPedidoArquivado ia WHERE ia.pedidoId IN (" + PEDIDOS_ARQUIVADOS + ")";
+    String ADICIONAIS_ARQUIVADOS = "SELECT aa.id FROM ItemPedidoAdicionalArquivado aa WHERE aa.itemPedidoId IN (" + ITENS_ARQUIVADOS + ")";
+
+    @Modifying
+    @Query("INSERT INTO PedidoArquivado (id, uuid, restauranteId, mesaId, numeroMesa, nomeClienteMesa, tipoPagamento, " +
+            "status, tipo, impresso, total, dataHora, dataHoraStatus, nomeClienteDelivery, telefoneClienteDelivery, " +
+            "enderecoClienteDelivery, pontoReferencia, versaoCardapio, arquivadoEm) " +
+            "SELECT p.id, p.uuid, p.restaurante.id, m.id, m.numero, m.nomeCliente, p.tipoPagamento, " +
+            "p.status, p.tipo, p.impresso, p.total, p.dataHora, p.dataHoraStatus, p.nomeClienteDelivery, p.telefoneClienteDelivery, " +
+            "p.enderecoClienteDelivery, p.pontoReferencia, p.versaoCardapio, LOCAL DATETIME " +
+            "FROM Pedido p JOIN p.mesa m WHERE m.restaurante.id = :restauranteId AND p.id BETWEEN :inicio AND :limite")
+    int arquivarPedidosDeMesa(@Param("restauranteId") Long restauranteId, @Param("inicio") Long inicio, @Param("limite") Long limite);
+
+    @Modifying
+    @Query("INSERT INTO ItemPedidoArquivado (id, pedidoId, produtoId, nomeProduto, quantidade, precoUnitario, observacao) " +
+            "SELECT i.id, p.id, pr.id, pr.nome, i.quantidade, i.precoUnitario, i.observacao " +
+            "FROM ItemPedido i JOIN i.pedido p LEFT JOIN i.produto pr " +
+            "WHERE p.id IN (" + PEDIDOS_ARQUIVADOS + ")")
+    int arquivarItensDeMesa(@Param("restauranteId") Long restauranteId, @Param("inicio") Long inicio, @Param("limite") Long limite);
+
+    @Modifying
+    @Query("INSERT INTO ItemPedidoAdicionalArquivado (id, itemPedidoId, nomeAdicional, precoAdicional) " +
+            "SELECT a.id, i.id, a.nomeAdicional, a.precoAdicional " +
+            "FROM ItemPedidoAdicional a JOIN a.itemPedido i " +
+            "WHERE i.id IN (" + ITENS_ARQUIVADOS + ")")
+    int arquivarAdicionaisDeMesa(@Param("restauranteId") Long restauranteId, @Param("inicio") Long inicio, @Param("limite") Long limite);
+}
@@ -5,14 +5,19 @@ package br.com.frevonamesa.frevonamesa.repository;
 import br.com.frevonamesa.frevonamesa.model.Pedido;
 import br.com.frevonamesa.frevonamesa.model.StatusPedido;
 import br.com.frevonamesa.frevonamesa.model.TipoPedido;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query; // Importar Query
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param; // Importar Param
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 import java.util.Collection; // Importar Collection
 
 public interface PedidoRepository extends JpaRepository<Pedido, Long> {
@@ -28,6 +33,141 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
 
     Optional<Pedido> findByUuid(UUID uuid);
 
+    // As consultas de faturamento/vendas abaixo leem os pedidos ativos e os arquivados no fechamento de
+    // caixa (UNION ALL numa subconsulta), para que o histórico não dependa de quando o caixa foi fechado.
+
+    // Faturamento pago por [restauranteId, tipo, tipoPagamento, soma do total, quantidade] no período
+    @Query("SELECT x.restauranteId, x.tipo, x.tipoPagamento, COALESCE(SUM(x.total), 0), COUNT(*) FROM (" +
+            "SELECT p.restaurante.id AS restauranteId, p.tipo AS tipo, p.tipoPagamento AS tipoPagamento, p.total AS total " +
+            "FROM Pedido p WHERE p.dataHora BETWEEN :inicio AND :fim AND p.tipoPagamento IS NOT NULL " +
+            "UNION ALL " +
+            "SELECT a.restauranteId, a.tipo, a.tipoPagamento, a.total " +
+            "FROM PedidoArquivado a WHERE a.dataHora BETWEEN :inicio AND :fim AND a.tipoPagamento IS NOT NULL" +
+            ") x GROUP BY x.restauranteId, x.tipo, x.tipoPagamento")
+    List<Object[]> somarPagosPorRestauranteTipoEPagamento(@Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
+
+    @Query("SELECT MIN(x.dataHora) FROM (SELECT p.dataHora AS dataHora FROM Pedido p " +
+            "UNION ALL SELECT a.dataHora FROM PedidoArquivado a) x")
+    Optional<LocalDateTime> findPrimeiraDataHora();
+
+    // Vendas por produto dos pedidos pagos no período (todos os restaurantes), para a consolidação diária:
+    // [restauranteId, tipo, produtoId, nomeProduto, quantidade, valor]
+    @Query("SELECT x.restauranteId, x.tipo, x.produtoId, x.nomeProduto, SUM(x.quantidade), SUM(x.valor) FROM (" +
+            "SELECT p.restaurante.id AS restauranteId, p.tipo AS tipo, pr.id AS produtoId, pr.nome AS nomeProduto, " +
+            "i.quantidade AS quantidade, i.precoUnitario * i.quantidade AS valor " +
+            "FROM ItemPedido i JOIN i.pedido p LEFT JOIN i.produto pr " +
+            "WHERE p.dataHora BETWEEN :inicio AND :fim AND p.tipoPagamento IS NOT NULL " +
+            "UNION ALL " +
+            "SELECT a.restauranteId, a.tipo, i.produtoId, i.nomeProduto, i.quantidade, i.precoUnitario * i.quantidade " +
+            "FROM ItemPedidoArquivado i JOIN PedidoArquivado a ON a.id = i.pedidoId " +
+            "WHERE a.dataHora BETWEEN :inicio AND :fim AND a.tipoPagamento IS NOT NULL" +
+            ") x GROUP BY x.restauranteId, x.tipo, x.produtoId, x.nomeProduto")
+    List<Object[]> somarProdutosPagosPorRestaurante(@Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
+
+    // Mesmo agrupamento para um restaurante (dias ainda não consolidados): [produtoId, nomeProduto, quantidade, valor]
+    @Query("SELECT x.produtoId, x.nomeProduto, SUM(x.quantidade), SUM(x.valor) FROM (" +
+            "SELECT pr.id AS produtoId, pr.nome AS nomeProduto, i.quantidade AS quantidade, i.precoUnitario * i.quantidade AS valor " +
+            "FROM ItemPedido i JOIN i.pedido p LEFT JOIN i.produto pr " +
+            "WHERE p.restaurante.id = :restauranteId AND p.dataHora BETWEEN :inicio AND :fim AND p.tipoPagamento IS NOT NULL " +
+            "UNION ALL " +
+            "SELECT i.produtoId, i.nomeProduto, i.quantidade, i.precoUnitario * i.quantidade " +
+            "FROM ItemPedidoArquivado i JOIN PedidoArquivado a ON a.id = i.pedidoId " +
+            "WHERE a.restauranteId = :restauranteId AND a.dataHora BETWEEN :inicio AND :fim AND a.tipoPagamento IS NOT NULL" +
+            ") x GROUP BY x.produtoId, x.nomeProduto")
+    List<Object[]> somarProdutosPagos(@Param("restauranteId") Long restauranteId,
+                                      @Param("inicio") LocalDateTime inicio,
+                                      @Param("fim") LocalDateTime fim);
+
+    // --- Relatório diário (consultas agregadas/projeções, sem carregar entidades) ---
+
+    // [tipo, tipoPagamento, soma do total, quantidade] dos pedidos pagos do restaurante no período
+    @Query("SELECT x.tipo, x.tipoPagamento, COALESCE(SUM(x.total), 0), COUNT(*) FROM (" +
+            "SELECT p.tipo AS tipo, p.tipoPagamento AS tipoPagamento, p.total AS total FROM Pedido p " +
+            "WHERE p.restaurante.id = :restauranteId AND p.dataHora BETWEEN :inicio AND :fim AND p.tipoPagamento IS NOT NULL " +
+            "UNION ALL " +
+            "SELECT a.tipo, a.tipoPagamento, a.total FROM PedidoArquivado a " +
+            "WHERE a.restauranteId = :restauranteId AND a.dataHora BETWEEN :inicio AND :fim AND a.tipoPagamento IS NOT NULL" +
+            ") x GROUP BY x.tipo, x.tipoPagamento")
+    List<Object[]> somarPagosPorTipoEPagamento(@Param("restauranteId") Long restauranteId,
+                                                @Param("inicio") LocalDateTime inicio,
+                                                @Param("fim") LocalDateTime fim);
+
+    // Uma linha por item (ou uma linha com itens nulos para pedido sem itens), ordenadas por pedido:
+    // [pedidoId, tipo, tipoPagamento, total, nomeClienteDelivery, mesaId, numeroMesa, nomeClienteMesa,
+    //  quantidade, nomeProduto, observacao, precoUnitario]
+    @Query("SELECT x.pedidoId, x.tipo, x.tipoPagamento, x.total, x.nomeClienteDelivery, x.mesaId, x.numeroMesa, " +
+            "x.nomeClienteMesa, x.quantidade, x.nomeProduto, x.observacao, x.precoUnitario FROM (" +
+            "SELECT p.id AS pedidoId, p.tipo AS tipo, p.tipoPagamento AS tipoPagamento, p.total AS total, " +
+            "p.nomeClienteDelivery AS nomeClienteDelivery, m.id AS mesaId, m.numero AS numeroMesa, m.nomeCliente AS nomeClienteMesa, " +
+            "i.id AS itemId, i.quantidade AS quantidade, pr.nome AS nomeProduto, i.observacao AS observacao, i.precoUnitario AS precoUnitario " +
+            "FROM Pedido p LEFT JOIN p.mesa m LEFT JOIN p.itens i LEFT JOIN i.produto pr " +
+            "WHERE p.restaurante.id = :restauranteId AND p.dataHora BETWEEN :inicio AND :fim AND p.tipoPagamento IS NOT NULL " +
+            "UNION ALL " +
+            "SELECT a.id, a.tipo, a.tipoPagamento, a.total, a.nomeClienteDelivery, a.mesaId, a.numeroMesa, a.nomeClienteMesa, " +
+            "i.id, i.quantidade, i.nomeProduto, i.observacao, i.precoUnitario " +
+            "FROM PedidoArquivado a LEFT JOIN ItemPedidoArquivado i ON i.pedidoId = a.id " +
+            "WHERE a.restauranteId = :restauranteId AND a.dataHora BETWEEN :inicio AND :fim AND a.tipoPagamento IS NOT NULL" +
+            ") x ORDER BY x.tipo, x.numeroMesa, x.pedidoId, x.itemId")
+    Stream<Object[]> streamItensPagosDoPeriodo(@Param("restauranteId") Long restauranteId,
+                                               @Param("inicio") LocalDateTime inicio,
+                                               @Param("fim") LocalDateTime fim);
+
+    // Exportação: uma linha por adicional de item (itens/adicionais nulos quando não houver), em ordem de
+    // pedido. Projeção escalar lida por cursor (fetch size fixo): nada entra no contexto de persistência.
+    // [pedidoId, uuid, dataHora, tipo, status, tipoPagamento, total, numeroMesa, nomeClienteMesa,
+    //  nomeClienteDelivery, telefoneClienteDelivery, enderecoClienteDelivery, itemId, produtoId, nomeProduto,
+    //  quantidade, precoUnitario, observacao, adicionalId, nomeAdicional, precoAdicional]
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT x.pedidoId, x.uuid, x.dataHora, x.tipo, x.status, x.tipoPagamento, x.total, x.numeroMesa, x.nomeClienteMesa, " +
+            "x.nomeClienteDelivery, x.telefoneClienteDelivery, x.enderecoClienteDelivery, x.itemId, x.produtoId, x.nomeProduto, " +
+            "x.quantidade, x.precoUnitario, x.observacao, x.adicionalId, x.nomeAdicional, x.precoAdicional FROM (" +
+            "SELECT p.id AS pedidoId, p.uuid AS uuid, p.dataHora AS dataHora, p.tipo AS tipo, p.status AS status, " +
+            "p.tipoPagamento AS tipoPagamento, p.total AS total, m.numero AS numeroMesa, m.nomeCliente AS nomeClienteMesa, " +
+            "p.nomeClienteDelivery AS nomeClienteDelivery, p.telefoneClienteDelivery AS telefoneClienteDelivery, " +
+            "p.enderecoClienteDelivery AS enderecoClienteDelivery, i.id AS itemId, pr.id AS produtoId, pr.nome AS nomeProduto, " +
+            "i.quantidade AS quantidade, i.precoUnitario AS precoUnitario, i.observacao AS observacao, " +
+            "a.id AS adicionalId, a.nomeAdicional AS nomeAdicional, a.precoAdicional AS precoAdicional " +
+            "FROM Pedido p LEFT JOIN p.mesa m LEFT JOIN p.itens i LEFT JOIN i.produto pr LEFT JOIN i.adicionais a " +
+            "WHERE p.restaurante.id = :restauranteId AND p.dataHora BETWEEN :inicio AND :fim " +
+            "UNION ALL " +
+            "SELECT pa.id, pa.uuid, pa.dataHora, pa.tipo, pa.status, pa.tipoPagamento, pa.total, pa.numeroMesa, pa.nomeClienteMesa, " +
+            "pa.nomeClienteDelivery, pa.telefoneClienteDelivery, pa.enderecoClienteDelivery, i.id, i.produtoId, i.nomeProduto, " +
+            "i.quantidade, i.precoUnitario, i.observacao, a.id, a.nomeAdicional, a.precoAdicional " +
+            "FROM PedidoArquivado pa LEFT JOIN ItemPedidoArquivado i ON i.pedidoId = pa.id " +
+            "LEFT JOIN ItemPedidoAdicionalArquivado a ON a.itemPedidoId = i.id " +
+            "WHERE pa.restauranteId = :restauranteId AND pa.dataHora BETWEEN :inicio AND :fim" +
+            ") x ORDER BY x.pedidoId, x.itemId, x.adicionalId")
+    Stream<Object[]> streamExportacao(@Param("restauranteId") Long restauranteId,
+                                      @Param("inicio") LocalDateTime inicio,
+                                      @Param("fim") LocalDateTime fim);
+
+    // --- Fechamento de caixa (remoção em massa dos pedidos de mesa já arquivados) ---
+
+    // Faixa de ids (menor, maior) dos pedidos de mesa do restaurante; uma linha com nulos se não houver
+    @Query("SELECT MIN(p.id), MAX(p.id) FROM Pedido p WHERE p.mesa.restaurante.id = :restauranteId")
+    List<Object[]> findFaixaIdsDeMesa(@Param("restauranteId") Long restauranteId);
+
+    // Cada remoção é guiada pelo que foi copiado para o arquivo: um pedido cujo commit caiu entre a cópia
+    // e a remoção não está no arquivo e continua na tabela para o próximo fechamento
+    @Modifying
+    @Query("DELETE FROM ItemPedidoAdicional a WHERE a.id IN (" + PedidoArquivadoRepository.ADICIONAIS_ARQUIVADOS + ")")
+    int deleteAdicionaisDeMesa(@Param("restauranteId") Long restauranteId, @Param("inicio") Long inicio, @Param("limite") Long limite);
+
+    @Modifying
+    @Query("DELETE FROM ItemPedido i WHERE i.id IN (" + PedidoArquivadoRepository.ITENS_ARQUIVADOS + ")")
+    int deleteItensDeMesa(@Param("restauranteId") Long restauranteId, @Param("inicio") Long inicio, @Param("limite") Long limite);
+
+    @Modifying
+    @Query("DELETE FROM Pedido p WHERE p.id IN (" + PedidoArquivadoRepository.PEDIDOS_ARQUIVADOS + ")")
+    int deletePedidosDeMesa(@Param("restauranteId") Long restauranteId, @Param("inicio") Long inicio, @Param("limite") Long limite);
+
+    // Rastreio público: pedido + itens + produtos numa única consulta
+    @Query("SELECT DISTINCT p FROM Pedido p LEFT JOIN FETCH p.itens i LEFT JOIN FETCH i.produto WHERE p.uuid = :uuid")
+    Optional<Pedido> findRastreioByUuid(@Param("uuid") UUID uuid);
+
     /**
      * Busca pedidos de um tipo específico, dentro de uma lista de status,
      * para um restaurante, ordenados pela data/hora ascendente.
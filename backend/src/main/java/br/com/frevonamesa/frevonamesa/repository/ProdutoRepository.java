@@ -1,13 +1,26 @@
 package br.com.frevonamesa.frevonamesa.repository;
 
 import br.com.frevonamesa.frevonamesa.model.Produto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "consultas-restaurante")
+    })
     List<Produto> findByRestauranteId(Long restauranteId);
 
     boolean existsByCategoriaId(Long categoriaId);
+
+    // Somente os dados de preço (id, nome, preco), usados no snapshot do cardápio
+    @Query("SELECT p.id, p.nome, p.preco FROM Produto p WHERE p.restaurante.id = :restauranteId")
+    List<Object[]> findPrecosByRestauranteId(@Param("restauranteId") Long restauranteId);
 }
@@ -1,13 +1,24 @@
 package br.com.frevonamesa.frevonamesa.repository;
 
 import br.com.frevonamesa.frevonamesa.model.Restaurante;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface RestauranteRepository extends JpaRepository<Restaurante, Long> {
     // Este método será crucial para o login
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "consultas-restaurante")
+    })
     Optional<Restaurante> findByEmail(String email);
 
     List<Restaurante> findAllByIsDeliveryProTrueOrIsSalaoProTrue();
@@ -15,4 +26,9 @@ public interface RestauranteRepository extends JpaRepository<Restaurante, Long>
     Optional<Restaurante> findByStripeCustomerId(String stripeCustomerId);
 
     Optional<Restaurante> findByStripeConnectAccountId(String stripeConnectAccountId);
-}
\ No newline at end of file
+
+    // Lock da linha do restaurante: serializa a criação de linhas agregadas por restaurante (ex.: resumo do caixa)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Restaurante r WHERE r.id = :restauranteId")
+    Optional<Restaurante> findComLockById(@Param("restauranteId") Long restauranteId);
+}
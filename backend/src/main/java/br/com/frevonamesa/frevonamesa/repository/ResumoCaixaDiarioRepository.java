@@ -0,0 +1,43 @@
+package br.com.frevonamesa.frevonamesa.repository;
+
+import br.com.frevonamesa.frevonamesa.model.ResumoCaixaDiario;
+import br.com.frevonamesa.frevonamesa.model.TipoPagamento;
+import br.com.frevonamesa.frevonamesa.model.TipoPedido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ResumoCaixaDiarioRepository extends JpaRepository<ResumoCaixaDiario, Long> {
+
+    List<ResumoCaixaDiario> findByRestauranteIdAndData(Long restauranteId, LocalDate data);
+
+    // [tipoPedido, tipoPagamento, valorTotal, quantidadePedidos] somados no período
+    @Query("SELECT r.tipoPedido, r.tipoPagamento, SUM(r.valorTotal), SUM(r.quantidadePedidos) FROM ResumoCaixaDiario r " +
+            "WHERE r.restauranteId = :restauranteId AND r.data BETWEEN :inicio AND :fim " +
+            "GROUP BY r.tipoPedido, r.tipoPagamento")
+    List<Object[]> somarPorTipoEPagamento(@Param("restauranteId") Long restauranteId,
+                                          @Param("inicio") LocalDate inicio,
+                                          @Param("fim") LocalDate fim);
+
+    @Modifying
+    @Query("DELETE FROM ResumoCaixaDiario r WHERE r.data = :data")
+    int deleteByData(@Param("data") LocalDate data);
+
+    // Soma atômica no banco; retorna 0 se a linha do dia ainda não existe
+    @Modifying
+    @Query("UPDATE ResumoCaixaDiario r SET r.valorTotal = r.valorTotal + :valor, " +
+            "r.quantidadePedidos = r.quantidadePedidos + :quantidade " +
+            "WHERE r.restauranteId = :restauranteId AND r.data = :data " +
+            "AND r.tipoPedido = :tipoPedido AND r.tipoPagamento = :tipoPagamento")
+    int incrementar(@Param("restauranteId") Long restauranteId,
+                    @Param("data") LocalDate data,
+                    @Param("tipoPedido") TipoPedido tipoPedido,
+                    @Param("tipoPagamento") TipoPagamento tipoPagamento,
+                    @Param("valor") BigDecimal valor,
+                    @Param("quantidade") long quantidade);
+}
@@ -0,0 +1,25 @@
+package br.com.frevonamesa.frevonamesa.repository;
+
+import br.com.frevonamesa.frevonamesa.model.ResumoProdutoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ResumoProdutoDiarioRepository extends JpaRepository<ResumoProdutoDiario, Long> {
+
+    // [produtoId, nomeProduto, quantidade, valorTotal] somados no período
+    @Query("SELECT r.produtoId, r.nomeProduto, SUM(r.quantidade), SUM(r.valorTotal) FROM ResumoProdutoDiario r " +
+            "WHERE r.restauranteId = :restauranteId AND r.data BETWEEN :inicio AND :fim " +
+            "GROUP BY r.produtoId, r.nomeProduto")
+    List<Object[]> somarPorProduto(@Param("restauranteId") Long restauranteId,
+                                   @Param("inicio") LocalDate inicio,
+                                   @Param("fim") LocalDate fim);
+
+    @Modifying
+    @Query("DELETE FROM ResumoProdutoDiario r WHERE r.data = :data")
+    int deleteByData(@Param("data") LocalDate data);
+}
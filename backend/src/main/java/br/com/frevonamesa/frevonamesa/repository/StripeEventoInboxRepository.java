@@ -0,0 +1,52 @@
+package br.com.frevonamesa.frevonamesa.repository;
+
+import br.com.frevonamesa.frevonamesa.model.StatusEventoStripe;
+import br.com.frevonamesa.frevonamesa.model.StripeEventoInbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface StripeEventoInboxRepository extends JpaRepository<StripeEventoInbox, String> {
+
+    // Próximo lote a processar, na ordem em que o Stripe criou os eventos: só os vencidos, sem os de clientes
+    // que têm um evento anterior aguardando nova tentativa (esses não podem passar à frente dele)
+    @Query("SELECT e FROM StripeEventoInbox e WHERE e.status = :status AND e.proximaTentativa <= :agora"
+            + " AND NOT EXISTS (SELECT a.id FROM StripeEventoInbox a WHERE a.chaveOrdenacao = e.chaveOrdenacao"
+            + " AND a.status = :status AND a.proximaTentativa > :agora"
+            + " AND (a.criadoStripe < e.criadoStripe OR (a.criadoStripe = e.criadoStripe AND a.recebidoEm < e.recebidoEm)))"
+            + " ORDER BY e.criadoStripe, e.recebidoEm")
+    List<StripeEventoInbox> findProntosParaProcessar(@Param("status") StatusEventoStripe status, @Param("agora") LocalDateTime agora, Pageable pagina);
+
+    // Reserva o evento antes de processá-lo: a próxima tentativa passa para o fim do prazo da reserva, então
+    // as outras instâncias deixam de vê-lo como vencido (e ele segura os seguintes do cliente). Retorna 0 se
+    // outra instância já o reservou ou processou; se a instância cair, a reserva vence sozinha.
+    @Transactional
+    @Modifying
+    @Query("UPDATE StripeEventoInbox e SET e.proximaTentativa = :reservadoAte"
+            + " WHERE e.id = :id AND e.status = :status AND e.proximaTentativa <= :agora")
+    int reservar(@Param("id") String id, @Param("status") StatusEventoStripe status,
+                 @Param("agora") LocalDateTime agora, @Param("reservadoAte") LocalDateTime reservadoAte);
+
+    long countByStatus(StatusEventoStripe status);
+
+    @Query("SELECT MIN(e.recebidoEm) FROM StripeEventoInbox e WHERE e.status = :status")
+    Optional<LocalDateTime> findRecebidoEmMaisAntigo(@Param("status") StatusEventoStripe status);
+
+    @Query("SELECT MIN(e.proximaTentativa) FROM StripeEventoInbox e WHERE e.status = :status")
+    Optional<LocalDateTime> findProximaTentativaMaisCedo(@Param("status") StatusEventoStripe status);
+
+    @Query("SELECT MIN(e.proximaTentativa) FROM StripeEventoInbox e WHERE e.status = :status AND e.proximaTentativa > :agora")
+    Optional<LocalDateTime> findProximaTentativaDepoisDe(@Param("status") StatusEventoStripe status, @Param("agora") LocalDateTime agora);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM StripeEventoInbox e WHERE e.status = :status AND e.processadoEm < :limite")
+    int deleteByStatusAndProcessadoEmBefore(@Param("status") StatusEventoStripe status, @Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,11 @@
+package br.com.frevonamesa.frevonamesa.repository;
+
+import br.com.frevonamesa.frevonamesa.model.ZonaEntrega;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ZonaEntregaRepository extends JpaRepository<ZonaEntrega, Long> {
+    // Sem cache de consulta: só é lido ao montar a tabela de frete, que já fica em memória
+    List<ZonaEntrega> findByRestauranteIdOrderById(Long restauranteId);
+}
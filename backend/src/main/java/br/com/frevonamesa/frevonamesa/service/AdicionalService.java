@@ -6,6 +6,7 @@ import br.com.frevonamesa.frevonamesa.repository.AdicionalRepository;
 import br.com.frevonamesa.frevonamesa.repository.RestauranteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -16,18 +17,24 @@ public class AdicionalService {
     private AdicionalRepository adicionalRepository;
     @Autowired
     private RestauranteService restauranteService; 
+    @Autowired
+    private CardapioSnapshotService cardapioSnapshotService;
 
     public List<Adicional> listarPorRestaurante() {
         Restaurante restaurante = restauranteService.getRestauranteLogado(); // CHAMA O SERVIÇO CENTRAL
         return adicionalRepository.findByRestauranteId(restaurante.getId());
     }
 
+    @Transactional
     public Adicional salvar(Adicional adicional) {
         Restaurante restaurante = restauranteService.getRestauranteLogado(); // CHAMA O SERVIÇO CENTRAL
         adicional.setRestaurante(restaurante);
-        return adicionalRepository.save(adicional);
+        Adicional salvo = adicionalRepository.save(adicional);
+        cardapioSnapshotService.registrarAlteracao(restaurante.getId());
+        return salvo;
     }
 
+    @Transactional
     public Adicional atualizar(Long id, Adicional adicional) {
         Restaurante restaurante = restauranteService.getRestauranteLogado(); // CHAMA O SERVIÇO CENTRAL
         Adicional existente = adicionalRepository.findById(id).orElseThrow(() -> new RuntimeException("Adicional não encontrado"));
@@ -38,9 +45,12 @@ public class AdicionalService {
         }
         existente.setNome(adicional.getNome());
         existente.setPreco(adicional.getPreco());
-        return adicionalRepository.save(existente);
+        Adicional salvo = adicionalRepository.save(existente);
+        cardapioSnapshotService.registrarAlteracao(restaurante.getId());
+        return salvo;
     }
 
+    @Transactional
     public void deletar(Long id) {
         Restaurante restaurante = restauranteService.getRestauranteLogado(); // CHAMA O SERVIÇO CENTRAL
         Adicional existente = adicionalRepository.findById(id).orElseThrow(() -> new RuntimeException("Adicional não encontrado"));
@@ -50,5 +60,6 @@ public class AdicionalService {
             throw new SecurityException("Acesso negado.");
         }
         adicionalRepository.deleteById(id);
+        cardapioSnapshotService.registrarAlteracao(restaurante.getId());
     }
 }
\ No newline at end of file
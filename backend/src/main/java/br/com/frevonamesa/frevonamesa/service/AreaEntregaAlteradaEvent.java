@@ -0,0 +1,7 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+/**
+ * Publicado quando uma faixa ou zona de entrega do restaurante é criada, alterada ou removida;
+ * a tabela de frete em memória é descartada após o commit.
+ */
+public record AreaEntregaAlteradaEvent(Long restauranteId) {}
@@ -4,19 +4,29 @@ import br.com.frevonamesa.frevonamesa.dto.AreaEntregaDTO;
 import br.com.frevonamesa.frevonamesa.model.AreaEntrega;
 import br.com.frevonamesa.frevonamesa.model.Restaurante;
 import br.com.frevonamesa.frevonamesa.repository.AreaEntregaRepository;
+import br.com.frevonamesa.frevonamesa.repository.ContadorRestauranteRepository;
 import br.com.frevonamesa.frevonamesa.repository.RestauranteRepository;
+import br.com.frevonamesa.frevonamesa.repository.ZonaEntregaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Comparator;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class AreaEntregaService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AreaEntregaService.class);
+
     @Autowired
     private AreaEntregaRepository areaEntregaRepository;
 
@@ -26,23 +36,29 @@ public class AreaEntregaService {
     @Autowired
     private RestauranteRepository restauranteRepository;
 
+    @Autowired
+    private ZonaEntregaRepository zonaEntregaRepository;
+
+    @Autowired
+    private ContadorRestauranteRepository contadorRestauranteRepository;
+
     // [NOVO] Injeção do serviço de Geocodificação
     @Autowired
     private CepGeocodingService cepGeocodingService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Tabela de frete por restaurante, montada na primeira cotação e descartada quando faixas ou restaurante mudam
+    private final Map<Long, TabelaFrete> tabelasFrete = new ConcurrentHashMap<>();
+
     /**
-     * Calcula a distância Haversine.
+     * Taxa de entrega e valor mínimo do pedido (subtotal dos itens) exigido pela zona que contém o
+     * cliente; valorMinimoPedido null quando não há mínimo.
      */
-    private double calcularDistanciaHaversine(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Raio da Terra em km
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c; // Distância em km
-    }
+    public record Frete(BigDecimal taxa, BigDecimal valorMinimoPedido) {}
+    // Incrementada a cada alteração: uma tabela montada antes dela não é guardada no mapa
+    private final Map<Long, AtomicLong> geracoes = new ConcurrentHashMap<>();
 
     // ... (Métodos de CRUD omitidos por brevidade) ...
 
@@ -62,7 +78,9 @@ public class AreaEntregaService {
         novaArea.setValorMinimoPedido(dto.getValorMinimoPedido());
         novaArea.setRestaurante(restaurante);
 
-        return areaEntregaRepository.save(novaArea);
+        AreaEntrega salva = areaEntregaRepository.save(novaArea);
+        eventPublisher.publishEvent(new AreaEntregaAlteradaEvent(restaurante.getId()));
+        return salva;
     }
 
     @Transactional
@@ -79,7 +97,9 @@ public class AreaEntregaService {
         existente.setValorEntrega(dto.getValorEntrega());
         existente.setValorMinimoPedido(dto.getValorMinimoPedido());
 
-        return areaEntregaRepository.save(existente);
+        AreaEntrega salva = areaEntregaRepository.save(existente);
+        eventPublisher.publishEvent(new AreaEntregaAlteradaEvent(restaurante.getId()));
+        return salva;
     }
 
     @Transactional
@@ -91,64 +111,126 @@ public class AreaEntregaService {
             throw new SecurityException("Acesso negado.");
         }
         areaEntregaRepository.delete(existente);
+        eventPublisher.publishEvent(new AreaEntregaAlteradaEvent(restaurante.getId()));
     }
 
     /**
-     * [NOVA LÓGICA CONDICIONAL] Calcula a taxa de entrega.
+     * [NOVA LÓGICA CONDICIONAL] Calcula a taxa de entrega (e o pedido mínimo da zona, se houver).
+     * Usa a tabela de frete do restaurante em memória: coordenadas do restaurante já gravadas,
+     * uma Haversine e uma busca binária nas faixas.
      */
-    public BigDecimal calcularTaxa(Long restauranteId, String cepCliente) {
-
-        Optional<Restaurante> restauranteOpt = restauranteRepository.findById(restauranteId);
-        if (restauranteOpt.isEmpty()) {
-            throw new RuntimeException("Restaurante de ID " + restauranteId + " não encontrado.");
-        }
-        Restaurante restaurante = restauranteOpt.get();
+    public Frete calcularFrete(Long restauranteId, String cepCliente) {
+        TabelaFrete tabela = getTabelaFrete(restauranteId);
 
         // 1. [CRÍTICO] Se o cálculo Haversine estiver DESATIVADO, retorna a Taxa Fixa e ignora o CEP.
-        if (!restaurante.isCalculoHaversineAtivo()) {
-            return restaurante.getTaxaEntrega();
+        if (!tabela.isCalculoHaversineAtivo()) {
+            return new Frete(tabela.getTaxaFixa(), null);
         }
 
-
-        // 2. Continua para o cálculo Haversine (Se Ativo)
-        String cepRestaurante = restaurante.getCepRestaurante();
-
-        if (cepRestaurante == null || cepRestaurante.isBlank()) {
+        // 2. Continua para o cálculo por localização (Se Ativo). Zonas não dependem do CEP do restaurante.
+        if (tabela.getCepRestaurante() == null && tabela.semZonas()) {
             throw new RuntimeException("O CEP do restaurante não está configurado para cálculo de distância.");
         }
 
         // 3. Obtém as coordenadas (pode lançar RuntimeException se o CEP for inválido/não encontrado)
-        double[] coordRestaurante = cepGeocodingService.buscarCoordenadas(cepRestaurante);
         double[] coordCliente = cepGeocodingService.buscarCoordenadas(cepCliente);
+        double[] coordRestaurante = null;
+        if (!tabela.temCoordenadas() && tabela.getCepRestaurante() != null) {
+            // Geocodificação do restaurante falhou ao montar a tabela (tabela não guardada)
+            coordRestaurante = cepGeocodingService.buscarCoordenadas(tabela.getCepRestaurante());
+        }
 
-        // 4. Calcula a distância real em linha reta (Haversine)
-        double distanciaKm = calcularDistanciaHaversine(
-                coordRestaurante[0],
-                coordRestaurante[1],
-                coordCliente[0],
-                coordCliente[1]
-        );
+        // 4. Zona que contém o cliente (índice espacial) ou, fora delas, primeira faixa (Haversine + busca binária)
+        TabelaFrete.Cotacao cotacao = tabela.cotar(coordCliente[0], coordCliente[1], coordRestaurante);
+        if (cotacao.taxa() != null) {
+            return new Frete(cotacao.taxa(), cotacao.zona() != null ? cotacao.zona().valorMinimoPedido() : null);
+        }
 
-        // 5. Busca e ordena as áreas de entrega pela distância máxima (ascendente)
-        List<AreaEntrega> areas = areaEntregaRepository.findByRestauranteId(restauranteId);
+        // 5. Se o cliente estiver fora de todas as zonas e faixas configuradas
+        throw new RuntimeException("Entrega indisponível para este CEP (fora de área de cobertura)."
+                + (cotacao.distanciaKm() != null ? " Distância calculada: " + String.format("%.2f", cotacao.distanciaKm()) + " km." : ""));
+    }
 
-        if (areas.isEmpty()) {
-            // Se o Haversine está ativo, mas não há faixas, retorna 0.00
-            return BigDecimal.ZERO;
-        }
+    /**
+     * Lança RuntimeException se o restaurante não existe (nada é guardado nesse caso).
+     */
+    public TabelaFrete getTabelaFrete(Long restauranteId) {
+        TabelaFrete tabela = tabelasFrete.get(restauranteId);
+        return tabela != null ? tabela : montarTabelaFrete(restauranteId);
+    }
+
+    /**
+     * Versão persistida da tabela de frete: muda a cada alteração de faixas, zonas ou restaurante e não
+     * volta a zero num reinício, nem difere entre instâncias (cotações assinadas dependem disso).
+     */
+    public long getVersaoTabelaFrete(Long restauranteId) {
+        return contadorRestauranteRepository.findVersaoTabelaFrete(restauranteId).orElse(0L);
+    }
 
-        areas.sort(Comparator.comparing(AreaEntrega::getMaxDistanceKm));
+    // Na transação da escrita, junto com as faixas/zonas/restaurante alterados
+    @EventListener
+    public void incrementarVersaoTabelaFrete(AreaEntregaAlteradaEvent event) {
+        contadorRestauranteRepository.incrementarVersaoTabelaFrete(event.restauranteId());
+    }
 
-        // 6. Encontra a primeira faixa que a distância se encaixa
-        Optional<AreaEntrega> areaEncontrada = areas.stream()
-                .filter(area -> distanciaKm <= area.getMaxDistanceKm())
-                .findFirst();
+    @EventListener
+    public void incrementarVersaoTabelaFrete(RestauranteAlteradoEvent event) {
+        contadorRestauranteRepository.incrementarVersaoTabelaFrete(event.restauranteId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAreaEntregaAlterada(AreaEntregaAlteradaEvent event) {
+        descartarTabelaFrete(event.restauranteId());
+    }
 
-        if (areaEncontrada.isPresent()) {
-            return areaEncontrada.get().getValorEntrega();
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestauranteAlterado(RestauranteAlteradoEvent event) {
+        descartarTabelaFrete(event.restauranteId());
+    }
+
+    private void descartarTabelaFrete(Long restauranteId) {
+        AtomicLong geracao = geracao(restauranteId);
+        synchronized (geracao) {
+            geracao.incrementAndGet();
+            tabelasFrete.remove(restauranteId);
         }
+    }
+
+    private TabelaFrete montarTabelaFrete(Long restauranteId) {
+        AtomicLong geracao = geracao(restauranteId);
+        long geracaoInicial = geracao.get();
+
+        Restaurante restaurante = restauranteRepository.findById(restauranteId)
+                .orElseThrow(() -> new RuntimeException("Restaurante de ID " + restauranteId + " não encontrado."));
+        Double latitude = restaurante.getLatitude();
+        Double longitude = restaurante.getLongitude();
+        String cepRestaurante = restaurante.getCepRestaurante();
+        boolean completa = true;
+        if (restaurante.isCalculoHaversineAtivo() && latitude == null && cepRestaurante != null && !cepRestaurante.isBlank()) {
+            // Restaurante salvo antes das coordenadas serem gravadas: geocodifica uma vez e grava
+            try {
+                double[] coordenadas = cepGeocodingService.buscarCoordenadas(cepRestaurante);
+                latitude = coordenadas[0];
+                longitude = coordenadas[1];
+                restauranteService.gravarCoordenadas(restauranteId, latitude, longitude);
+            } catch (RuntimeException e) {
+                logger.warn("Não foi possível obter as coordenadas do Restaurante ID {}: {}", restauranteId, e.getMessage());
+                completa = false; // Não guarda: a próxima cotação tenta geocodificar de novo
+            }
+        }
+        TabelaFrete tabela = new TabelaFrete(restaurante.isCalculoHaversineAtivo(), restaurante.getTaxaEntrega(),
+                cepRestaurante, latitude, longitude, areaEntregaRepository.findByRestauranteId(restauranteId),
+                zonaEntregaRepository.findByRestauranteIdOrderById(restauranteId));
+
+        synchronized (geracao) {
+            if (completa && geracao.get() == geracaoInicial) {
+                tabelasFrete.put(restauranteId, tabela);
+            }
+        }
+        return tabela;
+    }
 
-        // 7. Se a distância for maior que todas as áreas configuradas
-        throw new RuntimeException("Entrega indisponível para este CEP (fora de área de cobertura). Distância calculada: " + String.format("%.2f", distanciaKm) + " km.");
+    private AtomicLong geracao(Long restauranteId) {
+        return geracoes.computeIfAbsent(restauranteId, id -> new AtomicLong());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Base local de coordenadas por CEP (gerada pelo tools.ImportadorBaseCep), para cotar frete sem
+ * internet. O arquivo é mapeado em memória e consultado por busca binária, sem alocar no heap.
+ *
+ * Formato (little-endian): cabeçalho de 24 bytes (MAGICO, VERSAO, quantidade de CEP8, CEP5 e CEP3,
+ * reservado) seguido das três seções, cada uma com registros de 12 bytes ordenados pela chave:
+ * chave (int), latitude e longitude (int, em milionésimos de grau). CEP5/CEP3 são os centroides dos
+ * CEPs que começam com aqueles dígitos.
+ */
+@Component
+public class BaseCepOffline {
+
+    public static final int MAGICO = 0x43455031; // "CEP1"
+    public static final int VERSAO = 1;
+    public static final int TAMANHO_CABECALHO = 24;
+    public static final int TAMANHO_REGISTRO = 12;
+    public static final double ESCALA = 1_000_000.0;
+
+    /** Retorno de buscar quando nem o CEP nem os prefixos estão na base. */
+    public static final long NAO_ENCONTRADO = Long.MIN_VALUE;
+
+    private static final Logger logger = LoggerFactory.getLogger(BaseCepOffline.class);
+
+    @Value("${app.cep.base-offline:}")
+    private String caminho;
+
+    private MappedByteBuffer dados; // null: base não configurada ou inválida
+    private int inicioCep5;
+    private int inicioCep3;
+    private int quantidadeCep8;
+    private int quantidadeCep5;
+    private int quantidadeCep3;
+
+    @PostConstruct
+    public void abrir() {
+        if (caminho == null || caminho.isBlank()) {
+            return;
+        }
+        Path arquivo = Path.of(caminho);
+        if (!Files.isReadable(arquivo)) {
+            logger.warn("Base de CEPs offline não encontrada em {}. Usando só a API externa.", arquivo);
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            mapa.order(ByteOrder.LITTLE_ENDIAN);
+            if (canal.size() < TAMANHO_CABECALHO || mapa.getInt(0) != MAGICO || mapa.getInt(4) != VERSAO) {
+                logger.error("Arquivo {} não é uma base de CEPs válida (versão {}).", arquivo, VERSAO);
+                return;
+            }
+            int n8 = mapa.getInt(8), n5 = mapa.getInt(12), n3 = mapa.getInt(16);
+            long esperado = TAMANHO_CABECALHO + (long) (n8 + n5 + n3) * TAMANHO_REGISTRO;
+            if (n8 < 0 || n5 < 0 || n3 < 0 || canal.size() != esperado) {
+                logger.error("Base de CEPs {} truncada ou corrompida ({} bytes, esperado {}).", arquivo, canal.size(), esperado);
+                return;
+            }
+            quantidadeCep8 = n8;
+            quantidadeCep5 = n5;
+            quantidadeCep3 = n3;
+            inicioCep5 = TAMANHO_CABECALHO + n8 * TAMANHO_REGISTRO;
+            inicioCep3 = inicioCep5 + n5 * TAMANHO_REGISTRO;
+            dados = mapa; // O mapeamento continua válido depois de fechar o canal
+            logger.info("Base de CEPs offline carregada de {}: {} CEPs, {} prefixos CEP5, {} prefixos CEP3.", arquivo, n8, n5, n3);
+        } catch (IOException e) {
+            logger.error("Erro ao abrir a base de CEPs offline {}: {}", arquivo, e.getMessage());
+        }
+    }
+
+    public boolean disponivel() {
+        return dados != null;
+    }
+
+    /**
+     * Coordenadas exatas do CEP (8 dígitos), empacotadas (ver latitude/longitude), ou NAO_ENCONTRADO.
+     */
+    public long buscarExato(int cep) {
+        return dados == null ? NAO_ENCONTRADO : buscar(TAMANHO_CABECALHO, quantidadeCep8, cep);
+    }
+
+    /**
+     * Centroide do prefixo CEP5 do CEP e, na falta dele, do CEP3; NAO_ENCONTRADO se nenhum existe.
+     */
+    public long buscarAproximado(int cep) {
+        if (dados == null) {
+            return NAO_ENCONTRADO;
+        }
+        long centroide = buscar(inicioCep5, quantidadeCep5, cep / 1_000);
+        return centroide != NAO_ENCONTRADO ? centroide : buscar(inicioCep3, quantidadeCep3, cep / 100_000);
+    }
+
+    public static double latitude(long coordenadas) {
+        return (int) (coordenadas >> 32) / ESCALA;
+    }
+
+    public static double longitude(long coordenadas) {
+        return (int) coordenadas / ESCALA;
+    }
+
+    private long buscar(int inicio, int quantidade, int chave) {
+        int baixo = 0, alto = quantidade - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            int posicao = inicio + meio * TAMANHO_REGISTRO;
+            int atual = dados.getInt(posicao);
+            if (atual < chave) {
+                baixo = meio + 1;
+            } else if (atual > chave) {
+                alto = meio - 1;
+            } else {
+                return ((long) dados.getInt(posicao + 4) << 32) | (dados.getInt(posicao + 8) & 0xFFFFFFFFL);
+            }
+        }
+        return NAO_ENCONTRADO;
+    }
+}
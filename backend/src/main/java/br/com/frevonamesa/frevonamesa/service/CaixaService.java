@@ -1,29 +1,37 @@
 package br.com.frevonamesa.frevonamesa.service;
 
 import br.com.frevonamesa.frevonamesa.dto.CaixaDashboardDTO;
-import br.com.frevonamesa.frevonamesa.dto.RelatorioDiarioDTO;
 import br.com.frevonamesa.frevonamesa.model.Mesa;
-import br.com.frevonamesa.frevonamesa.model.Pedido;
 import br.com.frevonamesa.frevonamesa.model.Restaurante;
+import br.com.frevonamesa.frevonamesa.model.ResumoCaixaDiario;
 import br.com.frevonamesa.frevonamesa.model.StatusMesa;
+import br.com.frevonamesa.frevonamesa.model.TipoPedido;
 import br.com.frevonamesa.frevonamesa.repository.MesaRepository;
+import br.com.frevonamesa.frevonamesa.repository.PedidoArquivadoRepository;
 import br.com.frevonamesa.frevonamesa.repository.PedidoRepository;
 import br.com.frevonamesa.frevonamesa.repository.RestauranteRepository;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.IntStream;
 
 @Service
 @Transactional
 public class CaixaService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CaixaService.class);
+
     @Autowired
     private MesaRepository mesaRepository;
     @Autowired
@@ -31,7 +39,9 @@ public class CaixaService {
     @Autowired
     private RestauranteRepository restauranteRepository;
     @Autowired
-    private RelatorioService relatorioService;
+    private PedidoArquivadoRepository pedidoArquivadoRepository;
+    @Autowired
+    private ResumoCaixaService resumoCaixaService;
     @Autowired
     private RestauranteService restauranteService;
 
@@ -41,47 +51,82 @@ public class CaixaService {
         Long restauranteId = restaurante.getId();
         CaixaDashboardDTO dashboard = new CaixaDashboardDTO();
 
-        long mesasOcupadas = mesaRepository.countByStatusAndRestauranteId(StatusMesa.OCUPADA, restauranteId);
-        dashboard.setMesasAbertas(mesasOcupadas);
-
-        long mesasPagas = mesaRepository.countByStatusAndRestauranteId(StatusMesa.PAGA, restauranteId);
-        dashboard.setMesasPagas(mesasPagas);
-
-        BigDecimal totalEmAberto = mesaRepository.findAllByStatusAndRestauranteId(StatusMesa.OCUPADA, restauranteId).stream()
-                .map(Mesa::getValorTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        dashboard.setTotalEmAberto(totalEmAberto);
+        // Mesas: contagem e valor em aberto numa única consulta agregada (o valorTotal de cada mesa já é
+        // um acumulado mantido pelo UPDATE atômico dos pedidos)
+        dashboard.setTotalEmAberto(BigDecimal.ZERO);
+        for (Object[] linha : mesaRepository.resumirPorStatus(restauranteId)) {
+            StatusMesa status = (StatusMesa) linha[0];
+            long quantidade = ((Number) linha[1]).longValue();
+            if (status == StatusMesa.OCUPADA) {
+                dashboard.setMesasAbertas(quantidade);
+                dashboard.setTotalEmAberto((BigDecimal) linha[2]);
+            } else if (status == StatusMesa.PAGA) {
+                dashboard.setMesasPagas(quantidade);
+            }
+        }
 
-        RelatorioDiarioDTO relatorio = relatorioService.gerarRelatorioDoDia();
-        dashboard.setTotalDoDia(relatorio.getFaturamentoTotal());
+        // Faturamento do dia: lido do resumo incremental, sem carregar os pedidos
+        BigDecimal totalDoDia = BigDecimal.ZERO;
+        BigDecimal totalDelivery = BigDecimal.ZERO;
+        Map<String, BigDecimal> porTipoPagamento = new HashMap<>();
+        for (ResumoCaixaDiario resumo : resumoCaixaService.buscarDoDia(restauranteId, LocalDate.now())) {
+            if (resumo.getTipoPedido() == TipoPedido.MESA) {
+                totalDoDia = totalDoDia.add(resumo.getValorTotal());
+                porTipoPagamento.merge(resumo.getTipoPagamento().toString(), resumo.getValorTotal(), BigDecimal::add);
+            } else {
+                totalDelivery = totalDelivery.add(resumo.getValorTotal());
+            }
+        }
+        dashboard.setTotalDoDia(totalDoDia);
+        dashboard.setFaturamentoPorTipoPagamento(porTipoPagamento);
+        dashboard.setTotalDeliveryDoDia(totalDelivery);
 
         return dashboard;
     }
 
     public void fecharCaixa() {
-        Restaurante restaurante = restauranteService.getRestauranteLogado();
+        fecharCaixa(restauranteService.getRestauranteLogado().getId());
+    }
 
-        // 1. Encontra todos os pedidos do restaurante logado
-        List<Mesa> mesasDoRestaurante = mesaRepository.findByRestauranteId(restaurante.getId());
-        List<Pedido> pedidosParaDeletar = new ArrayList<>();
-        for (Mesa mesa : mesasDoRestaurante) {
-            pedidosParaDeletar.addAll(mesa.getPedidos());
-        }
+    /**
+     * Fecha o caixa com operações em massa, numa transação curta e com número fixo de comandos:
+     * copia os pedidos de mesa (com itens e adicionais) para as tabelas de arquivo, apaga-os das
+     * tabelas quentes e libera as mesas. O histórico continua disponível para relatórios e exportação,
+     * e o resumo diário do caixa não é mais zerado.
+     */
+    public void fecharCaixa(Long restauranteId) {
+        // Só os pedidos que já existiam no início do fechamento; os que chegarem durante ele ficam.
+        // As remoções apagam apenas o que foi arquivado, então um pedido de id antigo cujo commit
+        // chegou no meio do fechamento também fica para o próximo
+        Object[] faixa = pedidoRepository.findFaixaIdsDeMesa(restauranteId).get(0);
+        if (faixa[1] != null) {
+            Long inicio = (Long) faixa[0];
+            Long limite = (Long) faixa[1];
+            int pedidos = pedidoArquivadoRepository.arquivarPedidosDeMesa(restauranteId, inicio, limite);
+            pedidoArquivadoRepository.arquivarItensDeMesa(restauranteId, inicio, limite);
+            pedidoArquivadoRepository.arquivarAdicionaisDeMesa(restauranteId, inicio, limite);
 
-        // 2. Deleta os pedidos e mesas apenas deste restaurante
-        pedidoRepository.deleteAll(pedidosParaDeletar);
-        mesaRepository.deleteAll(mesasDoRestaurante);
+            pedidoRepository.deleteAdicionaisDeMesa(restauranteId, inicio, limite);
+            pedidoRepository.deleteItensDeMesa(restauranteId, inicio, limite);
+            pedidoRepository.deletePedidosDeMesa(restauranteId, inicio, limite);
+            logger.info("Caixa do restaurante {} fechado: {} pedido(s) de mesa arquivado(s).", restauranteId, pedidos);
+        }
+        mesaRepository.liberarMesasSemPedidos(restauranteId, StatusMesa.LIVRE);
 
-        // 3. (Opcional) Recria mesas vazias para este restaurante
-        // Esta lógica pode ser ajustada conforme a necessidade do negócio
-        IntStream.rangeClosed(1, 10).forEach(numero -> {
-            Mesa novaMesa = new Mesa();
-            novaMesa.setNumero(numero);
-            novaMesa.setStatus(StatusMesa.LIVRE);
-            novaMesa.setValorTotal(BigDecimal.ZERO);
-            novaMesa.setPedidos(new ArrayList<>());
-            novaMesa.setRestaurante(restaurante); // Associa ao restaurante correto
-            mesaRepository.save(novaMesa);
-        });
+        // Restaurante ainda sem mesas começa com 10 livres
+        if (mesaRepository.countByRestauranteId(restauranteId) == 0) {
+            Restaurante restaurante = restauranteRepository.getReferenceById(restauranteId);
+            List<Mesa> mesas = new ArrayList<>();
+            IntStream.rangeClosed(1, 10).forEach(numero -> {
+                Mesa novaMesa = new Mesa();
+                novaMesa.setNumero(numero);
+                novaMesa.setStatus(StatusMesa.LIVRE);
+                novaMesa.setValorTotal(BigDecimal.ZERO);
+                novaMesa.setPedidos(new ArrayList<>());
+                novaMesa.setRestaurante(restaurante);
+                mesas.add(novaMesa);
+            });
+            mesaRepository.saveAll(mesas);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+/**
+ * Publicado quando o cardápio (produtos, categorias ou adicionais) de um restaurante é alterado.
+ * Os ouvintes reagem somente após o commit da transação que fez a alteração.
+ */
+public record CardapioAlteradoEvent(Long restauranteId, long versao) {}
@@ -0,0 +1,128 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.dto.CardapioPublicoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cardápio público (QR code) servido da memória: por restaurante, o JSON já serializado, a versão
+ * gzip e um ETag forte derivado do conteúdo. É montado no primeiro acesso e refeito somente
+ * quando o cardápio (CardapioAlteradoEvent) ou os dados do restaurante (RestauranteAlteradoEvent)
+ * são alterados, após o commit.
+ */
+@Service
+public class CardapioPublicoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardapioPublicoService.class);
+
+    @Autowired private RestauranteService restauranteService;
+    @Autowired private ObjectMapper objectMapper;
+
+    private final Map<Long, CardapioPublicado> cardapios = new ConcurrentHashMap<>();
+    // Incrementada a cada alteração: uma montagem iniciada antes dela não é guardada no mapa
+    private final Map<Long, AtomicLong> geracoes = new ConcurrentHashMap<>();
+
+    /**
+     * Corpo pronto para resposta. etag é o da representação sem compressão; a versão gzip usa o
+     * sufixo "-gzip" (representações diferentes não compartilham ETag forte).
+     */
+    public record CardapioPublicado(byte[] json, byte[] gzip, String etag) {
+        public String etagGzip() {
+            return etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+    }
+
+    /**
+     * Lança RuntimeException se o restaurante não existe (nada é guardado nesse caso).
+     */
+    public CardapioPublicado getCardapio(Long restauranteId) {
+        CardapioPublicado cardapio = cardapios.get(restauranteId);
+        return cardapio != null ? cardapio : montar(restauranteId);
+    }
+
+    @TransactionalEventListener
+    public void onCardapioAlterado(CardapioAlteradoEvent event) {
+        atualizar(event.restauranteId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestauranteAlterado(RestauranteAlteradoEvent event) {
+        atualizar(event.restauranteId());
+    }
+
+    private void atualizar(Long restauranteId) {
+        AtomicLong geracao = geracao(restauranteId);
+        CardapioPublicado anterior;
+        synchronized (geracao) {
+            geracao.incrementAndGet();
+            anterior = cardapios.remove(restauranteId);
+        }
+        // Só remonta agora se o cardápio estava em uso; senão fica para o próximo acesso
+        if (anterior != null) {
+            try {
+                montar(restauranteId);
+                logger.info("Cardápio público do Restaurante ID {} remontado.", restauranteId);
+            } catch (RuntimeException e) {
+                logger.warn("Falha ao remontar o cardápio público do Restaurante ID {}: {}", restauranteId, e.getMessage());
+            }
+        }
+    }
+
+    private CardapioPublicado montar(Long restauranteId) {
+        AtomicLong geracao = geracao(restauranteId);
+        long geracaoInicial = geracao.get();
+        CardapioPublicoDTO dto = restauranteService.getCardapioPublico(restauranteId);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao serializar o cardápio público do Restaurante ID " + restauranteId, e);
+        }
+        CardapioPublicado cardapio = new CardapioPublicado(json, gzip(json), "\"" + resumo(json) + "\"");
+        synchronized (geracao) {
+            if (geracao.get() == geracaoInicial) {
+                cardapios.put(restauranteId, cardapio);
+            }
+        }
+        return cardapio;
+    }
+
+    private AtomicLong geracao(Long restauranteId) {
+        return geracoes.computeIfAbsent(restauranteId, id -> new AtomicLong());
+    }
+
+    private static byte[] gzip(byte[] dados) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(dados.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(dados);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return saida.toByteArray();
+    }
+
+    private static String resumo(byte[] dados) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(dados);
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
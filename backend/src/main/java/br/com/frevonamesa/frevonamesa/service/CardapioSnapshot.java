@@ -0,0 +1,43 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Fotografia imutável dos preços do cardápio de um restaurante em uma determinada versão.
+ * Produtos e adicionais ficam indexados por ID para a precificação de pedidos sem consultas ao banco.
+ */
+public final class CardapioSnapshot {
+
+    public record ProdutoPreco(Long id, String nome, BigDecimal preco) {}
+
+    public record AdicionalPreco(Long id, String nome, BigDecimal preco) {}
+
+    private final Long restauranteId;
+    private final long versao;
+    private final Map<Long, ProdutoPreco> produtos;
+    private final Map<Long, AdicionalPreco> adicionais;
+
+    public CardapioSnapshot(Long restauranteId, long versao, Map<Long, ProdutoPreco> produtos, Map<Long, AdicionalPreco> adicionais) {
+        this.restauranteId = restauranteId;
+        this.versao = versao;
+        this.produtos = Map.copyOf(produtos);
+        this.adicionais = Map.copyOf(adicionais);
+    }
+
+    public Long getRestauranteId() {
+        return restauranteId;
+    }
+
+    public long getVersao() {
+        return versao;
+    }
+
+    public ProdutoPreco getProduto(Long produtoId) {
+        return produtoId != null ? produtos.get(produtoId) : null;
+    }
+
+    public AdicionalPreco getAdicional(Long adicionalId) {
+        return adicionalId != null ? adicionais.get(adicionalId) : null;
+    }
+}
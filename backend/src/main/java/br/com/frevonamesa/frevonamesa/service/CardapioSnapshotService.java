@@ -0,0 +1,102 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.repository.AdicionalRepository;
+import br.com.frevonamesa.frevonamesa.repository.ContadorRestauranteRepository;
+import br.com.frevonamesa.frevonamesa.repository.ProdutoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mantém em memória um CardapioSnapshot por restaurante.
+ * Toda escrita no cardápio chama registrarAlteracao (na mesma transação), que incrementa a versão
+ * no banco; após o commit o snapshot é reconstruído e trocado atomicamente no mapa.
+ */
+@Service
+public class CardapioSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardapioSnapshotService.class);
+    private static final int MAX_TENTATIVAS_CARGA = 3;
+
+    @Autowired private ContadorRestauranteRepository contadorRestauranteRepository;
+    @Autowired private ProdutoRepository produtoRepository;
+    @Autowired private AdicionalRepository adicionalRepository;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, CardapioSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public CardapioSnapshot getSnapshot(Long restauranteId) {
+        CardapioSnapshot snapshot = snapshots.get(restauranteId);
+        return snapshot != null ? snapshot : recarregar(restauranteId);
+    }
+
+    /**
+     * Lê o cardápio do banco e publica o novo snapshot (se não houver um mais recente).
+     */
+    public CardapioSnapshot recarregar(Long restauranteId) {
+        return publicar(carregar(restauranteId));
+    }
+
+    /**
+     * Recarrega só se a versão gravada no banco for mais nova que a do snapshot (uma leitura do contador).
+     */
+    public CardapioSnapshot recarregarSeDesatualizado(CardapioSnapshot snapshot) {
+        long versao = contadorRestauranteRepository.findVersaoCardapio(snapshot.getRestauranteId()).orElse(0L);
+        return versao > snapshot.getVersao() ? recarregar(snapshot.getRestauranteId()) : snapshot;
+    }
+
+    /**
+     * Deve ser chamado dentro da transação de toda escrita no cardápio.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarAlteracao(Long restauranteId) {
+        contadorRestauranteRepository.incrementarVersaoCardapio(restauranteId);
+        long versao = contadorRestauranteRepository.findVersaoCardapio(restauranteId).orElse(0L);
+        eventPublisher.publishEvent(new CardapioAlteradoEvent(restauranteId, versao));
+    }
+
+    @TransactionalEventListener
+    public void onCardapioAlterado(CardapioAlteradoEvent event) {
+        CardapioSnapshot snapshot = recarregar(event.restauranteId());
+        logger.info("Snapshot do cardápio do Restaurante ID {} atualizado para a versão {}", event.restauranteId(), snapshot.getVersao());
+    }
+
+    private CardapioSnapshot publicar(CardapioSnapshot novo) {
+        // Mantém sempre a maior versão, mesmo que recargas concorrentes terminem fora de ordem
+        return snapshots.merge(novo.getRestauranteId(), novo,
+                (atual, candidato) -> candidato.getVersao() >= atual.getVersao() ? candidato : atual);
+    }
+
+    private CardapioSnapshot carregar(Long restauranteId) {
+        // Leitura otimista: se a versão mudou durante a carga, algum commit ocorreu no meio e relemos
+        for (int tentativa = 1; ; tentativa++) {
+            long versaoAntes = contadorRestauranteRepository.findVersaoCardapio(restauranteId).orElse(0L);
+
+            Map<Long, CardapioSnapshot.ProdutoPreco> produtos = new HashMap<>();
+            for (Object[] linha : produtoRepository.findPrecosByRestauranteId(restauranteId)) {
+                Long id = (Long) linha[0];
+                produtos.put(id, new CardapioSnapshot.ProdutoPreco(id, (String) linha[1], (BigDecimal) linha[2]));
+            }
+            Map<Long, CardapioSnapshot.AdicionalPreco> adicionais = new HashMap<>();
+            for (Object[] linha : adicionalRepository.findPrecosByRestauranteId(restauranteId)) {
+                Long id = (Long) linha[0];
+                adicionais.put(id, new CardapioSnapshot.AdicionalPreco(id, (String) linha[1], (BigDecimal) linha[2]));
+            }
+
+            long versaoDepois = contadorRestauranteRepository.findVersaoCardapio(restauranteId).orElse(0L);
+            if (versaoAntes == versaoDepois || tentativa >= MAX_TENTATIVAS_CARGA) {
+                return new CardapioSnapshot(restauranteId, versaoDepois, produtos, adicionais);
+            }
+        }
+    }
+}
@@ -28,6 +28,9 @@ public class CategoriaService {
     @Autowired
     private RestauranteService restauranteService;
 
+    @Autowired
+    private CardapioSnapshotService cardapioSnapshotService;
+
     public List<Categoria> listarTodas() {
         Restaurante restaurante = restauranteService.getRestauranteLogado();
         return categoriaRepository.findByRestauranteId(restaurante.getId());
@@ -37,7 +40,9 @@ public class CategoriaService {
     public Categoria criar(Categoria categoria) {
         Restaurante restaurante = restauranteService.getRestauranteLogado();
         categoria.setRestaurante(restaurante);
-        return categoriaRepository.save(categoria);
+        Categoria salva = categoriaRepository.save(categoria);
+        cardapioSnapshotService.registrarAlteracao(restaurante.getId());
+        return salva;
     }
 
     @Transactional
@@ -51,7 +56,9 @@ public class CategoriaService {
         }
 
         categoriaExistente.setNome(categoriaAtualizada.getNome());
-        return categoriaRepository.save(categoriaExistente);
+        Categoria salva = categoriaRepository.save(categoriaExistente);
+        cardapioSnapshotService.registrarAlteracao(restaurante.getId());
+        return salva;
     }
 
     @Transactional
@@ -70,5 +77,6 @@ public class CategoriaService {
         }
 
         categoriaRepository.delete(categoria);
+        cardapioSnapshotService.registrarAlteracao(restaurante.getId());
     }
 }
\ No newline at end of file
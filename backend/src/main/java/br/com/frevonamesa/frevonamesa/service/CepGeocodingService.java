@@ -1,22 +1,84 @@
 package br.com.frevonamesa.frevonamesa.service;
 
+import br.com.frevonamesa.frevonamesa.model.CepCoordenada;
+import br.com.frevonamesa.frevonamesa.repository.CepCoordenadaRepository;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Coordenadas de CEP com cache em memória (tamanho fixo, chave int) na frente de: base offline
+ * (BaseCepOffline, quando configurada), tabela CepCoordenada (sobrevive aos deploys) e, só na falta
+ * dos dois, a API externa (opcional: app.cep.api-externa). Sem API, ou com ela fora do ar, usa o
+ * centroide do prefixo do CEP (CEP5/CEP3) da base offline. Consultas simultâneas do mesmo CEP
+ * compartilham uma única busca. CEPs que a API não reconhece ficam em cache negativo por um dia.
+ */
 @Service
 public class CepGeocodingService {
 
-    private final RestTemplate restTemplate;
+    private static final Logger logger = LoggerFactory.getLogger(CepGeocodingService.class);
     private static final String GEOLOCATION_API_URL = "https://cep.awesomeapi.com.br/json/{cep}";
-    private final Map<String, double[]> cacheCoordenadas = new HashMap<>();
+    private static final int CAPACIDADE_MEMORIA = 1 << 17; // 131 mil CEPs
+    private static final Duration VALIDADE_NEGATIVO = Duration.ofDays(1);
+    private static final Duration VALIDADE_APROXIMADO = Duration.ofMinutes(10); // Depois tenta a API de novo
+
+    private final RestTemplate restTemplate;
+
+    @Autowired private CepCoordenadaRepository cepCoordenadaRepository;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private BaseCepOffline baseCepOffline;
+
+    @Value("${app.cep.api-externa:true}")
+    private boolean apiExternaAtiva;
+
+    private final CacheMemoria memoria = new CacheMemoria(CAPACIDADE_MEMORIA);
+    private final Map<Integer, CompletableFuture<Entrada>> emAndamento = new ConcurrentHashMap<>();
+
+    private Counter acertosMemoria;
+    private Counter acertosOffline;
+    private Counter aproximados;
+    private Counter acertosBanco;
+    private Counter acertosCompartilhados;
+    private Counter consultasApi;
 
     public CepGeocodingService() {
-        this.restTemplate = new RestTemplate();
+        // Timeouts curtos: com as buscas compartilhadas, uma API lenta seguraria todas as cotações do CEP
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(3_000);
+        requestFactory.setReadTimeout(5_000);
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    @PostConstruct
+    public void registrarMetricas() {
+        // Taxa de acerto = (memoria + offline + banco + compartilhada) / total de cep.cache.consultas
+        acertosMemoria = contador("memoria");
+        acertosOffline = contador("offline");
+        aproximados = contador("aproximado");
+        acertosBanco = contador("banco");
+        acertosCompartilhados = contador("compartilhada");
+        consultasApi = contador("api");
     }
 
     /**
@@ -28,37 +90,209 @@ public class CepGeocodingService {
         if (cepLimpo.length() != 8) {
             throw new RuntimeException("CEP inválido. Deve conter 8 dígitos.");
         }
+        int chave = Integer.parseInt(cepLimpo);
+
+        Entrada entrada = memoria.get(chave);
+        if (entrada != null && entrada.valida()) {
+            acertosMemoria.increment();
+            return coordenadas(entrada);
+        }
+
+        CompletableFuture<Entrada> busca = new CompletableFuture<>();
+        CompletableFuture<Entrada> emCurso = emAndamento.putIfAbsent(chave, busca);
+        if (emCurso != null) {
+            acertosCompartilhados.increment();
+            return coordenadas(aguardar(emCurso));
+        }
+        try {
+            entrada = carregar(chave, cepLimpo);
+            memoria.put(entrada); // Antes de liberar a busca: quem chegar depois já acha na memória
+            busca.complete(entrada);
+            return coordenadas(entrada);
+        } catch (RuntimeException e) {
+            busca.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chave, busca);
+        }
+    }
+
+    private Entrada carregar(int chave, String cepLimpo) {
+        long offline = baseCepOffline.buscarExato(chave);
+        if (offline != BaseCepOffline.NAO_ENCONTRADO) {
+            acertosOffline.increment();
+            return Entrada.exata(chave, BaseCepOffline.latitude(offline), BaseCepOffline.longitude(offline));
+        }
+
+        Optional<CepCoordenada> salvo = cepCoordenadaRepository.findById(chave);
+        if (salvo.isPresent() && (salvo.get().isEncontrado()
+                || salvo.get().getConsultadoEm().isAfter(LocalDateTime.now().minus(VALIDADE_NEGATIVO)))) {
+            acertosBanco.increment();
+            return comAproximacao(Entrada.de(salvo.get()));
+        }
 
-        if (cacheCoordenadas.containsKey(cepLimpo)) {
-            return cacheCoordenadas.get(cepLimpo);
+        if (!apiExternaAtiva) {
+            Entrada aproximada = aproximada(chave, Long.MAX_VALUE);
+            if (aproximada != null) return aproximada;
+            throw new RuntimeException("CEP não encontrado. Verifique o número digitado.");
         }
 
+        CepCoordenada consultado;
+        try {
+            consultasApi.increment();
+            consultado = consultarApi(chave, cepLimpo);
+        } catch (RuntimeException e) {
+            // API fora do ar (ex.: loja sem internet): estimativa pelo prefixo, revista em alguns minutos
+            Entrada aproximada = aproximada(chave, System.currentTimeMillis() + VALIDADE_APROXIMADO.toMillis());
+            if (aproximada != null) return aproximada;
+            throw e;
+        }
+        try {
+            cepCoordenadaRepository.save(consultado);
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância gravou o mesmo CEP primeiro
+        } catch (RuntimeException e) {
+            logger.warn("Não foi possível gravar as coordenadas do CEP {}: {}", cepLimpo, e.getMessage());
+        }
+        return comAproximacao(Entrada.de(consultado));
+    }
+
+    // CEP que a API não conhece (ex.: loteamento novo) mas com prefixo conhecido: fica com o centroide
+    private Entrada comAproximacao(Entrada entrada) {
+        if (entrada.encontrado()) {
+            return entrada;
+        }
+        Entrada aproximada = aproximada(entrada.cep(), entrada.expiraEm());
+        return aproximada != null ? aproximada : entrada;
+    }
+
+    private Entrada aproximada(int chave, long expiraEm) {
+        long centroide = baseCepOffline.buscarAproximado(chave);
+        if (centroide == BaseCepOffline.NAO_ENCONTRADO) {
+            return null;
+        }
+        aproximados.increment();
+        return new Entrada(chave, true, BaseCepOffline.latitude(centroide), BaseCepOffline.longitude(centroide), expiraEm);
+    }
+
+    private CepCoordenada consultarApi(int chave, String cepLimpo) {
         try {
             ResponseEntity<JsonNode> response = restTemplate.getForEntity(
                     GEOLOCATION_API_URL,
                     JsonNode.class,
                     cepLimpo
             );
+            JsonNode body = response.getBody();
+            if (response.getStatusCode().is2xxSuccessful() && body != null && body.hasNonNull("lat") && body.hasNonNull("lng")) {
+                double latitude = Double.parseDouble(body.get("lat").asText());
+                double longitude = Double.parseDouble(body.get("lng").asText());
+                return new CepCoordenada(chave, latitude, longitude, true, LocalDateTime.now());
+            }
+            return naoEncontrado(chave);
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+                logger.error("Limite da API de CEP atingido ao buscar {}", cepLimpo);
+                throw new RuntimeException("Erro ao buscar CEP. Verifique o número digitado.");
+            }
+            return naoEncontrado(chave); // 400/404: CEP inexistente
+        } catch (Exception e) {
+            // Falha transitória (rede, 5xx, resposta inválida): não entra no cache
+            logger.error("Erro ao buscar coordenadas para o CEP {}: {}", cepLimpo, e.getMessage());
+            throw new RuntimeException("Erro ao buscar CEP. Verifique o número digitado.");
+        }
+    }
 
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                JsonNode body = response.getBody();
-                String latStr = body.get("lat").asText();
-                String lngStr = body.get("lng").asText();
+    private static CepCoordenada naoEncontrado(int chave) {
+        return new CepCoordenada(chave, null, null, false, LocalDateTime.now());
+    }
 
-                double latitude = Double.parseDouble(latStr);
-                double longitude = Double.parseDouble(lngStr);
+    private static double[] coordenadas(Entrada entrada) {
+        if (!entrada.encontrado()) {
+            throw new RuntimeException("CEP não encontrado. Verifique o número digitado.");
+        }
+        return new double[]{entrada.latitude(), entrada.longitude()};
+    }
 
-                double[] coordenadas = {latitude, longitude};
+    private static Entrada aguardar(CompletableFuture<Entrada> busca) {
+        try {
+            return busca.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw e;
+        }
+    }
+
+    private Counter contador(String origem) {
+        return Counter.builder("cep.cache.consultas").tag("origem", origem)
+                .description("Consultas de coordenadas de CEP por origem da resposta").register(meterRegistry);
+    }
+
+    /**
+     * Coordenadas de um CEP, válidas até expiraEm: sem prazo para as exatas; por um tempo para as
+     * negativas (encontrado=false) e para as aproximadas pelo prefixo.
+     */
+    private record Entrada(int cep, boolean encontrado, double latitude, double longitude, long expiraEm) {
+
+        static Entrada exata(int cep, double latitude, double longitude) {
+            return new Entrada(cep, true, latitude, longitude, Long.MAX_VALUE);
+        }
 
-                cacheCoordenadas.put(cepLimpo, coordenadas);
-                return coordenadas;
+        static Entrada de(CepCoordenada coordenada) {
+            if (!coordenada.isEncontrado()) {
+                long expiraEm = System.currentTimeMillis() + VALIDADE_NEGATIVO.toMillis();
+                return new Entrada(coordenada.getCep(), false, Double.NaN, Double.NaN, expiraEm);
             }
+            return exata(coordenada.getCep(), coordenada.getLatitude(), coordenada.getLongitude());
+        }
 
-            throw new RuntimeException("CEP não encontrado ou erro na API externa.");
+        boolean valida() {
+            return System.currentTimeMillis() < expiraEm;
+        }
+    }
 
-        } catch (Exception e) {
-            System.err.println("Erro ao buscar coordenadas para o CEP " + cepLimpo + ": " + e.getMessage());
-            throw new RuntimeException("Erro ao buscar CEP. Verifique o número digitado.");
+    /**
+     * Tabela de tamanho fixo, associativa em pares: cada CEP só pode ocupar as duas posições do seu par,
+     * e a entrada mais antiga do par é descartada. Entradas imutáveis num AtomicReferenceArray: leituras
+     * sem lock; escritas concorrentes no mesmo par podem perder uma entrada (vira só um miss).
+     */
+    private static final class CacheMemoria {
+
+        private final AtomicReferenceArray<Entrada> posicoes;
+        private final int mascara;
+
+        CacheMemoria(int capacidade) {
+            this.posicoes = new AtomicReferenceArray<>(capacidade);
+            this.mascara = capacidade - 1;
+        }
+
+        Entrada get(int cep) {
+            int i = indice(cep);
+            Entrada entrada = posicoes.get(i);
+            if (entrada != null && entrada.cep() == cep) return entrada;
+            entrada = posicoes.get(i + 1);
+            return entrada != null && entrada.cep() == cep ? entrada : null;
+        }
+
+        void put(Entrada nova) {
+            int i = indice(nova.cep());
+            Entrada primeira = posicoes.get(i);
+            if (primeira == null || primeira.cep() == nova.cep()) {
+                posicoes.set(i, nova);
+                return;
+            }
+            Entrada segunda = posicoes.get(i + 1);
+            if (segunda != null && segunda.cep() == nova.cep()) {
+                posicoes.set(i + 1, nova);
+                return;
+            }
+            // A mais recente fica na primeira posição; a segunda (mais antiga) sai
+            posicoes.set(i + 1, primeira);
+            posicoes.set(i, nova);
+        }
+
+        private int indice(int cep) {
+            int h = cep * 0x9E3779B1; // CEPs vizinhos caem em pares distantes
+            return (h ^ (h >>> 15)) & mascara & ~1;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.model.*;
+import br.com.frevonamesa.frevonamesa.repository.FechamentoDiarioRepository;
+import br.com.frevonamesa.frevonamesa.repository.PedidoRepository;
+import br.com.frevonamesa.frevonamesa.repository.ResumoCaixaDiarioRepository;
+import br.com.frevonamesa.frevonamesa.repository.ResumoProdutoDiarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Optional;
+
+/**
+ * Fecha os dias encerrados, em sequência: recalcula a partir dos pedidos os resumos diários do caixa
+ * e de produtos de todos os restaurantes e registra o FechamentoDiario. Relatórios por período leem
+ * os dias fechados só dos resumos e apenas os dias em aberto dos pedidos.
+ */
+@Service
+public class ConsolidacaoDiariaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsolidacaoDiariaService.class);
+
+    // Um dia só é fechado depois de 2 dias: mesas abertas após a meia-noite ainda pagam pedidos da véspera
+    public static final int DIAS_ATE_FECHAR = 2;
+    private static final int MAX_DIAS_POR_EXECUCAO = 90; // Limita o backfill inicial do histórico
+
+    @Autowired private FechamentoDiarioRepository fechamentoDiarioRepository;
+    @Autowired private ResumoCaixaDiarioRepository resumoCaixaDiarioRepository;
+    @Autowired private ResumoProdutoDiarioRepository resumoProdutoDiarioRepository;
+    @Autowired private PedidoRepository pedidoRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    public Optional<LocalDate> getUltimoDiaFechado() {
+        return fechamentoDiarioRepository.findUltimaData();
+    }
+
+    /**
+     * Fecha os dias pendentes, do mais antigo para o mais recente, cada um em sua transação.
+     * Retorna quantos dias foram fechados.
+     */
+    public int consolidarPendentes() {
+        LocalDate limite = LocalDate.now().minusDays(DIAS_ATE_FECHAR);
+        LocalDate proximo = getUltimoDiaFechado()
+                .map(dia -> dia.plusDays(1))
+                .orElseGet(() -> pedidoRepository.findPrimeiraDataHora().map(LocalDateTime::toLocalDate).orElse(limite));
+
+        int fechados = 0;
+        while (!proximo.isAfter(limite) && fechados < MAX_DIAS_POR_EXECUCAO) {
+            LocalDate dia = proximo;
+            transactionTemplate.executeWithoutResult(status -> consolidarDia(dia));
+            fechados++;
+            proximo = proximo.plusDays(1);
+        }
+        if (fechados > 0) {
+            logger.info("Consolidação diária: {} dia(s) fechado(s), até {}.", fechados, proximo.minusDays(1));
+        }
+        return fechados;
+    }
+
+    private void consolidarDia(LocalDate dia) {
+        LocalDateTime inicio = dia.atStartOfDay();
+        LocalDateTime fim = dia.atTime(LocalTime.MAX);
+
+        // Resumo do caixa: substitui os incrementos do dia pelo valor recalculado dos pedidos
+        resumoCaixaDiarioRepository.deleteByData(dia);
+        for (Object[] linha : pedidoRepository.somarPagosPorRestauranteTipoEPagamento(inicio, fim)) {
+            ResumoCaixaDiario resumo = new ResumoCaixaDiario();
+            resumo.setRestauranteId((Long) linha[0]);
+            resumo.setData(dia);
+            resumo.setTipoPedido((TipoPedido) linha[1]);
+            resumo.setTipoPagamento((TipoPagamento) linha[2]);
+            resumo.setValorTotal((BigDecimal) linha[3]);
+            resumo.setQuantidadePedidos(((Number) linha[4]).longValue());
+            resumoCaixaDiarioRepository.save(resumo);
+        }
+
+        resumoProdutoDiarioRepository.deleteByData(dia);
+        for (Object[] linha : pedidoRepository.somarProdutosPagosPorRestaurante(inicio, fim)) {
+            ResumoProdutoDiario resumo = new ResumoProdutoDiario();
+            resumo.setRestauranteId((Long) linha[0]);
+            resumo.setData(dia);
+            resumo.setTipoPedido((TipoPedido) linha[1]);
+            resumo.setProdutoId((Long) linha[2]);
+            resumo.setNomeProduto((String) linha[3]);
+            resumo.setQuantidade(((Number) linha[4]).longValue());
+            resumo.setValorTotal(linha[5] != null ? (BigDecimal) linha[5] : BigDecimal.ZERO);
+            resumoProdutoDiarioRepository.save(resumo);
+        }
+
+        fechamentoDiarioRepository.save(new FechamentoDiario(dia, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,112 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.exception.PedidoLimitException;
+import br.com.frevonamesa.frevonamesa.model.Restaurante;
+import br.com.frevonamesa.frevonamesa.repository.ContadorRestauranteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Controle da cota mensal de pedidos delivery dos restaurantes no plano GRATUITO.
+ * O contador (ContadorRestaurante.pedidosMesAtual) só é alterado por UPDATEs atômicos no banco: o consumo
+ * é um "check-and-increment" condicional, então pedidos simultâneos não ultrapassam o limite. Fica fora da
+ * entidade Restaurante para não invalidar o cache de segundo nível dos restaurantes a cada pedido.
+ */
+@Service
+public class CotaDeliveryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CotaDeliveryService.class);
+
+    // Definição do limite para testes (mudar para 30 em produção)
+    public static final int LIMITE_BASE = 2;
+
+    @Autowired
+    private ContadorRestauranteRepository contadorRestauranteRepository;
+
+    /**
+     * Contas com limite: plano GRATUITO e sem flags de isenção.
+     */
+    public boolean isLimitado(Restaurante restaurante) {
+        return "GRATUITO".equals(restaurante.getPlano())
+                && !restaurante.isDeliveryPro()
+                && !restaurante.isLegacyFree()
+                && !restaurante.isBetaTester();
+    }
+
+    public int getLimiteTotal(Restaurante restaurante) {
+        return LIMITE_BASE + restaurante.getPedidosExtrasContratados();
+    }
+
+    /**
+     * Verificação antecipada (somente leitura) para falhar rápido antes de montar o pedido.
+     * A garantia do limite é dada por consumir(), no fim da transação.
+     */
+    public void verificarDisponivel(Restaurante restaurante) {
+        if (!isLimitado(restaurante)) return;
+
+        int pedidosAtuais = contadorRestauranteRepository.findPedidosMesAtual(restaurante.getId()).orElse(0);
+        if (pedidosAtuais >= getLimiteTotal(restaurante)) {
+            throw limiteAtingido(restaurante, pedidosAtuais);
+        }
+    }
+
+    /**
+     * Consome uma unidade da cota de forma atômica. Se o limite já foi atingido lança PedidoLimitException,
+     * desfazendo a transação do pedido. Deve ser a última escrita da transação (menor tempo de lock na linha).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void consumir(Restaurante restaurante) {
+        if (!isLimitado(restaurante)) return;
+
+        if (contadorRestauranteRepository.consumirCotaDelivery(restaurante.getId(), getLimiteTotal(restaurante)) == 0) {
+            int pedidosAtuais = contadorRestauranteRepository.findPedidosMesAtual(restaurante.getId()).orElse(0);
+            throw limiteAtingido(restaurante, pedidosAtuais);
+        }
+        logger.info("Cota de delivery consumida para Restaurante ID {}", restaurante.getId());
+    }
+
+    /**
+     * Contabiliza um pedido já pago online (webhook do Stripe). O cliente já pagou, então o pedido
+     * não pode mais ser recusado: incrementa sem condição (a cota foi verificada no início do checkout).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void contabilizarPedidoPago(Restaurante restaurante) {
+        if (!isLimitado(restaurante)) return;
+
+        contadorRestauranteRepository.incrementarPedidosMesAtual(restaurante.getId());
+        logger.info("Pedido pago contabilizado na cota do Restaurante ID {}", restaurante.getId());
+    }
+
+    /**
+     * Devolve pedidos à cota (compra de pacote avulso), sem deixar o contador negativo.
+     */
+    @Transactional
+    public void compensar(Long restauranteId, int quantidade) {
+        contadorRestauranteRepository.compensarPedidosMesAtual(restauranteId, quantidade);
+        logger.info("Cota de delivery do Restaurante ID {} compensada em {} pedidos", restauranteId, quantidade);
+    }
+
+    @Transactional
+    public void zerar(Long restauranteId) {
+        contadorRestauranteRepository.zerarPedidosMesAtual(restauranteId);
+    }
+
+    /**
+     * Virada do mês: zera o contador de todos os restaurantes em um único UPDATE.
+     */
+    @Transactional
+    public int zerarTodos() {
+        return contadorRestauranteRepository.zerarPedidosMesAtualDeTodos();
+    }
+
+    private PedidoLimitException limiteAtingido(Restaurante restaurante, int pedidosAtuais) {
+        int limiteTotal = getLimiteTotal(restaurante);
+        logger.warn("Bloqueio de cota: Restaurante ID {} atingiu {}/{}", restaurante.getId(), pedidosAtuais, limiteTotal);
+        return new PedidoLimitException("Limite de pedidos atingido! Faça upgrade para continuar recebendo.",
+                pedidosAtuais, limiteTotal);
+    }
+}
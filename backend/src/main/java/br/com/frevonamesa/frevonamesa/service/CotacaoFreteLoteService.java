@@ -0,0 +1,172 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.dto.CotacaoFreteCepDTO;
+import br.com.frevonamesa.frevonamesa.model.Restaurante;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cotação de frete para uma lista de CEPs (prévia das faixas de entrega, mapas de cobertura).
+ * Os CEPs são deduplicados e geocodificados em paralelo (pool próprio, no máximo
+ * PARALELISMO_POR_LOTE por lote para um lote grande não ocupar o pool todo); todas as taxas saem da
+ * mesma tabela de frete (zonas e faixas), compilada uma vez no início. Cada resultado é escrito em NDJSON assim que
+ * fica pronto, na ordem em que terminam.
+ */
+@Service
+public class CotacaoFreteLoteService {
+
+    public static final int MAX_CEPS = 1000;
+    private static final int PARALELISMO = 8;
+    private static final int PARALELISMO_POR_LOTE = 4;
+
+    @Autowired
+    private AreaEntregaService areaEntregaService;
+
+    @Autowired
+    private CepGeocodingService cepGeocodingService;
+
+    @Autowired
+    private RestauranteService restauranteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ExecutorService executor;
+
+    /**
+     * Tudo o que o lote precisa, resolvido antes de abrir a resposta (erros ainda viram 400).
+     */
+    public record LoteCotacao(TabelaFrete tabela, double[] coordRestaurante,
+                              List<String> ceps, List<CotacaoFreteCepDTO> invalidos) {}
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger contador = new AtomicInteger();
+        executor = new ThreadPoolExecutor(PARALELISMO, PARALELISMO, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "cotacao-frete-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Valida a lista e compila a tabela de frete do restaurante logado. As faixas são usadas mesmo
+     * com o cálculo por distância desativado, para o restaurante conferir as taxas antes de ativá-lo.
+     */
+    public LoteCotacao preparar(List<String> ceps) {
+        if (ceps == null || ceps.isEmpty()) {
+            throw new RuntimeException("Informe ao menos um CEP.");
+        }
+        if (ceps.size() > MAX_CEPS) {
+            throw new RuntimeException("Informe no máximo " + MAX_CEPS + " CEPs por cotação.");
+        }
+        Restaurante restaurante = restauranteService.getRestauranteLogado();
+        TabelaFrete tabela = areaEntregaService.getTabelaFrete(restaurante.getId());
+        if (tabela.getCepRestaurante() == null && tabela.semZonas()) {
+            throw new RuntimeException("O CEP do restaurante não está configurado para cálculo de distância.");
+        }
+        double[] coordRestaurante = tabela.temCoordenadas() || tabela.getCepRestaurante() == null
+                ? null
+                : cepGeocodingService.buscarCoordenadas(tabela.getCepRestaurante());
+
+        // Deduplica pelos dígitos (50030-230 e 50030230 são o mesmo CEP), mantendo a ordem de chegada
+        Set<String> unicos = new LinkedHashSet<>();
+        Map<String, CotacaoFreteCepDTO> invalidos = new LinkedHashMap<>();
+        for (String cep : ceps) {
+            String digitos = cep == null ? "" : cep.replaceAll("\\D", "");
+            if (digitos.length() == 8) {
+                unicos.add(digitos);
+            } else {
+                invalidos.computeIfAbsent(String.valueOf(cep), original -> resultadoComErro(original, "CEP inválido."));
+            }
+        }
+        return new LoteCotacao(tabela, coordRestaurante, new ArrayList<>(unicos), new ArrayList<>(invalidos.values()));
+    }
+
+    public void cotar(LoteCotacao lote, OutputStream saida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        for (CotacaoFreteCepDTO invalido : lote.invalidos()) {
+            escrever(invalido, writer);
+        }
+        writer.flush();
+
+        CompletionService<CotacaoFreteCepDTO> concluidas = new ExecutorCompletionService<>(executor);
+        List<Future<CotacaoFreteCepDTO>> emAndamento = new ArrayList<>();
+        Iterator<String> pendentes = lote.ceps().iterator();
+        try {
+            // Janela deslizante: no máximo PARALELISMO_POR_LOTE geocodificações deste lote ao mesmo tempo
+            while (emAndamento.size() < PARALELISMO_POR_LOTE && pendentes.hasNext()) {
+                String cep = pendentes.next();
+                emAndamento.add(concluidas.submit(() -> cotarCep(lote, cep)));
+            }
+            while (!emAndamento.isEmpty()) {
+                Future<CotacaoFreteCepDTO> concluida = concluidas.take();
+                emAndamento.remove(concluida);
+                if (pendentes.hasNext()) {
+                    String cep = pendentes.next();
+                    emAndamento.add(concluidas.submit(() -> cotarCep(lote, cep)));
+                }
+                escrever(concluida.get(), writer); // cotarCep não lança: erros viram linhas com "erro"
+                writer.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            emAndamento.forEach(futuro -> futuro.cancel(true)); // Cliente desconectou ou falha: não geocodifica o resto
+        }
+    }
+
+    private CotacaoFreteCepDTO cotarCep(LoteCotacao lote, String cep) {
+        try {
+            double[] coordCliente = cepGeocodingService.buscarCoordenadas(cep);
+            TabelaFrete.Cotacao cotacao = lote.tabela().cotar(coordCliente[0], coordCliente[1], lote.coordRestaurante());
+
+            CotacaoFreteCepDTO resultado = new CotacaoFreteCepDTO();
+            resultado.setCep(cep);
+            resultado.setLatitude(coordCliente[0]);
+            resultado.setLongitude(coordCliente[1]);
+            if (cotacao.zona() != null) {
+                resultado.setZona(cotacao.zona().nome());
+                resultado.setValorMinimoPedido(cotacao.zona().valorMinimoPedido());
+            }
+            if (cotacao.distanciaKm() != null) {
+                resultado.setDistanciaKm(Math.round(cotacao.distanciaKm() * 100) / 100.0);
+            }
+            resultado.setTaxaEntrega(cotacao.taxa());
+            if (cotacao.taxa() == null) {
+                resultado.setErro("Fora de área de cobertura.");
+            }
+            return resultado;
+        } catch (RuntimeException e) {
+            return resultadoComErro(cep, e.getMessage());
+        }
+    }
+
+    private static CotacaoFreteCepDTO resultadoComErro(String cep, String erro) {
+        CotacaoFreteCepDTO resultado = new CotacaoFreteCepDTO();
+        resultado.setCep(cep);
+        resultado.setErro(erro);
+        return resultado;
+    }
+
+    private void escrever(CotacaoFreteCepDTO resultado, Writer writer) throws IOException {
+        writer.write(objectMapper.writeValueAsString(resultado));
+        writer.write('\n');
+    }
+}
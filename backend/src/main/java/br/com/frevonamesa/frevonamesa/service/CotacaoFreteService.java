@@ -0,0 +1,116 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Cotação de frete assinada: o endpoint de frete devolve, junto com a taxa, um token HMAC com
+ * restaurante, CEP, taxa, pedido mínimo, versão da tabela de frete e validade. No envio do pedido, um
+ * token válido para o mesmo restaurante e CEP dispensa recalcular o frete (geocodificação + Haversine); token
+ * ausente, vencido ou de uma tabela de frete já alterada faz o pedido recalcular como antes. A versão
+ * é persistida, então um segredo fixo não faz um reinício ou outra instância aceitar cotação antiga.
+ */
+@Service
+public class CotacaoFreteService {
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    @Autowired
+    private AreaEntregaService areaEntregaService;
+
+    // Vazio: chave aleatória a cada início da aplicação (cotações anteriores ao reinício são recalculadas)
+    @Value("${app.frete.cotacao-segredo:}")
+    private String segredo;
+
+    @Value("${app.frete.cotacao-validade-minutos:15}")
+    private long validadeMinutos;
+
+    private SecretKeySpec chave;
+
+    public record Cotacao(BigDecimal taxa, BigDecimal valorMinimoPedido, String token, long expiraEm) {}
+
+    @PostConstruct
+    public void init() {
+        byte[] bytes;
+        if (segredo == null || segredo.isBlank()) {
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = segredo.getBytes(StandardCharsets.UTF_8);
+        }
+        chave = new SecretKeySpec(bytes, ALGORITMO);
+    }
+
+    /**
+     * Calcula o frete (mesmas exceções de AreaEntregaService.calcularFrete) e assina a cotação.
+     */
+    public Cotacao cotar(Long restauranteId, String cep) {
+        long versao = areaEntregaService.getVersaoTabelaFrete(restauranteId); // Antes do cálculo: na dúvida, o token vence
+        AreaEntregaService.Frete frete = areaEntregaService.calcularFrete(restauranteId, cep);
+        BigDecimal minimo = frete.valorMinimoPedido();
+        long expiraEm = System.currentTimeMillis() + Duration.ofMinutes(validadeMinutos).toMillis();
+        String conteudo = restauranteId + "|" + apenasDigitos(cep) + "|" + frete.taxa().toPlainString() + "|"
+                + (minimo != null ? minimo.toPlainString() : "") + "|" + versao + "|" + expiraEm;
+        String token = BASE64.encodeToString(conteudo.getBytes(StandardCharsets.UTF_8)) + "." + BASE64.encodeToString(assinar(conteudo));
+        return new Cotacao(frete.taxa(), minimo, token, expiraEm);
+    }
+
+    /**
+     * Frete da cotação se o token é autêntico, não venceu, é do mesmo restaurante e CEP e a tabela de
+     * frete não mudou desde a emissão; null em qualquer outro caso (o chamador recalcula).
+     */
+    public AreaEntregaService.Frete freteCotado(String token, Long restauranteId, String cep) {
+        if (token == null || token.isBlank() || restauranteId == null || cep == null) {
+            return null;
+        }
+        int ponto = token.indexOf('.');
+        if (ponto < 0) {
+            return null;
+        }
+        try {
+            String conteudo = new String(Base64.getUrlDecoder().decode(token.substring(0, ponto)), StandardCharsets.UTF_8);
+            byte[] assinatura = Base64.getUrlDecoder().decode(token.substring(ponto + 1));
+            if (!MessageDigest.isEqual(assinar(conteudo), assinatura)) {
+                return null;
+            }
+            String[] campos = conteudo.split("\\|");
+            if (campos.length != 6
+                    || !campos[0].equals(restauranteId.toString())
+                    || !campos[1].equals(apenasDigitos(cep))
+                    || Long.parseLong(campos[5]) < System.currentTimeMillis()
+                    || Long.parseLong(campos[4]) != areaEntregaService.getVersaoTabelaFrete(restauranteId)) {
+                return null;
+            }
+            return new AreaEntregaService.Frete(new BigDecimal(campos[2]), campos[3].isEmpty() ? null : new BigDecimal(campos[3]));
+        } catch (IllegalArgumentException e) { // Base64 ou número inválido (inclui NumberFormatException)
+            return null;
+        }
+    }
+
+    private byte[] assinar(String conteudo) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(chave);
+            return mac.doFinal(conteudo.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Erro ao assinar a cotação de frete", e);
+        }
+    }
+
+    private static String apenasDigitos(String cep) {
+        return cep.replaceAll("\\D", "");
+    }
+}
@@ -0,0 +1,287 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.exception.LimiteRequisicoesException;
+import br.com.frevonamesa.frevonamesa.model.Pedido;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Stream (Server-Sent Events) do painel de delivery, por restaurante.
+ * Cada conexão recebe um snapshot inicial do kanban e depois os eventos incrementais publicados pelos
+ * fluxos de escrita do PedidoService (somente após o commit). Os últimos eventos ficam num buffer circular
+ * para que uma reconexão com Last-Event-ID receba apenas o que perdeu.
+ *
+ * A publicação só acrescenta o evento ao buffer; o envio a cada painel roda num pool próprio, uma tarefa
+ * por conexão que lê do buffer a partir do último evento enviado. Assim um painel lento não segura a
+ * thread da requisição que fez o commit nem os demais painéis; se ficar atrasado demais, é desconectado
+ * e, ao reconectar com Last-Event-ID, recebe o que perdeu (ou um snapshot novo).
+ */
+@Service
+public class DeliveryEventosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryEventosService.class);
+
+    public static final String EVENTO_SNAPSHOT = "snapshot";
+    public static final String EVENTO_PEDIDO_CRIADO = "pedido-criado";
+    public static final String EVENTO_STATUS_ALTERADO = "pedido-status";
+    public static final String EVENTO_PEDIDO_IMPRESSO = "pedido-impresso";
+    public static final String EVENTO_RETIDO_ACEITO = "pedido-retido-aceito";
+
+    private static final int MAX_CONEXOES_POR_RESTAURANTE = 20;
+    private static final int TAMANHO_BUFFER = 256;
+    private static final int MAX_EVENTOS_ATRASADOS = 64; // Por conexão; acima disso o painel é desconectado
+    private static final int THREADS_ENVIO = 4;
+    private static final long TIMEOUT_MS = 30 * 60 * 1000L; // O cliente reconecta com Last-Event-ID
+
+    // Prefixo dos IDs de evento: muda a cada reinício, invalidando Last-Event-ID de execuções anteriores
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Long, Canal> canais = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    private record Evento(long id, String tipo, String json) {}
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger contador = new AtomicInteger();
+        executor = new ThreadPoolExecutor(THREADS_ENVIO, THREADS_ENVIO, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "delivery-sse-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Abre uma conexão SSE. Se o Last-Event-ID ainda estiver coberto pelo buffer, reenvia só os eventos
+     * perdidos; caso contrário envia o JSON do snapshot fornecido (lido depois do registro da conexão, para
+     * que nenhum evento fique entre o snapshot e o stream).
+     */
+    public SseEmitter conectar(Long restauranteId, String lastEventId, Supplier<String> snapshot) {
+        Canal canal = canais.computeIfAbsent(restauranteId, id -> new Canal());
+        Conexao conexao = new Conexao(new SseEmitter(TIMEOUT_MS));
+
+        long idBase;
+        List<Evento> perdidos;
+        synchronized (canal) {
+            if (canal.conexoes.size() >= MAX_CONEXOES_POR_RESTAURANTE) {
+                throw new LimiteRequisicoesException("Limite de painéis conectados atingido para este restaurante.");
+            }
+            canal.conexoes.add(conexao);
+            idBase = canal.ultimoId;
+            perdidos = canal.eventosDepoisDe(parseId(lastEventId));
+            conexao.enviadoAte = idBase; // O snapshot/replay cobre até aqui; o resto vem do buffer
+        }
+
+        conexao.emitter.onCompletion(() -> canal.conexoes.remove(conexao));
+        conexao.emitter.onTimeout(() -> canal.conexoes.remove(conexao));
+        conexao.emitter.onError(e -> canal.conexoes.remove(conexao));
+
+        try {
+            if (perdidos != null) {
+                for (Evento evento : perdidos) {
+                    conexao.enviarDireto(evento);
+                }
+            } else {
+                conexao.enviarDireto(new Evento(idBase, EVENTO_SNAPSHOT, snapshot.get()));
+            }
+            conexao.liberada = true;
+            agendar(canal, conexao); // Envia o que chegou durante o snapshot/replay
+        } catch (IOException | IllegalStateException e) {
+            canal.conexoes.remove(conexao);
+            conexao.emitter.completeWithError(e);
+        }
+        return conexao.emitter;
+    }
+
+    /**
+     * Publica um evento do pedido. O JSON é gerado agora (dentro da transação, com os itens carregados)
+     * e enviado aos painéis somente após o commit.
+     */
+    public void publicar(Long restauranteId, String tipo, Pedido pedido) {
+        String json = serializar(pedido);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    transmitir(restauranteId, tipo, json);
+                }
+            });
+        } else {
+            transmitir(restauranteId, tipo, json);
+        }
+    }
+
+    @Scheduled(fixedRate = 20000)
+    public void heartbeat() {
+        for (Canal canal : canais.values()) {
+            for (Conexao conexao : canal.conexoes) {
+                conexao.heartbeatPendente = true;
+                agendar(canal, conexao);
+            }
+        }
+    }
+
+    private void transmitir(Long restauranteId, String tipo, String json) {
+        Canal canal = canais.computeIfAbsent(restauranteId, id -> new Canal());
+        long id;
+        synchronized (canal) {
+            id = ++canal.ultimoId;
+            canal.buffer.addLast(new Evento(id, tipo, json));
+            if (canal.buffer.size() > TAMANHO_BUFFER) {
+                canal.buffer.removeFirst();
+            }
+        }
+        for (Conexao conexao : canal.conexoes) {
+            if (conexao.liberada && id - conexao.enviadoAte > MAX_EVENTOS_ATRASADOS) {
+                desconectar(canal, conexao);
+            } else {
+                agendar(canal, conexao);
+            }
+        }
+    }
+
+    /** Garante uma (e só uma) tarefa de envio para a conexão, se ela já recebeu o snapshot/replay. */
+    private void agendar(Canal canal, Conexao conexao) {
+        if (!conexao.liberada || !conexao.agendada.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> enviarPendentes(canal, conexao));
+        } catch (RejectedExecutionException e) {
+            desconectar(canal, conexao); // Aplicação encerrando
+        }
+    }
+
+    /** Envia, fora do lock do canal, os eventos do buffer posteriores ao último enviado a esta conexão. */
+    private void enviarPendentes(Canal canal, Conexao conexao) {
+        try {
+            while (true) {
+                List<Evento> pendentes;
+                synchronized (canal) {
+                    pendentes = canal.eventosDepoisDe(conexao.enviadoAte);
+                    if (pendentes == null || pendentes.size() > MAX_EVENTOS_ATRASADOS) {
+                        pendentes = null;
+                    } else if (pendentes.isEmpty() && !conexao.heartbeatPendente) {
+                        // Liberado dentro do lock: um transmitir posterior já encontra a flag livre e reagenda
+                        conexao.agendada.set(false);
+                        return;
+                    }
+                }
+                if (pendentes == null) {
+                    desconectar(canal, conexao); // Ficou para trás do buffer: reconecta e recebe o que perdeu
+                    return;
+                }
+                for (Evento evento : pendentes) {
+                    conexao.enviarDireto(evento);
+                    conexao.enviadoAte = evento.id();
+                }
+                if (conexao.heartbeatPendente) {
+                    conexao.heartbeatPendente = false;
+                    if (pendentes.isEmpty()) {
+                        conexao.emitter.send(SseEmitter.event().comment("hb"));
+                    }
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            canal.conexoes.remove(conexao);
+        }
+    }
+
+    private void desconectar(Canal canal, Conexao conexao) {
+        if (canal.conexoes.remove(conexao)) {
+            try {
+                conexao.emitter.complete();
+            } catch (IllegalStateException e) {
+                logger.debug("Conexão do painel de delivery já encerrada", e);
+            }
+        }
+    }
+
+    String serializar(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar evento do painel de delivery", e);
+        }
+    }
+
+    private Long parseId(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(epoca + "-")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(epoca.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private class Canal {
+        private final List<Conexao> conexoes = new CopyOnWriteArrayList<>();
+        private final Deque<Evento> buffer = new ArrayDeque<>();
+        private long ultimoId = 0;
+
+        /**
+         * Eventos posteriores ao ID informado, ou null se o buffer não cobre mais esse intervalo.
+         * Chamado com o lock do canal.
+         */
+        private List<Evento> eventosDepoisDe(Long id) {
+            if (id == null || id > ultimoId) return null;
+            if (id < ultimoId && (buffer.isEmpty() || buffer.peekFirst().id() > id + 1)) return null;
+            List<Evento> eventos = new ArrayList<>();
+            for (Evento evento : buffer) {
+                if (evento.id() > id) eventos.add(evento);
+            }
+            return eventos;
+        }
+    }
+
+    /**
+     * Conexão de um painel. Até o snapshot/replay inicial ser enviado ela não é liberada, e os eventos
+     * novos apenas se acumulam no buffer do canal; depois, a tarefa de envio os lê a partir de enviadoAte.
+     */
+    private class Conexao {
+        private final SseEmitter emitter;
+        private final AtomicBoolean agendada = new AtomicBoolean();
+        private volatile boolean liberada;
+        private volatile boolean heartbeatPendente;
+        private volatile long enviadoAte;
+
+        private Conexao(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void enviarDireto(Evento evento) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(epoca + "-" + evento.id())
+                    .name(evento.tipo())
+                    .data(evento.json(), MediaType.APPLICATION_JSON));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.dto.PedidoExportacaoDTO;
+import br.com.frevonamesa.frevonamesa.model.StatusPedido;
+import br.com.frevonamesa.frevonamesa.model.TipoPagamento;
+import br.com.frevonamesa.frevonamesa.model.TipoPedido;
+import br.com.frevonamesa.frevonamesa.repository.PedidoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Exportação bruta de pedidos, itens e adicionais (CSV ou NDJSON) para períodos longos.
+ * As linhas vêm de um cursor somente-leitura, em ordem de pedido; cada pedido é montado, escrito na
+ * saída e descartado, então a memória usada não cresce com o tamanho do período.
+ */
+@Service
+public class ExportacaoPedidosService {
+
+    public enum Formato {
+        CSV("text/csv; charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extensao;
+
+        Formato(String contentType, String extensao) {
+            this.contentType = contentType;
+            this.extensao = extensao;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtensao() { return extensao; }
+
+        public static Formato de(String valor) {
+            for (Formato formato : values()) {
+                if (formato.name().equalsIgnoreCase(valor)) return formato;
+            }
+            throw new RuntimeException("Formato de exportação inválido: use csv ou ndjson.");
+        }
+    }
+
+    private static final char SEPARADOR = ';'; // Padrão do Excel em pt-BR (vírgula é o separador decimal)
+    private static final String INICIO_FORMULA = "=+-@\t\r";
+    private static final String CABECALHO_CSV = String.join(String.valueOf(SEPARADOR),
+            "pedido_id", "uuid", "data_hora", "tipo", "status", "tipo_pagamento", "total_pedido", "mesa",
+            "cliente", "telefone", "endereco", "item_id", "produto_id", "produto", "quantidade", "preco_unitario",
+            "adicionais", "valor_adicionais", "subtotal_item", "observacao");
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private RestauranteService restauranteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Chamado antes de abrir a resposta: depois do primeiro byte escrito não dá mais para devolver 400
+    public void validarPeriodo(LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null || fim.isBefore(inicio)) {
+            throw new RuntimeException("Período inválido: a data inicial deve ser anterior ou igual à final.");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportar(LocalDate inicio, LocalDate fim, Formato formato, OutputStream saida) throws IOException {
+        validarPeriodo(inicio, fim);
+        Long restauranteId = restauranteService.getRestauranteLogado().getId();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 64 * 1024);
+        if (formato == Formato.CSV) {
+            writer.write('\uFEFF'); // BOM: o Excel só reconhece UTF-8 com ele
+            writer.write(CABECALHO_CSV);
+            writer.write('\n');
+        }
+
+        try (Stream<Object[]> linhas = pedidoRepository.streamExportacao(restauranteId,
+                inicio.atStartOfDay(), fim.atTime(LocalTime.MAX))) {
+            PedidoExportacaoDTO pedido = null;
+            PedidoExportacaoDTO.Item item = null;
+            for (Object[] linha : (Iterable<Object[]>) linhas::iterator) {
+                Long pedidoId = (Long) linha[0];
+                if (pedido == null || !pedido.getId().equals(pedidoId)) {
+                    if (pedido != null) escrever(pedido, formato, writer);
+                    pedido = novoPedido(linha);
+                    item = null;
+                }
+                Long itemId = (Long) linha[12];
+                if (itemId == null) continue;
+                if (item == null || !item.getId().equals(itemId)) {
+                    item = novoItem(linha);
+                    pedido.getItens().add(item);
+                }
+                if (linha[18] != null) {
+                    PedidoExportacaoDTO.Adicional adicional = new PedidoExportacaoDTO.Adicional();
+                    adicional.setNome((String) linha[19]);
+                    adicional.setPreco((BigDecimal) linha[20]);
+                    item.getAdicionais().add(adicional);
+                }
+            }
+            if (pedido != null) escrever(pedido, formato, writer);
+        }
+        writer.flush();
+    }
+
+    private PedidoExportacaoDTO novoPedido(Object[] linha) {
+        PedidoExportacaoDTO pedido = new PedidoExportacaoDTO();
+        pedido.setId((Long) linha[0]);
+        pedido.setUuid((UUID) linha[1]);
+        pedido.setDataHora((LocalDateTime) linha[2]);
+        pedido.setTipo((TipoPedido) linha[3]);
+        pedido.setStatus((StatusPedido) linha[4]);
+        pedido.setTipoPagamento((TipoPagamento) linha[5]);
+        pedido.setTotal((BigDecimal) linha[6]);
+        pedido.setNumeroMesa((Integer) linha[7]);
+        pedido.setNomeCliente(linha[9] != null ? (String) linha[9] : (String) linha[8]);
+        pedido.setTelefoneCliente((String) linha[10]);
+        pedido.setEnderecoCliente((String) linha[11]);
+        return pedido;
+    }
+
+    private PedidoExportacaoDTO.Item novoItem(Object[] linha) {
+        PedidoExportacaoDTO.Item item = new PedidoExportacaoDTO.Item();
+        item.setId((Long) linha[12]);
+        item.setProdutoId((Long) linha[13]);
+        item.setNomeProduto(linha[14] != null ? (String) linha[14] : "Produto removido");
+        item.setQuantidade((Integer) linha[15]);
+        item.setPrecoUnitario((BigDecimal) linha[16]);
+        item.setObservacao((String) linha[17]);
+        return item;
+    }
+
+    private void escrever(PedidoExportacaoDTO pedido, Formato formato, Writer writer) throws IOException {
+        if (formato == Formato.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(pedido));
+            writer.write('\n');
+            return;
+        }
+        if (pedido.getItens().isEmpty()) {
+            escreverLinhaCsv(pedido, null, writer);
+        }
+        for (PedidoExportacaoDTO.Item item : pedido.getItens()) {
+            escreverLinhaCsv(pedido, item, writer);
+        }
+    }
+
+    // Uma linha por item; os adicionais do item vão juntos numa coluna ("Bacon (3.00) | Ovo (2.00)")
+    private void escreverLinhaCsv(PedidoExportacaoDTO pedido, PedidoExportacaoDTO.Item item, Writer writer) throws IOException {
+        StringBuilder adicionais = new StringBuilder();
+        BigDecimal valorAdicionais = BigDecimal.ZERO;
+        BigDecimal subtotal = null;
+        if (item != null) {
+            for (PedidoExportacaoDTO.Adicional adicional : item.getAdicionais()) {
+                BigDecimal preco = adicional.getPreco() != null ? adicional.getPreco() : BigDecimal.ZERO;
+                if (adicionais.length() > 0) adicionais.append(" | ");
+                adicionais.append(adicional.getNome()).append(" (").append(preco.toPlainString()).append(')');
+                valorAdicionais = valorAdicionais.add(preco);
+            }
+            if (item.getPrecoUnitario() != null && item.getQuantidade() != null) {
+                subtotal = item.getPrecoUnitario().add(valorAdicionais).multiply(BigDecimal.valueOf(item.getQuantidade()));
+            }
+        }
+
+        campo(writer, pedido.getId(), true);
+        campo(writer, pedido.getUuid(), true);
+        campo(writer, pedido.getDataHora(), true);
+        campo(writer, pedido.getTipo(), true);
+        campo(writer, pedido.getStatus(), true);
+        campo(writer, pedido.getTipoPagamento(), true);
+        campo(writer, pedido.getTotal(), true);
+        campo(writer, pedido.getNumeroMesa(), true);
+        campo(writer, pedido.getNomeCliente(), true);
+        campo(writer, pedido.getTelefoneCliente(), true);
+        campo(writer, pedido.getEnderecoCliente(), true);
+        campo(writer, item != null ? item.getId() : null, true);
+        campo(writer, item != null ? item.getProdutoId() : null, true);
+        campo(writer, item != null ? item.getNomeProduto() : null, true);
+        campo(writer, item != null ? item.getQuantidade() : null, true);
+        campo(writer, item != null ? item.getPrecoUnitario() : null, true);
+        campo(writer, item != null ? adicionais : null, true);
+        campo(writer, item != null ? valorAdicionais : null, true);
+        campo(writer, subtotal, true);
+        campo(writer, item != null ? item.getObservacao() : null, false);
+        writer.write('\n');
+    }
+
+    private static void campo(Writer writer, Object valor, boolean separador) throws IOException {
+        if (valor != null) {
+            String texto = valor instanceof BigDecimal numero ? numero.toPlainString() : valor.toString();
+            boolean formula = !(valor instanceof Number) && !texto.isEmpty() && INICIO_FORMULA.indexOf(texto.charAt(0)) >= 0;
+            if (formula) {
+                // Texto digitado pelo cliente (nome, observação...) que o Excel executaria como fórmula
+                texto = "'" + texto;
+            }
+            if (formula || texto.indexOf(SEPARADOR) >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(texto.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(texto);
+            }
+        }
+        if (separador) writer.write(SEPARADOR);
+    }
+}
@@ -7,15 +7,17 @@ import br.com.frevonamesa.frevonamesa.model.TipoPagamento;
 import br.com.frevonamesa.frevonamesa.repository.RestauranteRepository;
 import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 // Imports do Stripe (Corrigidos e Organizados)
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
-import com.stripe.exception.SignatureVerificationException;
 import com.stripe.model.Account;
 import com.stripe.model.AccountLink;
 import com.stripe.model.Customer;
@@ -24,7 +26,6 @@ import com.stripe.model.EventDataObjectDeserializer;
 import com.stripe.model.StripeObject;
 import com.stripe.model.Subscription;
 import com.stripe.model.checkout.Session; // Usar o Session do checkout
-import com.stripe.net.Webhook;
 import com.stripe.param.AccountCreateParams;
 import com.stripe.param.AccountLinkCreateParams;
 import com.stripe.param.checkout.SessionCreateParams; // Usaremos SessionCreateParams do checkout
@@ -45,6 +46,8 @@ import java.util.Optional; // Adicionar Optional
 @Service
 public class FinanceiroService {
 
+    private static final Logger logger = LoggerFactory.getLogger(FinanceiroService.class);
+
     // Constantes para limites
     private static final int LIMITE_MESAS_GRATUITO = 10;
     private static final int LIMITE_USUARIOS_GRATUITO = 4;
@@ -57,6 +60,12 @@ public class FinanceiroService {
     @Autowired
     private RestauranteRepository restauranteRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CotaDeliveryService cotaDeliveryService;
+
     @Lazy // Mantém Lazy para evitar dependência cíclica
     @Autowired
     private PedidoService pedidoService;
@@ -65,9 +74,6 @@ public class FinanceiroService {
     @Value("${stripe.secret-key}")
     private String stripeSecretKey;
 
-    @Value("${stripe.webhook-secret}")
-    private String webhookSecret;
-
     @Value("${app.cors.allowed-origins}")
     private String allowedOrigins; // Usado para URLs de retorno
 
@@ -115,17 +121,13 @@ public class FinanceiroService {
         Restaurante restaurante = restauranteRepository.findById(restauranteId)
                 .orElseThrow(() -> new RuntimeException("Restaurante não encontrado ao compensar limite. ID: " + restauranteId));
 
-        boolean aplicaCompensacao = restaurante.getPlano().equals("GRATUITO")
-                && !restaurante.isDeliveryPro()
-                && !restaurante.isLegacyFree()
-                && !restaurante.isBetaTester();
+        boolean aplicaCompensacao = cotaDeliveryService.isLimitado(restaurante);
 
         if (aplicaCompensacao) {
-            restaurante.setPedidosMesAtual(Math.max(0, restaurante.getPedidosMesAtual() - PEDIDOS_POR_PACOTE));
-            restauranteRepository.save(restaurante);
-            System.out.println("INFO: Limite compensado para Restaurante ID: " + restauranteId + ". Pedidos atuais: " + restaurante.getPedidosMesAtual());
+            cotaDeliveryService.compensar(restauranteId, PEDIDOS_POR_PACOTE);
+            logger.info("Limite compensado para Restaurante ID: {}.", restauranteId);
         } else {
-            System.out.println("INFO: Pagamento de pacote recebido (Restaurante ID: " + restauranteId + "), mas o plano não é GRATUITO ou já é PRO. Nenhuma compensação necessária.");
+            logger.info("Pagamento de pacote recebido (Restaurante ID: {}), mas o plano não é GRATUITO ou já é PRO. Nenhuma compensação necessária.", restauranteId);
         }
     }
     // --- FIM LÓGICA PAY-PER-USE ---
@@ -147,7 +149,7 @@ public class FinanceiroService {
         String existingSubscriptionId = restaurante.getStripeSubscriptionId();
         String existingCustomerId = restaurante.getStripeCustomerId();
 
-        System.out.println("DEBUG: Preparando Checkout (Assinatura). CustomerId existente no BD: " + existingCustomerId + ", SubscriptionId existente no BD: " + existingSubscriptionId);
+        logger.debug("Preparando Checkout (Assinatura). CustomerId existente no BD: {}, SubscriptionId existente no BD: {}", existingCustomerId, existingSubscriptionId);
 
         SessionCreateParams.Builder paramsBuilder =
                 SessionCreateParams.builder()
@@ -165,15 +167,15 @@ public class FinanceiroService {
                                         .build());
 
         if (existingSubscriptionId != null && !existingSubscriptionId.isEmpty()) {
-            System.out.println("INFO: Gerando sessão de Checkout para ATUALIZAR assinatura existente: " + existingSubscriptionId);
+            logger.info("Gerando sessão de Checkout para ATUALIZAR assinatura existente: {}", existingSubscriptionId);
             throw new RuntimeException("Gerencie sua assinatura existente através do Portal do Cliente.");
 
         } else {
-            System.out.println("INFO: Gerando sessão de Checkout para CRIAR NOVA assinatura para o Customer: " + (existingCustomerId != null ? existingCustomerId : "Novo (email: " + customerEmail + ")"));
+            logger.info("Gerando sessão de Checkout para CRIAR NOVA assinatura para o Customer: {}", existingCustomerId != null ? existingCustomerId : "Novo");
         }
 
         SessionCreateParams finalParams = paramsBuilder.build();
-        System.out.println("DEBUG: Parâmetros FINAIS (Assinatura) enviados para Session.create: Customer=" + finalParams.getCustomer() + ", CustomerEmail=" + finalParams.getCustomerEmail());
+        logger.debug("Parâmetros FINAIS (Assinatura) enviados para Session.create: Customer={}, CustomerEmail={}", finalParams.getCustomer(), finalParams.getCustomerEmail());
 
         Session session = Session.create(finalParams);
         return session.getUrl();
@@ -203,15 +205,15 @@ public class FinanceiroService {
         String stripeCustomerId = restaurante.getStripeCustomerId();
 
         if (stripeCustomerId == null || stripeCustomerId.isEmpty()) {
-            System.err.println("ERRO: Tentativa de abrir portal para restaurante sem Stripe Customer ID. Restaurante ID: " + restaurante.getId());
+            logger.warn("Tentativa de abrir portal para restaurante sem Stripe Customer ID. Restaurante ID: {}", restaurante.getId());
             try {
                 Customer customer = Customer.create(Map.of("email", restaurante.getEmail(), "name", restaurante.getNome()));
                 stripeCustomerId = customer.getId();
                 restaurante.setStripeCustomerId(stripeCustomerId);
                 restauranteRepository.save(restaurante);
-                System.out.println("INFO: Stripe Customer ID criado dinamicamente: " + stripeCustomerId + " para Restaurante ID: " + restaurante.getId());
+                logger.info("Stripe Customer ID criado dinamicamente: {} para Restaurante ID: {}", stripeCustomerId, restaurante.getId());
             } catch (StripeException e) {
-                System.err.println("ERRO CRÍTICO: Falha ao criar Stripe Customer ID para restaurante ID: " + restaurante.getId() + " - " + e.getMessage());
+                logger.error("Falha ao criar Stripe Customer ID para restaurante ID: {} - {}", restaurante.getId(), e.getMessage());
                 throw new RuntimeException("Cliente Stripe não encontrado e falha ao criar.");
             }
         }
@@ -226,7 +228,7 @@ public class FinanceiroService {
                         .build();
 
         com.stripe.model.billingportal.Session portalSession = com.stripe.model.billingportal.Session.create(params);
-        System.out.println("INFO: Sessão do Portal do Cliente criada para Customer ID: " + stripeCustomerId);
+        logger.info("Sessão do Portal do Cliente criada para Customer ID: {}", stripeCustomerId);
         return portalSession.getUrl();
     }
     // --- FIM LÓGICA DO PORTAL DO CLIENTE ---
@@ -260,10 +262,11 @@ public class FinanceiroService {
             accountId = account.getId();
             restaurante.setStripeConnectAccountId(accountId);
             restauranteRepository.save(restaurante);
-            System.out.println("INFO: Nova conta Stripe Connect Express criada: " + accountId + " para Restaurante ID: " + restauranteId);
+            eventPublisher.publishEvent(new RestauranteAlteradoEvent(restauranteId)); // Cardápio passa a oferecer pagamento online
+            logger.info("Nova conta Stripe Connect Express criada: {} para Restaurante ID: {}", accountId, restauranteId);
         } else {
             account = Account.retrieve(accountId);
-            System.out.println("INFO: Usando conta Stripe Connect Express existente: " + accountId + " para Restaurante ID: " + restauranteId);
+            logger.info("Usando conta Stripe Connect Express existente: {} para Restaurante ID: {}", accountId, restauranteId);
         }
 
         String frontendBaseUrl = allowedOrigins.split(",")[0];
@@ -279,7 +282,7 @@ public class FinanceiroService {
                 .build();
 
         AccountLink accountLink = AccountLink.create(params);
-        System.out.println("INFO: Link de onboarding gerado para a conta: " + accountId);
+        logger.info("Link de onboarding gerado para a conta: {}", accountId);
         return accountLink.getUrl();
     }
 
@@ -294,12 +297,10 @@ public class FinanceiroService {
             Account account = Account.retrieve(accountId);
             canReceivePayments = Boolean.TRUE.equals(account.getChargesEnabled()) && Boolean.TRUE.equals(account.getPayoutsEnabled());
             boolean detailsSubmitted = Boolean.TRUE.equals(account.getDetailsSubmitted());
-            System.out.println("INFO: Verificação da conta Connect " + accountId +
-                    ": ChargesEnabled=" + account.getChargesEnabled() +
-                    ", PayoutsEnabled=" + account.getPayoutsEnabled() +
-                    ", DetailsSubmitted=" + detailsSubmitted);
+            logger.info("Verificação da conta Connect {}: ChargesEnabled={}, PayoutsEnabled={}, DetailsSubmitted={}",
+                    accountId, account.getChargesEnabled(), account.getPayoutsEnabled(), detailsSubmitted);
         } else {
-            System.out.println("WARN: Tentativa de verificar conta Connect sem ID para Restaurante ID: " + restauranteId);
+            logger.warn("Tentativa de verificar conta Connect sem ID para Restaurante ID: {}", restauranteId);
         }
         return canReceivePayments;
     }
@@ -309,17 +310,17 @@ public class FinanceiroService {
 
     // --- LÓGICA DE PEDIDO PÚBLICO (MODIFICADA PARA STRIPE CONNECT - COM CORREÇÕES) ---
     public String gerarUrlPagamentoPedidoPublico(UUID uuidPedido, BigDecimal totalPedido, Long restauranteId) throws StripeException {
-        System.out.println("--- Iniciando gerarUrlPagamentoPedidoPublico com Stripe Connect ---");
+        logger.debug("Iniciando gerarUrlPagamentoPedidoPublico com Stripe Connect");
         Restaurante restaurante = restauranteRepository.findById(restauranteId)
                 .orElseThrow(() -> new RuntimeException("Restaurante não encontrado para pagamento público. ID: " + restauranteId));
 
         String connectAccountId = restaurante.getStripeConnectAccountId();
 
         if (connectAccountId == null || connectAccountId.isEmpty()) {
-            System.err.println("❌ ERRO PAGAMENTO: Restaurante ID " + restauranteId + " não possui conta Stripe Connect configurada.");
+            logger.warn("Pagamento: Restaurante ID {} não possui conta Stripe Connect configurada.", restauranteId);
             throw new RuntimeException("Este restaurante não está configurado para receber pagamentos online no momento.");
         }
-        System.out.println("   Usando Conta Connect: " + connectAccountId);
+        logger.debug("Usando Conta Connect: {}", connectAccountId);
 
         String frontendBaseUrl = allowedOrigins.split(",")[0];
         String successUrl = frontendBaseUrl + "/cardapio/" + restauranteId + "?payment=success&pedido_uuid=" + uuidPedido.toString();
@@ -327,15 +328,15 @@ public class FinanceiroService {
 
         long amountInCents = totalPedido.multiply(new BigDecimal("100")).longValue();
         if (amountInCents < 50) {
-            System.err.println("❌ ERRO PAGAMENTO: Valor do pedido " + totalPedido + " é menor que o mínimo permitido pelo Stripe.");
+            logger.warn("Pagamento: valor do pedido {} é menor que o mínimo permitido pelo Stripe.", totalPedido);
             throw new RuntimeException("O valor do pedido é muito baixo para processamento online.");
         }
 
         long applicationFeeAmount = Math.max(1, (long) (amountInCents * 0.05)); // 5%, mínimo 1 centavo
-        System.out.println("   Valor total (centavos): " + amountInCents);
-        System.out.println("   Taxa da plataforma (centavos): " + applicationFeeAmount);
+        logger.debug("Valor total (centavos): {}", amountInCents);
+        logger.debug("Taxa da plataforma (centavos): {}", applicationFeeAmount);
         if (applicationFeeAmount >= amountInCents) {
-            System.err.println("❌ ERRO PAGAMENTO: Taxa da plataforma ("+applicationFeeAmount+") é maior ou igual ao valor total ("+amountInCents+"). Pagamento inviável.");
+            logger.warn("Pagamento: taxa da plataforma ({}) é maior ou igual ao valor total ({}). Pagamento inviável.", applicationFeeAmount, amountInCents);
             throw new RuntimeException("Erro interno na configuração de taxas.");
         }
 
@@ -385,328 +386,240 @@ public class FinanceiroService {
                 .build();
 
         Session session = Session.create(params);
-        System.out.println("✅ Sessão de Checkout criada para pedido público " + uuidPedido + " na conta " + connectAccountId);
-        System.out.println("--- Finalizando gerarUrlPagamentoPedidoPublico ---");
+        logger.info("Sessão de Checkout criada para pedido público {} na conta {}", uuidPedido, connectAccountId);
         return session.getUrl();
     }
     // --- FIM LÓGICA DE PEDIDO PÚBLICO ---
 
 
     // --- LÓGICA DE WEBHOOK ---
+    // O endpoint só verifica a assinatura e grava o evento na inbox (StripeInboxService); o
+    // StripeInboxDispatcher chama este método depois, em segundo plano, uma vez por evento.
     @Transactional
-    public void processarWebhookStripe(String payload, String sigHeader) throws StripeException {
-        // ... (Validação do webhook - sem alterações) ...
-        System.out.println("\n>>> WEBHOOK RECEBIDO! Header Stripe-Signature: " + (sigHeader != null && !sigHeader.isEmpty() ? "Presente" : "AUSENTE ou VAZIO"));
-
-        Event event;
-        try {
-            event = Webhook.constructEvent(payload, sigHeader, this.webhookSecret);
-            System.out.println("✅ Webhook Verificado: " + event.getType() + " ID: " + event.getId());
-        } catch (SignatureVerificationException e) {
-            System.err.println("❌ ERRO WEBHOOK: Assinatura inválida! Verifique o 'webhookSecret'.");
-            throw e;
-        } catch (Exception e) {
-            System.err.println("❌ ERRO WEBHOOK: Falha ao construir evento: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Erro ao processar webhook: " + e.getMessage(), e);
-        }
-
+    public void processarEventoStripe(Event event) throws StripeException {
         EventDataObjectDeserializer dataObjectDeserializer = event.getDataObjectDeserializer();
-        StripeObject dataObject = null;
-        if (dataObjectDeserializer.getObject().isPresent()) {
-            dataObject = dataObjectDeserializer.getObject().get();
-            System.out.println("Webhook INFO: Deserialização automática OK para tipo: " + event.getType());
-        } else {
-            System.err.println("Webhook AVISO: Desserialização automática falhou para: " + event.getType() + ". Tentando desserialização explícita (unsafe).");
+        StripeObject dataObject = dataObjectDeserializer.getObject().orElse(null);
+        if (dataObject == null) {
+            // Versão da API do evento diferente da versão da biblioteca
+            logger.warn("Evento Stripe {} ({}): desserialização automática falhou, usando deserializeUnsafe", event.getId(), event.getType());
             try {
                 dataObject = dataObjectDeserializer.deserializeUnsafe();
-                System.out.println("Webhook INFO: Desserialização explícita bem-sucedida para tipo: " + event.getType());
             } catch (Exception e) {
-                System.err.println("❌❌ ERRO CRÍTICO NA DESSERIALIZAÇÃO para evento " + event.getType() + ": " + e.getMessage());
-                e.printStackTrace();
                 throw new RuntimeException("Falha ao desserializar objeto Stripe para evento: " + event.getType(), e);
             }
         }
-
         if (dataObject == null) {
-            System.err.println("❌❌ ERRO CRÍTICO: dataObject NULO após tentativa de desserialização para tipo: " + event.getType());
             throw new RuntimeException("dataObject nulo para evento: " + event.getType());
         }
-        System.out.println("Webhook INFO: Objeto de dados obtido com sucesso: " + dataObject.getClass().getName());
-
-        // Processa os eventos específicos
-        try {
-            switch (event.getType()) {
-                case "checkout.session.completed":
-                    if (dataObject instanceof Session) {
-                        Session session = (Session) dataObject;
-                        System.out.println("Webhook: Chamando processarCheckoutSession para Session ID: " + session.getId());
-                        processarCheckoutSession(session);
-                        System.out.println("✅ Webhook: processarCheckoutSession concluído com sucesso para Session ID: " + session.getId());
-                    } else {
-                        System.err.println("❌ ERRO WEBHOOK: Esperado checkout.Session para checkout.session.completed, recebeu: " + dataObject.getClass().getName());
-                    }
-                    break;
-
-                case "customer.subscription.deleted":
-                    if (dataObject instanceof Subscription) {
-                        Subscription subscriptionDeleted = (Subscription) dataObject;
-                        System.out.println("Webhook: Chamando processarCancelamentoAssinatura para Subscription ID: " + subscriptionDeleted.getId());
-                        processarCancelamentoAssinatura(subscriptionDeleted);
-                        System.out.println("✅ Webhook: processarCancelamentoAssinatura concluído com sucesso para Sub ID: " + subscriptionDeleted.getId());
-                    } else {
-                        System.err.println("❌ ERRO WEBHOOK: Esperado Subscription para customer.subscription.deleted, recebeu: " + dataObject.getClass().getName());
-                    }
-                    break;
-
-                case "customer.subscription.updated":
-                    if (dataObject instanceof Subscription) {
-                        Subscription subscriptionUpdated = (Subscription) dataObject;
-                        System.out.println("Webhook: Processando customer.subscription.updated para Subscription ID: " + subscriptionUpdated.getId());
-                        processarAtualizacaoAssinatura(subscriptionUpdated);
-                        System.out.println("✅ Webhook: processarAtualizacaoAssinatura concluído com sucesso para Sub ID: " + subscriptionUpdated.getId());
-                    } else {
-                        System.err.println("❌ ERRO WEBHOOK: Esperado Subscription para customer.subscription.updated, recebeu: " + dataObject.getClass().getName());
-                    }
-                    break;
-
-                case "account.updated":
-                    if (dataObject instanceof Account) {
-                        Account account = (Account) dataObject;
-                        System.out.println("ℹ️ INFO WEBHOOK: Conta Connect atualizada: " + account.getId() +
-                                ", ChargesEnabled: " + account.getChargesEnabled() +
-                                ", PayoutsEnabled: " + account.getPayoutsEnabled() +
-                                ", DetailsSubmitted: " + account.getDetailsSubmitted());
-                        // --- CORREÇÃO 2 APLICADA: Usando o método correto do repositório ---
-                        Optional<Restaurante> restauranteOpt = restauranteRepository.findByStripeConnectAccountId(account.getId());
-                        // --- FIM DA CORREÇÃO 2 APLICADA ---
-                        restauranteOpt.ifPresent(restaurante -> {
-                            try {
-                                System.out.println("   Tentando verificar status interno para Restaurante ID: " + restaurante.getId());
-                                verifyConnectedAccount(restaurante.getId());
-                            } catch (StripeException e) {
-                                System.err.println("   ERRO ao chamar verifyConnectedAccount dentro do webhook account.updated: " + e.getMessage());
-                            }
-                        });
-                    } else {
-                        System.err.println("❌ ERRO WEBHOOK: Esperado Account para account.updated, recebeu: " + dataObject.getClass().getName());
+
+        switch (event.getType()) {
+            case "checkout.session.completed":
+                if (dataObject instanceof Session session) {
+                    processarCheckoutSession(session);
+                } else {
+                    logger.error("Evento Stripe {}: esperado checkout.Session para checkout.session.completed, recebeu {}", event.getId(), dataObject.getClass().getName());
+                }
+                break;
+
+            case "customer.subscription.deleted":
+                if (dataObject instanceof Subscription subscriptionDeleted) {
+                    processarCancelamentoAssinatura(subscriptionDeleted);
+                } else {
+                    logger.error("Evento Stripe {}: esperado Subscription para customer.subscription.deleted, recebeu {}", event.getId(), dataObject.getClass().getName());
+                }
+                break;
+
+            case "customer.subscription.updated":
+                if (dataObject instanceof Subscription subscriptionUpdated) {
+                    processarAtualizacaoAssinatura(subscriptionUpdated);
+                } else {
+                    logger.error("Evento Stripe {}: esperado Subscription para customer.subscription.updated, recebeu {}", event.getId(), dataObject.getClass().getName());
+                }
+                break;
+
+            case "account.updated":
+                if (dataObject instanceof Account account) {
+                    logger.info("Conta Connect {} atualizada (chargesEnabled={}, payoutsEnabled={}, detailsSubmitted={})",
+                            account.getId(), account.getChargesEnabled(), account.getPayoutsEnabled(), account.getDetailsSubmitted());
+                    Optional<Restaurante> restauranteOpt = restauranteRepository.findByStripeConnectAccountId(account.getId());
+                    if (restauranteOpt.isPresent()) {
+                        verifyConnectedAccount(restauranteOpt.get().getId()); // Falha na API do Stripe: o evento é reprocessado
                     }
-                    break;
+                } else {
+                    logger.error("Evento Stripe {}: esperado Account para account.updated, recebeu {}", event.getId(), dataObject.getClass().getName());
+                }
+                break;
 
-                default:
-                    System.out.println("ℹ️ INFO WEBHOOK: Evento não tratado recebido: " + event.getType());
-                    break;
-            }
-        } catch (Exception e) {
-            System.err.println("❌❌ ERRO DURANTE PROCESSAMENTO DO EVENTO " + event.getType() + ": " + e.getMessage());
-            e.printStackTrace();
-            throw e;
+            default:
+                logger.debug("Evento Stripe não tratado: {} ({})", event.getType(), event.getId());
+                break;
         }
-        System.out.println("<<< WEBHOOK PROCESSADO COM SUCESSO: " + event.getType() + " ID: " + event.getId() + "\n");
+        logger.info("Evento Stripe processado: {} ({})", event.getType(), event.getId());
     }
 
-    // --- Métodos Auxiliares para Webhook (já existentes ou modificados) ---
+    // --- Métodos Auxiliares para Webhook ---
     private void processarCheckoutSession(Session session) throws StripeException {
-        // ... (código existente) ...
-        System.out.println("--- Iniciando processarCheckoutSession ---");
         Map<String, String> metadata = session.getMetadata();
         if (metadata == null) {
-            System.err.println("❌ ERRO WEBHOOK (processarCheckoutSession): Metadados nulos. Session ID: " + session.getId());
             throw new RuntimeException("Metadados nulos na sessão do Stripe.");
         }
-        System.out.println("   Metadados obtidos: " + metadata);
 
         final String restauranteIdStr = metadata.get("restauranteId");
         if (restauranteIdStr == null) {
-            System.err.println("❌ ERRO WEBHOOK (processarCheckoutSession): restauranteId ausente nos metadados. Metadata: " + metadata + " Session ID: " + session.getId());
-            throw new RuntimeException("restauranteId ausente nos metadados do Stripe.");
+            throw new RuntimeException("restauranteId ausente nos metadados do Stripe (sessão " + session.getId() + ").");
         }
         final Long restauranteId = Long.valueOf(restauranteIdStr);
 
-        System.out.println(">>> Tentando buscar Restaurante com ID recebido do webhook: " + restauranteId);
         Restaurante restaurante = restauranteRepository.findById(restauranteId)
                 .orElseThrow(() -> new RuntimeException("Restaurante não encontrado no webhook com ID: " + restauranteId));
-        System.out.println("   Restaurante encontrado: ID " + restaurante.getId() + ", Nome: " + restaurante.getNome());
 
         String tipoProduto = metadata.get("tipoProduto");
         String planoKey = metadata.get("planoKey");
         String pedidoUuidStr = metadata.get("pedidoUuid");
 
-        System.out.println("   TipoProduto: " + tipoProduto + ", PlanoKey: " + planoKey + ", PedidoUuid: " + pedidoUuidStr);
-
         if ("PAY_PER_USE".equals(tipoProduto)) {
-            System.out.println("   Processando PAY_PER_USE...");
             compensarLimite(restauranteId);
-            System.out.println("   Compensação de limite chamada com sucesso.");
+            logger.info("Pacote pay-per-use creditado ao restaurante #{} (sessão {})", restauranteId, session.getId());
 
         } else if (planoKey != null && !planoKey.isEmpty() && session.getSubscription() != null) {
-            System.out.println("   Processando lógica de assinatura...");
             String subscriptionId = session.getSubscription();
             String customerId = session.getCustomer();
-            System.out.println("   Subscription ID da Sessão: " + subscriptionId + ", Customer ID da Sessão: " + customerId);
-
             if (customerId == null) {
-                System.err.println("❌ ERRO WEBHOOK (processarCheckoutSession): Customer ID NULO na Session de assinatura.");
                 throw new RuntimeException("Customer ID ausente na sessão de assinatura do Stripe.");
             }
 
             restaurante.setStripeSubscriptionId(subscriptionId);
             restaurante.setStripeCustomerId(customerId);
-            System.out.println("   IDs do Stripe ATUALIZADOS no objeto Restaurante.");
-
             ativarPlanoPorChave(restaurante, planoKey);
-            System.out.println("   ativarPlanoPorChave executado com sucesso.");
 
             try {
                 Subscription subscription = Subscription.retrieve(subscriptionId);
                 if (subscription.getCurrentPeriodEnd() != null) {
                     restaurante.setDataExpiracaoPlano(LocalDateTime.ofEpochSecond(subscription.getCurrentPeriodEnd(), 0, java.time.ZoneOffset.UTC).plusDays(1));
-                    System.out.println("   Data de expiração definida a partir da assinatura: " + restaurante.getDataExpiracaoPlano());
                 }
             } catch (StripeException e) {
-                System.err.println("   WARN: Não foi possível buscar a assinatura " + subscriptionId + " para definir a data de expiração inicial: " + e.getMessage());
+                logger.warn("Não foi possível buscar a assinatura {} para definir a expiração inicial; usando 1 mês: {}", subscriptionId, e.getMessage());
                 restaurante.setDataExpiracaoPlano(LocalDateTime.now().plusMonths(1).plusDays(1));
-                System.out.println("   Data de expiração definida como fallback (1 mês): " + restaurante.getDataExpiracaoPlano());
             }
 
             restauranteRepository.save(restaurante);
-            System.out.println("✅ Restaurante salvo com sucesso após ativação/atualização do plano.");
+            logger.info("Plano {} ativado para o restaurante #{} (assinatura {}, expira em {})",
+                    planoKey, restaurante.getId(), subscriptionId, restaurante.getDataExpiracaoPlano());
 
         } else if ("PEDIDO_PUBLICO".equals(tipoProduto) && pedidoUuidStr != null) {
-            System.out.println("   Processando PEDIDO_PUBLICO...");
+            UUID pedidoUuid;
             try {
-                UUID pedidoUuid = UUID.fromString(pedidoUuidStr);
-                System.out.println("   Pedido UUID: " + pedidoUuid);
-
-                TipoPagamento tipoPagamento;
-                String paymentMethodType = session.getPaymentMethodTypes().isEmpty() ? null : session.getPaymentMethodTypes().get(0);
-                if ("pix".equalsIgnoreCase(paymentMethodType)) {
-                    tipoPagamento = TipoPagamento.PIX;
-                } else if ("card".equalsIgnoreCase(paymentMethodType)) {
-                    tipoPagamento = TipoPagamento.CARTAO_CREDITO;
-                } else {
-                    tipoPagamento = TipoPagamento.CARTAO_CREDITO;
-                    System.out.println("WARN: Tipo de pagamento não identificado claramente na sessão: " + paymentMethodType + ". Usando CARTAO_CREDITO como default.");
-                }
-                System.out.println("   Tipo de Pagamento identificado: " + tipoPagamento);
+                pedidoUuid = UUID.fromString(pedidoUuidStr);
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("pedidoUuid inválido nos metadados do Stripe.");
+            }
 
+            TipoPagamento tipoPagamento;
+            String paymentMethodType = session.getPaymentMethodTypes().isEmpty() ? null : session.getPaymentMethodTypes().get(0);
+            if ("pix".equalsIgnoreCase(paymentMethodType)) {
+                tipoPagamento = TipoPagamento.PIX;
+            } else if ("card".equalsIgnoreCase(paymentMethodType)) {
+                tipoPagamento = TipoPagamento.CARTAO_CREDITO;
+            } else {
+                tipoPagamento = TipoPagamento.CARTAO_CREDITO;
+                logger.warn("Tipo de pagamento não identificado na sessão {}: {}. Usando CARTAO_CREDITO.", session.getId(), paymentMethodType);
+            }
 
+            try {
                 pedidoService.finalizarPedidoAprovado(pedidoUuid, tipoPagamento);
-                System.out.println("   Pedido público UUID " + pedidoUuid + " finalizado via PedidoService.");
-            } catch (IllegalArgumentException e) {
-                System.err.println("❌ ERRO WEBHOOK (processarCheckoutSession): pedidoUuid inválido: " + pedidoUuidStr);
-                throw new RuntimeException("pedidoUuid inválido nos metadados do Stripe.");
             } catch (Exception e) {
-                System.err.println("❌ ERRO WEBHOOK (processarCheckoutSession): Erro ao finalizar pedido " + pedidoUuidStr + ": " + e.getMessage());
-                e.printStackTrace();
                 throw new RuntimeException("Erro ao finalizar pedido pós-pagamento: " + e.getMessage(), e);
             }
+            logger.info("Pedido público {} finalizado ({})", pedidoUuid, tipoPagamento);
         } else {
-            System.out.println("ℹ️ INFO WEBHOOK (processarCheckoutSession): Session completada, mas sem tipoProduto/planoKey/pedidoUuid esperado. Modo: " + session.getMode() + ", Status Pagamento: " + session.getPaymentStatus());
+            logger.info("Sessão {} concluída sem tipoProduto/planoKey/pedidoUuid esperado (modo {}, pagamento {})",
+                    session.getId(), session.getMode(), session.getPaymentStatus());
         }
-        System.out.println("--- Finalizando processarCheckoutSession ---");
     }
 
     @Transactional
     public void processarCancelamentoAssinatura(Subscription subscription) throws StripeException {
-        // ... (código existente) ...
-        System.out.println("--- Iniciando processarCancelamentoAssinatura ---");
         String customerId = subscription.getCustomer();
         String subscriptionId = subscription.getId();
         if (customerId == null) {
-            System.err.println("❌ ERRO WEBHOOK (processarCancelamento): Customer ID nulo. Subscription ID: " + subscriptionId);
+            logger.warn("Cancelamento da assinatura {} sem Customer ID; ignorando.", subscriptionId);
             return;
         }
-        System.out.println("   Processando cancelamento para Customer ID: " + customerId + ", Subscription ID: " + subscriptionId);
 
         Optional<Restaurante> restauranteOpt = restauranteRepository.findByStripeCustomerId(customerId);
         if (restauranteOpt.isEmpty()) {
-            System.err.println("⚠️ AVISO WEBHOOK (processarCancelamento): Restaurante não encontrado com Customer ID: " + customerId + ". Ignorando evento.");
+            logger.warn("Cancelamento da assinatura {}: restaurante não encontrado com Customer ID {}; ignorando.", subscriptionId, customerId);
             return;
         }
         Restaurante restaurante = restauranteOpt.get();
-        System.out.println("   Restaurante encontrado para cancelamento: ID " + restaurante.getId());
 
         if (subscriptionId.equals(restaurante.getStripeSubscriptionId())) {
-            System.out.println("   Assinatura cancelada corresponde à ativa. Revertendo para GRATUITO...");
             restaurante.setPlano("GRATUITO");
             restaurante.setDeliveryPro(false);
             restaurante.setSalaoPro(false);
             restaurante.setStripeSubscriptionId(null);
             restaurante.setDataExpiracaoPlano(null);
-            restaurante.setPedidosMesAtual(0);
+            cotaDeliveryService.zerar(restaurante.getId());
             restaurante.setLimiteMesas(LIMITE_MESAS_GRATUITO);
             restaurante.setLimiteUsuarios(LIMITE_USUARIOS_GRATUITO);
 
             restauranteRepository.save(restaurante);
-            System.out.println("✅ Restaurante ID: " + restaurante.getId() + " revertido para GRATUITO.");
-
+            logger.info("Assinatura {} cancelada: restaurante #{} revertido para GRATUITO.", subscriptionId, restaurante.getId());
         } else {
-            System.out.println("⚠️ Webhook AVISO (processarCancelamento): Sub ID cancelada (" + subscriptionId + ") não corresponde à ativa (" + restaurante.getStripeSubscriptionId() + ") do Restaurante ID " + restaurante.getId() + ". Ignorando reversão de plano.");
+            logger.warn("Assinatura cancelada {} não é a ativa ({}) do restaurante #{}; plano mantido.",
+                    subscriptionId, restaurante.getStripeSubscriptionId(), restaurante.getId());
         }
-        System.out.println("--- Finalizando processarCancelamentoAssinatura ---");
     }
 
-    @Transactional
     private void processarAtualizacaoAssinatura(Subscription subscriptionUpdated) throws StripeException {
-        // ... (código existente) ...
-        System.out.println("--- Iniciando processarAtualizacaoAssinatura ---");
         String customerId = subscriptionUpdated.getCustomer();
         String subscriptionId = subscriptionUpdated.getId();
 
         if (customerId == null) {
-            System.err.println("❌ ERRO WEBHOOK (sub.updated): Customer ID nulo na assinatura atualizada. Sub ID: " + subscriptionId);
+            logger.warn("Assinatura atualizada {} sem Customer ID; ignorando.", subscriptionId);
             return;
         }
 
         Restaurante restaurante = restauranteRepository.findByStripeCustomerId(customerId).orElse(null);
-
         if (restaurante == null) {
-            System.err.println("⚠️ AVISO WEBHOOK (sub.updated): Restaurante não encontrado com Customer ID: " + customerId + ". Ignorando evento.");
+            logger.warn("Assinatura atualizada {}: restaurante não encontrado com Customer ID {}; ignorando.", subscriptionId, customerId);
             return;
         }
-        System.out.println("   Restaurante encontrado (sub.updated): ID " + restaurante.getId());
 
-        if (subscriptionId.equals(restaurante.getStripeSubscriptionId())) {
-            if (subscriptionUpdated.getItems() != null && !subscriptionUpdated.getItems().getData().isEmpty() && subscriptionUpdated.getItems().getData().get(0).getPrice() != null) {
-                String newPriceId = subscriptionUpdated.getItems().getData().get(0).getPrice().getId();
-                System.out.println("   Novo Price ID detectado (sub.updated): " + newPriceId);
-
-                String planoKey = priceIds.entrySet().stream()
-                        .filter(entry -> entry.getValue().equals(newPriceId))
-                        .map(Map.Entry::getKey)
-                        .findFirst()
-                        .orElse(null);
-
-                if (planoKey != null) {
-                    System.out.println("   PlanoKey correspondente encontrado: " + planoKey);
-                    ativarPlanoPorChave(restaurante, planoKey);
-                    if (subscriptionUpdated.getCurrentPeriodEnd() != null) {
-                        restaurante.setDataExpiracaoPlano(LocalDateTime.ofEpochSecond(subscriptionUpdated.getCurrentPeriodEnd(), 0, java.time.ZoneOffset.UTC).plusDays(1));
-                        System.out.println("   Data de expiração atualizada para: " + restaurante.getDataExpiracaoPlano());
-                    } else {
-                        System.out.println("   WARN: Não foi possível obter data de expiração da assinatura atualizada. Mantendo a anterior ou nula.");
-                    }
-                    restauranteRepository.save(restaurante);
-                    System.out.println("✅ Plano do Restaurante ID " + restaurante.getId() + " atualizado via customer.subscription.updated para: " + planoKey);
-                } else {
-                    System.err.println("❌ ERRO WEBHOOK (sub.updated): Price ID '" + newPriceId + "' recebido do Stripe não encontrado no mapa 'priceIds'. Plano não atualizado no banco.");
-                }
-            } else {
-                System.err.println("❌ ERRO WEBHOOK (sub.updated): Assinatura atualizada não contém itens válidos ou Price ID. Sub ID: " + subscriptionId);
-            }
+        if (!subscriptionId.equals(restaurante.getStripeSubscriptionId())) {
+            logger.warn("Assinatura atualizada {} não é a principal ({}) do restaurante #{}; ignorando.",
+                    subscriptionId, restaurante.getStripeSubscriptionId(), restaurante.getId());
+            return;
+        }
+        if (subscriptionUpdated.getItems() == null || subscriptionUpdated.getItems().getData().isEmpty() || subscriptionUpdated.getItems().getData().get(0).getPrice() == null) {
+            logger.error("Assinatura atualizada {} sem itens válidos ou Price ID.", subscriptionId);
+            return;
+        }
+
+        String newPriceId = subscriptionUpdated.getItems().getData().get(0).getPrice().getId();
+        String planoKey = priceIds.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(newPriceId))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(null);
+        if (planoKey == null) {
+            logger.error("Price ID '{}' da assinatura {} não está no mapa priceIds; plano não atualizado.", newPriceId, subscriptionId);
+            return;
+        }
+
+        ativarPlanoPorChave(restaurante, planoKey);
+        if (subscriptionUpdated.getCurrentPeriodEnd() != null) {
+            restaurante.setDataExpiracaoPlano(LocalDateTime.ofEpochSecond(subscriptionUpdated.getCurrentPeriodEnd(), 0, java.time.ZoneOffset.UTC).plusDays(1));
         } else {
-            System.out.println("⚠️ Webhook AVISO (sub.updated): ID da assinatura atualizada (" + subscriptionId + ") não corresponde à assinatura principal ("+ restaurante.getStripeSubscriptionId() +") do restaurante ID: " + restaurante.getId() + ". Ignorando atualização no banco.");
+            logger.warn("Assinatura atualizada {} sem fim de período; expiração mantida.", subscriptionId);
         }
-        System.out.println("--- Finalizando processarAtualizacaoAssinatura ---");
+        restauranteRepository.save(restaurante);
+        logger.info("Plano do restaurante #{} atualizado para {} (assinatura {}).", restaurante.getId(), planoKey, subscriptionId);
     }
 
 
     private void ativarPlanoPorChave(Restaurante restaurante, String planoKey) {
-        // ... (código existente) ...
-        System.out.println("   --- Iniciando ativarPlanoPorChave ---");
-        System.out.println("   Ativando plano " + planoKey + " para restaurante ID: " + restaurante.getId());
-        restaurante.setPedidosMesAtual(0);
+        cotaDeliveryService.zerar(restaurante.getId());
         LocalDateTime novaExpiracao = null;
         String nomePlano = "GRATUITO";
         boolean ativaDelivery = false;
@@ -738,7 +651,7 @@ public class FinanceiroService {
                 limiteUsuarios = LIMITE_ILIMITADO;
                 break;
             default:
-                System.err.println("⚠️ AVISO (ativarPlanoPorChave): planoKey desconhecida: " + planoKey + ". Mantendo plano anterior ou revertendo para GRATUITO se indefinido.");
+                logger.warn("planoKey desconhecida: {}. Mantendo o plano anterior (ou GRATUITO se indefinido).", planoKey);
                 if (restaurante.getPlano() == null || restaurante.getPlano().isEmpty()) {
                     nomePlano = "GRATUITO";
                     ativaDelivery = false;
@@ -760,10 +673,6 @@ public class FinanceiroService {
         // restaurante.setDataExpiracaoPlano(novaExpiracao);
         restaurante.setLimiteMesas(limiteMesas);
         restaurante.setLimiteUsuarios(limiteUsuarios);
-
-        System.out.println("   Plano definido para: " + nomePlano + ", DeliveryPro: " + ativaDelivery + ", SalaoPro: " + ativaSalao);
-        System.out.println("   Limites definidos: Mesas=" + (limiteMesas == LIMITE_ILIMITADO ? "Ilimitado" : limiteMesas) + ", Usuários=" + (limiteUsuarios == LIMITE_ILIMITADO ? "Ilimitado" : limiteUsuarios));
-        System.out.println("   --- Finalizando ativarPlanoPorChave ---");
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,222 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.model.ZonaEntrega;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Índice espacial das zonas de entrega de um restaurante: uma grade regular sobre a caixa que envolve
+ * todas as zonas. Na montagem, cada célula guarda as zonas que a cobrem inteira (resposta direta) e as
+ * zonas cuja borda passa por ela (essas precisam do teste ponto-no-polígono). Uma consulta olha uma
+ * única célula e, no máximo, testa os polígonos que cruzam aquela célula.
+ *
+ * Latitude e longitude são tratadas como coordenadas planas, o que basta na escala de uma cidade.
+ * Imutável; é recompilado junto com a TabelaFrete.
+ */
+public final class IndiceZonas {
+
+    public static final IndiceZonas VAZIO = new IndiceZonas(List.of());
+
+    private static final int MAX_CELULAS_POR_LADO = 128;
+    private static final int[] NENHUMA = new int[0];
+
+    public record Zona(Long id, String nome, BigDecimal valorEntrega, BigDecimal valorMinimoPedido,
+                       double[] latitudes, double[] longitudes) {
+
+        public static Zona de(ZonaEntrega zona) {
+            double[] latitudes = new double[zona.getPoligono().size()];
+            double[] longitudes = new double[zona.getPoligono().size()];
+            for (int i = 0; i < latitudes.length; i++) {
+                latitudes[i] = zona.getPoligono().get(i)[0];
+                longitudes[i] = zona.getPoligono().get(i)[1];
+            }
+            return new Zona(zona.getId(), zona.getNome(), zona.getValorEntrega(), zona.getValorMinimoPedido(), latitudes, longitudes);
+        }
+
+        // Par-ímpar (ray casting): conta quantas arestas um raio para leste a partir do ponto cruza
+        boolean contem(double latitude, double longitude) {
+            boolean dentro = false;
+            for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+                if ((latitudes[i] > latitude) != (latitudes[j] > latitude)
+                        && longitude < (longitudes[j] - longitudes[i]) * (latitude - latitudes[i]) / (latitudes[j] - latitudes[i]) + longitudes[i]) {
+                    dentro = !dentro;
+                }
+            }
+            return dentro;
+        }
+    }
+
+    private final Zona[] zonas;
+    private final double latitudeMinima;
+    private final double longitudeMinima;
+    private final double tamanhoCelula;
+    private final int linhas;
+    private final int colunas;
+    private final int[][] interiores; // Por célula (linha * colunas + coluna): zonas que cobrem a célula inteira
+    private final int[][] bordas;     // Por célula: zonas cuja borda cruza a célula
+
+    public IndiceZonas(List<Zona> lista) {
+        List<Zona> validas = new ArrayList<>();
+        for (Zona zona : lista) {
+            if (zona.latitudes().length >= 3 && zona.valorEntrega() != null) {
+                validas.add(zona);
+            }
+        }
+        this.zonas = validas.toArray(new Zona[0]);
+        if (zonas.length == 0) {
+            latitudeMinima = longitudeMinima = 0;
+            tamanhoCelula = 1;
+            linhas = colunas = 0;
+            interiores = bordas = new int[0][];
+            return;
+        }
+
+        double latMin = Double.MAX_VALUE, latMax = -Double.MAX_VALUE, lngMin = Double.MAX_VALUE, lngMax = -Double.MAX_VALUE;
+        for (Zona zona : zonas) {
+            for (int i = 0; i < zona.latitudes().length; i++) {
+                latMin = Math.min(latMin, zona.latitudes()[i]);
+                latMax = Math.max(latMax, zona.latitudes()[i]);
+                lngMin = Math.min(lngMin, zona.longitudes()[i]);
+                lngMax = Math.max(lngMax, zona.longitudes()[i]);
+            }
+        }
+        latitudeMinima = latMin;
+        longitudeMinima = lngMin;
+        tamanhoCelula = Math.max(Math.max(latMax - latMin, lngMax - lngMin) / MAX_CELULAS_POR_LADO, 1e-9);
+        linhas = Math.min((int) ((latMax - latMin) / tamanhoCelula) + 1, MAX_CELULAS_POR_LADO + 1);
+        colunas = Math.min((int) ((lngMax - lngMin) / tamanhoCelula) + 1, MAX_CELULAS_POR_LADO + 1);
+
+        List<List<Integer>> interioresPorCelula = new ArrayList<>();
+        List<List<Integer>> bordasPorCelula = new ArrayList<>();
+        for (int i = 0; i < linhas * colunas; i++) {
+            interioresPorCelula.add(null);
+            bordasPorCelula.add(null);
+        }
+        for (int z = 0; z < zonas.length; z++) {
+            classificarCelulas(z, interioresPorCelula, bordasPorCelula);
+        }
+        interiores = compactar(interioresPorCelula);
+        bordas = compactar(bordasPorCelula);
+    }
+
+    public boolean vazio() {
+        return zonas.length == 0;
+    }
+
+    /**
+     * Zona que contém o ponto; se mais de uma contém, a de menor taxa (a mais favorável ao cliente).
+     * null se o ponto está fora de todas.
+     */
+    public Zona localizar(double latitude, double longitude) {
+        int linha = (int) Math.floor((latitude - latitudeMinima) / tamanhoCelula);
+        int coluna = (int) Math.floor((longitude - longitudeMinima) / tamanhoCelula);
+        if (linha < 0 || linha >= linhas || coluna < 0 || coluna >= colunas) {
+            return null;
+        }
+        int celula = linha * colunas + coluna;
+        Zona escolhida = null;
+        for (int z : interiores[celula]) {
+            escolhida = maisBarata(escolhida, zonas[z]);
+        }
+        for (int z : bordas[celula]) {
+            if (zonas[z].contem(latitude, longitude)) {
+                escolhida = maisBarata(escolhida, zonas[z]);
+            }
+        }
+        return escolhida;
+    }
+
+    private static Zona maisBarata(Zona atual, Zona candidata) {
+        return atual == null || candidata.valorEntrega().compareTo(atual.valorEntrega()) < 0 ? candidata : atual;
+    }
+
+    // Marca as células cruzadas pelas arestas da zona; as demais células da caixa da zona ficam
+    // inteiramente dentro ou fora, e o centro decide
+    private void classificarCelulas(int z, List<List<Integer>> interioresPorCelula, List<List<Integer>> bordasPorCelula) {
+        Zona zona = zonas[z];
+        double[] lat = zona.latitudes(), lng = zona.longitudes();
+        int linha0 = Integer.MAX_VALUE, linha1 = -1, coluna0 = Integer.MAX_VALUE, coluna1 = -1;
+        for (int i = 0; i < lat.length; i++) {
+            linha0 = Math.min(linha0, linha(lat[i]));
+            linha1 = Math.max(linha1, linha(lat[i]));
+            coluna0 = Math.min(coluna0, coluna(lng[i]));
+            coluna1 = Math.max(coluna1, coluna(lng[i]));
+        }
+        int largura = coluna1 - coluna0 + 1;
+        boolean[] borda = new boolean[(linha1 - linha0 + 1) * largura];
+        double folga = tamanhoCelula * 1e-6; // Arestas sobre a divisa marcam as duas células
+
+        for (int i = 0, j = lat.length - 1; i < lat.length; j = i++) {
+            for (int l = Math.min(linha(lat[i]), linha(lat[j])); l <= Math.max(linha(lat[i]), linha(lat[j])); l++) {
+                for (int c = Math.min(coluna(lng[i]), coluna(lng[j])); c <= Math.max(coluna(lng[i]), coluna(lng[j])); c++) {
+                    double latCelula = latitudeMinima + l * tamanhoCelula, lngCelula = longitudeMinima + c * tamanhoCelula;
+                    if (segmentoCruzaRetangulo(lng[j], lat[j], lng[i], lat[i],
+                            lngCelula - folga, latCelula - folga, lngCelula + tamanhoCelula + folga, latCelula + tamanhoCelula + folga)) {
+                        borda[(l - linha0) * largura + (c - coluna0)] = true;
+                    }
+                }
+            }
+        }
+
+        for (int l = linha0; l <= linha1; l++) {
+            for (int c = coluna0; c <= coluna1; c++) {
+                int celula = l * colunas + c;
+                if (borda[(l - linha0) * largura + (c - coluna0)]) {
+                    adicionar(bordasPorCelula, celula, z);
+                } else if (zona.contem(latitudeMinima + (l + 0.5) * tamanhoCelula, longitudeMinima + (c + 0.5) * tamanhoCelula)) {
+                    adicionar(interioresPorCelula, celula, z);
+                }
+            }
+        }
+    }
+
+    private int linha(double latitude) {
+        return Math.min(Math.max((int) Math.floor((latitude - latitudeMinima) / tamanhoCelula), 0), linhas - 1);
+    }
+
+    private int coluna(double longitude) {
+        return Math.min(Math.max((int) Math.floor((longitude - longitudeMinima) / tamanhoCelula), 0), colunas - 1);
+    }
+
+    // Liang-Barsky: recorta o segmento pelo retângulo; se sobra algum trecho, eles se cruzam
+    private static boolean segmentoCruzaRetangulo(double x0, double y0, double x1, double y1,
+                                                  double xMin, double yMin, double xMax, double yMax) {
+        double dx = x1 - x0, dy = y1 - y0;
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {x0 - xMin, xMax - x0, y0 - yMin, yMax - y0};
+        double t0 = 0, t1 = 1;
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                if (q[i] < 0) return false;
+            } else {
+                double t = q[i] / p[i];
+                if (p[i] < 0) {
+                    if (t > t1) return false;
+                    t0 = Math.max(t0, t);
+                } else {
+                    if (t < t0) return false;
+                    t1 = Math.min(t1, t);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void adicionar(List<List<Integer>> porCelula, int celula, int zona) {
+        if (porCelula.get(celula) == null) {
+            porCelula.set(celula, new ArrayList<>(2));
+        }
+        porCelula.get(celula).add(zona);
+    }
+
+    private static int[][] compactar(List<List<Integer>> porCelula) {
+        int[][] resultado = new int[porCelula.size()][];
+        for (int i = 0; i < resultado.length; i++) {
+            List<Integer> zonasDaCelula = porCelula.get(i);
+            resultado[i] = zonasDaCelula == null ? NENHUMA : zonasDaCelula.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return resultado;
+    }
+}
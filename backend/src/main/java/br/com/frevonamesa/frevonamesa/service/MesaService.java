@@ -31,6 +31,9 @@ public class MesaService {
     @Autowired
     private RestauranteService restauranteService;
 
+    @Autowired
+    private ResumoCaixaService resumoCaixaService;
+
     @Transactional
     public Mesa atualizarStatus(Long id, StatusMesa novoStatus) {
         Restaurante restaurante = restauranteService.getRestauranteLogado();
@@ -87,12 +90,15 @@ public class MesaService {
         }
 
         // Pagamos apenas os pedidos que ainda não têm um tipo de pagamento definido
+        List<Pedido> pedidosPagos = new ArrayList<>();
         for (Pedido pedido : mesa.getPedidos()) {
             if (pedido.getTipoPagamento() == null) {
                 pedido.setTipoPagamento(tipo);
                 pedidoRepository.save(pedido);
+                pedidosPagos.add(pedido);
             }
         }
+        resumoCaixaService.registrarPagamentos(restaurante.getId(), pedidosPagos);
 
         mesa.setStatus(StatusMesa.PAGA);
         return mesaRepository.save(mesa);
@@ -0,0 +1,98 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.dto.ItemPedidoRequestDTO;
+import br.com.frevonamesa.frevonamesa.model.*;
+import br.com.frevonamesa.frevonamesa.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Monta os itens de um pedido a partir dos DTOs recebidos.
+ * Os preços vêm do CardapioSnapshot do restaurante (em memória, indexado por ID), então a
+ * precificação não faz consultas ao banco; o pedido registra a versão do cardápio usada.
+ * Usado por todos os fluxos de criação de pedido do PedidoService.
+ */
+@Service
+public class MontagemPedidoService {
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private CardapioSnapshotService cardapioSnapshotService;
+
+    /**
+     * Cria os ItemPedido (com adicionais) no pedido informado e retorna o subtotal dos itens.
+     */
+    public BigDecimal montarItens(Pedido pedido, Long restauranteId, List<ItemPedidoRequestDTO> itensDto) {
+        List<ItemPedidoRequestDTO> itens = itensDto != null ? itensDto : Collections.emptyList();
+        CardapioSnapshot cardapio = cardapioSnapshotService.getSnapshot(restauranteId);
+
+        // Snapshot desatualizado (commit de outra escrita ainda sendo propagado): recarrega uma vez, só se a
+        // versão gravada for mais nova (ids inventados numa requisição pública não forçam releitura do cardápio)
+        if (!contemTodos(cardapio, itens)) {
+            cardapio = cardapioSnapshotService.recarregarSeDesatualizado(cardapio);
+        }
+
+        if (pedido.getItens() == null) {
+            pedido.setItens(new ArrayList<>());
+        }
+        pedido.setVersaoCardapio(cardapio.getVersao());
+
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (ItemPedidoRequestDTO itemDto : itens) {
+            CardapioSnapshot.ProdutoPreco produto = cardapio.getProduto(itemDto.getProdutoId());
+            if (produto == null) {
+                // Fora do cardápio deste restaurante: distingue produto inexistente de produto de outro restaurante
+                if (itemDto.getProdutoId() != null && produtoRepository.existsById(itemDto.getProdutoId())) {
+                    throw new SecurityException("Acesso negado.");
+                }
+                throw new RuntimeException("Produto não encontrado!");
+            }
+
+            ItemPedido itemPedido = new ItemPedido();
+            itemPedido.setProduto(produtoRepository.getReferenceById(produto.id())); // Só a referência: o preço vem do snapshot
+            itemPedido.setQuantidade(itemDto.getQuantidade());
+            itemPedido.setPrecoUnitario(produto.preco());
+            itemPedido.setObservacao(itemDto.getObservacao());
+            itemPedido.setPedido(pedido); // Essencial para cálculo de subtotal com adicionais
+
+            if (itemDto.getAdicionaisIds() != null) {
+                for (Long adicionalId : itemDto.getAdicionaisIds()) {
+                    CardapioSnapshot.AdicionalPreco adicional = cardapio.getAdicional(adicionalId);
+                    if (adicional == null) {
+                        throw new RuntimeException("Adicional inválido: ID " + adicionalId);
+                    }
+                    ItemPedidoAdicional itemAdicional = new ItemPedidoAdicional();
+                    itemAdicional.setItemPedido(itemPedido);
+                    itemAdicional.setNomeAdicional(adicional.nome());
+                    itemAdicional.setPrecoAdicional(adicional.preco());
+                    itemPedido.getAdicionais().add(itemAdicional);
+                }
+            }
+
+            subtotal = subtotal.add(itemPedido.getSubtotal());
+            pedido.getItens().add(itemPedido);
+        }
+        return subtotal;
+    }
+
+    private boolean contemTodos(CardapioSnapshot cardapio, List<ItemPedidoRequestDTO> itens) {
+        for (ItemPedidoRequestDTO itemDto : itens) {
+            if (cardapio.getProduto(itemDto.getProdutoId()) == null) {
+                return false;
+            }
+            if (itemDto.getAdicionaisIds() != null) {
+                for (Long adicionalId : itemDto.getAdicionaisIds()) {
+                    if (cardapio.getAdicional(adicionalId) == null) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,66 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.model.*;
+import br.com.frevonamesa.frevonamesa.repository.NotificacaoOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Enfileira as notificações do n8n na tabela de outbox, dentro da transação que alterou o pedido.
+ * O envio HTTP acontece fora da requisição, no NotificacaoOutboxDispatcher.
+ */
+@Service
+public class NotificacaoOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificacaoOutboxService.class);
+
+    @Autowired
+    private NotificacaoOutboxRepository notificacaoOutboxRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${n8n.webhook.url}")
+    private String n8nWebhookUrl;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarMudancaStatus(Pedido pedido, Restaurante restaurante, StatusPedido novoStatus) {
+        if (n8nWebhookUrl == null || n8nWebhookUrl.isBlank() || restaurante.getWhatsappNumber() == null || restaurante.getWhatsappNumber().isBlank()) {
+            logger.warn("Webhook n8n ou WhatsApp do restaurante não configurados. Notificação não enviada para pedido #{}", pedido.getId());
+            return;
+        }
+
+        Map<String, Object> corpo = new LinkedHashMap<>();
+        corpo.put("pedidoId", pedido.getId());
+        corpo.put("novoStatus", novoStatus.toString());
+        corpo.put("clienteNome", pedido.getNomeClienteDelivery());
+        corpo.put("clienteTelefone", pedido.getTelefoneClienteDelivery());
+        corpo.put("restauranteWhatsapp", restaurante.getWhatsappNumber());
+        corpo.put("pedidoUuid", pedido.getUuid() != null ? pedido.getUuid().toString() : ""); // Envia UUID se existir
+
+        NotificacaoOutbox notificacao = new NotificacaoOutbox();
+        notificacao.setPedidoId(pedido.getId());
+        notificacao.setRestauranteId(restaurante.getId());
+        try {
+            notificacao.setPayload(objectMapper.writeValueAsString(corpo));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao montar notificação do pedido #" + pedido.getId(), e);
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        notificacao.setCriadoEm(agora);
+        notificacao.setProximaTentativa(agora);
+        notificacaoOutboxRepository.save(notificacao);
+        logger.info("Notificação do n8n enfileirada para o pedido #{}", pedido.getId());
+    }
+}
@@ -7,20 +7,20 @@ import br.com.frevonamesa.frevonamesa.exception.PedidoLimitException;
 import br.com.frevonamesa.frevonamesa.model.*;
 import br.com.frevonamesa.frevonamesa.repository.*;
 import com.stripe.exception.StripeException;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.beans.factory.annotation.Value;
 import org.slf4j.Logger; // Importar Logger
 import org.slf4j.LoggerFactory; // Importar LoggerFactory
 
@@ -34,20 +34,32 @@ public class PedidoService {
     private static final Logger logger = LoggerFactory.getLogger(PedidoService.class); // Adiciona logger
 
     @Autowired private MesaRepository mesaRepository;
-    @Autowired private ProdutoRepository produtoRepository;
     @Autowired private PedidoRepository pedidoRepository;
     @Autowired private RestauranteRepository restauranteRepository;
-    @Autowired private AdicionalRepository adicionalRepository;
+    @Autowired private MontagemPedidoService montagemPedidoService;
+    @Autowired private CotaDeliveryService cotaDeliveryService;
+    @Autowired private NotificacaoOutboxService notificacaoOutboxService;
+    @Autowired private DeliveryEventosService deliveryEventosService;
+    @Autowired private RastreioPedidoService rastreioPedidoService;
+    @Autowired private ResumoCaixaService resumoCaixaService;
 
     @Autowired
     private FinanceiroService financeiroService; // FinanceiroService já estava injetado
 
-    @Value("${n8n.webhook.url}")
-    private String n8nWebhookUrl;
-
     @Autowired
     private RestauranteService restauranteService; // RestauranteService já estava injetado
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transacaoLeitura;
+
+    @PostConstruct
+    public void init() {
+        transacaoLeitura = new TransactionTemplate(transactionManager);
+        transacaoLeitura.setReadOnly(true);
+    }
+
     // MÉTODO AUXILIAR para calcular o valor total do pedido com a taxa de entrega
     private BigDecimal calcularTotalComFrete(Restaurante restaurante, BigDecimal subtotal, BigDecimal taxaEntregaCalculada) {
         // Se a taxa for negativa (erro de cálculo/fora de área), retorna apenas o subtotal
@@ -56,6 +68,14 @@ public class PedidoService {
         }
         return subtotal.add(taxaEntregaCalculada);
     }
+    // Pedido mínimo da zona de entrega do cliente: vale para o subtotal dos itens, sem a taxa
+    private void validarPedidoMinimo(BigDecimal subtotal, AreaEntregaService.Frete frete) {
+        BigDecimal minimo = frete.valorMinimoPedido();
+        if (minimo != null && subtotal.compareTo(minimo) < 0) {
+            throw new RuntimeException("O pedido mínimo para este endereço é de R$ " + minimo.setScale(2, RoundingMode.HALF_UP).toPlainString().replace('.', ',') + ".");
+        }
+    }
+
     // Sobrecarga para usar a taxa fixa do restaurante (quando Haversine está desativado)
     private BigDecimal calcularTotalComFrete(Restaurante restaurante, BigDecimal subtotal) {
         return subtotal.add(restaurante.getTaxaEntrega() != null ? restaurante.getTaxaEntrega() : BigDecimal.ZERO);
@@ -79,59 +99,18 @@ public class PedidoService {
         novoPedido.setItens(new ArrayList<>());
         novoPedido.setTipo(TipoPedido.MESA);
 
-        List<Adicional> adicionaisDisponiveis = adicionalRepository.findByRestauranteId(restaurante.getId());
-
-        for (var itemDto : dto.getItens()) {
-            Produto produto = produtoRepository.findById(itemDto.getProdutoId()).orElseThrow(() -> new RuntimeException("Produto não encontrado!"));
-            if (!produto.getRestaurante().getId().equals(restaurante.getId())) {
-                throw new SecurityException("Acesso negado.");
-            }
-            ItemPedido itemPedido = new ItemPedido();
-            itemPedido.setProduto(produto);
-            itemPedido.setQuantidade(itemDto.getQuantidade());
-            itemPedido.setPrecoUnitario(produto.getPreco());
-            itemPedido.setObservacao(itemDto.getObservacao());
-            itemPedido.setPedido(novoPedido); // Essencial para cálculo de subtotal com adicionais
-
-            if (itemDto.getAdicionaisIds() != null && !itemDto.getAdicionaisIds().isEmpty()) {
-                itemPedido.setAdicionais(new ArrayList<>()); // Inicializa a lista
-                for (Long adicionalId : itemDto.getAdicionaisIds()) {
-                    Adicional adicional = adicionaisDisponiveis.stream()
-                            .filter(a -> a.getId().equals(adicionalId))
-                            .findFirst()
-                            .orElseThrow(() -> new RuntimeException("Adicional inválido: ID " + adicionalId));
-                    // Cria e adiciona o ItemPedidoAdicional
-                    itemPedido.getAdicionais().add(new ItemPedidoAdicional(itemPedido, adicional));
-                }
-            } else {
-                itemPedido.setAdicionais(new ArrayList<>()); // Garante que a lista não seja nula
-            }
-            novoPedido.getItens().add(itemPedido);
-        }
-
-        BigDecimal totalPedido = novoPedido.getItens().stream()
-                .map(ItemPedido::getSubtotal) // Usa o método getSubtotal que inclui adicionais
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Produtos e adicionais resolvidos em lote (uma consulta para cada)
+        BigDecimal totalPedido = montagemPedidoService.montarItens(novoPedido, restaurante.getId(), dto.getItens());
         novoPedido.setTotal(totalPedido);
 
-        // Atualiza valor total da mesa SOMENTE com o valor do NOVO pedido
-        BigDecimal valorTotalAtualizadoMesa = mesa.getValorTotal() != null ? mesa.getValorTotal().add(totalPedido) : totalPedido;
-        mesa.setValorTotal(valorTotalAtualizadoMesa);
-
-
         if (restaurante.isImpressaoMesaAtivada()) {
             novoPedido.setStatus(StatusPedido.PENDENTE);
         } else {
             novoPedido.setStatus(StatusPedido.CONFIRMADO);
         }
 
-        if (mesa.getStatus() == StatusMesa.LIVRE) {
-            mesa.setStatus(StatusMesa.OCUPADA);
-            mesa.setHoraAbertura(LocalTime.now());
-        }
-
         pedidoRepository.save(novoPedido); // Salva o pedido (e itens em cascata)
-        mesaRepository.save(mesa); // Salva a mesa atualizada
+        adicionarPedidoNaMesa(mesa, totalPedido, null);
         return novoPedido;
     }
 
@@ -169,7 +148,7 @@ public class PedidoService {
     public Pedido criarPedidoDelivery(PedidoDeliveryRequestDTO dto) throws PedidoLimitException {
         Restaurante restaurante = restauranteService.getRestauranteLogado();
 
-        validarCotaDelivery(restaurante); // Validação Centralizada
+        cotaDeliveryService.verificarDisponivel(restaurante); // Validação Centralizada (falha rápida)
 
         Pedido novoPedido = new Pedido();
         novoPedido.setRestaurante(restaurante);
@@ -178,48 +157,48 @@ public class PedidoService {
         novoPedido.setTipo(TipoPedido.DELIVERY);
         novoPedido.setUuid(UUID.randomUUID());
         novoPedido.setStatus(restaurante.isImpressaoDeliveryAtivada() ? StatusPedido.PENDENTE : StatusPedido.EM_PREPARO);
+        novoPedido.setDataHoraStatus(novoPedido.getDataHora());
         novoPedido.setNomeClienteDelivery(dto.getNomeCliente());
         novoPedido.setTelefoneClienteDelivery(dto.getTelefoneCliente());
         novoPedido.setEnderecoClienteDelivery(dto.getEnderecoCliente());
         novoPedido.setPontoReferencia(dto.getPontoReferencia());
 
-        List<Adicional> adicionaisDisponiveis = adicionalRepository.findByRestauranteId(restaurante.getId());
-        BigDecimal subtotalPedido = BigDecimal.ZERO;
-
-        for (var itemDto : dto.getItens()) {
-            Produto produto = produtoRepository.findById(itemDto.getProdutoId())
-                    .orElseThrow(() -> new RuntimeException("Produto não encontrado!"));
-            ItemPedido itemPedido = new ItemPedido();
-            itemPedido.setProduto(produto);
-            itemPedido.setQuantidade(itemDto.getQuantidade());
-            itemPedido.setPrecoUnitario(produto.getPreco());
-            itemPedido.setObservacao(itemDto.getObservacao());
-            itemPedido.setPedido(novoPedido);
-
-            if (itemDto.getAdicionaisIds() != null && !itemDto.getAdicionaisIds().isEmpty()) {
-                itemPedido.setAdicionais(new ArrayList<>());
-                for (Long adicionalId : itemDto.getAdicionaisIds()) {
-                    Adicional adicional = adicionaisDisponiveis.stream()
-                            .filter(a -> a.getId().equals(adicionalId)).findFirst()
-                            .orElseThrow(() -> new RuntimeException("Adicional inválido"));
-                    itemPedido.getAdicionais().add(new ItemPedidoAdicional(itemPedido, adicional));
-                }
-            }
-            subtotalPedido = subtotalPedido.add(itemPedido.getSubtotal());
-            novoPedido.getItens().add(itemPedido);
-        }
+        BigDecimal subtotalPedido = montagemPedidoService.montarItens(novoPedido, restaurante.getId(), dto.getItens());
 
         novoPedido.setTotal(calcularTotalComFrete(restaurante, subtotalPedido));
         Pedido pedidoSalvo = pedidoRepository.save(novoPedido);
 
-        incrementarContadorDelivery(restaurante); // Incremento Centralizado
+        cotaDeliveryService.consumir(restaurante); // Check-and-increment atômico da cota
+        deliveryEventosService.publicar(restaurante.getId(), DeliveryEventosService.EVENTO_PEDIDO_CRIADO, pedidoSalvo);
+        rastreioPedidoService.registrar(pedidoSalvo);
         return pedidoSalvo;
     }
 
 
     public Map<StatusPedido, List<Pedido>> listarPedidosDeliveryPorStatus() {
         Restaurante restaurante = restauranteService.getRestauranteLogado();
-        Long restauranteId = restaurante.getId();
+        return listarPedidosDeliveryPorStatus(restaurante.getId());
+    }
+
+    /**
+     * Abre o stream SSE do painel de delivery do restaurante logado. O snapshot inicial (kanban +
+     * últimos finalizados) só é montado se a reconexão não puder ser atendida pelo buffer de eventos.
+     */
+    @Transactional(readOnly = true)
+    public SseEmitter abrirStreamDelivery(String lastEventId) {
+        Long restauranteId = restauranteService.getRestauranteLogado().getId();
+        // Consulta e serialização (itens carregados sob demanda) numa transação curta: o stream não tem
+        // open-in-view e não segura uma conexão do pool enquanto o painel fica aberto
+        return deliveryEventosService.conectar(restauranteId, lastEventId, () -> transacaoLeitura.execute(status -> {
+            Map<String, Object> snapshot = new HashMap<>();
+            snapshot.put("pedidos", listarPedidosDeliveryPorStatus(restauranteId));
+            snapshot.put("finalizados", pedidoRepository.findTop10ByRestauranteIdAndTipoAndStatusOrderByDataHoraDesc(
+                    restauranteId, TipoPedido.DELIVERY, StatusPedido.FINALIZADO));
+            return deliveryEventosService.serializar(snapshot);
+        }));
+    }
+
+    private Map<StatusPedido, List<Pedido>> listarPedidosDeliveryPorStatus(Long restauranteId) {
         Map<StatusPedido, List<Pedido>> pedidosAgrupados = new HashMap<>();
 
         // Lista de status ativos para o painel Kanban
@@ -271,41 +250,21 @@ public class PedidoService {
         // Define pagamento como DINHEIRO se finalizar sem ter sido pago online/definido antes
         if (novoStatus == StatusPedido.FINALIZADO && pedido.getTipoPagamento() == null) {
             pedido.setTipoPagamento(TipoPagamento.DINHEIRO); // Assume dinheiro como padrão
+            resumoCaixaService.registrarPagamento(pedido);
         }
 
         pedido.setStatus(novoStatus);
+        pedido.setDataHoraStatus(LocalDateTime.now());
         logger.info("Status do Pedido Delivery ID {} atualizado para {}", pedidoId, novoStatus);
 
-        // --- LÓGICA DE WEBHOOK PARA O N8N ---
-        if (n8nWebhookUrl != null && !n8nWebhookUrl.isBlank() && restaurante.getWhatsappNumber() != null && !restaurante.getWhatsappNumber().isBlank()) {
-            RestTemplate restTemplate = new RestTemplate();
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            String requestBody = String.format(
-                    "{ \"pedidoId\": %d, \"novoStatus\": \"%s\", \"clienteNome\": \"%s\", \"clienteTelefone\": \"%s\", \"restauranteWhatsapp\": \"%s\", \"pedidoUuid\": \"%s\" }",
-                    pedido.getId(),
-                    novoStatus.toString(),
-                    pedido.getNomeClienteDelivery(),
-                    pedido.getTelefoneClienteDelivery(),
-                    restaurante.getWhatsappNumber(),
-                    pedido.getUuid() != null ? pedido.getUuid().toString() : "" // Envia UUID se existir
-            );
-
-            HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
-
-            try {
-                restTemplate.postForEntity(n8nWebhookUrl, entity, String.class);
-                logger.info("Webhook do n8n notificado para o pedido #{}", pedido.getId());
-            } catch (Exception e) {
-                logger.error("Falha ao notificar webhook do n8n para pedido #{}: {}", pedido.getId(), e.getMessage());
-                // Não lançar exceção aqui para não reverter a atualização de status
-            }
-        } else {
-            logger.warn("Webhook n8n ou WhatsApp do restaurante não configurados. Notificação não enviada para pedido #{}", pedido.getId());
-        }
+        // --- NOTIFICAÇÃO PARA O N8N ---
+        // Gravada na outbox nesta mesma transação; o envio HTTP é feito em segundo plano pelo dispatcher
+        notificacaoOutboxService.registrarMudancaStatus(pedido, restaurante, novoStatus);
 
-        return pedidoRepository.save(pedido);
+        Pedido pedidoAtualizado = pedidoRepository.save(pedido);
+        deliveryEventosService.publicar(restaurante.getId(), DeliveryEventosService.EVENTO_STATUS_ALTERADO, pedidoAtualizado);
+        rastreioPedidoService.registrar(pedidoAtualizado);
+        return pedidoAtualizado;
     }
 
     public List<Pedido> listarUltimos10Finalizados() {
@@ -324,7 +283,11 @@ public class PedidoService {
         }
         pedido.setImpresso(true); // Marca como impresso
         logger.info("Pedido Delivery ID {} marcado como impresso.", pedidoId);
-        return pedidoRepository.save(pedido);
+        Pedido pedidoImpresso = pedidoRepository.save(pedido);
+        if (pedidoImpresso.getTipo() == TipoPedido.DELIVERY) {
+            deliveryEventosService.publicar(restaurante.getId(), DeliveryEventosService.EVENTO_PEDIDO_IMPRESSO, pedidoImpresso);
+        }
+        return pedidoImpresso;
     }
 
     // Método não parece ser mais usado pelo frontend, mas mantido por segurança
@@ -340,11 +303,6 @@ public class PedidoService {
         Mesa mesa = mesaRepository.findByNumeroAndRestauranteId(dto.getNumeroMesa(), restaurante.getId())
                 .orElseThrow(() -> new RuntimeException("Mesa não encontrada ou inválida para este restaurante."));
 
-        // Atualiza nome do cliente na mesa se informado no DTO
-        if (dto.getNomeCliente() != null && !dto.getNomeCliente().trim().isEmpty()) {
-            mesa.setNomeCliente(dto.getNomeCliente());
-        }
-
         Pedido novoPedido = new Pedido();
         novoPedido.setMesa(mesa);
         novoPedido.setRestaurante(restaurante);
@@ -352,99 +310,39 @@ public class PedidoService {
         novoPedido.setItens(new ArrayList<>());
         novoPedido.setTipo(TipoPedido.MESA);
 
-        List<Adicional> adicionaisDisponiveis = adicionalRepository.findByRestauranteId(restaurante.getId());
-        BigDecimal totalPedido = BigDecimal.ZERO;
-
-        for (var itemDto : dto.getItens()) {
-            Produto produto = produtoRepository.findById(itemDto.getProdutoId())
-                    .orElseThrow(() -> new RuntimeException("Produto não encontrado!"));
-            ItemPedido itemPedido = new ItemPedido();
-            itemPedido.setProduto(produto);
-            itemPedido.setQuantidade(itemDto.getQuantidade());
-            itemPedido.setPrecoUnitario(produto.getPreco());
-            itemPedido.setObservacao(itemDto.getObservacao());
-            itemPedido.setPedido(novoPedido); // Associa
-
-            if (itemDto.getAdicionaisIds() != null && !itemDto.getAdicionaisIds().isEmpty()) {
-                itemPedido.setAdicionais(new ArrayList<>());
-                for (Long adicionalId : itemDto.getAdicionaisIds()) {
-                    Adicional adicional = adicionaisDisponiveis.stream()
-                            .filter(a -> a.getId().equals(adicionalId))
-                            .findFirst()
-                            .orElseThrow(() -> new RuntimeException("Adicional inválido: ID " + adicionalId));
-                    itemPedido.getAdicionais().add(new ItemPedidoAdicional(itemPedido, adicional));
-                }
-            } else {
-                itemPedido.setAdicionais(new ArrayList<>());
-            }
-            totalPedido = totalPedido.add(itemPedido.getSubtotal()); // Acumula
-            novoPedido.getItens().add(itemPedido);
-        }
+        // Produtos e adicionais resolvidos em lote (uma consulta para cada)
+        BigDecimal totalPedido = montagemPedidoService.montarItens(novoPedido, restaurante.getId(), dto.getItens());
 
         novoPedido.setTotal(totalPedido);
-        // Atualiza valor total da mesa
-        BigDecimal valorTotalAtualizadoMesa = mesa.getValorTotal() != null ? mesa.getValorTotal().add(totalPedido) : totalPedido;
-        mesa.setValorTotal(valorTotalAtualizadoMesa);
-
         novoPedido.setStatus(restaurante.isImpressaoMesaAtivada() ? StatusPedido.PENDENTE : StatusPedido.CONFIRMADO);
 
-        if (mesa.getStatus() == StatusMesa.LIVRE) {
-            mesa.setStatus(StatusMesa.OCUPADA);
-            mesa.setHoraAbertura(LocalTime.now());
-        }
-
         pedidoRepository.save(novoPedido);
-        mesaRepository.save(mesa);
+        // Atualiza nome do cliente na mesa se informado no DTO
+        String nomeCliente = dto.getNomeCliente() != null && !dto.getNomeCliente().trim().isEmpty() ? dto.getNomeCliente() : null;
+        adicionarPedidoNaMesa(mesa, totalPedido, nomeCliente);
         logger.info("Pedido de Cliente para Mesa {} criado com sucesso: Pedido ID {}", mesa.getNumero(), novoPedido.getId());
         return novoPedido;
     }
 
-    private void validarCotaDelivery(Restaurante restaurante) {
-        // Definição do limite para testes (mudar para 30 em produção)
-        int limiteBase = 2;
-        int limiteTotal = limiteBase + restaurante.getPedidosExtrasContratados();
-
-        // Verificação de isenção baseada nas suas flags existentes
-        boolean isIsento = restaurante.isDeliveryPro() ||
-                restaurante.isLegacyFree() ||
-                restaurante.isBetaTester() ||
-                !"GRATUITO".equals(restaurante.getPlano());
-
-        if (isIsento) return;
-
-        if (restaurante.getPedidosMesAtual() >= limiteTotal) {
-            logger.warn("Bloqueio de cota: Restaurante ID {} atingiu {}/{}",
-                    restaurante.getId(), restaurante.getPedidosMesAtual(), limiteTotal);
-            throw new PedidoLimitException("Limite de pedidos atingido! Faça upgrade para continuar recebendo.",
-                    restaurante.getPedidosMesAtual(), limiteTotal);
-        }
-    }
-
-    private void incrementarContadorDelivery(Restaurante restaurante) {
-        // Só incrementa se for uma conta com limites (Gratuita e sem flags de isenção)
-        boolean isGratuitoLimitado = "GRATUITO".equals(restaurante.getPlano())
-                && !restaurante.isDeliveryPro()
-                && !restaurante.isLegacyFree()
-                && !restaurante.isBetaTester();
-
-        if (isGratuitoLimitado) {
-            restaurante.setPedidosMesAtual(restaurante.getPedidosMesAtual() + 1);
-            restauranteRepository.save(restaurante);
-            logger.info("Contador incrementado para Restaurante ID {}: Novo valor {}",
-                    restaurante.getId(), restaurante.getPedidosMesAtual());
-        }
+    /**
+     * Soma o pedido ao total da mesa com um UPDATE atômico (sem ler-somar-gravar), para que pedidos
+     * simultâneos na mesma mesa (garçons + QR Code) não percam valores. Executado por último na
+     * transação, para segurar o lock da linha da mesa pelo menor tempo possível.
+     */
+    private void adicionarPedidoNaMesa(Mesa mesa, BigDecimal totalPedido, String nomeCliente) {
+        mesaRepository.adicionarPedidoAoTotal(mesa.getId(), totalPedido, nomeCliente, LocalTime.now(),
+                StatusMesa.LIVRE, StatusMesa.OCUPADA);
     }
 
-
     /**
      * Salva um pedido de cliente final com pagamento offline (DINHEIRO/CARTAO/PIX na entrega)
      */
     @Transactional
-    public Pedido salvarPedidoDeliveryCliente(PedidoDeliveryClienteDTO dto, TipoPagamento tipoPagamento, BigDecimal taxaEntregaCalculada) throws PedidoLimitException {
+    public Pedido salvarPedidoDeliveryCliente(PedidoDeliveryClienteDTO dto, TipoPagamento tipoPagamento, AreaEntregaService.Frete frete) throws PedidoLimitException {
         Restaurante restaurante = restauranteRepository.findById(dto.getRestauranteId())
                 .orElseThrow(() -> new RuntimeException("Restaurante não encontrado!"));
 
-        validarCotaDelivery(restaurante); // Agora o link público também barra!
+        cotaDeliveryService.verificarDisponivel(restaurante); // Agora o link público também barra!
 
         Pedido novoPedido = new Pedido();
         novoPedido.setUuid(UUID.randomUUID());
@@ -453,38 +351,23 @@ public class PedidoService {
         novoPedido.setTipo(TipoPedido.DELIVERY);
         novoPedido.setItens(new ArrayList<>());
         novoPedido.setStatus(restaurante.isImpressaoDeliveryAtivada() ? StatusPedido.PENDENTE : StatusPedido.EM_PREPARO);
+        novoPedido.setDataHoraStatus(novoPedido.getDataHora());
         novoPedido.setNomeClienteDelivery(dto.getNomeCliente());
         novoPedido.setTelefoneClienteDelivery(dto.getTelefoneCliente());
         novoPedido.setEnderecoClienteDelivery(dto.getEnderecoCliente());
         novoPedido.setPontoReferencia(dto.getPontoReferencia());
         novoPedido.setTipoPagamento(tipoPagamento);
 
-        BigDecimal subtotalPedido = BigDecimal.ZERO;
-        List<Adicional> adicionaisDisponiveis = adicionalRepository.findByRestauranteId(restaurante.getId());
-
-        for (var itemDto : dto.getItens()) {
-            Produto produto = produtoRepository.findById(itemDto.getProdutoId()).orElseThrow();
-            ItemPedido itemPedido = new ItemPedido();
-            itemPedido.setProduto(produto);
-            itemPedido.setQuantidade(itemDto.getQuantidade());
-            itemPedido.setPrecoUnitario(produto.getPreco());
-            itemPedido.setPedido(novoPedido);
-
-            if (itemDto.getAdicionaisIds() != null) {
-                itemPedido.setAdicionais(new ArrayList<>());
-                for (Long aid : itemDto.getAdicionaisIds()) {
-                    Adicional a = adicionaisDisponiveis.stream().filter(ad -> ad.getId().equals(aid)).findFirst().orElseThrow();
-                    itemPedido.getAdicionais().add(new ItemPedidoAdicional(itemPedido, a));
-                }
-            }
-            subtotalPedido = subtotalPedido.add(itemPedido.getSubtotal());
-            novoPedido.getItens().add(itemPedido);
-        }
+        BigDecimal subtotalPedido = montagemPedidoService.montarItens(novoPedido, restaurante.getId(), dto.getItens());
+        validarPedidoMinimo(subtotalPedido, frete);
 
-        novoPedido.setTotal(calcularTotalComFrete(restaurante, subtotalPedido, taxaEntregaCalculada));
+        novoPedido.setTotal(calcularTotalComFrete(restaurante, subtotalPedido, frete.taxa()));
         Pedido pedidoSalvo = pedidoRepository.save(novoPedido);
 
-        incrementarContadorDelivery(restaurante);
+        cotaDeliveryService.consumir(restaurante);
+        resumoCaixaService.registrarPagamento(pedidoSalvo); // Pagamento na entrega já conta no faturamento (como no relatório)
+        deliveryEventosService.publicar(restaurante.getId(), DeliveryEventosService.EVENTO_PEDIDO_CRIADO, pedidoSalvo);
+        rastreioPedidoService.registrar(pedidoSalvo);
         return pedidoSalvo;
     }
 
@@ -493,71 +376,40 @@ public class PedidoService {
      * Cria o pedido com status AGUARDANDO_PGTO_LIMITE e chama o FinanceiroService.
      */
     @Transactional
-    public String iniciarPagamentoDeliveryCliente(PedidoDeliveryClienteDTO dto, BigDecimal taxaEntregaCalculada) throws StripeException {
+    public String iniciarPagamentoDeliveryCliente(PedidoDeliveryClienteDTO dto, AreaEntregaService.Frete frete) throws StripeException {
         Restaurante restaurante = restauranteRepository.findById(dto.getRestauranteId())
                 .orElseThrow(() -> new RuntimeException("Restaurante não encontrado!"));
 
         // TRAVA: Verifica se o restaurante ainda tem cota antes de iniciar o checkout
-        validarCotaDelivery(restaurante);
-
-        UUID pedidoUuid = UUID.randomUUID();
-        BigDecimal subtotalPedido = BigDecimal.ZERO;
-        List<Adicional> adicionaisDisponiveis = adicionalRepository.findByRestauranteId(restaurante.getId());
-        List<ItemPedido> itensParaSalvar = new ArrayList<>();
-
-        // Objeto temporário para associar aos itens durante o cálculo
-        Pedido pedidoTemporario = new Pedido();
-
-        for (var itemDto : dto.getItens()) {
-            Produto produto = produtoRepository.findById(itemDto.getProdutoId())
-                    .orElseThrow(() -> new RuntimeException("Produto não encontrado!"));
-
-            ItemPedido itemPedido = new ItemPedido();
-            itemPedido.setProduto(produto);
-            itemPedido.setQuantidade(itemDto.getQuantidade());
-            itemPedido.setPrecoUnitario(produto.getPreco());
-            itemPedido.setObservacao(itemDto.getObservacao());
-            itemPedido.setPedido(pedidoTemporario);
-
-            if (itemDto.getAdicionaisIds() != null && !itemDto.getAdicionaisIds().isEmpty()) {
-                itemPedido.setAdicionais(new ArrayList<>());
-                for (Long adicionalId : itemDto.getAdicionaisIds()) {
-                    Adicional adicional = adicionaisDisponiveis.stream()
-                            .filter(a -> a.getId().equals(adicionalId))
-                            .findFirst()
-                            .orElseThrow(() -> new RuntimeException("Adicional inválido"));
-                    itemPedido.getAdicionais().add(new ItemPedidoAdicional(itemPedido, adicional));
-                }
-            }
-            subtotalPedido = subtotalPedido.add(itemPedido.getSubtotal());
-            itensParaSalvar.add(itemPedido);
-        }
-
-        BigDecimal totalComFrete = calcularTotalComFrete(restaurante, subtotalPedido, taxaEntregaCalculada);
-
-        if (totalComFrete.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new RuntimeException("O valor do pedido deve ser maior que zero.");
-        }
+        cotaDeliveryService.verificarDisponivel(restaurante);
 
         // Salva o pedido com status de retenção até a confirmação do Stripe
+        UUID pedidoUuid = UUID.randomUUID();
         Pedido pedidoPrePago = new Pedido();
         pedidoPrePago.setUuid(pedidoUuid);
         pedidoPrePago.setRestaurante(restaurante);
         pedidoPrePago.setDataHora(LocalDateTime.now());
         pedidoPrePago.setTipo(TipoPedido.DELIVERY);
-        pedidoPrePago.setTotal(totalComFrete);
+        pedidoPrePago.setItens(new ArrayList<>());
         pedidoPrePago.setStatus(StatusPedido.AGUARDANDO_PGTO_LIMITE);
+        pedidoPrePago.setDataHoraStatus(pedidoPrePago.getDataHora());
         pedidoPrePago.setNomeClienteDelivery(dto.getNomeCliente());
         pedidoPrePago.setTelefoneClienteDelivery(dto.getTelefoneCliente());
         pedidoPrePago.setEnderecoClienteDelivery(dto.getEnderecoCliente());
         pedidoPrePago.setPontoReferencia(dto.getPontoReferencia());
 
-        for(ItemPedido item : itensParaSalvar) {
-            item.setPedido(pedidoPrePago);
+        BigDecimal subtotalPedido = montagemPedidoService.montarItens(pedidoPrePago, restaurante.getId(), dto.getItens());
+        validarPedidoMinimo(subtotalPedido, frete);
+        BigDecimal totalComFrete = calcularTotalComFrete(restaurante, subtotalPedido, frete.taxa());
+
+        if (totalComFrete.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new RuntimeException("O valor do pedido deve ser maior que zero.");
         }
-        pedidoPrePago.setItens(itensParaSalvar);
+        pedidoPrePago.setTotal(totalComFrete);
 
         pedidoRepository.save(pedidoPrePago);
+        deliveryEventosService.publicar(restaurante.getId(), DeliveryEventosService.EVENTO_PEDIDO_CRIADO, pedidoPrePago);
+        rastreioPedidoService.registrar(pedidoPrePago);
         logger.info("Checkout iniciado: Pedido #{} aguardando pagamento.", pedidoPrePago.getId());
 
         return financeiroService.gerarUrlPagamentoPedidoPublico(pedidoUuid, totalComFrete, restaurante.getId());    }
@@ -582,15 +434,19 @@ public class PedidoService {
         // Define o status inicial pós-pagamento (Pendente ou Preparo conforme config de impressão)
         StatusPedido proximoStatus = restaurante.isImpressaoDeliveryAtivada() ? StatusPedido.PENDENTE : StatusPedido.EM_PREPARO;
         pedido.setStatus(proximoStatus);
+        pedido.setDataHoraStatus(LocalDateTime.now());
         pedido.setTipoPagamento(tipoPagamento);
 
         // Salva a alteração de status primeiro
         Pedido pedidoFinalizado = pedidoRepository.save(pedido);
 
         // INCREMENTO: Como o pedido foi confirmado, agora ele consome a cota do mês
-        incrementarContadorDelivery(restaurante);
+        cotaDeliveryService.contabilizarPedidoPago(restaurante);
+        resumoCaixaService.registrarPagamento(pedidoFinalizado);
 
         logger.info("Pedido #{} (Online) aprovado e contabilizado na cota mensal.", pedidoFinalizado.getId());
+        deliveryEventosService.publicar(restaurante.getId(), DeliveryEventosService.EVENTO_STATUS_ALTERADO, pedidoFinalizado);
+        rastreioPedidoService.registrar(pedidoFinalizado);
         return pedidoFinalizado;
     }
 
@@ -610,15 +466,13 @@ public class PedidoService {
         // Define o status pós-aceitação (depende da impressão)
         StatusPedido novoStatus = restaurante.isImpressaoDeliveryAtivada() ? StatusPedido.PENDENTE : StatusPedido.EM_PREPARO;
         pedido.setStatus(novoStatus);
+        pedido.setDataHoraStatus(LocalDateTime.now());
         logger.info("Pedido Retido ID {} aceito manualmente. Novo status: {}", pedidoId, novoStatus);
 
-        return pedidoRepository.save(pedido);
-    }
-
-    // Consulta pública para rastreio
-    public Pedido rastrearPedidoPorUuid(UUID uuid) {
-        // Considerar adicionar Join Fetch para itens e produto para evitar N+1
-        return pedidoRepository.findByUuid(uuid).orElse(null);
+        Pedido pedidoAceito = pedidoRepository.save(pedido);
+        deliveryEventosService.publicar(restaurante.getId(), DeliveryEventosService.EVENTO_RETIDO_ACEITO, pedidoAceito);
+        rastreioPedidoService.registrar(pedidoAceito);
+        return pedidoAceito;
     }
 
     // Método auxiliar interno para buscar pedidos por status e tipo (pode ser útil)
@@ -30,11 +30,15 @@ public class ProdutoService {
     @Autowired
     private RestauranteService restauranteService;
 
+    @Autowired
+    private CardapioSnapshotService cardapioSnapshotService;
+
     public List<Produto> listarTodos() {
         Restaurante restaurante = restauranteService.getRestauranteLogado();
         return produtoRepository.findByRestauranteId(restaurante.getId());
     }
 
+    @Transactional
     public void deletarProduto(Long id) {
         Restaurante restaurante = restauranteService.getRestauranteLogado();
         Produto produto = produtoRepository.findById(id)
@@ -45,6 +49,7 @@ public class ProdutoService {
             throw new SecurityException("Acesso negado: Este produto não pertence ao seu restaurante.");
         }
         produtoRepository.deleteById(id);
+        cardapioSnapshotService.registrarAlteracao(restaurante.getId());
     }
 
     @Transactional
@@ -65,9 +70,12 @@ public class ProdutoService {
         novoProduto.setImageUrl(dto.getImageUrl());
         novoProduto.setCategoria(categoria); // ATUALIZADO
         novoProduto.setRestaurante(restaurante);
-        return produtoRepository.save(novoProduto);
+        Produto salvo = produtoRepository.save(novoProduto);
+        cardapioSnapshotService.registrarAlteracao(restaurante.getId());
+        return salvo;
     }
 
+    @Transactional
     public Produto atualizarProduto(Long id, ProdutoDTO dto) {
         Restaurante restaurante = restauranteService.getRestauranteLogado();
         Produto produtoExistente = produtoRepository.findById(id)
@@ -89,6 +97,8 @@ public class ProdutoService {
         produtoExistente.setPreco(dto.getPreco());
         produtoExistente.setImageUrl(dto.getImageUrl());
         produtoExistente.setCategoria(categoria);
-        return produtoRepository.save(produtoExistente);
+        Produto salvo = produtoRepository.save(produtoExistente);
+        cardapioSnapshotService.registrarAlteracao(restaurante.getId());
+        return salvo;
     }
 }
\ No newline at end of file
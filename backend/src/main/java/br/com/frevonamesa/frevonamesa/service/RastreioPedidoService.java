@@ -0,0 +1,218 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.dto.RastreioPedidoDTO;
+import br.com.frevonamesa.frevonamesa.exception.LimiteRequisicoesException;
+import br.com.frevonamesa.frevonamesa.model.ItemPedido;
+import br.com.frevonamesa.frevonamesa.model.Pedido;
+import br.com.frevonamesa.frevonamesa.model.StatusPedido;
+import br.com.frevonamesa.frevonamesa.repository.PedidoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rastreio público de pedidos delivery servido da memória.
+ * Os fluxos de mudança de status do PedidoService chamam registrar (na transação); após o commit a
+ * projeção é trocada no mapa e os clientes em long-poll daquele pedido são acordados. O banco só é
+ * consultado no primeiro acesso a um pedido que não está no mapa (ex.: após um reinício).
+ */
+@Service
+public class RastreioPedidoService {
+
+    private static final long PREVISAO_PREPARO_MINUTOS = 45; // Da criação até a entrega
+    private static final long PREVISAO_ENTREGA_MINUTOS = 20; // Depois de pronto para entrega
+    private static final long TIMEOUT_AGUARDAR_MS = 25_000;
+    private static final int MAX_AGUARDANDO = 2000;
+
+    @Autowired private PedidoRepository pedidoRepository;
+    @Autowired private CardapioSnapshotService cardapioSnapshotService;
+
+    private final Map<UUID, RastreioPedidoDTO> rastreios = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<DeferredResult<ResponseEntity<RastreioPedidoDTO>>>> aguardando = new ConcurrentHashMap<>();
+    private final AtomicInteger totalAguardando = new AtomicInteger();
+
+    /**
+     * Consulta o rastreio; null se o pedido não existe.
+     */
+    @Transactional(readOnly = true)
+    public RastreioPedidoDTO buscar(UUID uuid) {
+        RastreioPedidoDTO rastreio = rastreios.get(uuid);
+        if (rastreio != null) {
+            return rastreio;
+        }
+        return pedidoRepository.findRastreioByUuid(uuid)
+                .map(pedido -> rastreios.merge(uuid, montar(pedido, null), RastreioPedidoService::maisRecente))
+                .orElse(null);
+    }
+
+    /**
+     * Long-poll: responde na hora se o status já difere do ETag do cliente; senão espera a próxima
+     * mudança de status (ou o timeout, respondendo 304).
+     */
+    public DeferredResult<ResponseEntity<RastreioPedidoDTO>> aguardar(UUID uuid, String ifNoneMatch) {
+        DeferredResult<ResponseEntity<RastreioPedidoDTO>> resultado = new DeferredResult<>(TIMEOUT_AGUARDAR_MS);
+        RastreioPedidoDTO atual = buscar(uuid);
+        if (atual == null) {
+            resultado.setResult(ResponseEntity.notFound().build());
+            return resultado;
+        }
+        if (!etagConfere(ifNoneMatch, etag(atual)) || atual.getStatus() == StatusPedido.FINALIZADO) {
+            resultado.setResult(resposta(atual));
+            return resultado;
+        }
+
+        if (totalAguardando.incrementAndGet() > MAX_AGUARDANDO) {
+            totalAguardando.decrementAndGet();
+            throw new LimiteRequisicoesException("Muitos clientes aguardando atualização. Tente novamente em instantes.");
+        }
+        Set<DeferredResult<ResponseEntity<RastreioPedidoDTO>>> fila =
+                aguardando.computeIfAbsent(uuid, id -> ConcurrentHashMap.newKeySet());
+        fila.add(resultado);
+        resultado.onTimeout(() -> resultado.setResult(
+                ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(atual)).build()));
+        resultado.onCompletion(() -> {
+            if (fila.remove(resultado)) {
+                totalAguardando.decrementAndGet();
+            }
+            aguardando.computeIfPresent(uuid, (id, conjunto) -> conjunto.isEmpty() ? null : conjunto);
+        });
+
+        // O status pode ter mudado entre a leitura acima e o registro na fila
+        RastreioPedidoDTO depois = rastreios.get(uuid);
+        if (depois != null && depois != atual) {
+            resultado.setResult(resposta(depois));
+        }
+        return resultado;
+    }
+
+    /**
+     * Atualiza a projeção do pedido. Deve ser chamado na transação que alterou o pedido: a projeção é
+     * montada agora e publicada somente após o commit.
+     */
+    public void registrar(Pedido pedido) {
+        if (pedido.getUuid() == null) {
+            return;
+        }
+        RastreioPedidoDTO rastreio = montar(pedido, rastreios.get(pedido.getUuid()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publicar(rastreio);
+                }
+            });
+        } else {
+            publicar(rastreio);
+        }
+    }
+
+    public ResponseEntity<RastreioPedidoDTO> resposta(RastreioPedidoDTO rastreio) {
+        return ResponseEntity.ok().eTag(etag(rastreio)).body(rastreio);
+    }
+
+    /**
+     * O ETag muda a cada mudança de status (status + instante da mudança).
+     */
+    public String etag(RastreioPedidoDTO rastreio) {
+        return "\"" + rastreio.getStatus() + "-" + instanteStatus(rastreio).toInstant(ZoneOffset.UTC).toEpochMilli() + "\"";
+    }
+
+    // Remove da memória os pedidos já entregues há algum tempo (e os esquecidos abertos)
+    @Scheduled(fixedRate = 600_000)
+    public void limparAntigos() {
+        LocalDateTime limiteFinalizados = LocalDateTime.now().minusHours(2);
+        LocalDateTime limiteAbertos = LocalDateTime.now().minusHours(24);
+        rastreios.values().removeIf(rastreio -> instanteStatus(rastreio).isBefore(
+                rastreio.getStatus() == StatusPedido.FINALIZADO ? limiteFinalizados : limiteAbertos));
+    }
+
+    private void publicar(RastreioPedidoDTO rastreio) {
+        RastreioPedidoDTO atual = rastreios.merge(rastreio.getUuid(), rastreio, RastreioPedidoService::maisRecente);
+        Set<DeferredResult<ResponseEntity<RastreioPedidoDTO>>> fila = aguardando.remove(rastreio.getUuid());
+        if (fila != null) {
+            for (DeferredResult<ResponseEntity<RastreioPedidoDTO>> resultado : fila) {
+                resultado.setResult(resposta(atual));
+            }
+        }
+    }
+
+    private RastreioPedidoDTO montar(Pedido pedido, RastreioPedidoDTO anterior) {
+        RastreioPedidoDTO rastreio = new RastreioPedidoDTO();
+        rastreio.setId(pedido.getId());
+        rastreio.setUuid(pedido.getUuid());
+        rastreio.setStatus(pedido.getStatus());
+        rastreio.setTotal(pedido.getTotal());
+        rastreio.setDataHora(pedido.getDataHora());
+        rastreio.setDataHoraStatus(pedido.getDataHoraStatus() != null ? pedido.getDataHoraStatus() : pedido.getDataHora());
+        rastreio.setPrevisaoEntrega(calcularPrevisao(rastreio));
+        // Os itens não mudam depois da criação: reaproveita a projeção anterior quando existir
+        rastreio.setItens(anterior != null ? anterior.getItens() : montarItens(pedido));
+        return rastreio;
+    }
+
+    private List<RastreioPedidoDTO.Item> montarItens(Pedido pedido) {
+        if (pedido.getItens() == null) {
+            return List.of();
+        }
+        CardapioSnapshot snapshot = cardapioSnapshotService.getSnapshot(pedido.getRestaurante().getId());
+        List<RastreioPedidoDTO.Item> itens = new ArrayList<>();
+        for (ItemPedido itemPedido : pedido.getItens()) {
+            RastreioPedidoDTO.Item item = new RastreioPedidoDTO.Item();
+            item.setQuantidade(itemPedido.getQuantidade());
+            item.setObservacao(itemPedido.getObservacao());
+            // Nome pelo snapshot do cardápio, sem inicializar a referência do produto
+            CardapioSnapshot.ProdutoPreco produto = itemPedido.getProduto() != null
+                    ? snapshot.getProduto(itemPedido.getProduto().getId()) : null;
+            item.setNome(produto != null ? produto.nome()
+                    : itemPedido.getProduto() != null ? itemPedido.getProduto().getNome() : "Produto removido");
+            itens.add(item);
+        }
+        return List.copyOf(itens);
+    }
+
+    private LocalDateTime calcularPrevisao(RastreioPedidoDTO rastreio) {
+        if (rastreio.getStatus() == StatusPedido.FINALIZADO || rastreio.getDataHora() == null) {
+            return null;
+        }
+        LocalDateTime previsao = rastreio.getDataHora().plusMinutes(PREVISAO_PREPARO_MINUTOS);
+        if (rastreio.getStatus() == StatusPedido.PRONTO_PARA_ENTREGA) {
+            LocalDateTime saida = rastreio.getDataHoraStatus().plusMinutes(PREVISAO_ENTREGA_MINUTOS);
+            return saida.isAfter(previsao) ? saida : previsao;
+        }
+        return previsao;
+    }
+
+    // Leituras do banco e atualizações pós-commit podem chegar fora de ordem: vence a mudança mais recente
+    private static RastreioPedidoDTO maisRecente(RastreioPedidoDTO atual, RastreioPedidoDTO candidato) {
+        return instanteStatus(candidato).isBefore(instanteStatus(atual)) ? atual : candidato;
+    }
+
+    private static LocalDateTime instanteStatus(RastreioPedidoDTO rastreio) {
+        if (rastreio.getDataHoraStatus() != null) return rastreio.getDataHoraStatus();
+        return rastreio.getDataHora() != null ? rastreio.getDataHora() : LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC);
+    }
+
+    private static boolean etagConfere(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String valor : ifNoneMatch.split(",")) {
+            String normalizado = valor.trim();
+            if (normalizado.startsWith("W/")) normalizado = normalizado.substring(2);
+            if (normalizado.equals(etag) || normalizado.equals("*")) return true;
+        }
+        return false;
+    }
+}
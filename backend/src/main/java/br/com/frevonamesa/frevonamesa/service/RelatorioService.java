@@ -1,25 +1,31 @@
 package br.com.frevonamesa.frevonamesa.service;
 
 import br.com.frevonamesa.frevonamesa.dto.*;
-import br.com.frevonamesa.frevonamesa.model.Mesa;
-import br.com.frevonamesa.frevonamesa.model.Pedido;
 import br.com.frevonamesa.frevonamesa.model.Restaurante;
+import br.com.frevonamesa.frevonamesa.model.TipoPagamento;
 import br.com.frevonamesa.frevonamesa.model.TipoPedido;
 import br.com.frevonamesa.frevonamesa.repository.PedidoRepository;
 import br.com.frevonamesa.frevonamesa.repository.RestauranteRepository;
+import br.com.frevonamesa.frevonamesa.repository.ResumoCaixaDiarioRepository;
+import br.com.frevonamesa.frevonamesa.repository.ResumoProdutoDiarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Relatório diário calculado no banco: os totais vêm de uma consulta agregada (GROUP BY tipo de pedido
+ * e forma de pagamento) e o detalhamento de uma única projeção plana pedido x item, lida em ordem e
+ * montada nos DTOs à medida que as linhas chegam. O número de consultas não depende do volume do dia.
+ */
 @Service
 public class RelatorioService {
 
@@ -32,110 +38,208 @@ public class RelatorioService {
     @Autowired
     private RestauranteService restauranteService;
 
+    @Autowired
+    private ResumoCaixaDiarioRepository resumoCaixaDiarioRepository;
+
+    @Autowired
+    private ResumoProdutoDiarioRepository resumoProdutoDiarioRepository;
+
+    @Autowired
+    private ConsolidacaoDiariaService consolidacaoDiariaService;
+
+    private static final int MAX_DIAS_PERIODO = 366;
+    private static final int TOP_PRODUTOS = 10;
+
+    @Transactional(readOnly = true) // Chamada interna não passa pelo proxy: a transação do stream tem de vir daqui
+    public RelatorioDiarioDTO gerarRelatorioDoDia() {
+        Restaurante restaurante = restauranteService.getRestauranteLogado();
+        return gerarRelatorio(restaurante.getId(), LocalDate.now());
+    }
+
+    @Transactional(readOnly = true)
+    public RelatorioDiarioDTO gerarRelatorio(Long restauranteId, LocalDate data) {
+        LocalDateTime inicioDoDia = LocalDateTime.of(data, LocalTime.MIN);
+        LocalDateTime fimDoDia = LocalDateTime.of(data, LocalTime.MAX);
+
+        // 1. Totais por tipo de pedido e forma de pagamento
+        Map<String, BigDecimal> faturamentoMesas = new HashMap<>();
+        Map<String, BigDecimal> faturamentoDelivery = new HashMap<>();
+        for (Object[] linha : pedidoRepository.somarPagosPorTipoEPagamento(restauranteId, inicioDoDia, fimDoDia)) {
+            Map<String, BigDecimal> destino = linha[0] == TipoPedido.DELIVERY ? faturamentoDelivery : faturamentoMesas;
+            destino.merge(linha[1].toString(), (BigDecimal) linha[2], BigDecimal::add);
+        }
+
+        // 2. Detalhamento: linhas ordenadas por (tipo, mesa, pedido, item), agrupadas em sequência
+        Map<Long, RelatorioMesaDTO> mesasAtendidas = new LinkedHashMap<>();
+        List<RelatorioPedidoDeliveryDTO> pedidosDelivery = new ArrayList<>();
+        try (Stream<Object[]> linhas = pedidoRepository.streamItensPagosDoPeriodo(restauranteId, inicioDoDia, fimDoDia)) {
+            MontagemRelatorio montagem = new MontagemRelatorio(mesasAtendidas, pedidosDelivery);
+            linhas.forEach(montagem::adicionar);
+        }
+
+        RelatorioDiarioDTO relatorioFinal = new RelatorioDiarioDTO();
+        relatorioFinal.setData(data);
+        relatorioFinal.setFaturamentoTotal(somar(faturamentoMesas));
+        relatorioFinal.setFaturamentoPorTipoPagamento(faturamentoMesas);
+        relatorioFinal.setMesasAtendidas(new ArrayList<>(mesasAtendidas.values()));
+
+        if (!pedidosDelivery.isEmpty()) {
+            RelatorioDeliveryDTO relatorioDelivery = new RelatorioDeliveryDTO();
+            relatorioDelivery.setFaturamentoTotal(somar(faturamentoDelivery));
+            relatorioDelivery.setFaturamentoPorTipoPagamento(faturamentoDelivery);
+            relatorioDelivery.setPedidos(pedidosDelivery);
+            relatorioFinal.setRelatorioDelivery(relatorioDelivery);
+        }
+
+        return relatorioFinal;
+    }
+
+    @Transactional(readOnly = true)
+    public RelatorioPeriodoDTO gerarRelatorioPeriodo(LocalDate inicio, LocalDate fim) {
+        Restaurante restaurante = restauranteService.getRestauranteLogado();
+        return gerarRelatorioPeriodo(restaurante.getId(), inicio, fim);
+    }
+
+    /**
+     * Relatório de um intervalo de dias. Os dias já fechados vêm dos resumos diários (uma linha por
+     * dia/combinação); só os dias ainda em aberto (normalmente hoje e ontem) são agregados dos pedidos.
+     */
+    @Transactional(readOnly = true)
+    public RelatorioPeriodoDTO gerarRelatorioPeriodo(Long restauranteId, LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null || fim.isBefore(inicio)) {
+            throw new RuntimeException("Período inválido: a data inicial deve ser anterior ou igual à final.");
+        }
+        if (ChronoUnit.DAYS.between(inicio, fim) >= MAX_DIAS_PERIODO) {
+            throw new RuntimeException("O período máximo do relatório é de " + MAX_DIAS_PERIODO + " dias.");
+        }
+
+        LocalDate ultimoFechado = consolidacaoDiariaService.getUltimoDiaFechado().orElse(null);
+        LocalDate fimFechado = ultimoFechado == null || ultimoFechado.isBefore(inicio) ? null
+                : (ultimoFechado.isBefore(fim) ? ultimoFechado : fim);
+        LocalDate inicioAberto = fimFechado == null ? inicio : fimFechado.plusDays(1);
 
-    private RelatorioDeliveryDTO gerarRelatorioDeliveryDoDia(Restaurante restaurante, LocalDateTime inicioDoDia, LocalDateTime fimDoDia) {
-        List<Pedido> pedidosDeliveryPagos = pedidoRepository.findAllByRestauranteIdAndTipoAndDataHoraBetweenAndTipoPagamentoIsNotNull(
-                restaurante.getId(), TipoPedido.DELIVERY, inicioDoDia, fimDoDia);
+        List<Object[]> caixa = new ArrayList<>();
+        Map<String, RelatorioProdutoDTO> produtos = new HashMap<>();
+        if (fimFechado != null) {
+            caixa.addAll(resumoCaixaDiarioRepository.somarPorTipoEPagamento(restauranteId, inicio, fimFechado));
+            somarProdutos(produtos, resumoProdutoDiarioRepository.somarPorProduto(restauranteId, inicio, fimFechado));
+        }
+        if (!inicioAberto.isAfter(fim)) {
+            LocalDateTime de = inicioAberto.atStartOfDay();
+            LocalDateTime ate = fim.atTime(LocalTime.MAX);
+            caixa.addAll(pedidoRepository.somarPagosPorTipoEPagamento(restauranteId, de, ate));
+            somarProdutos(produtos, pedidoRepository.somarProdutosPagos(restauranteId, de, ate));
+        }
 
-        if (pedidosDeliveryPagos.isEmpty()) {
-            return null;
+        Map<String, BigDecimal> porTipoPagamento = new HashMap<>();
+        Map<String, BigDecimal> porTipoPedido = new HashMap<>();
+        Map<String, Long> pedidosPorTipo = new HashMap<>();
+        for (Object[] linha : caixa) { // [tipoPedido, tipoPagamento, valor, quantidade]
+            BigDecimal valor = (BigDecimal) linha[2];
+            porTipoPagamento.merge(linha[1].toString(), valor, BigDecimal::add);
+            porTipoPedido.merge(linha[0].toString(), valor, BigDecimal::add);
+            pedidosPorTipo.merge(linha[0].toString(), ((Number) linha[3]).longValue(), Long::sum);
         }
 
-        BigDecimal faturamentoTotal = pedidosDeliveryPagos.stream()
-                .map(Pedido::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        Map<String, BigDecimal> faturamentoPorTipo = pedidosDeliveryPagos.stream()
-                .collect(Collectors.groupingBy(
-                        p -> p.getTipoPagamento().toString(),
-                        Collectors.reducing(BigDecimal.ZERO, Pedido::getTotal, BigDecimal::add)
-                ));
-
-        List<RelatorioPedidoDeliveryDTO> pedidosDto = pedidosDeliveryPagos.stream().map(pedido -> {
-            List<RelatorioItemPedidoDTO> itensDto = pedido.getItens().stream().map(item -> {
-                RelatorioItemPedidoDTO itemDto = new RelatorioItemPedidoDTO();
-                itemDto.setQuantidade(item.getQuantidade());
-                itemDto.setNomeProduto(item.getProduto().getNome());
-                itemDto.setObservacao(item.getObservacao());
-                itemDto.setSubtotal(item.getPrecoUnitario().multiply(BigDecimal.valueOf(item.getQuantidade())));
-                return itemDto;
-            }).collect(Collectors.toList());
-
-            RelatorioPedidoDeliveryDTO pedidoDto = new RelatorioPedidoDeliveryDTO();
-            pedidoDto.setId(pedido.getId());
-            pedidoDto.setNomeCliente(pedido.getNomeClienteDelivery());
-            pedidoDto.setTipoPagamento(pedido.getTipoPagamento().toString());
-            pedidoDto.setTotalPedido(pedido.getTotal());
-            pedidoDto.setItens(itensDto);
-            return pedidoDto;
-        }).collect(Collectors.toList());
-
-        RelatorioDeliveryDTO relatorio = new RelatorioDeliveryDTO();
+        BigDecimal faturamentoTotal = somar(porTipoPagamento);
+        long quantidadePedidos = pedidosPorTipo.values().stream().mapToLong(Long::longValue).sum();
+
+        RelatorioPeriodoDTO relatorio = new RelatorioPeriodoDTO();
+        relatorio.setInicio(inicio);
+        relatorio.setFim(fim);
         relatorio.setFaturamentoTotal(faturamentoTotal);
-        relatorio.setFaturamentoPorTipoPagamento(faturamentoPorTipo);
-        relatorio.setPedidos(pedidosDto);
+        relatorio.setFaturamentoPorTipoPagamento(porTipoPagamento);
+        relatorio.setFaturamentoPorTipoPedido(porTipoPedido);
+        relatorio.setPedidosPorTipo(pedidosPorTipo);
+        relatorio.setQuantidadePedidos(quantidadePedidos);
+        relatorio.setTicketMedio(quantidadePedidos > 0
+                ? faturamentoTotal.divide(BigDecimal.valueOf(quantidadePedidos), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
+        relatorio.setTopProdutos(produtos.values().stream()
+                .sorted(Comparator.comparingLong(RelatorioProdutoDTO::getQuantidade).reversed()
+                        .thenComparing(RelatorioProdutoDTO::getValorTotal, Comparator.reverseOrder()))
+                .limit(TOP_PRODUTOS)
+                .toList());
         return relatorio;
     }
 
-    public RelatorioDiarioDTO gerarRelatorioDoDia() {
-        Restaurante restaurante = restauranteService.getRestauranteLogado();
-        LocalDateTime inicioDoDia = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
-        LocalDateTime fimDoDia = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-
-        List<Pedido> pedidosPagosHoje = pedidoRepository.findAllByRestauranteIdAndTipoAndDataHoraBetweenAndTipoPagamentoIsNotNull(
-                restaurante.getId(), TipoPedido.MESA, inicioDoDia, fimDoDia);
-
-        Map<Mesa, List<Pedido>> pedidosPorMesa = pedidosPagosHoje.stream()
-                .collect(Collectors.groupingBy(Pedido::getMesa));
-
-        List<RelatorioMesaDTO> mesasAtendidas = pedidosPorMesa.entrySet().stream()
-                .map(entry -> {
-                    Mesa mesa = entry.getKey();
-                    List<Pedido> pedidosDaMesa = entry.getValue();
-
-                    List<RelatorioPedidoDTO> pedidosDto = pedidosDaMesa.stream().map(pedido -> {
-                        List<RelatorioItemPedidoDTO> itensDto = pedido.getItens().stream().map(item -> {
-                            RelatorioItemPedidoDTO itemDto = new RelatorioItemPedidoDTO();
-                            itemDto.setQuantidade(item.getQuantidade());
-                            itemDto.setNomeProduto(item.getProduto().getNome());
-                            itemDto.setObservacao(item.getObservacao());
-                            itemDto.setSubtotal(item.getPrecoUnitario().multiply(BigDecimal.valueOf(item.getQuantidade())));
-                            return itemDto;
-                        }).collect(Collectors.toList());
-
-                        RelatorioPedidoDTO pedidoDto = new RelatorioPedidoDTO();
-                        pedidoDto.setId(pedido.getId());
-                        pedidoDto.setTipoPagamento(pedido.getTipoPagamento().toString());
-                        pedidoDto.setTotalPedido(pedido.getTotal());
-                        pedidoDto.setItens(itensDto);
-                        return pedidoDto;
-                    }).collect(Collectors.toList());
-
-                    RelatorioMesaDTO mesaDto = new RelatorioMesaDTO();
-                    mesaDto.setNumeroMesa(mesa.getNumero());
-                    mesaDto.setNomeCliente(mesa.getNomeCliente());
-                    mesaDto.setPedidos(pedidosDto);
-                    return mesaDto;
-                }).collect(Collectors.toList());
-
-        BigDecimal faturamentoTotal = pedidosPagosHoje.stream()
-                .map(Pedido::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        Map<String, BigDecimal> faturamentoPorTipo = pedidosPagosHoje.stream()
-                .collect(Collectors.groupingBy(
-                        p -> p.getTipoPagamento().toString(),
-                        Collectors.reducing(BigDecimal.ZERO, Pedido::getTotal, BigDecimal::add)
-                ));
+    // Soma linhas [produtoId, nomeProduto, quantidade, valor] no mapa, por produto (ou nome, se removido)
+    private static void somarProdutos(Map<String, RelatorioProdutoDTO> produtos, List<Object[]> linhas) {
+        for (Object[] linha : linhas) {
+            Long produtoId = (Long) linha[0];
+            String nome = linha[1] != null ? (String) linha[1] : "Produto removido";
+            RelatorioProdutoDTO produto = produtos.computeIfAbsent(produtoId != null ? "id:" + produtoId : "nome:" + nome, chave -> {
+                RelatorioProdutoDTO novo = new RelatorioProdutoDTO();
+                novo.setProdutoId(produtoId);
+                novo.setNomeProduto(nome);
+                novo.setValorTotal(BigDecimal.ZERO);
+                return novo;
+            });
+            produto.setQuantidade(produto.getQuantidade() + ((Number) linha[2]).longValue());
+            produto.setValorTotal(produto.getValorTotal().add(linha[3] != null ? (BigDecimal) linha[3] : BigDecimal.ZERO));
+        }
+    }
 
-        RelatorioDiarioDTO relatorioFinal = new RelatorioDiarioDTO();
-        relatorioFinal.setData(LocalDate.now());
-        relatorioFinal.setFaturamentoTotal(faturamentoTotal);
-        relatorioFinal.setFaturamentoPorTipoPagamento(faturamentoPorTipo);
-        relatorioFinal.setMesasAtendidas(mesasAtendidas);
+    private static BigDecimal somar(Map<String, BigDecimal> valores) {
+        return valores.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
 
-        relatorioFinal.setRelatorioDelivery(gerarRelatorioDeliveryDoDia(restaurante, inicioDoDia, fimDoDia));
+    /**
+     * Converte a projeção plana [pedidoId, tipo, tipoPagamento, total, nomeClienteDelivery, mesaId,
+     * numeroMesa, nomeClienteMesa, quantidade, nomeProduto, observacao, precoUnitario] nos DTOs do relatório.
+     * Como as linhas chegam ordenadas por pedido, basta comparar com o pedido da linha anterior.
+     */
+    private static class MontagemRelatorio {
+        private final Map<Long, RelatorioMesaDTO> mesas;
+        private final List<RelatorioPedidoDeliveryDTO> pedidosDelivery;
+        private Long pedidoAtualId;
+        private List<RelatorioItemPedidoDTO> itensAtuais;
+
+        private MontagemRelatorio(Map<Long, RelatorioMesaDTO> mesas, List<RelatorioPedidoDeliveryDTO> pedidosDelivery) {
+            this.mesas = mesas;
+            this.pedidosDelivery = pedidosDelivery;
+        }
 
-        return relatorioFinal;
+        private void adicionar(Object[] linha) {
+            Long pedidoId = (Long) linha[0];
+            if (!pedidoId.equals(pedidoAtualId)) {
+                pedidoAtualId = pedidoId;
+                itensAtuais = new ArrayList<>();
+                if (linha[1] == TipoPedido.DELIVERY) {
+                    RelatorioPedidoDeliveryDTO pedidoDto = new RelatorioPedidoDeliveryDTO();
+                    pedidoDto.setId(pedidoId);
+                    pedidoDto.setNomeCliente((String) linha[4]);
+                    pedidoDto.setTipoPagamento(((TipoPagamento) linha[2]).toString());
+                    pedidoDto.setTotalPedido((BigDecimal) linha[3]);
+                    pedidoDto.setItens(itensAtuais);
+                    pedidosDelivery.add(pedidoDto);
+                } else {
+                    RelatorioPedidoDTO pedidoDto = new RelatorioPedidoDTO();
+                    pedidoDto.setId(pedidoId);
+                    pedidoDto.setTipoPagamento(((TipoPagamento) linha[2]).toString());
+                    pedidoDto.setTotalPedido((BigDecimal) linha[3]);
+                    pedidoDto.setItens(itensAtuais);
+                    mesas.computeIfAbsent((Long) linha[5], id -> {
+                        RelatorioMesaDTO mesaDto = new RelatorioMesaDTO();
+                        mesaDto.setNumeroMesa(linha[6] != null ? (Integer) linha[6] : 0);
+                        mesaDto.setNomeCliente((String) linha[7]);
+                        mesaDto.setPedidos(new ArrayList<>());
+                        return mesaDto;
+                    }).getPedidos().add(pedidoDto);
+                }
+            }
+
+            if (linha[8] == null) {
+                return; // Pedido sem itens (LEFT JOIN)
+            }
+            int quantidade = (Integer) linha[8];
+            BigDecimal precoUnitario = linha[11] != null ? (BigDecimal) linha[11] : BigDecimal.ZERO;
+            RelatorioItemPedidoDTO itemDto = new RelatorioItemPedidoDTO();
+            itemDto.setQuantidade(quantidade);
+            itemDto.setNomeProduto((String) linha[9]);
+            itemDto.setObservacao((String) linha[10]);
+            itemDto.setSubtotal(precoUnitario.multiply(BigDecimal.valueOf(quantidade)));
+            itensAtuais.add(itemDto);
+        }
     }
-}
\ No newline at end of file
+}
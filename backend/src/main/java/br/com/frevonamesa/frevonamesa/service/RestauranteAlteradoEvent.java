@@ -0,0 +1,7 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+/**
+ * Publicado quando dados do restaurante exibidos no cardápio público (nome, endereço, logo, taxa de
+ * entrega, configurações, conta de pagamento online) são alterados. Ouvintes reagem após o commit.
+ */
+public record RestauranteAlteradoEvent(Long restauranteId) {}
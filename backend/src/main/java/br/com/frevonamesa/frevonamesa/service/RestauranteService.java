@@ -2,6 +2,7 @@
 
 package br.com.frevonamesa.frevonamesa.service;
 
+import br.com.frevonamesa.frevonamesa.config.jwt.TenantContext;
 import br.com.frevonamesa.frevonamesa.dto.*;
 import br.com.frevonamesa.frevonamesa.model.*;
 import br.com.frevonamesa.frevonamesa.repository.*;
@@ -10,6 +11,7 @@ import jakarta.persistence.PersistenceContext; // Importar PersistenceContext
 import org.slf4j.Logger; // Importar Logger
 import org.slf4j.LoggerFactory; // Importar LoggerFactory
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -37,6 +39,9 @@ public class RestauranteService {
     @Autowired
     private RestauranteRepository restauranteRepository;
 
+    @Autowired
+    private ContadorRestauranteRepository contadorRestauranteRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -52,7 +57,21 @@ public class RestauranteService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CepGeocodingService cepGeocodingService;
+
     public Restaurante getRestauranteLogado() {
+        // Token com as claims do restaurante: busca direta por id (normalmente no cache de segundo nível)
+        Optional<TenantContext> contexto = TenantContext.atual();
+        if (contexto.isPresent()) {
+            Long restauranteId = contexto.get().restauranteId();
+            return restauranteRepository.findById(restauranteId)
+                    .orElseThrow(() -> new UsernameNotFoundException("Restaurante não encontrado: " + restauranteId));
+        }
+
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         logger.debug("Tentando obter restaurante logado para o email: {}", email); // Log
 
@@ -187,6 +206,7 @@ public class RestauranteService {
         logger.debug("Tentando salvar as alterações no restaurante..."); // Log
         Restaurante restauranteSalvo = restauranteRepository.save(restaurante);
         logger.info("Restaurante (ID {}) salvo.", restauranteSalvo.getId()); // Log
+        eventPublisher.publishEvent(new RestauranteAlteradoEvent(restauranteSalvo.getId())); // Remonta o cardápio público
 
         try {
             entityManager.flush();
@@ -215,7 +235,11 @@ public class RestauranteService {
         restaurante.setNome(dto.getNome());
         restaurante.setEndereco(dto.getEndereco());
         restaurante.setLogoUrl(dto.getLogoUrl());
+        boolean cepAlterado = !Objects.equals(restaurante.getCepRestaurante(), dto.getCepRestaurante());
         restaurante.setCepRestaurante(dto.getCepRestaurante());
+        if (cepAlterado || restaurante.getLatitude() == null) {
+            atualizarCoordenadas(restaurante);
+        }
 
         logger.debug("Tentando salvar as alterações de perfil..."); // Log
         Restaurante restauranteSalvo = restauranteRepository.save(restaurante);
@@ -226,11 +250,40 @@ public class RestauranteService {
             logger.error("Erro ao fazer flush do EntityManager após salvar perfil: {}", e.getMessage(), e);
         }
         logger.info("Perfil do Restaurante (ID {}) salvo com sucesso.", restauranteSalvo.getId()); // Log
+        eventPublisher.publishEvent(new RestauranteAlteradoEvent(restauranteSalvo.getId())); // Remonta o cardápio público
 
         logger.debug("Retornando o perfil atualizado..."); // Log
         return getPerfilLogado();
     }
 
+    /**
+     * Grava as coordenadas de um restaurante salvo antes delas existirem (primeira cotação de frete).
+     * Alteração pela entidade: o cache de segundo nível atualiza só este restaurante.
+     */
+    public void gravarCoordenadas(Long restauranteId, Double latitude, Double longitude) {
+        restauranteRepository.findById(restauranteId).ifPresent(restaurante -> {
+            restaurante.setLatitude(latitude);
+            restaurante.setLongitude(longitude);
+        });
+    }
+
+    // Geocodifica o CEP do restaurante uma vez, ao salvar; se falhar, a cotação de frete geocodifica na hora
+    private void atualizarCoordenadas(Restaurante restaurante) {
+        restaurante.setLatitude(null);
+        restaurante.setLongitude(null);
+        String cep = restaurante.getCepRestaurante();
+        if (cep == null || cep.isBlank()) {
+            return;
+        }
+        try {
+            double[] coordenadas = cepGeocodingService.buscarCoordenadas(cep);
+            restaurante.setLatitude(coordenadas[0]);
+            restaurante.setLongitude(coordenadas[1]);
+        } catch (RuntimeException e) {
+            logger.warn("Não foi possível obter as coordenadas do CEP {} do Restaurante ID {}: {}", cep, restaurante.getId(), e.getMessage());
+        }
+    }
+
     public Map<String, Object> getStatusPlanoDetalhado() {
         Restaurante restaurante = getRestauranteLogado();
 
@@ -240,7 +293,7 @@ public class RestauranteService {
                 && !restaurante.isBetaTester()
                 && !restaurante.isDeliveryPro();
 
-        int pedidosAtuais = restaurante.getPedidosMesAtual();
+        int pedidosAtuais = contadorRestauranteRepository.findPedidosMesAtual(restaurante.getId()).orElse(0);
         // Correção aqui: A compensação deve subtrair do limite, não dos atuais
         int pedidosCompensados = aplicaLimitePedidos ? Math.max(0, limitePedidosGratuito - pedidosAtuais) : 0;
         boolean limiteAtingido = aplicaLimitePedidos && (pedidosAtuais >= limitePedidosGratuito);
@@ -263,6 +316,11 @@ public class RestauranteService {
         return status;
     }
 
+    /**
+     * Monta o cardápio público a partir do banco. Servido pelo CardapioPublicoService, que guarda o
+     * resultado já serializado; chamar diretamente só para (re)montar.
+     */
+    @Transactional(readOnly = true)
     public CardapioPublicoDTO getCardapioPublico(Long restauranteId) {
         Restaurante restaurante = restauranteRepository.findById(restauranteId)
                 .orElseThrow(() -> new RuntimeException("Restaurante não encontrado."));
@@ -279,23 +337,23 @@ public class RestauranteService {
         // <-- ADIÇÃO AQUI: Verifica se a conta connect ID não é nula nem vazia
         cardapioDTO.setPagamentoOnlineAtivo(restaurante.getStripeConnectAccountId() != null && !restaurante.getStripeConnectAccountId().isEmpty());
 
+        // Agrupa os produtos uma vez (em vez de filtrar a lista inteira para cada categoria)
+        Map<Long, List<ProdutoCardapioDTO>> produtosPorCategoria = new HashMap<>();
+        for (Produto produto : produtos) {
+            if (produto.getCategoria() == null) continue;
+            ProdutoCardapioDTO produtoDTO = new ProdutoCardapioDTO();
+            produtoDTO.setId(produto.getId());
+            produtoDTO.setNome(produto.getNome());
+            produtoDTO.setDescricao(produto.getDescricao());
+            produtoDTO.setPreco(produto.getPreco());
+            produtoDTO.setImageUrl(produto.getImageUrl());
+            produtosPorCategoria.computeIfAbsent(produto.getCategoria().getId(), id -> new ArrayList<>()).add(produtoDTO);
+        }
+
         List<CategoriaCardapioDTO> categoriasDTO = categorias.stream().map(categoria -> {
             CategoriaCardapioDTO categoriaDTO = new CategoriaCardapioDTO();
             categoriaDTO.setNome(categoria.getNome());
-
-            List<ProdutoCardapioDTO> produtosDaCategoria = produtos.stream()
-                    .filter(produto -> produto.getCategoria() != null && produto.getCategoria().getId().equals(categoria.getId()))
-                    .map(produto -> {
-                        ProdutoCardapioDTO produtoDTO = new ProdutoCardapioDTO();
-                        produtoDTO.setId(produto.getId());
-                        produtoDTO.setNome(produto.getNome());
-                        produtoDTO.setDescricao(produto.getDescricao());
-                        produtoDTO.setPreco(produto.getPreco());
-                        produtoDTO.setImageUrl(produto.getImageUrl());
-                        return produtoDTO;
-                    }).collect(Collectors.toList());
-
-            categoriaDTO.setProdutos(produtosDaCategoria);
+            categoriaDTO.setProdutos(produtosPorCategoria.getOrDefault(categoria.getId(), new ArrayList<>()));
             return categoriaDTO;
         }).collect(Collectors.toList());
 
@@ -0,0 +1,123 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.model.Pedido;
+import br.com.frevonamesa.frevonamesa.model.ResumoCaixaDiario;
+import br.com.frevonamesa.frevonamesa.model.TipoPagamento;
+import br.com.frevonamesa.frevonamesa.model.TipoPedido;
+import br.com.frevonamesa.frevonamesa.repository.PedidoRepository;
+import br.com.frevonamesa.frevonamesa.repository.RestauranteRepository;
+import br.com.frevonamesa.frevonamesa.repository.ResumoCaixaDiarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Totais de faturamento do dia mantidos de forma incremental (tabela ResumoCaixaDiario).
+ * Todo fluxo que marca um pedido como pago (define o tipoPagamento) chama registrarPagamentos na mesma
+ * transação; o dashboard do caixa lê só essas poucas linhas, sem percorrer os pedidos do dia.
+ */
+@Service
+public class ResumoCaixaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumoCaixaService.class);
+
+    @Autowired private ResumoCaixaDiarioRepository resumoCaixaDiarioRepository;
+    @Autowired private RestauranteRepository restauranteRepository;
+    @Autowired private PedidoRepository pedidoRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private record Chave(LocalDate data, TipoPedido tipoPedido, TipoPagamento tipoPagamento) {}
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarPagamento(Pedido pedido) {
+        registrarPagamentos(pedido.getRestaurante().getId(), List.of(pedido));
+    }
+
+    /**
+     * Soma os pedidos pagos ao resumo do dia de cada pedido (agrupados antes: um UPDATE por combinação
+     * de dia/tipo/forma de pagamento). Pedidos sem tipoPagamento são ignorados.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarPagamentos(Long restauranteId, Collection<Pedido> pedidos) {
+        Map<Chave, BigDecimal> valores = new HashMap<>();
+        Map<Chave, Long> quantidades = new HashMap<>();
+        for (Pedido pedido : pedidos) {
+            if (pedido.getTipoPagamento() == null) continue;
+            LocalDate data = pedido.getDataHora() != null ? pedido.getDataHora().toLocalDate() : LocalDate.now();
+            Chave chave = new Chave(data, pedido.getTipo(), pedido.getTipoPagamento());
+            valores.merge(chave, pedido.getTotal() != null ? pedido.getTotal() : BigDecimal.ZERO, BigDecimal::add);
+            quantidades.merge(chave, 1L, Long::sum);
+        }
+        valores.forEach((chave, valor) -> incrementar(restauranteId, chave, valor, quantidades.get(chave)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ResumoCaixaDiario> buscarDoDia(Long restauranteId, LocalDate data) {
+        return resumoCaixaDiarioRepository.findByRestauranteIdAndData(restauranteId, data);
+    }
+
+    /**
+     * Na subida, cria as linhas do dia que ainda não existem a partir dos pedidos já pagos (ex.: primeiro
+     * deploy com o resumo, com o dia em andamento). Linhas existentes não são tocadas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconciliarDiaAtual() {
+        LocalDate hoje = LocalDate.now();
+        List<Object[]> grupos = pedidoRepository.somarPagosPorRestauranteTipoEPagamento(
+                hoje.atStartOfDay(), hoje.atTime(LocalTime.MAX));
+        int criadas = 0;
+        for (Object[] grupo : grupos) {
+            Long restauranteId = (Long) grupo[0];
+            Chave chave = new Chave(hoje, (TipoPedido) grupo[1], (TipoPagamento) grupo[2]);
+            Boolean criada = transactionTemplate.execute(status -> criarSeAusente(restauranteId, chave,
+                    (BigDecimal) grupo[3], ((Number) grupo[4]).longValue()));
+            if (Boolean.TRUE.equals(criada)) criadas++;
+        }
+        if (criadas > 0) {
+            logger.info("Resumo do caixa de {} reconciliado: {} linha(s) criada(s) a partir dos pedidos pagos.", hoje, criadas);
+        }
+    }
+
+    private void incrementar(Long restauranteId, Chave chave, BigDecimal valor, long quantidade) {
+        if (atualizar(restauranteId, chave, valor, quantidade) > 0) {
+            return;
+        }
+        // Primeiro pagamento do dia nesta combinação: cria a linha com o lock do restaurante,
+        // para que pagamentos simultâneos não tentem inserir a mesma linha
+        if (!criarSeAusente(restauranteId, chave, valor, quantidade)) {
+            atualizar(restauranteId, chave, valor, quantidade); // Outra transação criou a linha antes
+        }
+    }
+
+    private boolean criarSeAusente(Long restauranteId, Chave chave, BigDecimal valor, long quantidade) {
+        restauranteRepository.findComLockById(restauranteId);
+        if (atualizar(restauranteId, chave, BigDecimal.ZERO, 0) > 0) {
+            return false; // Linha já existe
+        }
+        ResumoCaixaDiario resumo = new ResumoCaixaDiario();
+        resumo.setRestauranteId(restauranteId);
+        resumo.setData(chave.data());
+        resumo.setTipoPedido(chave.tipoPedido());
+        resumo.setTipoPagamento(chave.tipoPagamento());
+        resumo.setValorTotal(valor);
+        resumo.setQuantidadePedidos(quantidade);
+        resumoCaixaDiarioRepository.save(resumo);
+        return true;
+    }
+
+    private int atualizar(Long restauranteId, Chave chave, BigDecimal valor, long quantidade) {
+        return resumoCaixaDiarioRepository.incrementar(restauranteId, chave.data(), chave.tipoPedido(),
+                chave.tipoPagamento(), valor, quantidade);
+    }
+}
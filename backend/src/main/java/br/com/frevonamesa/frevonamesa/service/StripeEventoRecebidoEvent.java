@@ -0,0 +1,6 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+/**
+ * Evento novo gravado na inbox de webhooks do Stripe; acorda o StripeInboxDispatcher.
+ */
+public record StripeEventoRecebidoEvent(String eventoId) {}
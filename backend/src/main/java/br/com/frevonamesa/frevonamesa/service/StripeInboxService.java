@@ -0,0 +1,128 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.model.StatusEventoStripe;
+import br.com.frevonamesa.frevonamesa.model.StripeEventoInbox;
+import br.com.frevonamesa.frevonamesa.repository.StripeEventoInboxRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.JsonParseException;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import com.stripe.net.Webhook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Inbox dos webhooks do Stripe. Na requisição, só a assinatura é verificada e o evento bruto é
+ * gravado (a chave é o id do evento, então reenvios do Stripe são descartados); o processamento
+ * acontece depois, no StripeInboxDispatcher, um evento por transação.
+ */
+@Service
+public class StripeInboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripeInboxService.class);
+    private static final long TOLERANCIA_ASSINATURA_SEGUNDOS = 300; // O padrão de Webhook.constructEvent
+
+    @Autowired
+    private StripeEventoInboxRepository stripeEventoInboxRepository;
+
+    @Autowired
+    private FinanceiroService financeiroService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${stripe.webhook-secret}")
+    private String webhookSecret;
+
+    /**
+     * Verifica a assinatura e grava o evento. Retorna false se o evento já estava na inbox.
+     * Payload assinado mas que não é um evento do Stripe: IllegalArgumentException.
+     */
+    public boolean registrar(String payload, String sigHeader) throws SignatureVerificationException {
+        Webhook.Signature.verifyHeader(payload, sigHeader, webhookSecret, TOLERANCIA_ASSINATURA_SEGUNDOS); // Antes de ler o JSON
+        Event event;
+        try {
+            event = ApiResource.GSON.fromJson(payload, Event.class);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Payload do evento inválido.", e);
+        }
+        if (event == null || event.getId() == null || event.getType() == null) {
+            throw new IllegalArgumentException("Payload do evento inválido.");
+        }
+        if (stripeEventoInboxRepository.existsById(event.getId())) {
+            logger.debug("Evento Stripe {} ({}) repetido; ignorando.", event.getId(), event.getType());
+            return false;
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        StripeEventoInbox evento = new StripeEventoInbox();
+        evento.setId(event.getId());
+        evento.setTipo(event.getType());
+        evento.setChaveOrdenacao(chaveOrdenacao(event));
+        evento.setCriadoStripe(event.getCreated() != null ? event.getCreated() : 0);
+        evento.setPayload(payload);
+        evento.setRecebidoEm(agora);
+        evento.setProximaTentativa(agora);
+        try {
+            stripeEventoInboxRepository.saveAndFlush(evento);
+        } catch (DataIntegrityViolationException e) {
+            // Reenvio concorrente do mesmo evento: a outra requisição já gravou
+            logger.debug("Evento Stripe {} gravado por outra requisição.", event.getId());
+            return false;
+        }
+        logger.info("Evento Stripe {} ({}) recebido.", event.getId(), event.getType());
+        eventPublisher.publishEvent(new StripeEventoRecebidoEvent(event.getId()));
+        return true;
+    }
+
+    /**
+     * Processa o evento e o marca como PROCESSADO na mesma transação: se o processamento falha,
+     * nada do que ele gravou fica no banco e o evento continua PENDENTE. O evento precisa estar reservado
+     * (StripeEventoInboxRepository.reservar); se outra instância o gravou depois da leitura, o @Version
+     * derruba a transação inteira.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void processar(StripeEventoInbox evento) throws Exception {
+        Event event = ApiResource.GSON.fromJson(evento.getPayload(), Event.class); // Assinatura já verificada no recebimento
+        financeiroService.processarEventoStripe(event);
+
+        evento.setStatus(StatusEventoStripe.PROCESSADO);
+        evento.setProcessadoEm(LocalDateTime.now());
+        evento.setUltimoErro(null);
+        stripeEventoInboxRepository.save(evento);
+    }
+
+    // Eventos do mesmo cliente (checkout de assinatura, atualização, cancelamento) ou da mesma conta
+    // Connect precisam ser aplicados na ordem; os demais (ex.: pagamento de pedido público) não têm ordem
+    private String chaveOrdenacao(Event event) {
+        try {
+            JsonNode objeto = objectMapper.readTree(event.getDataObjectDeserializer().getRawJson());
+            String tipoObjeto = objeto.path("object").asText();
+            if ("customer".equals(tipoObjeto) || "account".equals(tipoObjeto)) {
+                return objeto.path("id").asText();
+            }
+            JsonNode customer = objeto.path("customer");
+            String customerId = customer.isObject() ? customer.path("id").asText() : customer.asText();
+            if (!customerId.isEmpty() && !"null".equals(customerId)) {
+                return customerId;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Não foi possível ler o objeto do evento Stripe {}: {}", event.getId(), e.getMessage());
+        }
+        return event.getAccount() != null ? event.getAccount() : event.getId();
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.model.AreaEntrega;
+import br.com.frevonamesa.frevonamesa.model.ZonaEntrega;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Configuração de frete de um restaurante compilada para cotação: taxa fixa, coordenadas do
+ * restaurante, as faixas de distância em arrays ordenados pela distância máxima e o índice espacial
+ * das zonas desenhadas. Imutável; quando faixas, zonas ou o restaurante mudam, uma tabela nova
+ * substitui a anterior.
+ */
+public final class TabelaFrete {
+
+    private static final double RAIO_TERRA_KM = 6371;
+
+    private final boolean calculoHaversineAtivo;
+    private final BigDecimal taxaFixa;
+    private final String cepRestaurante;
+    private final double latitude;  // NaN: coordenadas do restaurante desconhecidas
+    private final double longitude;
+    private final double[] maxDistanciasKm;
+    private final BigDecimal[] valores;
+    private final IndiceZonas zonas;
+
+    /**
+     * Resultado da cotação de um ponto: taxa null se o ponto está fora das zonas e das faixas;
+     * zona preenchida quando a taxa veio de uma zona; distanciaKm null se não foi preciso (ou possível) calcular.
+     */
+    public record Cotacao(BigDecimal taxa, IndiceZonas.Zona zona, Double distanciaKm) {}
+
+    public TabelaFrete(boolean calculoHaversineAtivo, BigDecimal taxaFixa, String cepRestaurante,
+                       Double latitude, Double longitude, List<AreaEntrega> areas) {
+        this(calculoHaversineAtivo, taxaFixa, cepRestaurante, latitude, longitude, areas, List.of());
+    }
+
+    public TabelaFrete(boolean calculoHaversineAtivo, BigDecimal taxaFixa, String cepRestaurante,
+                       Double latitude, Double longitude, List<AreaEntrega> areas, List<ZonaEntrega> zonas) {
+        this.calculoHaversineAtivo = calculoHaversineAtivo;
+        this.taxaFixa = taxaFixa;
+        this.cepRestaurante = cepRestaurante == null || cepRestaurante.isBlank() ? null : cepRestaurante;
+        this.latitude = latitude != null && longitude != null ? latitude : Double.NaN;
+        this.longitude = latitude != null && longitude != null ? longitude : Double.NaN;
+
+        // Ordenação estável: entre faixas com a mesma distância vale a primeira, como antes
+        List<AreaEntrega> ordenadas = new ArrayList<>(areas);
+        ordenadas.removeIf(area -> area.getMaxDistanceKm() == null);
+        ordenadas.sort(Comparator.comparing(AreaEntrega::getMaxDistanceKm));
+        this.maxDistanciasKm = new double[ordenadas.size()];
+        this.valores = new BigDecimal[ordenadas.size()];
+        for (int i = 0; i < ordenadas.size(); i++) {
+            maxDistanciasKm[i] = ordenadas.get(i).getMaxDistanceKm();
+            valores[i] = ordenadas.get(i).getValorEntrega();
+        }
+        this.zonas = zonas.isEmpty() ? IndiceZonas.VAZIO : new IndiceZonas(zonas.stream().map(IndiceZonas.Zona::de).toList());
+    }
+
+    public boolean isCalculoHaversineAtivo() {
+        return calculoHaversineAtivo;
+    }
+
+    public BigDecimal getTaxaFixa() {
+        return taxaFixa;
+    }
+
+    public String getCepRestaurante() {
+        return cepRestaurante;
+    }
+
+    public boolean temCoordenadas() {
+        return !Double.isNaN(latitude);
+    }
+
+    public boolean semFaixas() {
+        return valores.length == 0;
+    }
+
+    public boolean semZonas() {
+        return zonas.vazio();
+    }
+
+    /**
+     * Zonas primeiro (a que contém o cliente define a taxa), depois as faixas de distância. Sem
+     * faixas nem zonas a entrega é grátis. coordRestaurante só é usado se a tabela não tem as
+     * coordenadas do restaurante (pode ser null: aí só as zonas valem).
+     */
+    public Cotacao cotar(double latitudeCliente, double longitudeCliente, double[] coordRestaurante) {
+        IndiceZonas.Zona zona = zonas.localizar(latitudeCliente, longitudeCliente);
+        if (zona != null) {
+            return new Cotacao(zona.valorEntrega(), zona, null);
+        }
+        Double distancia = null;
+        if (temCoordenadas()) {
+            distancia = distanciaKm(latitudeCliente, longitudeCliente);
+        } else if (coordRestaurante != null) {
+            distancia = distanciaKm(coordRestaurante[0], coordRestaurante[1], latitudeCliente, longitudeCliente);
+        }
+        if (semFaixas()) {
+            return new Cotacao(semZonas() ? BigDecimal.ZERO : null, null, distancia);
+        }
+        return new Cotacao(distancia != null ? taxaPara(distancia) : null, null, distancia);
+    }
+
+    /**
+     * Distância Haversine do restaurante até o ponto; exige temCoordenadas().
+     */
+    public double distanciaKm(double latitudeCliente, double longitudeCliente) {
+        return distanciaKm(latitude, longitude, latitudeCliente, longitudeCliente);
+    }
+
+    /**
+     * Valor da primeira faixa cuja distância máxima cobre a distância (busca binária), ou null se a
+     * distância está fora de todas as faixas.
+     */
+    public BigDecimal taxaPara(double distanciaKm) {
+        int baixo = 0, alto = maxDistanciasKm.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (maxDistanciasKm[meio] < distanciaKm) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo < valores.length ? valores[baixo] : null;
+    }
+
+    public static double distanciaKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return RAIO_TERRA_KM * c;
+    }
+}
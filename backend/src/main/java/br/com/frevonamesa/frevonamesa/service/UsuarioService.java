@@ -1,5 +1,6 @@
 package br.com.frevonamesa.frevonamesa.service;
 
+import br.com.frevonamesa.frevonamesa.config.jwt.PrincipalCache;
 import br.com.frevonamesa.frevonamesa.dto.UsuarioDTO;
 import br.com.frevonamesa.frevonamesa.model.Restaurante;
 import br.com.frevonamesa.frevonamesa.model.Role;
@@ -18,6 +19,7 @@ public class UsuarioService {
     @Autowired private UsuarioRepository usuarioRepository;
     @Autowired private RestauranteService restauranteService;
     @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private PrincipalCache principalCache;
 
     // Método para listar todos os usuários do restaurante logado (para o painel Admin)
     public List<Usuario> listarUsuariosDoRestaurante() {
@@ -74,5 +76,6 @@ public class UsuarioService {
         }
 
         usuarioRepository.delete(usuario);
+        principalCache.revogar(usuario.getId()); // Tokens do usuário deixam de valer
     }
 }
\ No newline at end of file
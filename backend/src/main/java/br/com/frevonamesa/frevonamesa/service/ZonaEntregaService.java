@@ -0,0 +1,100 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.dto.ZonaEntregaDTO;
+import br.com.frevonamesa.frevonamesa.model.Restaurante;
+import br.com.frevonamesa.frevonamesa.model.ZonaEntrega;
+import br.com.frevonamesa.frevonamesa.repository.ZonaEntregaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zonas de entrega desenhadas no mapa. Cada alteração descarta a tabela de frete do restaurante
+ * (AreaEntregaAlteradaEvent), que recompila o índice espacial na próxima cotação.
+ */
+@Service
+public class ZonaEntregaService {
+
+    public static final int MAX_VERTICES = 2000;
+
+    @Autowired
+    private ZonaEntregaRepository zonaEntregaRepository;
+
+    @Autowired
+    private RestauranteService restauranteService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public List<ZonaEntrega> listarTodas() {
+        Restaurante restaurante = restauranteService.getRestauranteLogado();
+        return zonaEntregaRepository.findByRestauranteIdOrderById(restaurante.getId());
+    }
+
+    @Transactional
+    public ZonaEntrega criar(ZonaEntregaDTO dto) {
+        Restaurante restaurante = restauranteService.getRestauranteLogado();
+
+        ZonaEntrega novaZona = new ZonaEntrega();
+        preencher(novaZona, dto);
+        novaZona.setRestaurante(restaurante);
+
+        ZonaEntrega salva = zonaEntregaRepository.save(novaZona);
+        eventPublisher.publishEvent(new AreaEntregaAlteradaEvent(restaurante.getId()));
+        return salva;
+    }
+
+    @Transactional
+    public ZonaEntrega atualizar(Long id, ZonaEntregaDTO dto) {
+        Restaurante restaurante = restauranteService.getRestauranteLogado();
+        ZonaEntrega existente = buscarDoRestaurante(id, restaurante);
+
+        preencher(existente, dto);
+
+        ZonaEntrega salva = zonaEntregaRepository.save(existente);
+        eventPublisher.publishEvent(new AreaEntregaAlteradaEvent(restaurante.getId()));
+        return salva;
+    }
+
+    @Transactional
+    public void deletar(Long id) {
+        Restaurante restaurante = restauranteService.getRestauranteLogado();
+        ZonaEntrega existente = buscarDoRestaurante(id, restaurante);
+        zonaEntregaRepository.delete(existente);
+        eventPublisher.publishEvent(new AreaEntregaAlteradaEvent(restaurante.getId()));
+    }
+
+    private ZonaEntrega buscarDoRestaurante(Long id, Restaurante restaurante) {
+        ZonaEntrega existente = zonaEntregaRepository.findById(id).orElseThrow(() -> new RuntimeException("Zona de entrega não encontrada"));
+        if (!existente.getRestaurante().getId().equals(restaurante.getId())) {
+            throw new SecurityException("Acesso negado.");
+        }
+        return existente;
+    }
+
+    private void preencher(ZonaEntrega zona, ZonaEntregaDTO dto) {
+        if (dto.getValorEntrega() == null || dto.getValorEntrega().signum() < 0) {
+            throw new RuntimeException("Informe o valor de entrega da zona.");
+        }
+        List<double[]> poligono = dto.getPoligono();
+        if (poligono == null || poligono.size() < 3) {
+            throw new RuntimeException("A zona precisa de pelo menos 3 pontos.");
+        }
+        if (poligono.size() > MAX_VERTICES) {
+            throw new RuntimeException("A zona pode ter no máximo " + MAX_VERTICES + " pontos.");
+        }
+        for (double[] vertice : poligono) {
+            if (vertice == null || vertice.length != 2 || Math.abs(vertice[0]) > 90 || Math.abs(vertice[1]) > 180) {
+                throw new RuntimeException("Ponto inválido na zona: use [latitude, longitude].");
+            }
+        }
+        zona.setNome(dto.getNome());
+        zona.setPoligono(new ArrayList<>(poligono));
+        zona.setValorEntrega(dto.getValorEntrega());
+        zona.setValorMinimoPedido(dto.getValorMinimoPedido());
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.frevonamesa.frevonamesa.tools;
+
+import br.com.frevonamesa.frevonamesa.service.BaseCepOffline;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Gera a base de CEPs offline (formato em BaseCepOffline) a partir de um CSV "cep,latitude,longitude"
+ * (separador vírgula ou ponto e vírgula, cabeçalho opcional, CEP com ou sem hífen). Também calcula os
+ * centroides por prefixo CEP5 e CEP3. Uso, a partir de backend/ depois do build:
+ *
+ *   java -cp target/classes br.com.frevonamesa.frevonamesa.tools.ImportadorBaseCep ceps.csv ceps.bin
+ *
+ * No modo desktop, aponte app.cep.base-offline para o arquivo gerado.
+ */
+public final class ImportadorBaseCep {
+
+    private ImportadorBaseCep() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: ImportadorBaseCep <entrada.csv> <saida.bin>");
+            System.exit(1);
+        }
+        Path entrada = Path.of(args[0]);
+        Path saida = Path.of(args[1]);
+
+        TreeMap<Integer, long[]> ceps = new TreeMap<>(); // cep -> {lat, lng} em milionésimos de grau
+        int linhasIgnoradas = 0;
+        try (BufferedReader leitor = Files.newBufferedReader(entrada, StandardCharsets.UTF_8)) {
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                String[] campos = linha.split("[,;]");
+                String cep = campos[0].replaceAll("\\D", "");
+                if (campos.length < 3 || cep.length() != 8) {
+                    linhasIgnoradas++; // Cabeçalho ou linha inválida
+                    continue;
+                }
+                try {
+                    long latitude = Math.round(Double.parseDouble(campos[1].trim()) * BaseCepOffline.ESCALA);
+                    long longitude = Math.round(Double.parseDouble(campos[2].trim()) * BaseCepOffline.ESCALA);
+                    if (Math.abs(latitude) > 90 * BaseCepOffline.ESCALA || Math.abs(longitude) > 180 * BaseCepOffline.ESCALA) {
+                        linhasIgnoradas++;
+                        continue;
+                    }
+                    ceps.put(Integer.parseInt(cep), new long[]{latitude, longitude}); // Repetido: vale o último
+                } catch (NumberFormatException e) {
+                    linhasIgnoradas++;
+                }
+            }
+        }
+
+        TreeMap<Integer, long[]> cep5 = centroides(ceps, 1_000);
+        TreeMap<Integer, long[]> cep3 = centroides(ceps, 100_000);
+
+        Path temporario = saida.resolveSibling(saida.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporario)) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(BaseCepOffline.TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+            cabecalho.putInt(BaseCepOffline.MAGICO).putInt(BaseCepOffline.VERSAO)
+                    .putInt(ceps.size()).putInt(cep5.size()).putInt(cep3.size()).putInt(0);
+            out.write(cabecalho.array());
+            escrever(out, ceps);
+            escrever(out, cep5);
+            escrever(out, cep3);
+        }
+        // Troca atômica: a aplicação nunca abre um arquivo pela metade
+        Files.move(temporario, saida, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        System.out.printf("Base gerada em %s: %d CEPs, %d prefixos CEP5, %d prefixos CEP3 (%d linhas ignoradas).%n",
+                saida, ceps.size(), cep5.size(), cep3.size(), linhasIgnoradas);
+    }
+
+    // Média das coordenadas dos CEPs de cada prefixo (cep / divisor)
+    private static TreeMap<Integer, long[]> centroides(TreeMap<Integer, long[]> ceps, int divisor) {
+        TreeMap<Integer, long[]> somas = new TreeMap<>(); // prefixo -> {soma lat, soma lng, quantidade}
+        for (Map.Entry<Integer, long[]> cep : ceps.entrySet()) {
+            long[] soma = somas.computeIfAbsent(cep.getKey() / divisor, prefixo -> new long[3]);
+            soma[0] += cep.getValue()[0];
+            soma[1] += cep.getValue()[1];
+            soma[2]++;
+        }
+        TreeMap<Integer, long[]> medias = new TreeMap<>();
+        somas.forEach((prefixo, soma) -> medias.put(prefixo, new long[]{
+                Math.round((double) soma[0] / soma[2]), Math.round((double) soma[1] / soma[2])}));
+        return medias;
+    }
+
+    private static void escrever(OutputStream out, TreeMap<Integer, long[]> registros) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        for (Map.Entry<Integer, long[]> registro : registros.entrySet()) {
+            if (buffer.remaining() < BaseCepOffline.TAMANHO_REGISTRO) {
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+            buffer.putInt(registro.getKey()).putInt((int) registro.getValue()[0]).putInt((int) registro.getValue()[1]);
+        }
+        out.write(buffer.array(), 0, buffer.position());
+    }
+}
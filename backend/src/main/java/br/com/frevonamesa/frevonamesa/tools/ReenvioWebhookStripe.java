@@ -0,0 +1,109 @@
+package br.com.frevonamesa.frevonamesa.tools;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Reenvia payloads salvos de eventos do Stripe (JSON do evento, como no painel do Stripe ou na
+ * coluna payload da inbox) para o endpoint de webhook de um backend local, assinando cada um com o
+ * segredo do webhook como o Stripe faz. Arquivos de um diretório vão em ordem alfabética. Uso, a
+ * partir de backend/ depois do build:
+ *
+ *   java -cp target/classes br.com.frevonamesa.frevonamesa.tools.ReenvioWebhookStripe whsec_... eventos/ [url] [--novo-id]
+ *
+ * A url padrão é http://localhost:8080/api/financeiro/webhook/stripe. Como a inbox descarta ids
+ * repetidos, --novo-id troca o id de cada evento por um novo para processá-lo outra vez.
+ */
+public final class ReenvioWebhookStripe {
+
+    private static final String URL_PADRAO = "http://localhost:8080/api/financeiro/webhook/stripe";
+    private static final Pattern ID_EVENTO = Pattern.compile("\"id\"\\s*:\\s*\"(evt_[^\"]*)\"");
+
+    private ReenvioWebhookStripe() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, GeneralSecurityException {
+        List<String> posicionais = new ArrayList<>();
+        boolean novoId = false;
+        for (String arg : args) {
+            if ("--novo-id".equals(arg)) {
+                novoId = true;
+            } else {
+                posicionais.add(arg);
+            }
+        }
+        if (posicionais.size() < 2 || posicionais.size() > 3) {
+            System.err.println("Uso: ReenvioWebhookStripe <segredo-whsec> <arquivo.json|diretório> [url] [--novo-id]");
+            System.exit(1);
+        }
+        String segredo = posicionais.get(0);
+        Path origem = Path.of(posicionais.get(1));
+        URI url = URI.create(posicionais.size() == 3 ? posicionais.get(2) : URL_PADRAO);
+
+        List<Path> arquivos;
+        if (Files.isDirectory(origem)) {
+            try (Stream<Path> lista = Files.list(origem)) {
+                arquivos = lista.filter(Files::isRegularFile).sorted().toList();
+            }
+        } else {
+            arquivos = List.of(origem);
+        }
+
+        HttpClient httpClient = HttpClient.newHttpClient();
+        int falhas = 0;
+        for (Path arquivo : arquivos) {
+            String payload = Files.readString(arquivo, StandardCharsets.UTF_8);
+            if (novoId) {
+                payload = trocarIdEvento(payload);
+            }
+            HttpRequest requisicao = HttpRequest.newBuilder(url)
+                    .header("Content-Type", "application/json")
+                    .header("Stripe-Signature", assinar(payload, segredo))
+                    .POST(HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8))
+                    .build();
+            HttpResponse<String> resposta = httpClient.send(requisicao, HttpResponse.BodyHandlers.ofString());
+            System.out.println(arquivo.getFileName() + " -> " + resposta.statusCode() + " " + resposta.body());
+            if (resposta.statusCode() != 200) {
+                falhas++;
+            }
+        }
+        System.out.println(arquivos.size() + " evento(s) reenviado(s), " + falhas + " com erro.");
+        if (falhas > 0) {
+            System.exit(2);
+        }
+    }
+
+    // Cabeçalho no formato do Stripe: t=<timestamp>,v1=<HMAC-SHA256 de "timestamp.payload">
+    private static String assinar(String payload, String segredo) throws GeneralSecurityException {
+        long timestamp = System.currentTimeMillis() / 1000;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(segredo.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] assinatura = mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+        return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(assinatura);
+    }
+
+    // O primeiro "id": "evt_..." do JSON é o do próprio evento
+    private static String trocarIdEvento(String payload) {
+        Matcher matcher = ID_EVENTO.matcher(payload);
+        if (!matcher.find()) {
+            return payload;
+        }
+        String novo = matcher.group(1) + "_reenvio_" + Long.toString(System.nanoTime(), 36);
+        return payload.substring(0, matcher.start(1)) + novo + payload.substring(matcher.end(1));
+    }
+}
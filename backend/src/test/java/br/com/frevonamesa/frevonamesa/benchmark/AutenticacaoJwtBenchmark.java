@@ -0,0 +1,86 @@
+package br.com.frevonamesa.frevonamesa.benchmark;
+
+import br.com.frevonamesa.frevonamesa.config.jwt.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo da autenticação JWT por requisição:
+ * - tresParses: fluxo anterior (extractUsername + validateToken, cada um com um parser novo);
+ * - parseUnico: um parse/HMAC com o parser compartilhado (primeira requisição de um token);
+ * - tokenEmCache: JwtUtil.verificar com o token já verificado (demais requisições).
+ * Sob demanda: mvn test -Dtest=AutenticacaoJwtBenchmark -Djmh=true
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutenticacaoJwtBenchmark {
+
+    private static final String SEGREDO = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private JwtUtil jwtUtil;
+    private Key key;
+    private JwtParser parser;
+    private UserDetails usuario;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretString", SEGREDO);
+        jwtUtil.init();
+        key = Keys.hmacShaKeyFor(Base64.getDecoder().decode(SEGREDO));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        usuario = new User("caixa@restaurante.com", "x", List.of());
+        token = jwtUtil.generateToken(usuario);
+        jwtUtil.verificar(token);
+    }
+
+    @Benchmark
+    public boolean tresParses() {
+        String username = novoParser().parseClaimsJws(token).getBody().getSubject();
+        boolean mesmoUsuario = novoParser().parseClaimsJws(token).getBody().getSubject().equals(usuario.getUsername());
+        boolean expirado = novoParser().parseClaimsJws(token).getBody().getExpiration().before(new Date());
+        return username != null && mesmoUsuario && !expirado;
+    }
+
+    @Benchmark
+    public Claims parseUnico() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims tokenEmCache() {
+        return jwtUtil.verificar(token);
+    }
+
+    private JwtParser novoParser() {
+        return Jwts.parserBuilder().setSigningKey(key).build();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "jmh", matches = "true")
+    void executar() throws RunnerException {
+        new Runner(new OptionsBuilder().include(AutenticacaoJwtBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,159 @@
+package br.com.frevonamesa.frevonamesa.benchmark;
+
+import br.com.frevonamesa.frevonamesa.model.AreaEntrega;
+import br.com.frevonamesa.frevonamesa.model.ZonaEntrega;
+import br.com.frevonamesa.frevonamesa.service.TabelaFrete;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de uma cotação de frete com 50 faixas, já com as coordenadas dos CEPs em mãos:
+ * - faixasOrdenadasACadaCotacao: fluxo anterior em memória (cópia das faixas, sort, filtro linear);
+ *   no fluxo anterior ainda havia as leituras do restaurante e das faixas no banco, que não entram aqui;
+ * - tabelaEmCache: fluxo atual (busca da tabela no mapa, uma Haversine e uma busca binária);
+ * - tabelaComZonas: a mesma tabela com 40 zonas de 300 vértices (índice em grade antes das faixas);
+ * - zonasVarreduraLinear: referência sem índice, testando o ponto em todos os polígonos.
+ * Sob demanda: mvn test -Dtest=CotacaoFreteBenchmark -Djmh=true
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CotacaoFreteBenchmark {
+
+    private static final int FAIXAS = 50;
+    private static final int ZONAS = 40;
+    private static final int VERTICES_POR_ZONA = 300;
+    private static final int CLIENTES = 1024; // Potência de 2
+    private static final long RESTAURANTE_ID = 1L;
+    private static final double LATITUDE_RESTAURANTE = -8.0631;
+    private static final double LONGITUDE_RESTAURANTE = -34.8711;
+
+    private List<AreaEntrega> areas;
+    private Map<Long, TabelaFrete> tabelas;
+    private TabelaFrete tabelaComZonas;
+    private List<double[][]> poligonos;
+    private double[][] clientes;
+    private int proximo;
+
+    @Setup
+    public void preparar() {
+        areas = new ArrayList<>();
+        for (int i = 1; i <= FAIXAS; i++) {
+            AreaEntrega area = new AreaEntrega();
+            area.setMaxDistanceKm(i * 0.5);
+            area.setValorEntrega(BigDecimal.valueOf(300 + i * 50L, 2));
+            areas.add(area);
+        }
+        Collections.shuffle(areas, new Random(42)); // Como vêm do banco: sem ordem garantida
+
+        tabelas = new ConcurrentHashMap<>();
+        tabelas.put(RESTAURANTE_ID, new TabelaFrete(true, BigDecimal.ZERO, "50030230",
+                LATITUDE_RESTAURANTE, LONGITUDE_RESTAURANTE, areas));
+
+        // Zonas irregulares (estreladas) espalhadas pela cidade
+        Random random = new Random(7);
+        List<ZonaEntrega> zonas = new ArrayList<>();
+        poligonos = new ArrayList<>();
+        for (int z = 0; z < ZONAS; z++) {
+            double latitude = LATITUDE_RESTAURANTE + (random.nextDouble() - 0.5) * 0.3;
+            double longitude = LONGITUDE_RESTAURANTE + (random.nextDouble() - 0.5) * 0.3;
+            double raio = 0.01 + random.nextDouble() * 0.02;
+            List<double[]> poligono = new ArrayList<>();
+            for (int v = 0; v < VERTICES_POR_ZONA; v++) {
+                double angulo = 2 * Math.PI * v / VERTICES_POR_ZONA;
+                double r = raio * (0.6 + 0.4 * random.nextDouble());
+                poligono.add(new double[]{latitude + r * Math.sin(angulo), longitude + r * Math.cos(angulo)});
+            }
+            ZonaEntrega zona = new ZonaEntrega();
+            zona.setId((long) z);
+            zona.setNome("Zona " + z);
+            zona.setValorEntrega(BigDecimal.valueOf(400 + z * 10L, 2));
+            zona.setPoligono(poligono);
+            zonas.add(zona);
+            poligonos.add(poligono.toArray(new double[0][]));
+        }
+        tabelaComZonas = new TabelaFrete(true, BigDecimal.ZERO, "50030230",
+                LATITUDE_RESTAURANTE, LONGITUDE_RESTAURANTE, areas, zonas);
+
+        // Clientes até ~20 km do restaurante: a maioria cai dentro das faixas
+        clientes = new double[CLIENTES][];
+        for (int i = 0; i < CLIENTES; i++) {
+            clientes[i] = new double[]{
+                    LATITUDE_RESTAURANTE + (random.nextDouble() - 0.5) * 0.36,
+                    LONGITUDE_RESTAURANTE + (random.nextDouble() - 0.5) * 0.36};
+        }
+    }
+
+    @Benchmark
+    public BigDecimal faixasOrdenadasACadaCotacao() {
+        double[] cliente = proximoCliente();
+        double distanciaKm = TabelaFrete.distanciaKm(LATITUDE_RESTAURANTE, LONGITUDE_RESTAURANTE, cliente[0], cliente[1]);
+        List<AreaEntrega> ordenadas = new ArrayList<>(areas); // O repositório devolvia uma lista nova
+        ordenadas.sort(Comparator.comparing(AreaEntrega::getMaxDistanceKm));
+        return ordenadas.stream()
+                .filter(area -> distanciaKm <= area.getMaxDistanceKm())
+                .findFirst()
+                .map(AreaEntrega::getValorEntrega)
+                .orElse(null);
+    }
+
+    @Benchmark
+    public BigDecimal tabelaEmCache() {
+        double[] cliente = proximoCliente();
+        TabelaFrete tabela = tabelas.get(RESTAURANTE_ID);
+        return tabela.taxaPara(tabela.distanciaKm(cliente[0], cliente[1]));
+    }
+
+    @Benchmark
+    public BigDecimal tabelaComZonas() {
+        double[] cliente = proximoCliente();
+        return tabelaComZonas.cotar(cliente[0], cliente[1], null).taxa();
+    }
+
+    @Benchmark
+    public int zonasVarreduraLinear() {
+        double[] cliente = proximoCliente();
+        for (int z = 0; z < poligonos.size(); z++) {
+            if (contem(poligonos.get(z), cliente[0], cliente[1])) return z;
+        }
+        return -1;
+    }
+
+    private static boolean contem(double[][] poligono, double latitude, double longitude) {
+        boolean dentro = false;
+        for (int i = 0, j = poligono.length - 1; i < poligono.length; j = i++) {
+            if ((poligono[i][0] > latitude) != (poligono[j][0] > latitude)
+                    && longitude < (poligono[j][1] - poligono[i][1]) * (latitude - poligono[i][0]) / (poligono[j][0] - poligono[i][0]) + poligono[i][1]) {
+                dentro = !dentro;
+            }
+        }
+        return dentro;
+    }
+
+    private double[] proximoCliente() {
+        return clientes[proximo++ & (CLIENTES - 1)];
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "jmh", matches = "true")
+    void executar() throws RunnerException {
+        new Runner(new OptionsBuilder().include(CotacaoFreteBenchmark.class.getSimpleName()).build()).run();
+    }
+}
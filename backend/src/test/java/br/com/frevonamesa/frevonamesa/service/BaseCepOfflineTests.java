@@ -0,0 +1,82 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.repository.CepCoordenadaRepository;
+import br.com.frevonamesa.frevonamesa.tools.ImportadorBaseCep;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Base de CEPs offline: gerada pelo importador, consultada pelo CEP exato e, na falta dele, pelos
+ * centroides CEP5/CEP3; com a API externa desligada, a cotação não depende de internet.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BaseCepOfflineTests {
+
+    @Autowired private CepCoordenadaRepository cepCoordenadaRepository;
+
+    @TempDir
+    Path pasta;
+
+    @Test
+    void buscaExataEPorPrefixo() throws Exception {
+        BaseCepOffline base = gerarBase();
+
+        long exato = base.buscarExato(50030230);
+        assertEquals(-8.063100, BaseCepOffline.latitude(exato), 1e-9);
+        assertEquals(-34.871100, BaseCepOffline.longitude(exato), 1e-9);
+        assertEquals(BaseCepOffline.NAO_ENCONTRADO, base.buscarExato(50030999));
+
+        // CEP5 50030: média de 50030-230 e 50030-100
+        long cep5 = base.buscarAproximado(50030999);
+        assertEquals(-8.0641, BaseCepOffline.latitude(cep5), 1e-9);
+        assertEquals(-34.8721, BaseCepOffline.longitude(cep5), 1e-9);
+        // Sem CEP5 50099: cai no CEP3 500 (média dos três CEPs que começam com 500)
+        long cep3 = base.buscarAproximado(50099000);
+        assertEquals(-8.07, BaseCepOffline.latitude(cep3), 1e-6);
+        assertEquals(BaseCepOffline.NAO_ENCONTRADO, base.buscarAproximado(1001000));
+    }
+
+    @Test
+    void cotacaoSemInternetUsaABaseOffline() throws Exception {
+        CepGeocodingService servico = new CepGeocodingService();
+        ReflectionTestUtils.setField(servico, "cepCoordenadaRepository", cepCoordenadaRepository);
+        ReflectionTestUtils.setField(servico, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(servico, "baseCepOffline", gerarBase());
+        ReflectionTestUtils.setField(servico, "apiExternaAtiva", false);
+        servico.registrarMetricas();
+
+        assertArrayEquals(new double[]{-8.0631, -34.8711}, servico.buscarCoordenadas("50030-230"));
+        assertArrayEquals(new double[]{-8.0641, -34.8721}, servico.buscarCoordenadas("50030-999"), 1e-9);
+        assertThrows(RuntimeException.class, () -> servico.buscarCoordenadas("01001-000"));
+    }
+
+    private BaseCepOffline gerarBase() throws Exception {
+        Path csv = pasta.resolve("ceps.csv");
+        Files.writeString(csv, """
+                cep;latitude;longitude
+                50030-230;-8.0631;-34.8711
+                50030100;-8.0651;-34.8731
+                50050-000;-8.0818;-34.8840
+                linha inválida
+                """);
+        Path bin = pasta.resolve("ceps.bin");
+        ImportadorBaseCep.main(new String[]{csv.toString(), bin.toString()});
+
+        BaseCepOffline base = new BaseCepOffline();
+        ReflectionTestUtils.setField(base, "caminho", bin.toString());
+        base.abrir();
+        assertTrue(base.disponivel());
+        return base;
+    }
+}
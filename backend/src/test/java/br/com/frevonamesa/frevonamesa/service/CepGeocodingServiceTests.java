@@ -0,0 +1,102 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.repository.CepCoordenadaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Cache de coordenadas de CEP: buscas simultâneas do mesmo CEP fazem uma única chamada à API, o
+ * resultado sobrevive a um reinício (tabela) e CEPs inexistentes não são consultados de novo.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CepGeocodingServiceTests {
+
+    private static final int THREADS = 50;
+
+    @Autowired private CepGeocodingService cepGeocodingService;
+    @Autowired private CepCoordenadaRepository cepCoordenadaRepository;
+
+    @Test
+    void buscasSimultaneasDoMesmoCepFazemUmaChamada() throws Exception {
+        MockRestServiceServer api = MockRestServiceServer.bindTo(restTemplate(cepGeocodingService)).build();
+        api.expect(ExpectedCount.once(), requestTo("https://cep.awesomeapi.com.br/json/50030230"))
+                .andRespond(request -> {
+                    try {
+                        Thread.sleep(300); // API lenta: as outras threads chegam durante a chamada
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return withSuccess("{\"lat\":\"-8.0631\",\"lng\":\"-34.8711\"}", MediaType.APPLICATION_JSON).createResponse(request);
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<double[]>> buscas = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            buscas.add(executor.submit(() -> {
+                largada.await();
+                return cepGeocodingService.buscarCoordenadas("50030-230");
+            }));
+        }
+        largada.countDown();
+        for (Future<double[]> busca : buscas) {
+            assertArrayEquals(new double[]{-8.0631, -34.8711}, busca.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        api.verify();
+
+        // Após um reinício (memória vazia), a tabela responde sem chamar a API
+        CepGeocodingService reiniciado = novaInstancia();
+        MockRestServiceServer apiReiniciada = MockRestServiceServer.bindTo(restTemplate(reiniciado)).build();
+        apiReiniciada.expect(ExpectedCount.never(), requestTo("https://cep.awesomeapi.com.br/json/50030230"));
+        assertArrayEquals(new double[]{-8.0631, -34.8711}, reiniciado.buscarCoordenadas("50030230"));
+        apiReiniciada.verify();
+    }
+
+    @Test
+    void cepInexistenteFicaEmCacheNegativo() {
+        MockRestServiceServer api = MockRestServiceServer.bindTo(restTemplate(cepGeocodingService)).build();
+        api.expect(ExpectedCount.once(), requestTo("https://cep.awesomeapi.com.br/json/99999999"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        for (int i = 0; i < 3; i++) {
+            RuntimeException erro = assertThrows(RuntimeException.class, () -> cepGeocodingService.buscarCoordenadas("99999-999"));
+            assertEquals("CEP não encontrado. Verifique o número digitado.", erro.getMessage());
+        }
+        api.verify();
+        assertFalse(cepCoordenadaRepository.findById(99999999).orElseThrow().isEncontrado());
+    }
+
+    private CepGeocodingService novaInstancia() {
+        CepGeocodingService servico = new CepGeocodingService();
+        ReflectionTestUtils.setField(servico, "cepCoordenadaRepository", cepCoordenadaRepository);
+        ReflectionTestUtils.setField(servico, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(servico, "baseCepOffline", new BaseCepOffline()); // Sem base configurada
+        ReflectionTestUtils.setField(servico, "apiExternaAtiva", true);
+        servico.registrarMetricas();
+        return servico;
+    }
+
+    private static RestTemplate restTemplate(CepGeocodingService servico) {
+        return (RestTemplate) ReflectionTestUtils.getField(servico, "restTemplate");
+    }
+}
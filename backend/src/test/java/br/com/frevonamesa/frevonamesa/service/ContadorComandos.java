@@ -0,0 +1,47 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Conta os comandos SQL preparados pelo Hibernate (estatísticas ligadas no perfil de teste) durante
+ * uma ação. Base dos testes que garantem que as idas ao banco não crescem com o volume.
+ */
+final class ContadorComandos {
+
+    record Contagem<T>(T resultado, long comandos) {}
+
+    private final Statistics estatisticas;
+
+    ContadorComandos(EntityManagerFactory entityManagerFactory) {
+        this.estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    <T> Contagem<T> contar(Supplier<T> acao) {
+        estatisticas.clear();
+        T resultado = acao.get();
+        return new Contagem<>(resultado, estatisticas.getPrepareStatementCount());
+    }
+
+    long contar(Runnable acao) {
+        return contar(() -> {
+            acao.run();
+            return null;
+        }).comandos();
+    }
+
+    /**
+     * Falha se a quantidade de comandos mudou entre os volumes medidos (chave: volume, valor: comandos).
+     */
+    static void assertNaoVariaComVolume(Map<Integer, Long> comandosPorVolume, String descricao) {
+        assertEquals(1, new HashSet<>(comandosPorVolume.values()).size(),
+                descricao + " variaram com o volume: " + comandosPorVolume);
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.model.Restaurante;
+import br.com.frevonamesa.frevonamesa.repository.ContadorRestauranteRepository;
+import br.com.frevonamesa.frevonamesa.repository.RestauranteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Primeiros pedidos simultâneos de um restaurante sem linha de contadores: todos consomem a cota,
+ * sem violação de chave na criação da linha.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CotaDeliveryConcorrenciaTests {
+
+    private static final int THREADS = 8;
+
+    @Autowired private CotaDeliveryService cotaDeliveryService;
+    @Autowired private RestauranteRepository restauranteRepository;
+    @Autowired private ContadorRestauranteRepository contadorRestauranteRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void primeirosPedidosSimultaneosConsomemACota() throws Exception {
+        Restaurante novo = new Restaurante("Cota Concorrente", "cota-" + UUID.randomUUID() + "@teste.com", "x");
+        novo.setPedidosExtrasContratados(THREADS - CotaDeliveryService.LIMITE_BASE); // Cota exata para todos
+        Restaurante restaurante = restauranteRepository.save(novo);
+        assertTrue(contadorRestauranteRepository.findPedidosMesAtual(restaurante.getId()).isEmpty());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                transactionTemplate.executeWithoutResult(status -> cotaDeliveryService.consumir(restaurante));
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS, contadorRestauranteRepository.findPedidosMesAtual(restaurante.getId()).orElse(0));
+    }
+}
@@ -0,0 +1,186 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.dto.RelatorioPeriodoDTO;
+import br.com.frevonamesa.frevonamesa.model.*;
+import br.com.frevonamesa.frevonamesa.repository.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.reset;
+
+/**
+ * Benchmark do fechamento de caixa: o número de comandos enviados ao banco é o mesmo com 20 ou 2000
+ * pedidos (operações em massa, sem carregar entidades), e o histórico vai para o arquivo. Também cobre
+ * o pedido cujo commit chega entre a cópia para o arquivo e a remoção.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class FechamentoCaixaTests {
+
+    private static final int MESAS = 10;
+
+    @Autowired private CaixaService caixaService;
+    @Autowired private RelatorioService relatorioService;
+    @Autowired private RestauranteRepository restauranteRepository;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private ProdutoRepository produtoRepository;
+    @Autowired private MesaRepository mesaRepository;
+    @Autowired private PedidoRepository pedidoRepository;
+    @MockitoSpyBean private PedidoArquivadoRepository pedidoArquivadoRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void comandosDoFechamentoNaoDependemDoVolume() {
+        ContadorComandos contador = new ContadorComandos(entityManagerFactory);
+        Map<Integer, Long> comandosPorVolume = new LinkedHashMap<>();
+
+        for (int pedidos : new int[]{20, 2000}) {
+            Long restauranteId = prepararNoite(pedidos);
+            long arquivadosAntes = pedidoArquivadoRepository.count();
+
+            comandosPorVolume.put(pedidos, contador.contar(() -> caixaService.fecharCaixa(restauranteId)));
+
+            assertEquals(pedidos, pedidoArquivadoRepository.count() - arquivadosAntes);
+            assertTrue(mesaRepository.findByRestauranteId(restauranteId).stream()
+                    .allMatch(m -> m.getStatus() == StatusMesa.LIVRE && m.getValorTotal().signum() == 0));
+            assertEquals(MESAS, mesaRepository.countByRestauranteId(restauranteId));
+        }
+
+        ContadorComandos.assertNaoVariaComVolume(comandosPorVolume, "Comandos do fechamento");
+    }
+
+    @Test
+    void historicoContinuaNosRelatoriosDepoisDoFechamento() {
+        Long restauranteId = prepararNoite(6);
+        LocalDate hoje = LocalDate.now();
+        RelatorioPeriodoDTO antes = relatorioService.gerarRelatorioPeriodo(restauranteId, hoje, hoje);
+
+        caixaService.fecharCaixa(restauranteId);
+
+        RelatorioPeriodoDTO depois = relatorioService.gerarRelatorioPeriodo(restauranteId, hoje, hoje);
+        assertEquals(0, new BigDecimal("150.00").compareTo(depois.getFaturamentoTotal()));
+        assertEquals(0, antes.getFaturamentoTotal().compareTo(depois.getFaturamentoTotal()));
+        assertEquals(antes.getQuantidadePedidos(), depois.getQuantidadePedidos());
+        assertEquals(antes.getTopProdutos(), depois.getTopProdutos());
+        assertEquals(6, relatorioService.gerarRelatorio(restauranteId, hoje).getMesasAtendidas().stream()
+                .mapToInt(m -> m.getPedidos().size()).sum());
+    }
+
+    @Test
+    void pedidoComitadoDuranteOFechamentoNaoEApagadoSemArquivo() throws Exception {
+        Long restauranteId = prepararNoite(3);
+        Restaurante restaurante = restauranteRepository.findById(restauranteId).orElseThrow();
+        Mesa mesa = mesaRepository.findByRestauranteId(restauranteId).get(0);
+
+        // Pedido A: gravado antes do fechamento, mas com o commit pendente (id menor que o de B)
+        CountDownLatch gravado = new CountDownLatch(1);
+        CountDownLatch liberarCommit = new CountDownLatch(1);
+        AtomicLong idAtrasado = new AtomicLong();
+        ExecutorService outraConexao = Executors.newSingleThreadExecutor();
+        Future<?> commitAtrasado = outraConexao.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            idAtrasado.set(pedidoRepository.saveAndFlush(novoPedido(restaurante, mesa)).getId());
+            gravado.countDown();
+            try {
+                liberarCommit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            assertTrue(gravado.await(10, TimeUnit.SECONDS));
+            // Pedido B: já comitado, leva o maior id da mesa para além do pedido A
+            pedidoRepository.save(novoPedido(restaurante, mesa));
+
+            // O commit de A acontece depois da cópia para o arquivo e antes das remoções. O spy de um
+            // repositório (proxy JDK) não tem "método real": a resposta padrão delega ao bean original
+            Answer<?> original = mockingDetails(pedidoArquivadoRepository).getMockCreationSettings().getDefaultAnswer();
+            doAnswer(invocacao -> {
+                Object copiados = original.answer(invocacao);
+                liberarCommit.countDown();
+                commitAtrasado.get(10, TimeUnit.SECONDS);
+                return copiados;
+            }).when(pedidoArquivadoRepository).arquivarAdicionaisDeMesa(eq(restauranteId), any(), any());
+
+            caixaService.fecharCaixa(restauranteId);
+        } finally {
+            liberarCommit.countDown();
+            outraConexao.shutdown();
+            reset(pedidoArquivadoRepository);
+        }
+
+        assertFalse(pedidoArquivadoRepository.existsById(idAtrasado.get()));
+        assertTrue(pedidoRepository.existsById(idAtrasado.get()), "Pedido apagado sem ter sido arquivado");
+        Mesa depois = mesaRepository.findById(mesa.getId()).orElseThrow();
+        assertEquals(StatusMesa.OCUPADA, depois.getStatus());
+        assertEquals(0, new BigDecimal("25.00").compareTo(depois.getValorTotal()));
+    }
+
+    private Pedido novoPedido(Restaurante restaurante, Mesa mesa) {
+        Pedido pedido = new Pedido();
+        pedido.setRestaurante(restaurante);
+        pedido.setMesa(mesa);
+        pedido.setTipo(TipoPedido.MESA);
+        pedido.setStatus(StatusPedido.FINALIZADO);
+        pedido.setTipoPagamento(TipoPagamento.PIX);
+        pedido.setDataHora(LocalDateTime.now());
+        pedido.setTotal(new BigDecimal("25.00"));
+        return pedido;
+    }
+
+    // Pedidos de mesa pagos, cada um com 2 itens (um deles com adicional): 15,00 + 10,00
+    private Long prepararNoite(int quantidadePedidos) {
+        Restaurante restaurante = restauranteRepository.save(
+                new Restaurante("Fechamento", "fechamento-" + UUID.randomUUID() + "@teste.com", "x"));
+        Categoria categoria = categoriaRepository.save(new Categoria("Pratos", restaurante));
+        Produto produto = new Produto("Prato", "", new BigDecimal("10.00"), categoria);
+        produto.setRestaurante(restaurante);
+        produto = produtoRepository.save(produto);
+        List<Mesa> mesas = new ArrayList<>();
+        for (int numero = 1; numero <= MESAS; numero++) {
+            Mesa mesa = new Mesa(numero, StatusMesa.OCUPADA, new BigDecimal("25.00"), null);
+            mesa.setRestaurante(restaurante);
+            mesas.add(mesaRepository.save(mesa));
+        }
+
+        List<Pedido> pedidos = new ArrayList<>();
+        for (int i = 0; i < quantidadePedidos; i++) {
+            Pedido pedido = new Pedido();
+            pedido.setRestaurante(restaurante);
+            pedido.setMesa(mesas.get(i % MESAS));
+            pedido.setTipo(TipoPedido.MESA);
+            pedido.setStatus(StatusPedido.FINALIZADO);
+            pedido.setTipoPagamento(TipoPagamento.PIX);
+            pedido.setDataHora(LocalDateTime.now());
+            pedido.setTotal(new BigDecimal("25.00"));
+            ItemPedido comAdicional = new ItemPedido(pedido, produto, 1, produto.getPreco());
+            ItemPedidoAdicional adicional = new ItemPedidoAdicional();
+            adicional.setItemPedido(comAdicional);
+            adicional.setNomeAdicional("Queijo");
+            adicional.setPrecoAdicional(new BigDecimal("5.00"));
+            comAdicional.getAdicionais().add(adicional);
+            pedido.setItens(new ArrayList<>(List.of(comAdicional, new ItemPedido(pedido, produto, 1, produto.getPreco()))));
+            pedidos.add(pedido);
+        }
+        pedidoRepository.saveAll(pedidos);
+        return restaurante.getId();
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.model.AreaEntrega;
+import br.com.frevonamesa.frevonamesa.model.ZonaEntrega;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Índice espacial das zonas: para milhares de pontos, a zona devolvida pela grade é a mesma de testar
+ * todos os polígonos um a um; zonas têm prioridade sobre as faixas de distância.
+ */
+class IndiceZonasTests {
+
+    private static final double LATITUDE_CENTRO = -8.0631;
+    private static final double LONGITUDE_CENTRO = -34.8711;
+
+    @Test
+    void gradeConcordaComTesteDeTodosOsPoligonos() {
+        Random random = new Random(11);
+        List<IndiceZonas.Zona> zonas = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            zonas.add(IndiceZonas.Zona.de(zonaIrregular(random, i, 150)));
+        }
+        IndiceZonas indice = new IndiceZonas(zonas);
+
+        int dentro = 0;
+        for (int i = 0; i < 20_000; i++) {
+            double latitude = LATITUDE_CENTRO + (random.nextDouble() - 0.5) * 0.4;
+            double longitude = LONGITUDE_CENTRO + (random.nextDouble() - 0.5) * 0.4;
+
+            IndiceZonas.Zona esperada = null;
+            for (IndiceZonas.Zona zona : zonas) {
+                if (zona.contem(latitude, longitude)
+                        && (esperada == null || zona.valorEntrega().compareTo(esperada.valorEntrega()) < 0)) {
+                    esperada = zona;
+                }
+            }
+            assertSame(esperada, indice.localizar(latitude, longitude), "Ponto " + latitude + ", " + longitude);
+            if (esperada != null) dentro++;
+        }
+        assertTrue(dentro > 1000, "Poucos pontos caíram dentro das zonas: " + dentro);
+    }
+
+    @Test
+    void zonaTemPrioridadeSobreAsFaixas() {
+        ZonaEntrega quadrado = new ZonaEntrega();
+        quadrado.setNome("Boa Vista");
+        quadrado.setValorEntrega(new BigDecimal("4.00"));
+        quadrado.setPoligono(List.of(
+                new double[]{-8.10, -34.90}, new double[]{-8.10, -34.88},
+                new double[]{-8.08, -34.88}, new double[]{-8.08, -34.90}));
+        AreaEntrega faixa = new AreaEntrega();
+        faixa.setMaxDistanceKm(5.0);
+        faixa.setValorEntrega(new BigDecimal("7.00"));
+        TabelaFrete tabela = new TabelaFrete(true, BigDecimal.ZERO, "50030230",
+                LATITUDE_CENTRO, LONGITUDE_CENTRO, List.of(faixa), List.of(quadrado));
+
+        TabelaFrete.Cotacao naZona = tabela.cotar(-8.09, -34.89, null);
+        assertEquals(new BigDecimal("4.00"), naZona.taxa());
+        assertEquals("Boa Vista", naZona.zona().nome());
+
+        TabelaFrete.Cotacao naFaixa = tabela.cotar(-8.07, -34.87, null);
+        assertEquals(new BigDecimal("7.00"), naFaixa.taxa());
+        assertNull(naFaixa.zona());
+
+        assertNull(tabela.cotar(-8.30, -34.87, null).taxa()); // Fora da zona e a mais de 5 km
+    }
+
+    // Polígono estrelado (não convexo) em volta de um centro aleatório
+    private static ZonaEntrega zonaIrregular(Random random, int indice, int vertices) {
+        double latitude = LATITUDE_CENTRO + (random.nextDouble() - 0.5) * 0.3;
+        double longitude = LONGITUDE_CENTRO + (random.nextDouble() - 0.5) * 0.3;
+        double raio = 0.01 + random.nextDouble() * 0.03;
+        List<double[]> poligono = new ArrayList<>();
+        for (int v = 0; v < vertices; v++) {
+            double angulo = 2 * Math.PI * v / vertices;
+            double r = raio * (0.5 + random.nextDouble());
+            poligono.add(new double[]{latitude + r * Math.sin(angulo), longitude + r * Math.cos(angulo)});
+        }
+        ZonaEntrega zona = new ZonaEntrega();
+        zona.setId((long) indice);
+        zona.setNome("Zona " + indice);
+        zona.setValorEntrega(BigDecimal.valueOf(300 + indice * 25L, 2));
+        zona.setPoligono(poligono);
+        return zona;
+    }
+}
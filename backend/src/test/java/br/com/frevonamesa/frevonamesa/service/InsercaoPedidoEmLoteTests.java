@@ -0,0 +1,98 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.model.*;
+import br.com.frevonamesa.frevonamesa.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Gravação de um pedido de 30 linhas (cada uma com um adicional): idas ao banco com lote de 1 (como
+ * era com IDENTITY: um INSERT por linha) e com o lote configurado (ids de sequence).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class InsercaoPedidoEmLoteTests {
+
+    private static final int LINHAS = 30;
+    private static final int REPETICOES = 40;
+
+    @Autowired private RestauranteRepository restauranteRepository;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private ProdutoRepository produtoRepository;
+    @Autowired private PedidoRepository pedidoRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void pedidoDe30LinhasVaiAoBancoEmLote() {
+        Restaurante restaurante = restauranteRepository.save(
+                new Restaurante("Lote", "lote-" + UUID.randomUUID() + "@teste.com", "x"));
+        Categoria categoria = categoriaRepository.save(new Categoria("Pratos", restaurante));
+        Produto produto = new Produto("Prato", "", new BigDecimal("10.00"), categoria);
+        produto.setRestaurante(restaurante);
+        Produto salvo = produtoRepository.save(produto);
+
+        medir(restaurante, salvo, 1); // Aquecimento
+        medir(restaurante, salvo, 50);
+        double antes = medir(restaurante, salvo, 1);
+        double depois = medir(restaurante, salvo, 50);
+
+        // Um INSERT por pedido, item e adicional (+ as idas à sequence a cada 50 ids)
+        assertTrue(antes >= 1 + 2 * LINHAS, "Lote 1: " + antes + " comandos por pedido");
+        // Um lote por tabela (+ as idas à sequence)
+        assertTrue(depois <= 5, "Em lote: " + depois + " comandos por pedido");
+    }
+
+    // Comandos por pedido, na média de REPETICOES pedidos
+    private double medir(Restaurante restaurante, Produto produto, int tamanhoLote) {
+        long comandos = new ContadorComandos(entityManagerFactory).contar(() -> {
+            for (int i = 0; i < REPETICOES; i++) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    entityManager.unwrap(Session.class).setJdbcBatchSize(tamanhoLote);
+                    pedidoRepository.save(novoPedido(restaurante, produto));
+                });
+            }
+        });
+        return (double) comandos / REPETICOES;
+    }
+
+    private Pedido novoPedido(Restaurante restaurante, Produto produto) {
+        Pedido pedido = new Pedido();
+        pedido.setRestaurante(restaurante);
+        pedido.setTipo(TipoPedido.DELIVERY);
+        pedido.setStatus(StatusPedido.PENDENTE);
+        pedido.setDataHora(LocalDateTime.now());
+        pedido.setUuid(UUID.randomUUID());
+        pedido.setItens(new ArrayList<>());
+        BigDecimal total = BigDecimal.ZERO;
+        for (int linha = 0; linha < LINHAS; linha++) {
+            ItemPedido item = new ItemPedido(pedido, produto, 1, produto.getPreco());
+            ItemPedidoAdicional adicional = new ItemPedidoAdicional();
+            adicional.setItemPedido(item);
+            adicional.setNomeAdicional("Queijo");
+            adicional.setPrecoAdicional(new BigDecimal("2.00"));
+            item.getAdicionais().add(adicional);
+            pedido.getItens().add(item);
+            total = total.add(item.getSubtotal());
+        }
+        pedido.setTotal(total);
+        return pedido;
+    }
+}
@@ -0,0 +1,100 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.dto.ItemPedidoRequestDTO;
+import br.com.frevonamesa.frevonamesa.dto.PedidoClienteDTO;
+import br.com.frevonamesa.frevonamesa.model.*;
+import br.com.frevonamesa.frevonamesa.repository.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Teste de estresse: pedidos simultâneos na mesma mesa não podem perder valores no total da mesa.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MesaTotalConcorrenciaTests {
+
+    private static final int THREADS = 8;
+    private static final int PEDIDOS_POR_THREAD = 25;
+
+    @Autowired private PedidoService pedidoService;
+    @Autowired private RestauranteRepository restauranteRepository;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private ProdutoRepository produtoRepository;
+    @Autowired private MesaRepository mesaRepository;
+    @Autowired private PedidoRepository pedidoRepository;
+
+    @Test
+    void totalDaMesaIgualASomaDosPedidosSobConcorrencia() throws Exception {
+        Restaurante restaurante = new Restaurante("Mesa Concorrente", "mesa-" + UUID.randomUUID() + "@teste.com", "x");
+        restaurante = restauranteRepository.save(restaurante);
+        Categoria categoria = categoriaRepository.save(new Categoria("Bebidas", restaurante));
+        Produto produto = new Produto("Suco", "", new BigDecimal("7.50"), categoria);
+        produto.setRestaurante(restaurante);
+        produto = produtoRepository.save(produto);
+
+        Mesa mesa = new Mesa(1, StatusMesa.LIVRE, BigDecimal.ZERO, null);
+        mesa.setRestaurante(restaurante);
+        mesa = mesaRepository.save(mesa);
+
+        Long restauranteId = restaurante.getId();
+        Long produtoId = produto.getId();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < PEDIDOS_POR_THREAD; i++) {
+                    pedidoService.criarPedidoMesaCliente(pedido(restauranteId, produtoId, 1 + (thread + i) % 3, "Cliente " + thread));
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        Long mesaId = mesa.getId();
+        List<Pedido> pedidosDaMesa = pedidoRepository.findAll().stream()
+                .filter(p -> p.getMesa() != null && p.getMesa().getId().equals(mesaId))
+                .toList();
+        BigDecimal somaPedidos = pedidosDaMesa.stream()
+                .map(Pedido::getTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Mesa mesaFinal = mesaRepository.findById(mesaId).orElseThrow();
+
+        assertEquals(THREADS * PEDIDOS_POR_THREAD, pedidosDaMesa.size());
+        assertEquals(0, somaPedidos.compareTo(mesaFinal.getValorTotal()),
+                "Total da mesa " + mesaFinal.getValorTotal() + " diferente da soma dos pedidos " + somaPedidos);
+        assertEquals(StatusMesa.OCUPADA, mesaFinal.getStatus());
+        assertNotNull(mesaFinal.getHoraAbertura());
+        assertTrue(mesaFinal.getNomeCliente().startsWith("Cliente "));
+    }
+
+    private PedidoClienteDTO pedido(Long restauranteId, Long produtoId, int quantidade, String nomeCliente) {
+        ItemPedidoRequestDTO item = new ItemPedidoRequestDTO();
+        item.setProdutoId(produtoId);
+        item.setQuantidade(quantidade);
+        PedidoClienteDTO dto = new PedidoClienteDTO();
+        dto.setRestauranteId(restauranteId);
+        dto.setNumeroMesa(1);
+        dto.setNomeCliente(nomeCliente);
+        dto.setItens(List.of(item));
+        return dto;
+    }
+}
@@ -0,0 +1,163 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.dto.ItemPedidoRequestDTO;
+import br.com.frevonamesa.frevonamesa.model.*;
+import br.com.frevonamesa.frevonamesa.repository.AdicionalRepository;
+import br.com.frevonamesa.frevonamesa.repository.CategoriaRepository;
+import br.com.frevonamesa.frevonamesa.repository.PedidoRepository;
+import br.com.frevonamesa.frevonamesa.repository.ProdutoRepository;
+import br.com.frevonamesa.frevonamesa.repository.RestauranteRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark da montagem de pedidos: com o snapshot do cardápio carregado, a precificação
+ * não faz consultas, independente da quantidade de itens e adicionais.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MontagemPedidoServiceTests {
+
+    @Autowired private MontagemPedidoService montagemPedidoService;
+    @Autowired private CardapioSnapshotService cardapioSnapshotService;
+    @Autowired private RestauranteRepository restauranteRepository;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private ProdutoRepository produtoRepository;
+    @Autowired private AdicionalRepository adicionalRepository;
+    @Autowired private PedidoRepository pedidoRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ObjectMapper objectMapper;
+
+    private Restaurante restaurante;
+    private final List<Long> produtoIds = new ArrayList<>();
+    private final List<Long> adicionalIds = new ArrayList<>();
+
+    @BeforeEach
+    void prepararCardapio() {
+        restaurante = new Restaurante();
+        restaurante.setNome("Restaurante Teste");
+        restaurante.setEmail("montagem-" + UUID.randomUUID() + "@teste.com");
+        restaurante.setSenha("x");
+        restaurante = restauranteRepository.save(restaurante);
+
+        Categoria categoria = categoriaRepository.save(new Categoria("Pratos", restaurante));
+        for (int i = 0; i < 30; i++) {
+            Produto produto = new Produto("Produto " + i, "", new BigDecimal("10.00"), categoria);
+            produto.setRestaurante(restaurante);
+            produtoIds.add(produtoRepository.save(produto).getId());
+        }
+        for (int i = 0; i < 10; i++) {
+            Adicional adicional = new Adicional();
+            adicional.setNome("Adicional " + i);
+            adicional.setPreco(new BigDecimal("2.00"));
+            adicional.setRestaurante(restaurante);
+            adicionalIds.add(adicionalRepository.save(adicional).getId());
+        }
+    }
+
+    @Test
+    void quantidadeDeConsultasConstanteComNumeroDeItens() {
+        ContadorComandos contador = new ContadorComandos(entityManagerFactory);
+        Map<Integer, Long> consultasPorTamanho = new LinkedHashMap<>();
+        cardapioSnapshotService.getSnapshot(restaurante.getId()); // Aquece o snapshot do cardápio
+
+        for (int quantidadeItens : new int[]{1, 5, 15, 30}) {
+            List<ItemPedidoRequestDTO> itens = gerarItens(quantidadeItens);
+            ContadorComandos.Contagem<BigDecimal> montagem = contador.contar(() -> transactionTemplate.execute(status ->
+                    montagemPedidoService.montarItens(new Pedido(), restaurante.getId(), itens)));
+            consultasPorTamanho.put(quantidadeItens, montagem.comandos());
+
+            // Cada item: 10,00 + 2 adicionais de 2,00 = 14,00
+            assertEquals(0, new BigDecimal("14.00").multiply(BigDecimal.valueOf(quantidadeItens)).compareTo(montagem.resultado()));
+        }
+
+        ContadorComandos.assertNaoVariaComVolume(consultasPorTamanho, "Consultas por pedido");
+        assertEquals(0L, consultasPorTamanho.get(30), "Esperado nenhuma consulta: " + consultasPorTamanho);
+    }
+
+    @Test
+    void pedidoGravadoESerializadoComProdutosDoCache() {
+        cardapioSnapshotService.getSnapshot(restaurante.getId());
+        produtoIds.forEach(produtoRepository::findById); // Produtos já lidos: cache de segundo nível quente, como em produção
+        ContadorComandos contador = new ContadorComandos(entityManagerFactory);
+
+        // Como na requisição (open-in-view): monta, grava e serializa o pedido na mesma sessão
+        ContadorComandos.Contagem<String> requisicao = contador.contar(() -> transactionTemplate.execute(status -> {
+            Pedido pedido = new Pedido();
+            pedido.setRestaurante(restaurante);
+            pedido.setTipo(TipoPedido.DELIVERY);
+            pedido.setStatus(StatusPedido.PENDENTE);
+            pedido.setTotal(montagemPedidoService.montarItens(pedido, restaurante.getId(), gerarItens(30)));
+            pedidoRepository.saveAndFlush(pedido);
+            try {
+                return objectMapper.writeValueAsString(pedido);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+
+        // Produto completo na resposta, não só os campos do snapshot
+        assertTrue(requisicao.resultado().contains("\"nome\":\"Produto 29\",\"descricao\":\"\""), requisicao.resultado());
+        assertTrue(requisicao.resultado().contains("\"categoria\":{"), requisicao.resultado());
+        // INSERTs em lote do pedido, itens e adicionais (+ sequences); um SELECT por produto passaria de 30
+        assertTrue(requisicao.comandos() <= 8, "Comandos na requisição: " + requisicao.comandos());
+    }
+
+    @Test
+    void registraVersaoDoCardapioUsadaNoPedido() {
+        long versaoInicial = cardapioSnapshotService.getSnapshot(restaurante.getId()).getVersao();
+        transactionTemplate.executeWithoutResult(status ->
+                cardapioSnapshotService.registrarAlteracao(restaurante.getId()));
+
+        Pedido pedido = new Pedido();
+        pedido.setRestaurante(restaurante);
+        pedido.setTipo(TipoPedido.DELIVERY);
+        pedido.setStatus(StatusPedido.PENDENTE);
+        transactionTemplate.executeWithoutResult(status -> {
+            pedido.setTotal(montagemPedidoService.montarItens(pedido, restaurante.getId(), gerarItens(3)));
+            pedidoRepository.save(pedido);
+        });
+
+        assertEquals(versaoInicial + 1, pedido.getVersaoCardapio());
+        assertEquals(versaoInicial + 1, pedidoRepository.findById(pedido.getId()).orElseThrow().getVersaoCardapio());
+    }
+
+    @Test
+    void rejeitaProdutoDeOutroRestaurante() {
+        Restaurante outro = new Restaurante();
+        outro.setNome("Outro");
+        outro.setEmail("outro-" + UUID.randomUUID() + "@teste.com");
+        outro.setSenha("x");
+        Long outroId = restauranteRepository.save(outro).getId();
+
+        List<ItemPedidoRequestDTO> itens = gerarItens(1);
+        assertThrows(SecurityException.class, () -> transactionTemplate.execute(status ->
+                montagemPedidoService.montarItens(new Pedido(), outroId, itens)));
+    }
+
+    private List<ItemPedidoRequestDTO> gerarItens(int quantidade) {
+        List<ItemPedidoRequestDTO> itens = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            ItemPedidoRequestDTO item = new ItemPedidoRequestDTO();
+            item.setProdutoId(produtoIds.get(i % produtoIds.size()));
+            item.setQuantidade(1);
+            item.setAdicionaisIds(List.of(
+                    adicionalIds.get(i % adicionalIds.size()),
+                    adicionalIds.get((i + 1) % adicionalIds.size())));
+            itens.add(item);
+        }
+        return itens;
+    }
+}
@@ -0,0 +1,126 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.dto.RelatorioDiarioDTO;
+import br.com.frevonamesa.frevonamesa.dto.RelatorioMesaDTO;
+import br.com.frevonamesa.frevonamesa.model.*;
+import br.com.frevonamesa.frevonamesa.repository.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Regressão do relatório diário: o número de consultas é fixo, independente de quantos pedidos,
+ * mesas e itens o dia teve (sem N+1 nos itens/produtos).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RelatorioServiceTests {
+
+    private static final int ITENS_POR_PEDIDO = 3;
+
+    @Autowired private RelatorioService relatorioService;
+    @Autowired private RestauranteRepository restauranteRepository;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private ProdutoRepository produtoRepository;
+    @Autowired private MesaRepository mesaRepository;
+    @Autowired private PedidoRepository pedidoRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void quantidadeDeConsultasConstanteComVolumeDoDia() {
+        ContadorComandos contador = new ContadorComandos(entityManagerFactory);
+        Map<Integer, Long> consultasPorVolume = new LinkedHashMap<>();
+
+        for (int pedidos : new int[]{2, 40}) {
+            Long restauranteId = prepararDia(pedidos);
+
+            ContadorComandos.Contagem<RelatorioDiarioDTO> contagem =
+                    contador.contar(() -> relatorioService.gerarRelatorio(restauranteId, LocalDate.now()));
+            RelatorioDiarioDTO relatorio = contagem.resultado();
+            consultasPorVolume.put(pedidos, contagem.comandos());
+
+            // Metade mesa (PIX), metade delivery (DINHEIRO); cada pedido: 3 itens de 10,00 x 2
+            BigDecimal totalPorTipo = new BigDecimal("60.00").multiply(BigDecimal.valueOf(pedidos / 2));
+            assertEquals(0, totalPorTipo.compareTo(relatorio.getFaturamentoTotal()));
+            assertEquals(0, totalPorTipo.compareTo(relatorio.getFaturamentoPorTipoPagamento().get("PIX")));
+            assertEquals(0, totalPorTipo.compareTo(relatorio.getRelatorioDelivery().getFaturamentoTotal()));
+            assertEquals(pedidos / 2, relatorio.getRelatorioDelivery().getPedidos().size());
+            assertEquals(pedidos / 2, relatorio.getMesasAtendidas().stream().mapToInt(m -> m.getPedidos().size()).sum());
+            relatorio.getMesasAtendidas().stream()
+                    .map(RelatorioMesaDTO::getPedidos).flatMap(List::stream)
+                    .forEach(p -> assertEquals(ITENS_POR_PEDIDO, p.getItens().size()));
+        }
+
+        ContadorComandos.assertNaoVariaComVolume(consultasPorVolume, "Consultas do relatório");
+        assertEquals(2L, consultasPorVolume.get(40), "Esperado totais agregados + detalhamento: " + consultasPorVolume);
+    }
+
+    @Test
+    void ignoraPedidosNaoPagos() {
+        Long restauranteId = prepararDia(4);
+        Restaurante restaurante = restauranteRepository.findById(restauranteId).orElseThrow();
+        Pedido emAberto = novoPedido(restaurante, TipoPedido.MESA, null);
+        emAberto.setTotal(new BigDecimal("999.00"));
+        pedidoRepository.save(emAberto);
+
+        RelatorioDiarioDTO relatorio = relatorioService.gerarRelatorio(restauranteId, LocalDate.now());
+
+        assertEquals(0, new BigDecimal("120.00").compareTo(relatorio.getFaturamentoTotal()));
+        assertEquals(2, relatorio.getMesasAtendidas().stream().mapToInt(m -> m.getPedidos().size()).sum());
+    }
+
+    private Long prepararDia(int quantidadePedidos) {
+        Restaurante restaurante = new Restaurante("Relatório", "relatorio-" + UUID.randomUUID() + "@teste.com", "x");
+        restaurante = restauranteRepository.save(restaurante);
+        Categoria categoria = categoriaRepository.save(new Categoria("Pratos", restaurante));
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < ITENS_POR_PEDIDO; i++) {
+            Produto produto = new Produto("Produto " + i, "", new BigDecimal("10.00"), categoria);
+            produto.setRestaurante(restaurante);
+            produtos.add(produtoRepository.save(produto));
+        }
+        List<Mesa> mesas = new ArrayList<>();
+        for (int numero = 1; numero <= 3; numero++) {
+            Mesa mesa = new Mesa(numero, StatusMesa.PAGA, BigDecimal.ZERO, null);
+            mesa.setRestaurante(restaurante);
+            mesas.add(mesaRepository.save(mesa));
+        }
+
+        for (int i = 0; i < quantidadePedidos; i++) {
+            boolean delivery = i % 2 == 1;
+            Pedido pedido = novoPedido(restaurante, delivery ? TipoPedido.DELIVERY : TipoPedido.MESA,
+                    delivery ? TipoPagamento.DINHEIRO : TipoPagamento.PIX);
+            if (!delivery) {
+                pedido.setMesa(mesas.get(i % mesas.size()));
+            }
+            BigDecimal total = BigDecimal.ZERO;
+            for (Produto produto : produtos) {
+                pedido.getItens().add(new ItemPedido(pedido, produto, 2, produto.getPreco()));
+                total = total.add(produto.getPreco().multiply(BigDecimal.valueOf(2)));
+            }
+            pedido.setTotal(total);
+            pedidoRepository.save(pedido);
+        }
+        return restaurante.getId();
+    }
+
+    private Pedido novoPedido(Restaurante restaurante, TipoPedido tipo, TipoPagamento tipoPagamento) {
+        Pedido pedido = new Pedido();
+        pedido.setRestaurante(restaurante);
+        pedido.setTipo(tipo);
+        pedido.setStatus(StatusPedido.FINALIZADO);
+        pedido.setTipoPagamento(tipoPagamento);
+        pedido.setDataHora(LocalDateTime.now());
+        pedido.setItens(new ArrayList<>());
+        return pedido;
+    }
+}
@@ -0,0 +1,199 @@
+package br.com.frevonamesa.frevonamesa.service;
+
+import br.com.frevonamesa.frevonamesa.config.StripeInboxDispatcher;
+import br.com.frevonamesa.frevonamesa.model.StatusEventoStripe;
+import br.com.frevonamesa.frevonamesa.model.StripeEventoInbox;
+import br.com.frevonamesa.frevonamesa.repository.StripeEventoInboxRepository;
+import com.stripe.exception.SignatureVerificationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Inbox dos webhooks do Stripe: reenvios do mesmo evento são descartados, a assinatura é conferida
+ * antes de gravar e um evento com falha segura os seguintes do mesmo cliente sem travar os demais,
+ * mesmo com mais de um lote de clientes em backoff na frente. Um evento reservado por outra instância
+ * não é processado de novo.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StripeInboxServiceTests {
+
+    @Autowired private StripeInboxService stripeInboxService;
+    @Autowired private StripeEventoInboxRepository stripeEventoInboxRepository;
+    @Autowired private StripeInboxDispatcher stripeInboxDispatcher;
+
+    @Value("${stripe.webhook-secret}")
+    private String webhookSecret;
+
+    @Test
+    void reenvioDoMesmoEventoNaoDuplica() throws Exception {
+        String id = "evt_" + System.nanoTime();
+        String payload = evento(id, "invoice.paid", 1000, "{\"id\": \"in_1\", \"object\": \"invoice\", \"customer\": \"cus_reenvio\"}");
+
+        assertThrows(SignatureVerificationException.class, () -> stripeInboxService.registrar(payload, "t=1,v1=00"));
+        assertFalse(stripeEventoInboxRepository.existsById(id));
+
+        assertTrue(stripeInboxService.registrar(payload, assinar(payload)));
+        assertFalse(stripeInboxService.registrar(payload, assinar(payload)));
+        assertEquals("cus_reenvio", stripeEventoInboxRepository.findById(id).orElseThrow().getChaveOrdenacao());
+
+        assertEquals(StatusEventoStripe.PROCESSADO, aguardarProcessamento(id).getStatus());
+    }
+
+    @Test
+    void eventoComFalhaSeguraOsSeguintesDoMesmoCliente() throws Exception {
+        String sufixo = Long.toString(System.nanoTime());
+        String cliente = "cus_" + sufixo;
+        // Restaurante inexistente: o processamento falha e o evento volta para a fila com backoff
+        String falha = registrar("evt_falha_" + sufixo, "checkout.session.completed", 1000,
+                "{\"id\": \"cs_1\", \"object\": \"checkout.session\", \"customer\": \"" + cliente + "\", \"metadata\": {\"restauranteId\": \"999999\"}}");
+        String seguinte = registrar("evt_seguinte_" + sufixo, "invoice.paid", 1001,
+                "{\"id\": \"in_2\", \"object\": \"invoice\", \"customer\": \"" + cliente + "\"}");
+        String outroCliente = registrar("evt_outro_" + sufixo, "invoice.paid", 1002,
+                "{\"id\": \"in_3\", \"object\": \"invoice\", \"customer\": \"cus_outro_" + sufixo + "\"}");
+
+        try {
+            assertEquals(StatusEventoStripe.PROCESSADO, aguardarProcessamento(outroCliente).getStatus());
+            StripeEventoInbox comFalha = aguardarTentativa(falha);
+            assertEquals(StatusEventoStripe.PENDENTE, comFalha.getStatus());
+            assertTrue(comFalha.getTentativas() >= 1);
+            assertNotNull(comFalha.getUltimoErro());
+            StripeEventoInbox bloqueado = stripeEventoInboxRepository.findById(seguinte).orElseThrow();
+            assertEquals(StatusEventoStripe.PENDENTE, bloqueado.getStatus());
+            assertEquals(0, bloqueado.getTentativas());
+        } finally {
+            // Sem pendências agendadas: as novas tentativas não rodam no meio de outros testes
+            stripeEventoInboxRepository.deleteAllByIdInBatch(List.of(falha, seguinte, outroCliente));
+            stripeInboxDispatcher.verificarPendentes();
+        }
+    }
+
+    @Test
+    void clientesEmBackoffNaoSeguramOsEventosDosDemais() throws Exception {
+        String sufixo = Long.toString(System.nanoTime());
+        LocalDateTime agora = LocalDateTime.now();
+        // Mais de um lote de eventos antigos aguardando nova tentativa, cada um de um cliente
+        List<StripeEventoInbox> bloqueados = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            bloqueados.add(eventoPendente("evt_backoff_" + i + "_" + sufixo, "cus_backoff_" + i + "_" + sufixo, 100 + i, agora.plusHours(1)));
+        }
+        // Vencido, mas atrás de um evento do mesmo cliente em backoff
+        bloqueados.add(eventoPendente("evt_seguinte_" + sufixo, "cus_backoff_0_" + sufixo, 500, agora));
+        stripeEventoInboxRepository.saveAll(bloqueados);
+        List<String> ids = new ArrayList<>(bloqueados.stream().map(StripeEventoInbox::getId).toList());
+
+        try {
+            String processavel = registrar("evt_processavel_" + sufixo, "invoice.paid", 1000,
+                    "{\"id\": \"in_4\", \"object\": \"invoice\", \"customer\": \"cus_livre_" + sufixo + "\"}");
+            ids.add(processavel);
+
+            assertEquals(StatusEventoStripe.PROCESSADO, aguardarProcessamento(processavel).getStatus());
+            StripeEventoInbox seguinte = stripeEventoInboxRepository.findById("evt_seguinte_" + sufixo).orElseThrow();
+            assertEquals(StatusEventoStripe.PENDENTE, seguinte.getStatus());
+            assertEquals(0, seguinte.getTentativas());
+        } finally {
+            stripeEventoInboxRepository.deleteAllByIdInBatch(ids);
+            stripeInboxDispatcher.verificarPendentes();
+        }
+    }
+
+    @Test
+    void eventoReservadoPorOutraInstanciaNaoEProcessadoDeNovo() throws Exception {
+        String sufixo = Long.toString(System.nanoTime());
+        String cliente = "cus_reservado_" + sufixo;
+        LocalDateTime agora = LocalDateTime.now();
+        StripeEventoInbox reservado = eventoPendente("evt_reservado_" + sufixo, cliente, 100, agora.minusSeconds(1));
+        stripeEventoInboxRepository.save(reservado);
+        List<String> ids = new ArrayList<>(List.of(reservado.getId()));
+
+        try {
+            // Outra instância reserva o evento; uma segunda reserva do mesmo evento não passa
+            assertEquals(1, stripeEventoInboxRepository.reservar(reservado.getId(), StatusEventoStripe.PENDENTE, agora, agora.plusMinutes(5)));
+            assertEquals(0, stripeEventoInboxRepository.reservar(reservado.getId(), StatusEventoStripe.PENDENTE, agora, agora.plusMinutes(5)));
+
+            String seguinte = registrar("evt_seguinte_" + sufixo, "invoice.paid", 1000,
+                    "{\"id\": \"in_5\", \"object\": \"invoice\", \"customer\": \"" + cliente + "\"}");
+            ids.add(seguinte);
+            String outroCliente = registrar("evt_outro_" + sufixo, "invoice.paid", 1001,
+                    "{\"id\": \"in_6\", \"object\": \"invoice\", \"customer\": \"cus_outro_" + sufixo + "\"}");
+            ids.add(outroCliente);
+
+            assertEquals(StatusEventoStripe.PROCESSADO, aguardarProcessamento(outroCliente).getStatus());
+            StripeEventoInbox comReserva = stripeEventoInboxRepository.findById(reservado.getId()).orElseThrow();
+            assertEquals(StatusEventoStripe.PENDENTE, comReserva.getStatus());
+            assertEquals(0, comReserva.getTentativas());
+            assertEquals(StatusEventoStripe.PENDENTE, stripeEventoInboxRepository.findById(seguinte).orElseThrow().getStatus());
+        } finally {
+            stripeEventoInboxRepository.deleteAllByIdInBatch(ids);
+            stripeInboxDispatcher.verificarPendentes();
+        }
+    }
+
+    private String registrar(String id, String tipo, long criado, String objeto) throws Exception {
+        String payload = evento(id, tipo, criado, objeto);
+        assertTrue(stripeInboxService.registrar(payload, assinar(payload)));
+        return id;
+    }
+
+    private static StripeEventoInbox eventoPendente(String id, String cliente, long criado, LocalDateTime proximaTentativa) {
+        StripeEventoInbox evento = new StripeEventoInbox();
+        evento.setId(id);
+        evento.setTipo("invoice.paid");
+        evento.setChaveOrdenacao(cliente);
+        evento.setCriadoStripe(criado);
+        evento.setPayload(evento(id, "invoice.paid", criado, "{\"id\": \"in_0\", \"object\": \"invoice\", \"customer\": \"" + cliente + "\"}"));
+        evento.setRecebidoEm(proximaTentativa.minusMinutes(1));
+        evento.setProximaTentativa(proximaTentativa);
+        return evento;
+    }
+
+    private StripeEventoInbox aguardarProcessamento(String id) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            StripeEventoInbox evento = stripeEventoInboxRepository.findById(id).orElseThrow();
+            if (evento.getStatus() != StatusEventoStripe.PENDENTE) {
+                return evento;
+            }
+            Thread.sleep(100);
+        }
+        fail("Evento " + id + " não foi processado");
+        return null;
+    }
+
+    // O outro cliente pode terminar antes de a falha ser gravada
+    private StripeEventoInbox aguardarTentativa(String id) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            StripeEventoInbox evento = stripeEventoInboxRepository.findById(id).orElseThrow();
+            if (evento.getTentativas() > 0) {
+                return evento;
+            }
+            Thread.sleep(100);
+        }
+        fail("Falha do evento " + id + " não foi registrada");
+        return null;
+    }
+
+    private static String evento(String id, String tipo, long criado, String objeto) {
+        return "{\"id\": \"" + id + "\", \"object\": \"event\", \"created\": " + criado
+                + ", \"type\": \"" + tipo + "\", \"data\": {\"object\": " + objeto + "}}";
+    }
+
+    private String assinar(String payload) throws Exception {
+        long timestamp = System.currentTimeMillis() / 1000;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8)));
+    }
+}
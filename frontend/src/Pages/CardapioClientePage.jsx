@@ -80,6 +80,7 @@ const CardapioClientePage = () => {
 
     // Estados para frete
     const [taxaEntrega, setTaxaEntrega] = useState(0);
+    const [cotacaoFrete, setCotacaoFrete] = useState(null); // Token da cotação, reenviado no pedido
     const [statusFrete, setStatusFrete] = useState('Aguardando CEP');
     const [loadingFrete, setLoadingFrete] = useState(false); // Loading para o cálculo
     const [loadingPedido, setLoadingPedido] = useState(false); // Loading para envio do pedido
@@ -178,6 +179,7 @@ const CardapioClientePage = () => {
         // Reseta taxa se Haversine ativo e CEP mudou
         if (name === 'cepCliente' && isHaversineAtivo) {
             setTaxaEntrega(-3.00); // -3 indica que precisa calcular
+            setCotacaoFrete(null);
             setStatusFrete('CEP alterado, recalcule o frete');
         }
     };
@@ -195,6 +197,7 @@ const CardapioClientePage = () => {
         }
 
         setLoadingFrete(true);
+        setCotacaoFrete(null);
         setStatusFrete('Calculando...');
         try {
             // Chama o endpoint de cálculo de frete
@@ -202,6 +205,7 @@ const CardapioClientePage = () => {
             const taxa = response.taxaEntrega; // O backend retorna a taxa correta
 
             setTaxaEntrega(taxa);
+            setCotacaoFrete(response.cotacaoFrete || null); // Se vencer, o backend recalcula no pedido
             setStatusFrete(`Entrega: R$ ${taxa.toFixed(2).replace('.', ',')}`);
             toast.success("Taxa de entrega calculada!");
 
@@ -283,6 +287,7 @@ const CardapioClientePage = () => {
             enderecoCliente: dadosCliente.enderecoCliente,
             pontoReferencia: dadosCliente.pontoReferencia,
             cepCliente: dadosCliente.cepCliente, // Sempre envia o CEP
+            cotacaoFrete: cotacaoFrete, // Evita recalcular o frete no backend
             itens: carrinho.map(item => ({
                 produtoId: item.produtoId, // Usa o ID real do produto
                 quantidade: item.quantidade,
@@ -4,6 +4,7 @@ import { toast } from 'react-toastify';
 import PainelDelivery from '../components/PainelDelivery';
 import PedidoDetalhesModal from '../components/PedidoDetalhesModal';
 import apiClient from '../services/apiClient';
+import { abrirStreamDelivery } from '../services/deliveryStream';
 import { useAuth } from '../contexts/AuthContext';
 import UpgradeModal from '../components/UpgradeModal'; 
 
@@ -42,19 +43,52 @@ const DeliveryPage = () => {
     }
   };
 
-  useEffect(() => {
-    if (userProfile) {
-        fetchPedidos();
+  // Colunas do kanban; pedidos retidos aparecem na coluna PENDENTE (igual ao backend)
+  const COLUNAS_KANBAN = ['PENDENTE', 'EM_PREPARO', 'PRONTO_PARA_ENTREGA'];
+
+  const aplicarPedidoNoKanban = (atual, pedido) => {
+    const novo = {};
+    for (const [status, lista] of Object.entries(atual)) {
+      novo[status] = lista.filter(p => p.id !== pedido.id);
+    }
+    const coluna = pedido.status === 'AGUARDANDO_PGTO_LIMITE' ? 'PENDENTE' : pedido.status;
+    if (COLUNAS_KANBAN.includes(coluna)) {
+      novo[coluna] = [...(novo[coluna] || []), pedido]
+        .sort((a, b) => new Date(a.dataHora) - new Date(b.dataHora));
+    }
+    return novo;
+  };
+
+  const handleEventoDelivery = (evento, dados) => {
+    if (evento === 'snapshot') {
+      setPedidos(dados.pedidos);
+      setPedidosFinalizados(dados.finalizados);
+      setLoading(false);
+      return;
+    }
+    setPedidos(atual => aplicarPedidoNoKanban(atual, dados));
+    if (dados.status === 'FINALIZADO') {
+      setPedidosFinalizados(atual => [dados, ...atual.filter(p => p.id !== dados.id)].slice(0, 10));
+    }
+    if (evento === 'pedido-criado') {
+      toast.info(`Novo pedido #${dados.id}`);
     }
-    const interval = setInterval(fetchPedidos, 15000);
-    return () => clearInterval(interval);
+  };
+
+  // Atualização em tempo real via SSE (substitui o polling de 15s)
+  useEffect(() => {
+    if (!userProfile) return;
+    const fecharStream = abrirStreamDelivery({
+      onEvento: handleEventoDelivery,
+      onErro: (error) => console.error('Stream do painel de delivery interrompido:', error),
+    });
+    return fecharStream;
   }, [userProfile]);
   
   const handleStatusChange = async (pedidoId, novoStatus) => {
     try {
       await apiClient.patch(`/api/pedidos/delivery/${pedidoId}/status`, { status: novoStatus });
       toast.success('Status do pedido atualizado!');
-      fetchPedidos();
     } catch (error) {
       toast.error(error.message || 'Erro ao atualizar status do pedido');
     }
@@ -88,7 +122,6 @@ const DeliveryPage = () => {
       // Endpoint antigo 'imprimir' agora só marca o pedido, não muda o status
       await apiClient.patch(`/api/pedidos/delivery/${pedido.id}/imprimir`);
       toast.success(`Pedido #${pedido.id} marcado como impresso.`);
-      fetchPedidos(); // Atualiza para mostrar o botão de imprimir desativado
     } catch (error) {
       toast.error("Não foi possível marcar o pedido como impresso.");
     }
@@ -1,7 +1,7 @@
 import React, { useState, useEffect } from 'react';
 import { useParams } from 'react-router-dom';
 import { FaCheckCircle, FaClipboardCheck, FaUtensils, FaMotorcycle } from 'react-icons/fa';
-import apiClient from '../services/apiClient';
+import { acompanharPedido } from '../services/rastreioPedido';
 
 const RastrearPedidoPage = () => {
   const { uuid } = useParams(); // CORRIGIDO: Use `uuid` do parâmetro
@@ -10,23 +10,21 @@ const RastrearPedidoPage = () => {
   const [error, setError] = useState(null);
 
   useEffect(() => {
-    const fetchPedido = async () => {
-      try {
-        // CORREÇÃO AQUI: Use o endpoint público correto com o UUID
-        const response = await apiClient.get(`/api/publico/pedido/${uuid}/rastrear`);
-        setPedido(response); // ATUALIZADO: a resposta do apiClient já é o dado, não response.data
-      } catch (err) {
-        setError('Não foi possível carregar o pedido.');
+    // Estado atual + long-poll: só recebe resposta quando o status do pedido muda
+    const encerrar = acompanharPedido(uuid, {
+      onAtualizacao: (dados) => {
+        setPedido(dados);
+        setError(null);
+        setLoading(false);
+      },
+      onErro: (err) => {
         console.error(err);
-      } finally {
+        setError((atual) => atual ?? 'Não foi possível carregar o pedido.');
         setLoading(false);
-      }
-    };
-
-    fetchPedido();
-    const interval = setInterval(fetchPedido, 5000);
+      },
+    });
 
-    return () => clearInterval(interval);
+    return encerrar;
   }, [uuid]); // ATUALIZADO: o useEffect depende do `uuid`
 
   if (loading) {
@@ -61,6 +59,9 @@ const RastrearPedidoPage = () => {
   ];
 
   const statusIndex = steps.findIndex(step => step.status === pedido.status);
+  const previsao = pedido.previsaoEntrega
+    ? new Date(pedido.previsaoEntrega).toLocaleTimeString('pt-BR', { hour: '2-digit', minute: '2-digit' })
+    : null;
 
   return (
     <div className="min-h-screen bg-gray-100 dark:bg-tema-fundo-dark p-4 md:p-8">
@@ -72,6 +73,11 @@ const RastrearPedidoPage = () => {
           <h2 className="text-xl font-semibold text-tema-text dark:text-tema-text-dark">
             Status do Pedido
           </h2>
+          {previsao && (
+            <span className="text-sm text-gray-600 dark:text-gray-300">
+              Previsão de entrega: <strong>{previsao}</strong>
+            </span>
+          )}
         </div>
         <div className="flex justify-between items-start space-x-2 md:space-x-4 mb-8">
           {steps.map((step, index) => (
@@ -105,8 +111,8 @@ const RastrearPedidoPage = () => {
           </p>
           <ul className="list-disc list-inside ml-4 mt-2 text-gray-600 dark:text-gray-300">
             {pedido.itens.map((item, index) => (
-              <li key={item.id}>
-                {item.quantidade} x {item.produto.nome}
+              <li key={index}>
+                {item.quantidade} x {item.nome}
                 {item.observacao && (
                   <span className="text-sm italic ml-2">
                     (Obs: {item.observacao})
@@ -0,0 +1,82 @@
+// frontend/src/services/deliveryStream.js
+
+const API_URL = import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080';
+
+// Stream SSE do painel de delivery.
+// Usa fetch em vez de EventSource porque o EventSource não permite enviar o cabeçalho Authorization.
+// Reconecta sozinho com backoff, enviando o Last-Event-ID para receber só os eventos perdidos.
+export const abrirStreamDelivery = ({ onEvento, onErro }) => {
+    let lastEventId = null;
+    let controller = null;
+    let fechado = false;
+    let espera = 1000;
+
+    const processarBloco = (bloco) => {
+        let id = null;
+        let evento = 'message';
+        const dados = [];
+        for (const linha of bloco.split('\n')) {
+            if (!linha || linha.startsWith(':')) continue; // Comentário (heartbeat)
+            const separador = linha.indexOf(':');
+            const campo = separador === -1 ? linha : linha.slice(0, separador);
+            const valor = separador === -1 ? '' : linha.slice(separador + 1).replace(/^ /, '');
+            if (campo === 'id') id = valor;
+            else if (campo === 'event') evento = valor;
+            else if (campo === 'data') dados.push(valor);
+        }
+        if (id) lastEventId = id;
+        if (dados.length > 0) {
+            onEvento(evento, JSON.parse(dados.join('\n')));
+        }
+    };
+
+    const conectar = async () => {
+        controller = new AbortController();
+        const headers = { 'Accept': 'text/event-stream' };
+        const token = localStorage.getItem('authToken');
+        if (token) headers['Authorization'] = `Bearer ${token}`;
+        if (lastEventId) headers['Last-Event-ID'] = lastEventId;
+
+        try {
+            const response = await fetch(`${API_URL}/api/pedidos/delivery/stream`, { headers, signal: controller.signal });
+            if (response.status === 401 || response.status === 403) {
+                fechado = true; // Sessão expirada: não adianta reconectar
+                throw new Error('Sessão expirada');
+            }
+            if (!response.ok || !response.body) {
+                throw new Error(`Erro HTTP: ${response.status}`);
+            }
+            espera = 1000;
+
+            const reader = response.body.getReader();
+            const decoder = new TextDecoder();
+            let buffer = '';
+            while (true) {
+                const { value, done } = await reader.read();
+                if (done) break;
+                buffer += decoder.decode(value, { stream: true }).replace(/\r\n?/g, '\n');
+                let fim;
+                while ((fim = buffer.indexOf('\n\n')) !== -1) {
+                    processarBloco(buffer.slice(0, fim));
+                    buffer = buffer.slice(fim + 2);
+                }
+            }
+        } catch (error) {
+            if (controller.signal.aborted) return;
+            if (onErro) onErro(error);
+        }
+
+        if (!fechado) {
+            setTimeout(conectar, espera);
+            espera = Math.min(espera * 2, 30000);
+        }
+    };
+
+    conectar();
+
+    // Função para encerrar o stream (usar no cleanup do useEffect)
+    return () => {
+        fechado = true;
+        if (controller) controller.abort();
+    };
+};
@@ -0,0 +1,58 @@
+// frontend/src/services/rastreioPedido.js
+
+const API_URL = import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080';
+
+// Acompanha o rastreio público de um pedido.
+// Busca o estado atual e depois fica em long-poll (/rastrear/aguardar) enviando o ETag recebido:
+// o servidor só responde com corpo quando o status muda (304 quando nada mudou no intervalo).
+export const acompanharPedido = (uuid, { onAtualizacao, onErro }) => {
+    let etag = null;
+    let controller = null;
+    let fechado = false;
+    let espera = 2000;
+
+    const buscar = async (endpoint) => {
+        controller = new AbortController();
+        const headers = {};
+        if (etag) headers['If-None-Match'] = etag;
+        const response = await fetch(`${API_URL}/api/publico/pedido/${uuid}/${endpoint}`, { headers, signal: controller.signal });
+        if (response.status === 304) return;
+        if (response.status === 404) {
+            fechado = true; // Pedido inexistente: não adianta continuar
+            onAtualizacao(null);
+            return;
+        }
+        if (!response.ok) {
+            throw new Error(`Erro HTTP: ${response.status}`);
+        }
+        etag = response.headers.get('ETag');
+        const pedido = await response.json();
+        if (pedido.status === 'FINALIZADO') fechado = true; // Nada mais vai mudar
+        onAtualizacao(pedido);
+    };
+
+    const acompanhar = async () => {
+        try {
+            await buscar('rastrear');
+            while (!fechado) {
+                await buscar('rastrear/aguardar');
+                espera = 2000;
+            }
+        } catch (error) {
+            if (controller && controller.signal.aborted) return;
+            if (onErro) onErro(error);
+            if (!fechado) {
+                setTimeout(acompanhar, espera);
+                espera = Math.min(espera * 2, 30000);
+            }
+        }
+    };
+
+    acompanhar();
+
+    // Função para encerrar o acompanhamento (usar no cleanup do useEffect)
+    return () => {
+        fechado = true;
+        if (controller) controller.abort();
+    };
+};